@@ -0,0 +1,53 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Delay of the fetch tasks of a source that adapts to the rate of the ref updates of their URI.
+ *
+ * <p>A task is debounced instead of waiting for the fixed {@code remote.NAME.replicationDelay}: it
+ * runs once no new ref has been merged into it for {@code remote.NAME.replicationQuietPeriod}, so
+ * that an isolated update is fetched quickly, while a burst of updates keeps it waiting and merging
+ * the new refs, up to {@code remote.NAME.replicationMaxDelay} since it was created.
+ */
+class AdaptiveReplicationDelay {
+  private final long quietPeriodMs;
+  private final long maxDelayMs;
+
+  AdaptiveReplicationDelay(SourceConfiguration config) {
+    this(config.getReplicationQuietPeriod(), config.getReplicationMaxDelay());
+  }
+
+  @VisibleForTesting
+  AdaptiveReplicationDelay(long quietPeriodMs, long maxDelayMs) {
+    this.quietPeriodMs = quietPeriodMs;
+    this.maxDelayMs = Math.max(quietPeriodMs, maxDelayMs);
+  }
+
+  /** Delay of a new task before checking whether new refs have been merged into it. */
+  long initialDelayMs() {
+    return quietPeriodMs;
+  }
+
+  /**
+   * Compute how long a task should still wait.
+   *
+   * @param waitedMs the time elapsed since the task was created.
+   * @param quietMs the time elapsed since the last ref was merged into the task.
+   * @return the remaining delay in milliseconds, zero when the task should run now.
+   */
+  long remainingDelayMs(long waitedMs, long quietMs) {
+    return Math.max(0, Math.min(quietPeriodMs - quietMs, maxDelayMs - waitedMs));
+  }
+}
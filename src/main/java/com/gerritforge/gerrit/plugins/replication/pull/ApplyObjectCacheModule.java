@@ -17,10 +17,13 @@ import java.time.Duration;
 public class ApplyObjectCacheModule extends CacheModule {
   public static final String APPLY_OBJECTS_CACHE = "apply_objects";
   public static final Duration APPLY_OBJECTS_CACHE_MAX_AGE = Duration.ofMinutes(1);
+  public static final long APPLY_OBJECTS_CACHE_MEMORY_LIMIT = 1024 * 1024;
 
   @Override
   protected void configure() {
     cache(APPLY_OBJECTS_CACHE, ApplyObjectsCacheKey.class, Long.class)
-        .expireAfterWrite(APPLY_OBJECTS_CACHE_MAX_AGE);
+        .expireAfterWrite(APPLY_OBJECTS_CACHE_MAX_AGE)
+        .maximumWeight(APPLY_OBJECTS_CACHE_MEMORY_LIMIT)
+        .weigher(ApplyObjectsCacheWeigher.class);
   }
 }
@@ -13,6 +13,7 @@ package com.gerritforge.gerrit.plugins.replication.pull;
 
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Counter1;
 import com.google.gerrit.metrics.Description;
 import com.google.gerrit.metrics.Field;
 import com.google.gerrit.metrics.MetricMaker;
@@ -27,6 +28,14 @@ public class ApplyObjectMetrics {
   private final Timer1<String> end2EndTime;
 
   private final Counter0 maxApiPayloadSizeReachedCounter;
+  private final Counter1<String> retriesCounter;
+  private final Counter1<String> fallbacksToFetchCounter;
+  private final Counter0 skippedObjectsCounter;
+  private final Counter0 skippedBytesCounter;
+  private final Counter0 duplicatesCounter;
+  private final Counter0 cacheHitsCounter;
+  private final Counter0 cacheMissesCounter;
+  private final Counter0 cacheOutdatedCounter;
 
   @Inject
   ApplyObjectMetrics(@PluginName String pluginName, MetricMaker metricMaker) {
@@ -60,6 +69,59 @@ public class ApplyObjectMetrics {
                     "Number of apply object operation with payload larger than maxApiPayloadSize")
                 .setRate()
                 .setUnit("errors"));
+    retriesCounter =
+        metricMaker.newCounter(
+            "apply_object_retries",
+            new Description("Number of apply object calls retried after a transient failure")
+                .setRate()
+                .setUnit("retries"),
+            field);
+    fallbacksToFetchCounter =
+        metricMaker.newCounter(
+            "apply_object_fallback_to_fetch",
+            new Description("Number of apply object calls that did fallback to a git fetch")
+                .setRate()
+                .setUnit("fallbacks"),
+            field);
+    skippedObjectsCounter =
+        metricMaker.newCounter(
+            "apply_object_skipped_objects",
+            new Description("Number of received objects not inserted because already present")
+                .setRate()
+                .setUnit("objects"));
+    skippedBytesCounter =
+        metricMaker.newCounter(
+            "apply_object_skipped_bytes",
+            new Description("Size of the received objects not inserted because already present")
+                .setRate()
+                .setUnit(Description.Units.BYTES));
+    duplicatesCounter =
+        metricMaker.newCounter(
+            "apply_object_duplicates",
+            new Description(
+                    "Number of apply object calls identical to one already applied or in progress")
+                .setRate()
+                .setUnit("calls"));
+    cacheHitsCounter =
+        metricMaker.newCounter(
+            "apply_objects_cache_hits",
+            new Description(
+                    "Number of ref-updated events skipped because already applied via apply object")
+                .setRate()
+                .setUnit("events"));
+    cacheMissesCounter =
+        metricMaker.newCounter(
+            "apply_objects_cache_misses",
+            new Description("Number of ref-updated events not found in the apply objects cache")
+                .setRate()
+                .setUnit("events"));
+    cacheOutdatedCounter =
+        metricMaker.newCounter(
+            "apply_objects_cache_outdated",
+            new Description(
+                    "Number of ref-updated events newer than their apply objects cache entry")
+                .setRate()
+                .setUnit("events"));
   }
 
   /**
@@ -86,4 +148,59 @@ public class ApplyObjectMetrics {
   public void incrementMaxPayloadSizeReached() {
     maxApiPayloadSizeReachedCounter.increment();
   }
+
+  /**
+   * Increment metric when an apply object call is retried after a transient failure.
+   *
+   * @param name the source name.
+   */
+  public void incrementRetries(String name) {
+    retriesCounter.increment(name);
+  }
+
+  /**
+   * Increment metric when an apply object call falls back to a git fetch.
+   *
+   * @param name the source name.
+   */
+  public void incrementFallbacksToFetch(String name) {
+    fallbacksToFetchCounter.increment(name);
+  }
+
+  /**
+   * Increment metrics when received objects are not inserted because already present.
+   *
+   * @param objects the number of objects skipped.
+   * @param bytes the total size of the objects skipped.
+   */
+  public void incrementSkippedObjects(long objects, long bytes) {
+    skippedObjectsCounter.incrementBy(objects);
+    skippedBytesCounter.incrementBy(bytes);
+  }
+
+  /**
+   * Increment metric when an apply object call is identical to one already applied or in progress,
+   * and is therefore not applied again.
+   */
+  public void incrementDuplicates() {
+    duplicatesCounter.increment();
+  }
+
+  /** Increment metric when a ref-updated event is skipped because already applied. */
+  public void incrementApplyObjectsCacheHits() {
+    cacheHitsCounter.increment();
+  }
+
+  /** Increment metric when a ref-updated event is not found in the apply objects cache. */
+  public void incrementApplyObjectsCacheMisses() {
+    cacheMissesCounter.increment();
+  }
+
+  /**
+   * Increment metric when a ref-updated event is found in the apply objects cache, but is newer
+   * than the apply object that populated it, and is therefore not skipped.
+   */
+  public void incrementApplyObjectsCacheOutdated() {
+    cacheOutdatedCounter.increment();
+  }
 }
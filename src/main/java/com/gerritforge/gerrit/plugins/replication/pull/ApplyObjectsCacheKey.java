@@ -12,15 +12,32 @@
 package com.gerritforge.gerrit.plugins.replication.pull;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
 
+/**
+ * Key of the {@code apply_objects} cache.
+ *
+ * <p>The object id is kept in its binary form and the project name is interned, so that the many
+ * keys of the same project share its name. The ref names are not interned, since most of them, such
+ * as the change refs, are updated only a few times and would just grow the interner.
+ */
 @AutoValue
 public abstract class ApplyObjectsCacheKey {
+  private static final Interner<String> PROJECT_NAMES = Interners.newWeakInterner();
 
   public static ApplyObjectsCacheKey create(String objectId, String refName, String project) {
-    return new AutoValue_ApplyObjectsCacheKey(objectId, refName, project);
+    return create(ObjectId.fromString(objectId), refName, project);
   }
 
-  public abstract String objectId();
+  public static ApplyObjectsCacheKey create(AnyObjectId objectId, String refName, String project) {
+    return new AutoValue_ApplyObjectsCacheKey(
+        objectId.toObjectId(), refName, PROJECT_NAMES.intern(project));
+  }
+
+  public abstract ObjectId objectId();
 
   public abstract String refName();
 
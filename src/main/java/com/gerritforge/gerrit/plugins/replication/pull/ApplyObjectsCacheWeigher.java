@@ -0,0 +1,30 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.common.cache.Weigher;
+
+/**
+ * Approximate size in bytes of an entry of the {@code apply_objects} cache.
+ *
+ * <p>The interned project name is shared across the entries and is not accounted, whilst the ref
+ * name is, because it is mostly unique to the entry for the change refs.
+ */
+public class ApplyObjectsCacheWeigher implements Weigher<ApplyObjectsCacheKey, Long> {
+  /** Key, binary object id, boxed timestamp and cache entry overhead. */
+  static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  @Override
+  public int weigh(ApplyObjectsCacheKey key, Long timestamp) {
+    return ENTRY_OVERHEAD_BYTES + key.refName().length();
+  }
+}
@@ -100,10 +100,12 @@ public class FetchOne implements ProjectRunnable, CanceledWhileRunning, Completa
   private boolean canceled;
   private final ListMultimap<FetchRefSpec, ReplicationState> stateMap = LinkedListMultimap.create();
   private final int maxLockRetries;
+  private final int refsCompactionThreshold;
   private int lockRetryCount;
   private final int id;
   private String taskIdHex;
   private final long createdAt;
+  private volatile long lastRefAddedAt;
   private final FetchReplicationMetrics metrics;
   private final AtomicBoolean canceledWhileRunning;
   private final FetchFactory fetchFactory;
@@ -139,10 +141,12 @@ public class FetchOne implements ProjectRunnable, CanceledWhileRunning, Completa
     uri = u;
     lockRetryCount = 0;
     maxLockRetries = pool.getLockErrorMaxRetries();
+    refsCompactionThreshold = c.getRefsCompactionThreshold();
     id = ig.next();
     taskIdHex = HexFormat.fromInt(id);
     stateLog = sl;
     createdAt = System.nanoTime();
+    lastRefAddedAt = createdAt;
     metrics = m;
     canceledWhileRunning = new AtomicBoolean(false);
     this.fetchFactory = fetchFactory;
@@ -204,6 +208,20 @@ public class FetchOne implements ProjectRunnable, CanceledWhileRunning, Completa
     return retrying;
   }
 
+  int getRetryCount() {
+    return retryCount;
+  }
+
+  /** Time when the task was created, from {@link System#nanoTime()}. */
+  long getCreatedAt() {
+    return createdAt;
+  }
+
+  /** Time when the last ref was added to the task, from {@link System#nanoTime()}. */
+  long getLastRefAddedAt() {
+    return lastRefAddedAt;
+  }
+
   boolean setToRetry() {
     retrying = true;
     retryCount++;
@@ -223,6 +241,7 @@ public class FetchOne implements ProjectRunnable, CanceledWhileRunning, Completa
   }
 
   void addRef(FetchRefSpec ref) {
+    lastRefAddedAt = System.nanoTime();
     if (ref.equalsToRef(ALL_REFS)) {
       delta.clear();
       fetchAllRefs = true;
@@ -514,7 +533,34 @@ public class FetchOne implements ProjectRunnable, CanceledWhileRunning, Completa
         List<FetchRefSpec> toFetch =
             fetchRefSpecs.stream().filter(rs -> rs.getSource() != null).toList();
         Set<String> toDelete = refsToDelete(fetchRefSpecs);
-        updateStates(fetch.fetch(toFetch));
+        // The refs of a wildcard refspec are not filtered nor locked by the replication fetch
+        // filter, therefore they are compacted only when there is no filter.
+        FetchRefSpecsCompaction compaction =
+            FetchRefSpecsCompaction.compact(
+                toFetch,
+                config.getFetchRefSpecs(),
+                replicationFetchFilter().isPresent() ? 0 : refsCompactionThreshold,
+                pool::mayExcludeRefsStartingWith);
+        if (compaction.isCompacted()) {
+          repLog.info(
+              "[{}] Compacted {} refs to fetch from {} into {}",
+              taskIdHex,
+              toFetch.size(),
+              uri,
+              compaction.getRefSpecs());
+        }
+        List<RefUpdateState> fetchResults = fetch.fetch(compaction.getRefSpecs());
+        updateStates(compaction.results(fetchResults, git));
+        List<RefUpdateState> unrequestedResults = compaction.unrequestedResults(fetchResults);
+        if (!unrequestedResults.isEmpty()) {
+          repLog.info(
+              "[{}] Fetched {} refs outside the replication task from {}: {}",
+              taskIdHex,
+              unrequestedResults.size(),
+              uri,
+              unrequestedResults);
+          pool.postUnrequestedRefsReplicatedEvents(this, unrequestedResults);
+        }
 
         // JGit doesn't support a fetch of <empty> to a ref (e.g. :refs/to/delete) therefore we have
         // manage them separately and remove them one by one.
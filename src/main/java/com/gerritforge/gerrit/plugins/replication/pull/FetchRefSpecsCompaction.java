@@ -0,0 +1,215 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.gerritforge.gerrit.plugins.replication.pull.fetch.RefUpdateState;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.RefSpec;
+
+/**
+ * Compaction of the refs of a fetch task into the wildcard refspecs of the remote configuration.
+ *
+ * <p>When at least {@code replication.refsCompactionThreshold} refs of a task match the same
+ * configured wildcard refspec, for example thousands of {@code refs/changes/*} updates merged into
+ * one pending task, they are fetched with that refspec in a single negotiation instead of in many
+ * batches of {@code replication.refsBatchSize} refs. The results of the fetch are then mapped back
+ * to the individual refs of the task.
+ *
+ * <p>Only the wildcard refspecs narrower than {@code refs/*} are used, and never the ones that may
+ * fetch refs excluded by {@code replication.excludeRefs}. The refs outside the task that the
+ * wildcard refspec fetches anyway are reported separately, so that they can be notified too.
+ */
+class FetchRefSpecsCompaction {
+  private final ImmutableList<FetchRefSpec> refSpecs;
+  private final ImmutableSet<String> individualRefs;
+  private final ImmutableMap<String, RefSpec> compactedRefs;
+  private final ImmutableMap<String, FetchRefSpec> compactedRefSpecs;
+
+  /**
+   * Compact the refs to fetch.
+   *
+   * @param refSpecs the refspecs of the individual refs to fetch.
+   * @param configRefSpecs the fetch refspecs of the remote configuration.
+   * @param threshold the minimum number of refs matching the same wildcard refspec to compact them,
+   *     zero to never compact them.
+   * @param mayExcludeRefsStartingWith whether some refs starting with a prefix may be excluded from
+   *     the replication.
+   * @return the compaction of the refs.
+   */
+  static FetchRefSpecsCompaction compact(
+      List<FetchRefSpec> refSpecs,
+      List<? extends RefSpec> configRefSpecs,
+      int threshold,
+      Predicate<String> mayExcludeRefsStartingWith) {
+    if (threshold <= 0 || refSpecs.size() < threshold) {
+      return new FetchRefSpecsCompaction(refSpecs, Map.of(), Map.of());
+    }
+
+    List<FetchRefSpec> toFetch = new ArrayList<>();
+    ListMultimap<RefSpec, FetchRefSpec> refSpecsByWildcard = LinkedListMultimap.create();
+    for (FetchRefSpec refSpec : refSpecs) {
+      Optional<? extends RefSpec> wildcard =
+          refSpec.getSource() == null
+              ? Optional.empty()
+              : configRefSpecs.stream()
+                  .filter(configRefSpec -> configRefSpec.matchSource(refSpec.getSource()))
+                  .findFirst()
+                  .filter(
+                      configRefSpec -> isCompactable(configRefSpec, mayExcludeRefsStartingWith));
+      if (wildcard.isPresent()) {
+        refSpecsByWildcard.put(wildcard.get(), refSpec);
+      } else {
+        toFetch.add(refSpec);
+      }
+    }
+
+    Map<String, RefSpec> compactedRefs = new LinkedHashMap<>();
+    Map<String, FetchRefSpec> compactedRefSpecs = new LinkedHashMap<>();
+    for (Map.Entry<RefSpec, Collection<FetchRefSpec>> group :
+        refSpecsByWildcard.asMap().entrySet()) {
+      if (group.getValue().size() < threshold) {
+        toFetch.addAll(group.getValue());
+        continue;
+      }
+      FetchRefSpec wildcard = FetchRefSpec.fromRefSpec(group.getKey());
+      toFetch.add(wildcard);
+      compactedRefSpecs.put(wildcard.getSource(), wildcard);
+      for (FetchRefSpec refSpec : group.getValue()) {
+        compactedRefs.put(refSpec.getSource(), refSpec);
+      }
+    }
+    return new FetchRefSpecsCompaction(toFetch, compactedRefs, compactedRefSpecs);
+  }
+
+  private static boolean isCompactable(
+      RefSpec configRefSpec, Predicate<String> mayExcludeRefsStartingWith) {
+    if (!configRefSpec.isWildcard()) {
+      return false;
+    }
+    String source = configRefSpec.getSource();
+    String prefix = source.substring(0, source.indexOf('*'));
+    return prefix.startsWith(Constants.R_REFS)
+        && prefix.length() > Constants.R_REFS.length()
+        && !mayExcludeRefsStartingWith.test(prefix);
+  }
+
+  private FetchRefSpecsCompaction(
+      List<FetchRefSpec> refSpecs,
+      Map<String, ? extends RefSpec> compactedRefs,
+      Map<String, FetchRefSpec> compactedRefSpecs) {
+    this.refSpecs = ImmutableList.copyOf(refSpecs);
+    this.individualRefs =
+        refSpecs.stream()
+            .map(FetchRefSpec::getSource)
+            .filter(source -> source != null && !compactedRefSpecs.containsKey(source))
+            .collect(ImmutableSet.toImmutableSet());
+    this.compactedRefs = ImmutableMap.copyOf(compactedRefs);
+    this.compactedRefSpecs = ImmutableMap.copyOf(compactedRefSpecs);
+  }
+
+  /** The refspecs to fetch, with the wildcard refspecs replacing the compacted refs. */
+  List<FetchRefSpec> getRefSpecs() {
+    return refSpecs;
+  }
+
+  boolean isCompacted() {
+    return !compactedRefs.isEmpty();
+  }
+
+  /**
+   * Map the results of the fetch of the compacted refspecs back to the individual refs.
+   *
+   * <p>The results of the refs that were not part of the task, fetched because they are under a
+   * wildcard refspec, are left to {@link #unrequestedResults(List)}. A compacted ref without a
+   * result of its own takes the result reported for its wildcard refspec, if any, or is reported as
+   * unchanged when the fetch left it in the local repository: the wildcard fetch only reports the
+   * refs that it updated. A compacted ref missing from the local repository is reported as not
+   * attempted.
+   *
+   * @param fetchResults the results of the fetch of {@link #getRefSpecs()}.
+   * @param git the local repository.
+   * @return the results of the individual refs.
+   * @throws IOException if the local refs cannot be read.
+   */
+  List<RefUpdateState> results(List<RefUpdateState> fetchResults, Repository git)
+      throws IOException {
+    if (!isCompacted()) {
+      return fetchResults;
+    }
+
+    List<RefUpdateState> results = new ArrayList<>();
+    Map<String, RefUpdate.Result> wildcardResults = new HashMap<>();
+    Map<String, RefSpec> unreportedRefs = new LinkedHashMap<>(compactedRefs);
+    for (RefUpdateState result : fetchResults) {
+      String remoteName = result.getRemoteName();
+      if (compactedRefSpecs.containsKey(remoteName)) {
+        wildcardResults.put(remoteName, result.getResult());
+      } else if (unreportedRefs.remove(remoteName) != null || individualRefs.contains(remoteName)) {
+        results.add(result);
+      }
+    }
+
+    for (RefSpec refSpec : unreportedRefs.values()) {
+      String localName = MoreObjects.firstNonNull(refSpec.getDestination(), refSpec.getSource());
+      RefUpdate.Result result =
+          git.exactRef(localName) == null
+              ? RefUpdate.Result.NOT_ATTEMPTED
+              : findWildcard(refSpec.getSource())
+                  .map(wildcard -> wildcardResults.get(wildcard.getSource()))
+                  .orElse(RefUpdate.Result.NO_CHANGE);
+      results.add(new RefUpdateState(refSpec.getSource(), result));
+    }
+    return results;
+  }
+
+  /**
+   * Select the results of the refs fetched by the wildcard refspecs without being part of the task.
+   *
+   * @param fetchResults the results of the fetch of {@link #getRefSpecs()}.
+   * @return the results of the refs that were not part of the task.
+   */
+  List<RefUpdateState> unrequestedResults(List<RefUpdateState> fetchResults) {
+    if (!isCompacted()) {
+      return List.of();
+    }
+    return fetchResults.stream()
+        .filter(
+            result ->
+                !compactedRefSpecs.containsKey(result.getRemoteName())
+                    && !compactedRefs.containsKey(result.getRemoteName())
+                    && !individualRefs.contains(result.getRemoteName()))
+        .toList();
+  }
+
+  private Optional<FetchRefSpec> findWildcard(String refName) {
+    return compactedRefSpecs.values().stream()
+        .filter(wildcard -> wildcard.matchSource(refName))
+        .findFirst();
+  }
+}
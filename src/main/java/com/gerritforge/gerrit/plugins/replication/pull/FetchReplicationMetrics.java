@@ -28,6 +28,8 @@ public class FetchReplicationMetrics {
   private final Timer1<String> end2EndExecutionTime;
   private final Histogram1<String> executionDelay;
   private final Histogram1<String> executionRetries;
+  private final Histogram1<String> retryDelay;
+  private final Histogram1<String> effectiveDelay;
 
   @Inject
   FetchReplicationMetrics(@PluginName String pluginName, MetricMaker metricMaker) {
@@ -71,6 +73,24 @@ public class FetchReplicationMetrics {
                 .setCumulative()
                 .setUnit("retries"),
             SOURCE_FIELD);
+
+    retryDelay =
+        metricMaker.newHistogram(
+            "replication_retry_delay",
+            new Description("Time waited before retrying a failed fetch from remote source")
+                .setCumulative()
+                .setUnit(Description.Units.MILLISECONDS),
+            SOURCE_FIELD);
+
+    effectiveDelay =
+        metricMaker.newHistogram(
+            "replication_effective_delay",
+            new Description(
+                    "Replication delay chosen by the adaptive delay before fetching from remote"
+                        + " source")
+                .setCumulative()
+                .setUnit(Description.Units.MILLISECONDS),
+            SOURCE_FIELD);
   }
 
   /**
@@ -104,4 +124,24 @@ public class FetchReplicationMetrics {
     executionDelay.record(name, delay);
     executionRetries.record(name, retries);
   }
+
+  /**
+   * Record the delay before the retry of a failed fetch from a source.
+   *
+   * @param name the source name.
+   * @param delay retry delay in milliseconds.
+   */
+  public void recordRetryDelay(String name, long delay) {
+    retryDelay.record(name, delay);
+  }
+
+  /**
+   * Record the replication delay chosen by the adaptive delay of a source.
+   *
+   * @param name the source name.
+   * @param delay replication delay in milliseconds.
+   */
+  public void recordEffectiveDelay(String name, long delay) {
+    effectiveDelay.record(name, delay);
+  }
 }
@@ -0,0 +1,162 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.common.util.concurrent.Striped;
+import com.google.gerrit.entities.Project;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import org.eclipse.jgit.transport.URIish;
+
+/**
+ * Registry of the fetch tasks of a source, pending or in-flight, keyed by URI.
+ *
+ * <p>Every change to the tasks of a URI is performed whilst holding the lock of its stripe, so that
+ * the merge and cancel decisions for a URI are atomic, without contending with the tasks of the
+ * other URIs. The tasks can be read at any time without locking.
+ *
+ * <p>The number of tasks of every project is maintained together with the tasks, so that the
+ * project-scoped queries do not need to scan all of them.
+ */
+class FetchTaskRegistry {
+  static final int LOCK_STRIPES = 256;
+
+  private final Striped<Lock> uriLocks = Striped.lock(LOCK_STRIPES);
+  private final ConcurrentMap<URIish, FetchOne> pending = new ConcurrentHashMap<>();
+  private final ConcurrentMap<URIish, FetchOne> inFlight = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Project.NameKey, Integer> pendingPerProject =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<Project.NameKey, Integer> inFlightPerProject =
+      new ConcurrentHashMap<>();
+
+  /** Run an action on the tasks of a URI, exclusively from any other action on the same URI. */
+  void runLocked(URIish uri, Runnable action) {
+    Lock lock = uriLocks.get(uri);
+    lock.lock();
+    try {
+      action.run();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Compute a result from the tasks of a URI, exclusively from any other action on that URI. */
+  <T> T callLocked(URIish uri, Supplier<T> action) {
+    Lock lock = uriLocks.get(uri);
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  FetchOne getPending(URIish uri) {
+    return pending.get(uri);
+  }
+
+  void putPending(URIish uri, FetchOne fetchOp) {
+    FetchOne replaced = pending.put(uri, fetchOp);
+    if (replaced != fetchOp) {
+      increment(pendingPerProject, fetchOp);
+      decrement(pendingPerProject, replaced);
+    }
+  }
+
+  void removePending(URIish uri) {
+    decrement(pendingPerProject, pending.remove(uri));
+  }
+
+  Optional<FetchOne> getInFlight(URIish uri) {
+    return Optional.ofNullable(inFlight.get(uri));
+  }
+
+  /**
+   * Move a task from pending to in-flight, unless it was canceled or another task is already
+   * in-flight for the same URI.
+   *
+   * @return true if the task can start running.
+   */
+  boolean requestRunway(FetchOne op) {
+    URIish uri = op.getURI();
+    return callLocked(
+        uri,
+        () -> {
+          if (op.wasCanceled()) {
+            return false;
+          }
+          removePending(uri);
+          if (inFlight.putIfAbsent(uri, op) != null) {
+            return false;
+          }
+          increment(inFlightPerProject, op);
+          return true;
+        });
+  }
+
+  void notifyFinished(FetchOne op) {
+    URIish uri = op.getURI();
+    runLocked(uri, () -> decrement(inFlightPerProject, inFlight.remove(uri)));
+  }
+
+  Map<URIish, FetchOne> pending() {
+    return Collections.unmodifiableMap(pending);
+  }
+
+  Map<URIish, FetchOne> inFlight() {
+    return Collections.unmodifiableMap(inFlight);
+  }
+
+  int pendingCount() {
+    return pending.size();
+  }
+
+  int inFlightCount() {
+    return inFlight.size();
+  }
+
+  int pendingCount(Project.NameKey project) {
+    return pendingPerProject.getOrDefault(project, 0);
+  }
+
+  int inFlightCount(Project.NameKey project) {
+    return inFlightPerProject.getOrDefault(project, 0);
+  }
+
+  /** Number of pending tasks of the projects having at least one. */
+  Map<Project.NameKey, Integer> pendingPerProject() {
+    return Collections.unmodifiableMap(pendingPerProject);
+  }
+
+  /** Number of in-flight tasks of the projects having at least one. */
+  Map<Project.NameKey, Integer> inFlightPerProject() {
+    return Collections.unmodifiableMap(inFlightPerProject);
+  }
+
+  private static void increment(
+      ConcurrentMap<Project.NameKey, Integer> perProject, FetchOne fetchOp) {
+    perProject.merge(fetchOp.getProjectNameKey(), 1, Integer::sum);
+  }
+
+  private static void decrement(
+      ConcurrentMap<Project.NameKey, Integer> perProject, FetchOne fetchOp) {
+    if (fetchOp != null) {
+      perProject.computeIfPresent(
+          fetchOp.getProjectNameKey(), (project, count) -> count > 1 ? count - 1 : null);
+    }
+  }
+}
@@ -11,6 +11,8 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull;
 
+import com.gerritforge.gerrit.plugins.replication.pull.client.AdaptiveConcurrencyLimiter;
+import com.gerritforge.gerrit.plugins.replication.pull.client.CircuitBreaker;
 import com.google.common.base.Strings;
 import com.google.gerrit.common.data.GlobalCapability;
 import com.google.gerrit.extensions.annotations.RequiresCapability;
@@ -77,6 +79,16 @@ final class ListCommand extends SshCommand {
     }
   }
 
+  private void addApiDetails(JsonObject obj, String key, Collection<?> values) {
+    if (!values.isEmpty()) {
+      JsonArray list = new JsonArray();
+      for (Object v : values) {
+        list.add(new JsonPrimitive(v.toString()));
+      }
+      obj.add(key, list);
+    }
+  }
+
   private void printRemote(Source s) {
     if (json) {
       JsonObject obj = new JsonObject();
@@ -89,6 +101,8 @@ final class ListCommand extends SshCommand {
         Source.QueueInfo q = s.getQueueInfo();
         addQueueDetails(obj, "InFlight", q.inFlight.values());
         addQueueDetails(obj, "Pending", q.pending.values());
+        addApiDetails(obj, "CircuitBreaker", s.getCircuitBreakers());
+        addApiDetails(obj, "ConcurrencyLimit", s.getConcurrencyLimiters());
       }
       stdout.print(obj.toString() + "\n");
     } else {
@@ -116,6 +130,14 @@ final class ListCommand extends SshCommand {
         addQueueDetails(out, q.inFlight.values());
         out.append("Pending: ").append(q.pending.size()).append("\n");
         addQueueDetails(out, q.pending.values());
+
+        for (CircuitBreaker b : s.getCircuitBreakers()) {
+          out.append("Circuit Breaker: ").append(b.toString()).append("\n");
+        }
+
+        for (AdaptiveConcurrencyLimiter l : s.getConcurrencyLimiters()) {
+          out.append("Concurrency Limit: ").append(l.toString()).append("\n");
+        }
       }
       stdout.print(out.toString() + "\n");
     }
@@ -0,0 +1,113 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.entities.Project;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of the decisions of a source on whether a project, or a ref of a project, can
+ * be replicated according to the visibility of the project and the permissions of the user of the
+ * source.
+ *
+ * <p>The decisions are kept for {@code replication.permissionCacheTtl} and are all discarded when
+ * the configuration of a project or the membership of a group changes, because a change of the
+ * permissions of a parent project or of a group affects the decisions of many projects.
+ */
+class PermissionDecisionCache {
+  private static final String PROJECT_DECISION = "";
+
+  private final Cache<Key, Boolean> decisions;
+
+  PermissionDecisionCache(long ttlMs, long maxEntries) {
+    this(ttlMs, maxEntries, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  PermissionDecisionCache(long ttlMs, long maxEntries, Ticker ticker) {
+    decisions =
+        ttlMs > 0 && maxEntries > 0
+            ? CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMs, MILLISECONDS)
+                .maximumSize(maxEntries)
+                .ticker(ticker)
+                .build()
+            : null;
+  }
+
+  boolean isEnabled() {
+    return decisions != null;
+  }
+
+  Optional<Boolean> getProjectDecision(Project.NameKey project) {
+    return get(project, PROJECT_DECISION);
+  }
+
+  Optional<Boolean> getRefDecision(Project.NameKey project, String ref) {
+    return get(project, ref);
+  }
+
+  /**
+   * Cache the decision on whether a project can be replicated.
+   *
+   * @return the decision.
+   */
+  boolean putProjectDecision(Project.NameKey project, boolean replicate) {
+    return put(project, PROJECT_DECISION, replicate);
+  }
+
+  /**
+   * Cache the decision on whether a ref of a project can be replicated.
+   *
+   * @return the decision.
+   */
+  boolean putRefDecision(Project.NameKey project, String ref, boolean replicate) {
+    return put(project, ref, replicate);
+  }
+
+  void invalidateAll() {
+    if (decisions != null) {
+      decisions.invalidateAll();
+    }
+  }
+
+  private Optional<Boolean> get(Project.NameKey project, String ref) {
+    return decisions == null
+        ? Optional.empty()
+        : Optional.ofNullable(decisions.getIfPresent(Key.create(project, ref)));
+  }
+
+  private boolean put(Project.NameKey project, String ref, boolean replicate) {
+    if (decisions != null) {
+      decisions.put(Key.create(project, ref), replicate);
+    }
+    return replicate;
+  }
+
+  @AutoValue
+  abstract static class Key {
+    abstract Project.NameKey project();
+
+    abstract String ref();
+
+    static Key create(Project.NameKey project, String ref) {
+      return new AutoValue_PermissionDecisionCache_Key(project, ref);
+    }
+  }
+}
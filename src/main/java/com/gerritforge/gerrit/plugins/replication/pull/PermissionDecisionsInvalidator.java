@@ -0,0 +1,50 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.events.GroupIndexedListener;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Discards the permission decisions cached by the sources when the configuration of a project or a
+ * group changes.
+ */
+@Singleton
+public class PermissionDecisionsInvalidator
+    implements GitReferenceUpdatedListener, GroupIndexedListener {
+  private final Provider<ReplicationSources> sources; // For Guice circular dependency
+
+  @Inject
+  PermissionDecisionsInvalidator(Provider<ReplicationSources> sources) {
+    this.sources = sources;
+  }
+
+  @Override
+  public void onGitReferenceUpdated(GitReferenceUpdatedListener.Event event) {
+    if (RefNames.REFS_CONFIG.equals(event.getRefName())) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void onGroupIndexed(String uuid) {
+    invalidateAll();
+  }
+
+  private void invalidateAll() {
+    sources.get().getAll().forEach(Source::invalidatePermissionDecisions);
+  }
+}
@@ -0,0 +1,226 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of the fetch tasks of a source due to run, dispatched fairly across the projects when
+ * {@code replication.fairScheduling} is set.
+ *
+ * <p>The tasks wait in a queue per project and at most {@code maxWorkers} of them run at the same
+ * time. The projects are served with a deficit round-robin: every visit of a project credits it
+ * with a quantum of refs and dispatches one of its tasks if its credit is positive, charging it
+ * with the number of refs of the task. A project with a burst of updates, or with a retry of many
+ * refs, therefore delays the tasks of the other projects by at most a round.
+ *
+ * <p>A project left without tasks whilst in debt keeps its deficit for {@link
+ * #IDLE_DEBT_RETENTION_MS}, so that a new task of the project right after a task of many refs does
+ * not skip the turn of the other projects.
+ */
+class ProjectFairQueue {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  static final int QUANTUM_REFS = 1;
+  static final long IDLE_DEBT_RETENTION_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private final Executor executor;
+  private final int maxWorkers;
+  private final Ticker ticker;
+  private final Map<Project.NameKey, ProjectTasks> queues = new HashMap<>();
+  private final Deque<ProjectTasks> round = new ArrayDeque<>();
+  private final Map<Project.NameKey, ProjectTasks> idleDebtors = new HashMap<>();
+  private int workers;
+
+  ProjectFairQueue(Executor executor, int maxWorkers) {
+    this(executor, maxWorkers, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ProjectFairQueue(Executor executor, int maxWorkers, Ticker ticker) {
+    this.executor = executor;
+    this.maxWorkers = Math.max(1, maxWorkers);
+    this.ticker = ticker;
+  }
+
+  /**
+   * Queue a task due to run, starting a new worker if less than {@code maxWorkers} are running.
+   *
+   * @param project the project of the task.
+   * @param refs the number of refs of the task, charged to its project when dispatched.
+   * @param task the task to run.
+   */
+  void submit(Project.NameKey project, int refs, Runnable task) {
+    synchronized (this) {
+      long now = ticker.read();
+      ProjectTasks projectTasks = queues.get(project);
+      if (projectTasks == null) {
+        projectTasks = takeIdleDebtor(project, now).orElseGet(() -> new ProjectTasks(project));
+        queues.put(project, projectTasks);
+        round.addLast(projectTasks);
+      }
+      projectTasks.tasks.addLast(new QueuedTask(task, Math.max(1, refs), now));
+      if (workers >= maxWorkers) {
+        return;
+      }
+      workers++;
+    }
+    startWorker();
+  }
+
+  synchronized int size() {
+    return queues.values().stream().mapToInt(p -> p.tasks.size()).sum();
+  }
+
+  /**
+   * Discard all the tasks waiting.
+   *
+   * @return the number of tasks discarded.
+   */
+  synchronized int clear() {
+    int discarded = size();
+    queues.clear();
+    round.clear();
+    idleDebtors.clear();
+    return discarded;
+  }
+
+  /** The time the oldest task of every project has been waiting, in milliseconds. */
+  synchronized Map<Project.NameKey, Long> maxWaitPerProject() {
+    long now = ticker.read();
+    Map<Project.NameKey, Long> maxWait = new HashMap<>();
+    queues.forEach(
+        (project, projectTasks) ->
+            maxWait.put(
+                project,
+                TimeUnit.NANOSECONDS.toMillis(now - projectTasks.tasks.getFirst().queuedAtNanos)));
+    return maxWait;
+  }
+
+  /**
+   * Take the next task to run, visiting the projects in round-robin.
+   *
+   * @return the next task, or null if none is waiting.
+   */
+  @VisibleForTesting
+  synchronized Runnable next() {
+    while (!round.isEmpty()) {
+      ProjectTasks projectTasks = round.pollFirst();
+      if (projectTasks.deficit <= 0) {
+        projectTasks.deficit += QUANTUM_REFS;
+      }
+      if (projectTasks.deficit <= 0) {
+        round.addLast(projectTasks);
+        continue;
+      }
+
+      QueuedTask task = projectTasks.tasks.pollFirst();
+      projectTasks.deficit -= task.refs;
+      if (projectTasks.tasks.isEmpty()) {
+        queues.remove(projectTasks.project);
+        if (projectTasks.deficit < 0) {
+          projectTasks.idleSinceNanos = ticker.read();
+          idleDebtors.put(projectTasks.project, projectTasks);
+        }
+      } else {
+        round.addLast(projectTasks);
+      }
+      return task.task;
+    }
+    return null;
+  }
+
+  /**
+   * Take the tasks of a project left idle in debt, unless its debt is older than {@link
+   * #IDLE_DEBT_RETENTION_MS}. The expired debts of the other projects are discarded as well.
+   */
+  private Optional<ProjectTasks> takeIdleDebtor(Project.NameKey project, long now) {
+    long retentionNanos = TimeUnit.MILLISECONDS.toNanos(IDLE_DEBT_RETENTION_MS);
+    idleDebtors.values().removeIf(debtor -> now - debtor.idleSinceNanos >= retentionNanos);
+    return Optional.ofNullable(idleDebtors.remove(project));
+  }
+
+  private void startWorker() {
+    try {
+      executor.execute(this::runNext);
+    } catch (RejectedExecutionException e) {
+      // The source is shutting down: the tasks left are discarded by the shutdown.
+      synchronized (this) {
+        workers--;
+      }
+    }
+  }
+
+  /**
+   * Run the next task and hand over to a new worker if there are more tasks waiting, so that every
+   * task is run by a different task of the executor.
+   */
+  private void runNext() {
+    Runnable task = next();
+    if (task != null) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.atSevere().withCause(e).log("Replication task %s failed", task);
+      }
+    }
+    if (!releaseWorker()) {
+      startWorker();
+    }
+  }
+
+  /**
+   * Release the current worker if no more tasks are waiting.
+   *
+   * @return true if the worker has been released.
+   */
+  private synchronized boolean releaseWorker() {
+    if (round.isEmpty()) {
+      workers--;
+      return true;
+    }
+    return false;
+  }
+
+  private static class ProjectTasks {
+    final Project.NameKey project;
+    final Deque<QueuedTask> tasks = new ArrayDeque<>();
+    long deficit;
+    long idleSinceNanos;
+
+    ProjectTasks(Project.NameKey project) {
+      this.project = project;
+    }
+  }
+
+  private static class QueuedTask {
+    final Runnable task;
+    final int refs;
+    final long queuedAtNanos;
+
+    QueuedTask(Runnable task, int refs, long queuedAtNanos) {
+      this.task = task;
+      this.refs = refs;
+      this.queuedAtNanos = queuedAtNanos;
+    }
+  }
+}
@@ -14,6 +14,8 @@ package com.gerritforge.gerrit.plugins.replication.pull;
 import static com.gerritforge.gerrit.plugins.replication.pull.api.FetchApiCapability.CALL_FETCH_ACTION;
 import static com.googlesource.gerrit.plugins.replication.StartReplicationCapability.START_REPLICATION;
 
+import com.gerritforge.gerrit.plugins.replication.pull.api.ApplyObjectExecutor;
+import com.gerritforge.gerrit.plugins.replication.pull.api.AsyncApplyObjectQueue;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchApiCapability;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchJob;
 import com.gerritforge.gerrit.plugins.replication.pull.api.ProjectDeletionAction;
@@ -30,6 +32,8 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.extensions.annotations.Exports;
 import com.google.gerrit.extensions.config.CapabilityDefinition;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.events.GroupIndexedListener;
 import com.google.gerrit.extensions.events.HeadUpdatedListener;
 import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.gerrit.extensions.events.ProjectDeletedListener;
@@ -105,6 +109,12 @@ class PullReplicationModule extends AbstractModule {
     bind(LifecycleListener.class)
         .annotatedWith(UniqueAnnotations.create())
         .to(PullReplicationLogFile.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(ApplyObjectExecutor.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(AsyncApplyObjectQueue.class);
     bind(CredentialsFactory.class)
         .to(AutoReloadSecureCredentialsFactoryDecorator.class)
         .in(Scopes.SINGLETON);
@@ -119,6 +129,9 @@ class PullReplicationModule extends AbstractModule {
     bind(ReplicationSources.class).to(SourcesCollection.class);
     DynamicSet.bind(binder(), ProjectDeletedListener.class).to(ReplicationQueue.class);
     DynamicSet.bind(binder(), HeadUpdatedListener.class).to(ReplicationQueue.class);
+    DynamicSet.bind(binder(), GitReferenceUpdatedListener.class)
+        .to(PermissionDecisionsInvalidator.class);
+    DynamicSet.bind(binder(), GroupIndexedListener.class).to(PermissionDecisionsInvalidator.class);
 
     bind(ReplicationQueue.class).in(Scopes.SINGLETON);
     bind(ObservableQueue.class).to(ReplicationQueue.class);
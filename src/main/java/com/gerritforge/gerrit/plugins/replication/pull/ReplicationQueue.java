@@ -16,12 +16,15 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import com.gerritforge.gerrit.plugins.replication.pull.FetchResultProcessing.GitUpdateProcessing;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.RefInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.BatchApplyObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
+import com.gerritforge.gerrit.plugins.replication.pull.client.ConcurrencyLimitExceededException;
 import com.gerritforge.gerrit.plugins.replication.pull.client.FetchApiClient;
 import com.gerritforge.gerrit.plugins.replication.pull.client.FetchRestApiClient;
 import com.gerritforge.gerrit.plugins.replication.pull.client.HttpResult;
 import com.gerritforge.gerrit.plugins.replication.pull.client.HttpResultUtils;
+import com.gerritforge.gerrit.plugins.replication.pull.client.RequestDeferredException;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.ApplyObjectBannedCreateRefsFilter;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.ApplyObjectsRefsFilter;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.ExcludedRefsFilter;
@@ -49,18 +52,29 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.replication.ObservableQueue;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
@@ -87,6 +101,7 @@ public class ReplicationQueue
   private static final String BATCH_REF_UPDATED_EVENT_TYPE = BatchRefUpdateEvent.TYPE;
   private static final String REF_UDPATED_EVENT_TYPE = new RefUpdatedEvent().type;
   private static final String ZEROS_OBJECTID = ObjectId.zeroId().getName();
+  private static final int MAX_RETRY_BACKOFF_SHIFT = 10;
   private final ReplicationStateListener stateLog;
   private final ShutdownState shutdownState;
 
@@ -98,6 +113,7 @@ public class ReplicationQueue
   private final Queue<ReferenceBatchUpdatedEvent> beforeStartupEventsQueue;
   private FetchApiClient.Factory fetchClientFactory;
   private Integer fetchCallsTimeout;
+  private boolean useVirtualThreads;
   private ExcludedRefsFilter refsFilter;
   private Provider<RevisionReader> revReaderProvider;
   private final ApplyObjectMetrics applyObjectMetrics;
@@ -106,6 +122,8 @@ public class ReplicationQueue
   private final boolean useBatchUpdateEvents;
   private ApplyObjectsRefsFilter applyObjectsRefsFilter;
   private final ApplyObjectBannedCreateRefsFilter applyObjectsBannedCreateRefsFilter;
+  private final Map<String, Map<NameKey, PendingProjectBatch>> pendingMultiProjectBatches =
+      new HashMap<>();
 
   @Inject
   ReplicationQueue(
@@ -152,6 +170,7 @@ public class ReplicationQueue
                   .mapToInt(Source::getConnectionTimeout)
                   .max()
                   .orElse(DEFAULT_FETCH_CALLS_TIMEOUT);
+      useVirtualThreads = sources.get().getAll().stream().anyMatch(Source::useVirtualThreads);
 
       running = true;
       fireBeforeStartupEvents();
@@ -161,6 +180,7 @@ public class ReplicationQueue
   @Override
   public void stop() {
     running = false;
+    flushAllMultiProjectBatches();
     shutdownState.setIsShuttingDown(true);
     int discarded = sources.get().shutdown();
     if (discarded > 0) {
@@ -293,7 +313,7 @@ public class ReplicationQueue
       queueMetrics.incrementQueuedBeforStartup();
       return;
     }
-    ForkJoinPool fetchCallsPool = null;
+    ExecutorService fetchCallsPool = null;
     try {
       List<Source> allSources = sources.get().getAll();
       int numSources = allSources.size();
@@ -301,14 +321,27 @@ public class ReplicationQueue
         repLog.debug("No replication sources configured -> skipping fetch");
         return;
       }
-      fetchCallsPool = new ForkJoinPool(numSources);
 
       final Consumer<Source> callFunction =
           callFunction(
               Project.nameKey(event.projectName()), event.refs(), event.eventCreatedOn(), state);
-      fetchCallsPool
-          .submit(() -> allSources.parallelStream().forEach(callFunction))
-          .get(fetchCallsTimeout, MILLISECONDS);
+      if (useVirtualThreads) {
+        ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        fetchCallsPool = virtualThreads;
+        CompletableFuture.allOf(
+                allSources.stream()
+                    .map(
+                        source ->
+                            CompletableFuture.runAsync(
+                                () -> callFunction.accept(source), virtualThreads))
+                    .toArray(CompletableFuture[]::new))
+            .get(fetchCallsTimeout, MILLISECONDS);
+      } else {
+        fetchCallsPool = new ForkJoinPool(numSources);
+        fetchCallsPool
+            .submit(() -> allSources.parallelStream().forEach(callFunction))
+            .get(fetchCallsTimeout, MILLISECONDS);
+      }
     } catch (InterruptedException | ExecutionException | TimeoutException e) {
       stateLog.error(
           String.format(
@@ -330,30 +363,85 @@ public class ReplicationQueue
       ReplicationState state) {
     CallFunction call = getCallFunction(project, refs, eventCreatedOn, state);
 
-    return (source) -> {
-      boolean callSuccessful;
-      try {
-        callSuccessful = call.call(source);
-      } catch (Exception e) {
+    return (source) -> callOrFallbackToFetch(source, call, project, refs, state);
+  }
+
+  private void callOrFallbackToFetch(
+      Source source,
+      CallFunction call,
+      NameKey project,
+      List<ReferenceUpdatedEvent> refs,
+      ReplicationState state) {
+    callOrFallbackToFetch(source, source.getApis(), call, project, refs, state, 0);
+  }
+
+  private void callOrFallbackToFetch(
+      Source source,
+      List<String> apiUrls,
+      CallFunction call,
+      NameKey project,
+      List<ReferenceUpdatedEvent> refs,
+      ReplicationState state,
+      int deferrals) {
+    CallOutcome outcome;
+    try {
+      outcome = call.call(source, apiUrls);
+    } catch (Exception e) {
+      repLog.warn(
+          String.format(
+              "Failed to batch apply object %s on project %s, falling back to git fetch",
+              refs.stream()
+                  .map(event -> String.format("%s:%s", event.refName(), event.objectId()))
+                  .collect(Collectors.joining(",")),
+              project),
+          e);
+      outcome = CallOutcome.of(false, apiUrls);
+    }
+
+    List<String> failedApiUrls = new ArrayList<>(outcome.failedApiUrls);
+    List<String> deferredApiUrls = outcome.deferredApiUrls;
+    if (!deferredApiUrls.isEmpty()) {
+      // The targets are too busy: calling them again later is cheaper than falling back to a fetch
+      if (deferrals < source.getMaxRequestDeferrals()) {
+        repLog.info(
+            "Pull replication REST API apply object of project {} to {} deferred ({}/{})",
+            project,
+            deferredApiUrls,
+            deferrals + 1,
+            source.getMaxRequestDeferrals());
+        source.scheduleDeferredCall(
+            () ->
+                callOrFallbackToFetch(
+                    source, deferredApiUrls, call, project, refs, state, deferrals + 1),
+            outcome.retryAfterMs);
+      } else {
         repLog.warn(
-            String.format(
-                "Failed to batch apply object %s on project %s, falling back to git fetch",
-                refs.stream()
-                    .map(event -> String.format("%s:%s", event.refName(), event.objectId()))
-                    .collect(Collectors.joining(",")),
-                project),
-            e);
-        callSuccessful = false;
+            "Pull replication REST API apply object of project {} to {} deferred {} times,"
+                + " falling back to git fetch",
+            project,
+            deferredApiUrls,
+            deferrals);
+        failedApiUrls.addAll(deferredApiUrls);
       }
+    }
 
-      if (!callSuccessful) {
-        if (source.enableBatchedRefs()) {
-          callBatchFetch(source, project, refs, state);
-        } else {
-          callFetch(source, project, refs, state, FetchRestApiClient.FORCE_ASYNC);
-        }
-      }
-    };
+    if (!failedApiUrls.isEmpty()) {
+      fallbackToFetch(source, failedApiUrls, project, refs, state);
+    }
+  }
+
+  private void fallbackToFetch(
+      Source source,
+      List<String> apiUrls,
+      NameKey project,
+      List<ReferenceUpdatedEvent> refs,
+      ReplicationState state) {
+    applyObjectMetrics.incrementFallbacksToFetch(source.getRemoteConfigName());
+    if (source.enableBatchedRefs()) {
+      callBatchFetch(source, apiUrls, project, refs, state);
+    } else {
+      callFetch(source, apiUrls, project, refs, state, FetchRestApiClient.FORCE_ASYNC);
+    }
   }
 
   private CallFunction getCallFunction(
@@ -370,12 +458,196 @@ public class ReplicationQueue
 
       if (!containsLargeOrDeletedRefs(refsBatch)
           && !hasCreateRefsBannedFromApplyObject(refsBatch)) {
-        return (source -> callBatchSendObject(source, project, refsBatch, eventCreatedOn, state));
+        return ((source, apiUrls) ->
+            source.isMultiProjectBatchEnabled()
+                ? CallOutcome.of(
+                    queueMultiProjectBatch(source, project, refsBatch, refs, eventCreatedOn, state),
+                    apiUrls)
+                : callBatchSendObject(
+                    source, apiUrls, project, refsBatch, refs, eventCreatedOn, state));
       }
     } catch (UncheckedIOException e) {
       stateLog.error("Falling back to calling fetch", e, state);
     }
-    return ((source) -> callBatchFetch(source, project, refs, state));
+    return ((source, apiUrls) -> {
+      flushMultiProjectBatchIfPending(source, project);
+      return CallOutcome.of(callBatchFetch(source, apiUrls, project, refs, state), apiUrls);
+    });
+  }
+
+  /**
+   * Queue the ref updates of a project into the multi-project batch of the source, which is sent
+   * when the batching window expires or when the maximum number of projects is reached.
+   *
+   * @return always true, because the failures are handled when the batch is sent, by falling back
+   *     to the batch apply object, and then to fetch, for the failed projects and apiUrls only.
+   */
+  private boolean queueMultiProjectBatch(
+      Source source,
+      NameKey project,
+      List<BatchApplyObjectData> refsBatch,
+      List<ReferenceUpdatedEvent> refs,
+      long eventCreatedOn,
+      ReplicationState state) {
+    if (!source.wouldFetchProject(project)) {
+      return true;
+    }
+    List<BatchApplyObjectData> filteredRefsBatch =
+        refsBatch.stream()
+            .filter(r -> source.wouldFetchRef(r.refName()))
+            .collect(Collectors.toList());
+    if (filteredRefsBatch.isEmpty()) {
+      return true;
+    }
+
+    PendingProjectBatch pendingProjectBatch =
+        PendingProjectBatch.create(
+            ProjectBatchApplyObjectData.create(project, filteredRefsBatch, eventCreatedOn),
+            refs,
+            state);
+    String sourceName = source.getRemoteConfigName();
+    Collection<PendingProjectBatch> previousBatch = Collections.emptyList();
+    Collection<PendingProjectBatch> fullBatch = Collections.emptyList();
+    boolean scheduleFlush;
+    synchronized (pendingMultiProjectBatches) {
+      Map<NameKey, PendingProjectBatch> batch =
+          pendingMultiProjectBatches.computeIfAbsent(sourceName, k -> new LinkedHashMap<>());
+      if (batch.containsKey(project)) {
+        // Keep the updates of the same project in order by sending the pending ones first
+        previousBatch = batch.values();
+        batch = new LinkedHashMap<>();
+        pendingMultiProjectBatches.put(sourceName, batch);
+      }
+      scheduleFlush = batch.isEmpty();
+      batch.put(project, pendingProjectBatch);
+      if (batch.size() >= source.getMultiProjectBatchMaxProjects()) {
+        fullBatch = pendingMultiProjectBatches.remove(sourceName).values();
+        scheduleFlush = false;
+      }
+    }
+
+    callMultiProjectBatchSendObject(source, previousBatch);
+    callMultiProjectBatchSendObject(source, fullBatch);
+    if (scheduleFlush) {
+      source.scheduleMultiProjectBatchFlush(() -> flushMultiProjectBatch(source));
+    }
+    return true;
+  }
+
+  private void flushMultiProjectBatchIfPending(Source source, NameKey project) {
+    Collection<PendingProjectBatch> batch = Collections.emptyList();
+    synchronized (pendingMultiProjectBatches) {
+      Map<NameKey, PendingProjectBatch> pendingBatch =
+          pendingMultiProjectBatches.get(source.getRemoteConfigName());
+      if (pendingBatch != null && pendingBatch.containsKey(project)) {
+        batch = pendingMultiProjectBatches.remove(source.getRemoteConfigName()).values();
+      }
+    }
+    callMultiProjectBatchSendObject(source, batch);
+  }
+
+  private void flushMultiProjectBatch(Source source) {
+    Map<NameKey, PendingProjectBatch> batch;
+    synchronized (pendingMultiProjectBatches) {
+      batch = pendingMultiProjectBatches.remove(source.getRemoteConfigName());
+    }
+    if (batch != null) {
+      callMultiProjectBatchSendObject(source, batch.values());
+    }
+  }
+
+  private void flushAllMultiProjectBatches() {
+    synchronized (pendingMultiProjectBatches) {
+      if (pendingMultiProjectBatches.isEmpty()) {
+        return;
+      }
+    }
+    for (Source source : sources.get().getAll()) {
+      flushMultiProjectBatch(source);
+    }
+  }
+
+  private void callMultiProjectBatchSendObject(
+      Source source, Collection<PendingProjectBatch> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<ProjectBatchApplyObjectData> projectBatches =
+        batch.stream().map(PendingProjectBatch::projectBatch).collect(Collectors.toList());
+    String projectBatchesStr =
+        projectBatches.stream()
+            .map(ProjectBatchApplyObjectData::toString)
+            .collect(Collectors.joining(","));
+    FetchApiClient fetchClient = fetchClientFactory.create(source);
+    Map<NameKey, List<String>> failedApiUrlsByProject = new HashMap<>();
+
+    for (String apiUrl : source.getApis()) {
+      try {
+        URIish uri = new URIish(apiUrl);
+        repLog.info(
+            "Pull replication REST API multi-project batch apply object to {} for [{}]",
+            apiUrl,
+            projectBatchesStr);
+        Context<String> apiTimer = applyObjectMetrics.startEnd2End(source.getRemoteConfigName());
+        Map<NameKey, HttpResult> results =
+            fetchClient.callMultiProjectBatchSendObject(projectBatches, uri);
+        repLog.info(
+            "Pull replication REST API multi-project batch apply object to {} COMPLETED for"
+                + " {} projects - time:{} ms",
+            apiUrl,
+            projectBatches.size(),
+            apiTimer.stop() / 1000000.0);
+
+        results.forEach(
+            (project, result) -> {
+              if (!result.isSuccessful()) {
+                repLog.info(
+                    "Pull replication REST API multi-project batch apply object to {} for {}"
+                        + " returned {}, falling back to batch apply object",
+                    apiUrl,
+                    project,
+                    result);
+                failedApiUrlsByProject.computeIfAbsent(project, k -> new ArrayList<>()).add(apiUrl);
+              }
+            });
+      } catch (URISyntaxException | IOException e) {
+        repLog.warn(
+            "Pull replication REST API multi-project batch apply object to {} *FAILED* for [{}],"
+                + " falling back to batch apply object",
+            apiUrl,
+            projectBatchesStr,
+            e);
+        projectBatches.forEach(
+            projectBatch ->
+                failedApiUrlsByProject
+                    .computeIfAbsent(projectBatch.project(), k -> new ArrayList<>())
+                    .add(apiUrl));
+      }
+    }
+
+    for (PendingProjectBatch pendingProjectBatch : batch) {
+      ProjectBatchApplyObjectData projectBatch = pendingProjectBatch.projectBatch();
+      List<String> failedApiUrls = failedApiUrlsByProject.get(projectBatch.project());
+      if (failedApiUrls != null) {
+        callOrFallbackToFetch(
+            source,
+            failedApiUrls,
+            (s, apiUrls) ->
+                callBatchSendObject(
+                    s,
+                    apiUrls,
+                    projectBatch.project(),
+                    projectBatch.refs(),
+                    pendingProjectBatch.refs(),
+                    projectBatch.eventCreatedOn(),
+                    pendingProjectBatch.state()),
+            projectBatch.project(),
+            pendingProjectBatch.refs(),
+            pendingProjectBatch.state(),
+            0);
+      }
+    }
   }
 
   private BatchApplyObjectData toBatchApplyObject(
@@ -408,6 +680,7 @@ public class ReplicationQueue
   }
 
   private Optional<HttpResult> callSendObject(
+      Source source,
       FetchApiClient fetchClient,
       String remoteName,
       URIish uri,
@@ -428,7 +701,10 @@ public class ReplicationQueue
         revisionDataStr);
     Context<String> apiTimer = applyObjectMetrics.startEnd2End(remoteName);
     HttpResult result =
-        fetchClient.callSendObjects(project, refName, eventCreatedOn, revision, uri);
+        callWithRetries(
+            source,
+            uri,
+            () -> fetchClient.callSendObjects(project, refName, eventCreatedOn, revision, uri));
     repLog.info(
         "Pull replication REST API apply object to {} COMPLETED for {}:{} - {}, HTTP Result:"
             + " {} - time:{} ms",
@@ -442,14 +718,79 @@ public class ReplicationQueue
     return Optional.of(result);
   }
 
-  private boolean callBatchSendObject(
+  /**
+   * Call an idempotent apply-object REST-API, retrying it with a jittered exponential backoff up to
+   * {@link Source#getApplyObjectMaxRetries()} times when it fails with a transient error, before
+   * the caller falls back to the much more expensive git fetch.
+   *
+   * <p>The retries wait in the thread of the fetch calls fan-out: they are attempted only whilst
+   * the total backoff, plus the connection timeout of the last attempt, fits within the fetch calls
+   * timeout, so that the fan-out is not abandoned whilst still retrying.
+   */
+  private HttpResult callWithRetries(Source source, URIish uri, ApplyObjectCall call)
+      throws IOException {
+    int maxRetries = source.getApplyObjectMaxRetries();
+    long retriesBudgetMs = (long) fetchCallsTimeout - source.getConnectionTimeout();
+    long totalMaxDelayMs = 0L;
+    for (int retry = 0; ; retry++) {
+      long maxDelayMs = maxBackoff(source.getApplyObjectRetryDelay(), retry);
+      boolean canRetry = retry < maxRetries && totalMaxDelayMs + maxDelayMs <= retriesBudgetMs;
+      String failure;
+      try {
+        HttpResult result = call.call();
+        if (!canRetry || !result.isServerUnavailable()) {
+          return result;
+        }
+        failure = result.toString();
+      } catch (IOException e) {
+        if (!canRetry || !HttpResultUtils.isTransientFailure(e)) {
+          throw e;
+        }
+        failure = e.toString();
+      }
+
+      totalMaxDelayMs += maxDelayMs;
+      long delayMs = jitteredBackoff(source.getApplyObjectRetryDelay(), retry);
+      repLog.info(
+          "Pull replication REST API apply object to {} failed with {}, retry {}/{} in {} ms",
+          uri,
+          failure,
+          retry + 1,
+          maxRetries,
+          delayMs);
+      applyObjectMetrics.incrementRetries(source.getRemoteConfigName());
+      try {
+        MILLISECONDS.sleep(delayMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(
+            String.format("Interrupted whilst waiting to retry apply object to %s", uri));
+      }
+    }
+  }
+
+  /**
+   * Compute the "full jitter" backoff before a retry, uniformly distributed between zero and the
+   * base delay doubled at every retry, so that the retries of concurrent calls are spread in time.
+   */
+  static long jitteredBackoff(long baseDelayMs, int retry) {
+    long maxDelayMs = maxBackoff(baseDelayMs, retry);
+    return maxDelayMs > 0 ? ThreadLocalRandom.current().nextLong(maxDelayMs + 1) : 0L;
+  }
+
+  private static long maxBackoff(long baseDelayMs, int retry) {
+    return baseDelayMs << Math.min(retry, MAX_RETRY_BACKOFF_SHIFT);
+  }
+
+  private CallOutcome callBatchSendObject(
       Source source,
+      List<String> apiUrls,
       NameKey project,
       List<BatchApplyObjectData> refsBatch,
+      List<ReferenceUpdatedEvent> refs,
       long eventCreatedOn,
-      ReplicationState state)
-      throws MissingParentObjectException {
-    boolean batchResultSuccessful = true;
+      ReplicationState state) {
+    CallOutcome outcome = new CallOutcome();
 
     List<BatchApplyObjectData> filteredRefsBatch =
         refsBatch.stream()
@@ -463,7 +804,7 @@ public class ReplicationQueue
     FetchApiClient fetchClient = fetchClientFactory.create(source);
     String remoteName = source.getRemoteConfigName();
 
-    for (String apiUrl : source.getApis()) {
+    for (String apiUrl : apiUrls) {
       try {
         boolean resultSuccessful = true;
         Optional<HttpResult> result = Optional.empty();
@@ -477,7 +818,12 @@ public class ReplicationQueue
           Context<String> apiTimer = applyObjectMetrics.startEnd2End(remoteName);
           result =
               Optional.of(
-                  fetchClient.callBatchSendObject(project, filteredRefsBatch, eventCreatedOn, uri));
+                  callWithRetries(
+                      source,
+                      uri,
+                      () ->
+                          fetchClient.callBatchSendObject(
+                              project, filteredRefsBatch, eventCreatedOn, uri)));
           resultSuccessful = HttpResultUtils.isSuccessful(result);
           repLog.info(
               "Pull replication REST API batch apply object to {} COMPLETED for {}:[{}], HTTP "
@@ -487,6 +833,18 @@ public class ReplicationQueue
               batchApplyObjectStr,
               HttpResultUtils.status(result),
               apiTimer.stop() / 1000000.0);
+          trackAcceptedApplyObject(
+              source,
+              fetchClient,
+              apiUrl,
+              uri,
+              project,
+              filteredRefsBatch,
+              refs,
+              eventCreatedOn,
+              false,
+              result,
+              state);
         } else {
           repLog.info(
               "REST API batch apply object not enabled for source {}, using REST API apply object"
@@ -498,6 +856,7 @@ public class ReplicationQueue
           for (BatchApplyObjectData batchApplyObject : filteredRefsBatch) {
             result =
                 callSendObject(
+                    source,
                     fetchClient,
                     remoteName,
                     uri,
@@ -510,45 +869,39 @@ public class ReplicationQueue
             if (!resultSuccessful) {
               break;
             }
+            trackAcceptedApplyObject(
+                source,
+                fetchClient,
+                apiUrl,
+                uri,
+                project,
+                ImmutableList.of(batchApplyObject),
+                refsNamed(refs, batchApplyObject.refName()),
+                eventCreatedOn,
+                false,
+                result,
+                state);
           }
         }
 
-        if (!resultSuccessful
-            && HttpResultUtils.isProjectMissing(result, project)
-            && source.isCreateMissingRepositories()) {
-          result = initProject(project, uri, fetchClient, result);
-          repLog.info(
-              "Missing project {} created, HTTP Result:{}",
-              project,
-              HttpResultUtils.status(result));
+        if (!resultSuccessful) {
+          resultSuccessful =
+              handleFailedApplyObject(
+                  source,
+                  fetchClient,
+                  apiUrl,
+                  uri,
+                  project,
+                  filteredRefsBatch,
+                  refs,
+                  eventCreatedOn,
+                  result,
+                  state);
         }
 
-        if (!resultSuccessful && HttpResultUtils.isParentObjectMissing(result)) {
-          resultSuccessful = true;
-          for (BatchApplyObjectData batchApplyObject : filteredRefsBatch) {
-            String refName = batchApplyObject.refName();
-            if ((RefNames.isNoteDbMetaRef(refName) || applyObjectsRefsFilter.match(refName))
-                && batchApplyObject.revisionData().isPresent()) {
-
-              Optional<RevisionData> maybeRevisionData = batchApplyObject.revisionData();
-              List<RevisionData> allRevisions =
-                  fetchWholeMetaHistory(project, refName, maybeRevisionData.get());
-
-              Optional<HttpResult> sendObjectResult =
-                  callSendObject(
-                      fetchClient, remoteName, uri, project, refName, eventCreatedOn, allRevisions);
-              resultSuccessful = HttpResultUtils.isSuccessful(sendObjectResult);
-              if (!resultSuccessful) {
-                break;
-              }
-            } else {
-              throw new MissingParentObjectException(
-                  project, refName, source.getRemoteConfigName());
-            }
-          }
+        if (!resultSuccessful) {
+          outcome.failed(apiUrl);
         }
-
-        batchResultSuccessful &= resultSuccessful;
       } catch (URISyntaxException e) {
         repLog.warn(
             "Pull replication REST API batch apply object to {} *FAILED* for {}:[{}]",
@@ -557,7 +910,25 @@ public class ReplicationQueue
             batchApplyObjectStr,
             e);
         stateLog.error(String.format("Cannot parse pull replication api url:%s", apiUrl), state);
-        batchResultSuccessful = false;
+        outcome.failed(apiUrl);
+      } catch (MissingParentObjectException e) {
+        repLog.warn(
+            "Pull replication REST API batch apply object to {} for {}:[{}] is missing parents: {}",
+            apiUrl,
+            project,
+            batchApplyObjectStr,
+            e.getMessage());
+        outcome.failed(apiUrl);
+      } catch (RequestDeferredException e) {
+        outcome.deferred(apiUrl, e.getRetryAfterMs());
+      } catch (ConcurrencyLimitExceededException e) {
+        repLog.info(
+            "Pull replication REST API batch apply object to {} for {}:[{}] degraded to fetch: {}",
+            apiUrl,
+            project,
+            batchApplyObjectStr,
+            e.getMessage());
+        outcome.failed(apiUrl);
       } catch (IOException | IllegalArgumentException e) {
         repLog.warn(
             "Pull replication REST API batch apply object to {} *FAILED* for {}:[{}]",
@@ -572,10 +943,225 @@ public class ReplicationQueue
                 apiUrl, e.getMessage()),
             e,
             state);
-        batchResultSuccessful = false;
+        outcome.failed(apiUrl);
+      }
+    }
+    return outcome;
+  }
+
+  /**
+   * Handle the failure of the apply-object calls of a batch of refs to an apiUrl, whether returned
+   * synchronously or by the status of an accepted call: create the project when missing, and send
+   * again the whole meta history of the refs whose parents are missing.
+   *
+   * @return whether the refs have been applied, or accepted for being applied, after all.
+   */
+  private boolean handleFailedApplyObject(
+      Source source,
+      FetchApiClient fetchClient,
+      String apiUrl,
+      URIish uri,
+      NameKey project,
+      List<BatchApplyObjectData> refsBatch,
+      List<ReferenceUpdatedEvent> refs,
+      long eventCreatedOn,
+      Optional<HttpResult> result,
+      ReplicationState state)
+      throws IOException, URISyntaxException, MissingParentObjectException {
+    if (HttpResultUtils.isProjectMissing(result, project) && source.isCreateMissingRepositories()) {
+      result = initProject(project, uri, fetchClient, result);
+      repLog.info(
+          "Missing project {} created, HTTP Result:{}", project, HttpResultUtils.status(result));
+    }
+
+    if (!HttpResultUtils.isParentObjectMissing(result)) {
+      return false;
+    }
+    for (BatchApplyObjectData batchApplyObject : refsBatch) {
+      String refName = batchApplyObject.refName();
+      if ((RefNames.isNoteDbMetaRef(refName) || applyObjectsRefsFilter.match(refName))
+          && batchApplyObject.revisionData().isPresent()) {
+
+        Optional<RevisionData> maybeRevisionData = batchApplyObject.revisionData();
+        List<RevisionData> allRevisions =
+            fetchWholeMetaHistory(project, refName, maybeRevisionData.get());
+
+        Optional<HttpResult> sendObjectResult =
+            callSendObject(
+                source,
+                fetchClient,
+                source.getRemoteConfigName(),
+                uri,
+                project,
+                refName,
+                eventCreatedOn,
+                allRevisions);
+        if (!HttpResultUtils.isSuccessful(sendObjectResult)) {
+          return false;
+        }
+        trackAcceptedApplyObject(
+            source,
+            fetchClient,
+            apiUrl,
+            uri,
+            project,
+            ImmutableList.of(batchApplyObject),
+            refsNamed(refs, refName),
+            eventCreatedOn,
+            true,
+            sendObjectResult,
+            state);
+      } else {
+        throw new MissingParentObjectException(project, refName, source.getRemoteConfigName());
+      }
+    }
+    return true;
+  }
+
+  private static List<ReferenceUpdatedEvent> refsNamed(
+      List<ReferenceUpdatedEvent> refs, String refName) {
+    return refs.stream().filter(ref -> ref.refName().equals(refName)).collect(Collectors.toList());
+  }
+
+  /**
+   * Track the outcome of an apply-object call accepted by the target for asynchronous processing,
+   * by polling its status on the source pool. The state of the refs is kept open until the call
+   * completes, and its final status is handled as the one of a synchronous call; the refs are
+   * fetched by the target when the call fails, or when it is still pending after {@link
+   * Source#getAsyncApplyObjectTimeout()}.
+   *
+   * @param wholeMetaHistory whether the call already sent the whole meta history of the refs.
+   */
+  private void trackAcceptedApplyObject(
+      Source source,
+      FetchApiClient fetchClient,
+      String apiUrl,
+      URIish uri,
+      NameKey project,
+      List<BatchApplyObjectData> refsBatch,
+      List<ReferenceUpdatedEvent> refs,
+      long eventCreatedOn,
+      boolean wholeMetaHistory,
+      Optional<HttpResult> result,
+      ReplicationState state) {
+    if (result.isEmpty() || !result.get().isAccepted()) {
+      return;
+    }
+    refs.forEach(ref -> state.increaseFetchTaskCount(project.get(), ref.refName()));
+
+    Optional<String> statusUrl = result.get().getLocation();
+    if (statusUrl.isEmpty()) {
+      stateLog.warn(
+          String.format(
+              "Pull replication REST API apply object to %s for %s accepted without a status"
+                  + " location, falling back to fetch",
+              apiUrl, project),
+          state);
+      fallbackToFetch(source, ImmutableList.of(apiUrl), project, refs, state);
+      notifyAcceptedApplyObjectDone(
+          uri, project, refs, ReplicationState.RefFetchResult.NOT_ATTEMPTED, state);
+      return;
+    }
+
+    AcceptedApplyObject accepted =
+        AcceptedApplyObject.create(
+            apiUrl,
+            uri,
+            project,
+            refsBatch,
+            refs,
+            eventCreatedOn,
+            wholeMetaHistory,
+            statusUrl.get(),
+            System.nanoTime() + MILLISECONDS.toNanos(source.getAsyncApplyObjectTimeout()),
+            state);
+    source.scheduleDeferredCall(
+        () -> pollApplyObjectStatus(source, fetchClient, accepted),
+        source.getAsyncApplyObjectPollInterval());
+  }
+
+  private void pollApplyObjectStatus(
+      Source source, FetchApiClient fetchClient, AcceptedApplyObject accepted) {
+    String apiUrl = accepted.apiUrl();
+    URIish uri = accepted.uri();
+    NameKey project = accepted.project();
+    List<ReferenceUpdatedEvent> refs = accepted.refs();
+    ReplicationState state = accepted.state();
+    String refsStr =
+        refs.stream().map(ReferenceUpdatedEvent::refName).collect(Collectors.joining(","));
+    String failure;
+    try {
+      HttpResult status = fetchClient.callApplyObjectStatus(accepted.statusUrl(), uri);
+      if (status.isAccepted()) {
+        if (System.nanoTime() < accepted.deadlineNanos()) {
+          source.scheduleDeferredCall(
+              () -> pollApplyObjectStatus(source, fetchClient, accepted),
+              source.getAsyncApplyObjectPollInterval());
+          return;
+        }
+        failure = String.format("still pending after %d ms", source.getAsyncApplyObjectTimeout());
+      } else if (status.isSuccessful()) {
+        repLog.info(
+            "Pull replication REST API asynchronous apply object to {} COMPLETED for {}:[{}]",
+            apiUrl,
+            project,
+            refsStr);
+        notifyAcceptedApplyObjectDone(
+            uri, project, refs, ReplicationState.RefFetchResult.SUCCEEDED, state);
+        return;
+      } else if (!accepted.wholeMetaHistory()
+          && handleFailedApplyObject(
+              source,
+              fetchClient,
+              apiUrl,
+              uri,
+              project,
+              accepted.refsBatch(),
+              refs,
+              accepted.eventCreatedOn(),
+              Optional.of(status),
+              state)) {
+        repLog.info(
+            "Pull replication REST API asynchronous apply object to {} for {}:[{}] applied after"
+                + " handling its failure {}",
+            apiUrl,
+            project,
+            refsStr,
+            status);
+        notifyAcceptedApplyObjectDone(
+            uri, project, refs, ReplicationState.RefFetchResult.SUCCEEDED, state);
+        return;
+      } else {
+        failure = status.toString();
       }
+    } catch (URISyntaxException | IOException | MissingParentObjectException | RuntimeException e) {
+      failure = e.toString();
+    }
+
+    stateLog.warn(
+        String.format(
+            "Pull replication REST API asynchronous apply object to %s for %s:[%s] failed: %s,"
+                + " falling back to fetch",
+            apiUrl, project, refsStr, failure),
+        state);
+    fallbackToFetch(source, ImmutableList.of(apiUrl), project, refs, state);
+    notifyAcceptedApplyObjectDone(
+        uri, project, refs, ReplicationState.RefFetchResult.NOT_ATTEMPTED, state);
+  }
+
+  /**
+   * Close the state of the refs of an accepted apply-object call. A call falling back to fetch is
+   * not attempted, as the outcome of the refs is the one of the fetch.
+   */
+  private static void notifyAcceptedApplyObjectDone(
+      URIish uri,
+      NameKey project,
+      List<ReferenceUpdatedEvent> refs,
+      ReplicationState.RefFetchResult result,
+      ReplicationState state) {
+    for (ReferenceUpdatedEvent ref : refs) {
+      state.notifyRefReplicated(project.get(), ref.refName(), uri, result, null);
     }
-    return batchResultSuccessful;
   }
 
   private List<RevisionData> fetchWholeMetaHistory(
@@ -605,11 +1191,24 @@ public class ReplicationQueue
 
   private boolean callBatchFetch(
       Source source,
+      List<String> apiUrls,
       Project.NameKey project,
       List<ReferenceUpdatedEvent> refs,
       ReplicationState state) {
+    return callBatchFetch(source, apiUrls, project, refs, state, 0);
+  }
+
+  private boolean callBatchFetch(
+      Source source,
+      List<String> apiUrls,
+      Project.NameKey project,
+      List<ReferenceUpdatedEvent> refs,
+      ReplicationState state,
+      int deferrals) {
 
     boolean resultIsSuccessful = true;
+    List<String> deferredApiUrls = new ArrayList<>();
+    long retryAfterMs = 0L;
 
     List<RefInput> filteredRefs =
         refs.stream()
@@ -620,7 +1219,7 @@ public class ReplicationQueue
     String refsStr = filteredRefs.stream().map(RefInput::refName).collect(Collectors.joining(","));
     FetchApiClient fetchClient = fetchClientFactory.create(source);
 
-    for (String apiUrl : source.getApis()) {
+    for (String apiUrl : apiUrls) {
       try {
         URIish uri = new URIish(apiUrl);
         Optional<HttpResult> result = Optional.empty();
@@ -656,6 +1255,9 @@ public class ReplicationQueue
         stateLog.error(
             String.format("Cannot parse pull replication batch api url:%s", apiUrl), state);
         resultIsSuccessful = false;
+      } catch (RequestDeferredException e) {
+        deferredApiUrls.add(apiUrl);
+        retryAfterMs = Math.max(retryAfterMs, e.getRetryAfterMs());
       } catch (Exception e) {
         stateLog.error(
             String.format(
@@ -668,20 +1270,52 @@ public class ReplicationQueue
       }
     }
 
+    if (!deferredApiUrls.isEmpty()) {
+      resultIsSuccessful &=
+          deferFetchCall(
+              source,
+              project,
+              deferredApiUrls,
+              retryAfterMs,
+              deferrals,
+              state,
+              nextDeferrals ->
+                  callBatchFetch(source, deferredApiUrls, project, refs, state, nextDeferrals));
+    }
     return resultIsSuccessful;
   }
 
   private boolean callFetch(
       Source source,
+      List<String> apiUrls,
       Project.NameKey project,
       List<ReferenceUpdatedEvent> refs,
       ReplicationState state,
       boolean forceAsyncCall) {
+    return callFetch(source, apiUrls, project, refs, state, forceAsyncCall, 0);
+  }
+
+  private boolean callFetch(
+      Source source,
+      List<String> apiUrls,
+      Project.NameKey project,
+      List<ReferenceUpdatedEvent> refs,
+      ReplicationState state,
+      boolean forceAsyncCall,
+      int deferrals) {
     boolean resultIsSuccessful = true;
+    Map<String, List<ReferenceUpdatedEvent>> deferredRefsByApiUrl = new LinkedHashMap<>();
+    Map<String, Long> retryAfterMsByApiUrl = new HashMap<>();
     for (ReferenceUpdatedEvent refEvent : refs) {
       String refName = refEvent.refName();
       if (source.wouldFetchProject(project) && source.wouldFetchRef(refName)) {
-        for (String apiUrl : source.getApis()) {
+        for (String apiUrl : apiUrls) {
+          List<ReferenceUpdatedEvent> deferredRefs = deferredRefsByApiUrl.get(apiUrl);
+          if (deferredRefs != null) {
+            // The target is too busy: call it again later for all its remaining refs
+            deferredRefs.add(refEvent);
+            continue;
+          }
           try {
             URIish uri = new URIish(apiUrl);
             FetchApiClient fetchClient = fetchClientFactory.create(source);
@@ -724,6 +1358,9 @@ public class ReplicationQueue
             stateLog.error(
                 String.format("Cannot parse pull replication api url:%s", apiUrl), state);
             resultIsSuccessful = false;
+          } catch (RequestDeferredException e) {
+            deferredRefsByApiUrl.computeIfAbsent(apiUrl, k -> new ArrayList<>()).add(refEvent);
+            retryAfterMsByApiUrl.put(apiUrl, e.getRetryAfterMs());
           } catch (Exception e) {
             stateLog.error(
                 String.format(
@@ -738,9 +1375,63 @@ public class ReplicationQueue
       }
     }
 
+    for (Map.Entry<String, List<ReferenceUpdatedEvent>> deferred :
+        deferredRefsByApiUrl.entrySet()) {
+      List<String> deferredApiUrl = ImmutableList.of(deferred.getKey());
+      List<ReferenceUpdatedEvent> deferredRefs = deferred.getValue();
+      resultIsSuccessful &=
+          deferFetchCall(
+              source,
+              project,
+              deferredApiUrl,
+              retryAfterMsByApiUrl.get(deferred.getKey()),
+              deferrals,
+              state,
+              nextDeferrals ->
+                  callFetch(
+                      source,
+                      deferredApiUrl,
+                      project,
+                      deferredRefs,
+                      state,
+                      forceAsyncCall,
+                      nextDeferrals));
+    }
     return resultIsSuccessful;
   }
 
+  /**
+   * Call again the fetch REST-API of the targets that deferred it because too busy, after the delay
+   * they requested and up to {@link Source#getMaxRequestDeferrals()} times.
+   *
+   * @return false when the deferrals are exhausted and the fetch is given up.
+   */
+  private boolean deferFetchCall(
+      Source source,
+      NameKey project,
+      List<String> deferredApiUrls,
+      long retryAfterMs,
+      int deferrals,
+      ReplicationState state,
+      IntConsumer fetchCall) {
+    if (deferrals >= source.getMaxRequestDeferrals()) {
+      stateLog.error(
+          String.format(
+              "Pull replication REST API fetch of project %s to %s deferred %d times, giving up",
+              project, deferredApiUrls, deferrals),
+          state);
+      return false;
+    }
+    repLog.info(
+        "Pull replication REST API fetch of project {} to {} deferred ({}/{})",
+        project,
+        deferredApiUrls,
+        deferrals + 1,
+        source.getMaxRequestDeferrals());
+    source.scheduleDeferredCall(() -> fetchCall.accept(deferrals + 1), retryAfterMs);
+    return true;
+  }
+
   public boolean retry(int attempt, int maxRetries) {
     return maxRetries == 0 || attempt < maxRetries;
   }
@@ -864,8 +1555,103 @@ public class ReplicationQueue
     public abstract boolean isCreate();
   }
 
+  @AutoValue
+  abstract static class PendingProjectBatch {
+
+    static PendingProjectBatch create(
+        ProjectBatchApplyObjectData projectBatch,
+        List<ReferenceUpdatedEvent> refs,
+        ReplicationState state) {
+      return new AutoValue_ReplicationQueue_PendingProjectBatch(projectBatch, refs, state);
+    }
+
+    public abstract ProjectBatchApplyObjectData projectBatch();
+
+    public abstract List<ReferenceUpdatedEvent> refs();
+
+    public abstract ReplicationState state();
+  }
+
+  @AutoValue
+  abstract static class AcceptedApplyObject {
+
+    static AcceptedApplyObject create(
+        String apiUrl,
+        URIish uri,
+        NameKey project,
+        List<BatchApplyObjectData> refsBatch,
+        List<ReferenceUpdatedEvent> refs,
+        long eventCreatedOn,
+        boolean wholeMetaHistory,
+        String statusUrl,
+        long deadlineNanos,
+        ReplicationState state) {
+      return new AutoValue_ReplicationQueue_AcceptedApplyObject(
+          apiUrl,
+          uri,
+          project,
+          refsBatch,
+          refs,
+          eventCreatedOn,
+          wholeMetaHistory,
+          statusUrl,
+          deadlineNanos,
+          state);
+    }
+
+    public abstract String apiUrl();
+
+    public abstract URIish uri();
+
+    public abstract NameKey project();
+
+    public abstract List<BatchApplyObjectData> refsBatch();
+
+    public abstract List<ReferenceUpdatedEvent> refs();
+
+    public abstract long eventCreatedOn();
+
+    public abstract boolean wholeMetaHistory();
+
+    public abstract String statusUrl();
+
+    public abstract long deadlineNanos();
+
+    public abstract ReplicationState state();
+  }
+
   @FunctionalInterface
   private interface CallFunction {
-    boolean call(Source source) throws MissingParentObjectException;
+    CallOutcome call(Source source, List<String> apiUrls);
+  }
+
+  /** Outcome of the calls of a ref update to some apiUrls of a source. */
+  private static class CallOutcome {
+    private final List<String> failedApiUrls = new ArrayList<>();
+    private final List<String> deferredApiUrls = new ArrayList<>();
+    private long retryAfterMs;
+
+    static CallOutcome of(boolean successful, List<String> apiUrls) {
+      CallOutcome outcome = new CallOutcome();
+      if (!successful) {
+        outcome.failedApiUrls.addAll(apiUrls);
+      }
+      return outcome;
+    }
+
+    void failed(String apiUrl) {
+      failedApiUrls.add(apiUrl);
+    }
+
+    /** The target is too busy: the call is sent again after the longest delay requested. */
+    void deferred(String apiUrl, long retryAfterMs) {
+      deferredApiUrls.add(apiUrl);
+      this.retryAfterMs = Math.max(this.retryAfterMs, retryAfterMs);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ApplyObjectCall {
+    HttpResult call() throws IOException;
   }
 }
@@ -11,6 +11,7 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull;
 
+import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.registration.RegistrationHandle;
 import com.google.gerrit.metrics.CallbackMetric1;
@@ -23,9 +24,12 @@ import com.google.gerrit.server.logging.PluginMetadata;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 
 @Singleton
@@ -33,6 +37,11 @@ public class ReplicationQueueMetrics {
   private static final String EVENTS = "events";
   private static final String TASKS = "tasks";
   private static final String REFS = "refs";
+  private static final String CALLS = "calls";
+  private static final String BREAKERS = "breakers";
+  private static final String PERMITS = "permits";
+  private static final String THREADS = "threads";
+  private static final String DECISIONS = "decisions";
   public static final String REPLICATION_QUEUE_METRICS = "ReplicationQueueMetrics";
 
   private final Counter1<String> tasksScheduled;
@@ -47,6 +56,7 @@ public class ReplicationQueueMetrics {
   private final Counter1<String> tasksCancelledMaxRetries;
   private final MetricMaker metricMaker;
   private final Field<String> sourceField;
+  private final Field<String> projectField;
   private final Counter1<String> tasksStarted;
   private final Set<RegistrationHandle> metricsHandles;
 
@@ -54,6 +64,14 @@ public class ReplicationQueueMetrics {
   private final Counter1<String> refsFetchCompleted;
   private final Counter1<String> refsFetchFailed;
 
+  private final Counter1<String> circuitBreakerRejected;
+  private final Counter1<String> circuitBreakerTripped;
+  private final Counter1<String> concurrencyLimitRejected;
+  private final Counter1<String> concurrencyLimitDeferred;
+
+  private final Counter1<String> permissionCacheHits;
+  private final Counter1<String> permissionCacheMisses;
+
   public class RunnableWithMetrics implements Runnable {
     private final Source source;
     private final Runnable runnable;
@@ -96,6 +114,13 @@ public class ReplicationQueueMetrics {
                         .addPluginMetadata(PluginMetadata.create("source", fieldValue)))
             .build();
 
+    projectField =
+        Field.ofString(
+                "project",
+                (metadataBuilder, fieldValue) ->
+                    metadataBuilder.pluginName(pluginName).projectName(fieldValue))
+            .build();
+
     eventsQueuedBeforeStartup =
         registerMetric(
             metricMaker.newCounter(
@@ -201,6 +226,57 @@ public class ReplicationQueueMetrics {
                     .setUnit(REFS),
                 sourceField));
 
+    circuitBreakerRejected =
+        registerMetric(
+            metricMaker.newCounter(
+                "circuit_breaker/rejected",
+                new Description("REST-API calls rejected because of an open circuit breaker")
+                    .setCumulative()
+                    .setUnit(CALLS),
+                sourceField));
+    circuitBreakerTripped =
+        registerMetric(
+            metricMaker.newCounter(
+                "circuit_breaker/tripped",
+                new Description("Circuit breakers tripped open after consecutive failures")
+                    .setCumulative()
+                    .setUnit(BREAKERS),
+                sourceField));
+
+    concurrencyLimitRejected =
+        registerMetric(
+            metricMaker.newCounter(
+                "concurrency_limit/rejected",
+                new Description("REST-API calls rejected because of the adaptive concurrency limit")
+                    .setCumulative()
+                    .setUnit(CALLS),
+                sourceField));
+    concurrencyLimitDeferred =
+        registerMetric(
+            metricMaker.newCounter(
+                "concurrency_limit/deferred",
+                new Description("REST-API calls deferred because the target had too many requests")
+                    .setCumulative()
+                    .setUnit(CALLS),
+                sourceField));
+
+    permissionCacheHits =
+        registerMetric(
+            metricMaker.newCounter(
+                "permission_cache/hits",
+                new Description("Replication permission decisions found in the cache")
+                    .setCumulative()
+                    .setUnit(DECISIONS),
+                sourceField));
+    permissionCacheMisses =
+        registerMetric(
+            metricMaker.newCounter(
+                "permission_cache/misses",
+                new Description("Replication permission decisions not found in the cache")
+                    .setCumulative()
+                    .setUnit(DECISIONS),
+                sourceField));
+
     this.metricMaker = metricMaker;
   }
 
@@ -217,6 +293,58 @@ public class ReplicationQueueMetrics {
         "In-flight replication tasks per source");
     initCallbackMetrics(
         queue, Source::pendingTasksCount, "tasks/pending", "Pending replication tasks per source");
+    initCallbackMetrics(
+        queue,
+        Source::openCircuitBreakersCount,
+        "circuit_breaker/open",
+        "Circuit breakers currently open or half-open per source",
+        BREAKERS);
+    initCallbackMetrics(
+        queue,
+        Source::concurrencyLimit,
+        "concurrency_limit/limit",
+        "Current adaptive concurrency limit of REST-API calls per source",
+        PERMITS);
+    initCallbackMetrics(
+        queue,
+        Source::concurrencyInFlight,
+        "concurrency_limit/in_flight",
+        "REST-API calls in-flight under the adaptive concurrency limit per source",
+        PERMITS);
+    initCallbackMetrics(
+        queue,
+        Source::poolActiveThreads,
+        "pool/active_threads",
+        "Worker threads currently running the replication tasks per source",
+        THREADS);
+    initCallbackMetrics(
+        queue,
+        Source::poolQueuedTasks,
+        "pool/queued_tasks",
+        "Replication tasks waiting for the quota of the shared pool per source");
+    initProjectCallbackMetrics(
+        queue,
+        Source::inflightTasksPerProject,
+        "tasks/inflight_per_project",
+        "In-flight replication tasks per project, across all sources");
+    initProjectCallbackMetrics(
+        queue,
+        Source::pendingTasksPerProject,
+        "tasks/pending_per_project",
+        "Pending replication tasks per project, across all sources");
+    initCallbackMetrics(
+        queue,
+        Source::maxWait,
+        "tasks/max_wait",
+        "Longest wait of the queued replication tasks per source",
+        Description.Units.MILLISECONDS);
+    initProjectCallbackMetrics(
+        queue,
+        Source::maxWaitPerProject,
+        "tasks/max_wait_per_project",
+        "Longest wait of the queued replication tasks per project, across all sources",
+        Description.Units.MILLISECONDS,
+        Long::max);
   }
 
   void stop() {
@@ -228,12 +356,21 @@ public class ReplicationQueueMetrics {
       Function<Source, Long> sourceMetricFunc,
       String metricName,
       String description) {
+    initCallbackMetrics(queue, sourceMetricFunc, metricName, description, TASKS);
+  }
+
+  private void initCallbackMetrics(
+      ReplicationQueue queue,
+      Function<Source, Long> sourceMetricFunc,
+      String metricName,
+      String description,
+      String unit) {
     CallbackMetric1<String, Long> metric =
         registerMetric(
             metricMaker.newCallbackMetric(
                 metricName,
                 Long.class,
-                new Description(description).setGauge().setUnit(TASKS),
+                new Description(description).setGauge().setUnit(unit),
                 sourceField));
     registerMetric(
         metricMaker.newTrigger(
@@ -252,6 +389,49 @@ public class ReplicationQueueMetrics {
             }));
   }
 
+  private void initProjectCallbackMetrics(
+      ReplicationQueue queue,
+      Function<Source, Map<Project.NameKey, Integer>> sourceMetricFunc,
+      String metricName,
+      String description) {
+    initProjectCallbackMetrics(queue, sourceMetricFunc, metricName, description, TASKS, Long::sum);
+  }
+
+  private void initProjectCallbackMetrics(
+      ReplicationQueue queue,
+      Function<Source, ? extends Map<Project.NameKey, ? extends Number>> sourceMetricFunc,
+      String metricName,
+      String description,
+      String unit,
+      BinaryOperator<Long> acrossSources) {
+    CallbackMetric1<String, Long> metric =
+        registerMetric(
+            metricMaker.newCallbackMetric(
+                metricName,
+                Long.class,
+                new Description(description).setGauge().setUnit(unit),
+                projectField));
+    registerMetric(
+        metricMaker.newTrigger(
+            metric,
+            () -> {
+              Map<String, Long> valuePerProject = new HashMap<>();
+              for (Source source : queue.sourcesCollection().getAll()) {
+                sourceMetricFunc
+                    .apply(source)
+                    .forEach(
+                        (project, value) ->
+                            valuePerProject.merge(project.get(), value.longValue(), acrossSources));
+              }
+              if (valuePerProject.isEmpty()) {
+                metric.forceCreate("");
+              } else {
+                valuePerProject.forEach(metric::set);
+              }
+              metric.prune();
+            }));
+  }
+
   public void incrementTaskScheduled(Source source) {
     tasksScheduled.increment(source.getRemoteConfigName());
   }
@@ -296,6 +476,30 @@ public class ReplicationQueueMetrics {
     tasksCancelledMaxRetries.increment(source.getRemoteConfigName());
   }
 
+  public void incrementCircuitBreakerRejected(Source source) {
+    circuitBreakerRejected.increment(source.getRemoteConfigName());
+  }
+
+  public void incrementCircuitBreakerTripped(Source source) {
+    circuitBreakerTripped.increment(source.getRemoteConfigName());
+  }
+
+  public void incrementConcurrencyLimitRejected(Source source) {
+    concurrencyLimitRejected.increment(source.getRemoteConfigName());
+  }
+
+  public void incrementRequestsDeferred(Source source) {
+    concurrencyLimitDeferred.increment(source.getRemoteConfigName());
+  }
+
+  public void incrementPermissionCacheHit(Source source) {
+    permissionCacheHits.increment(source.getRemoteConfigName());
+  }
+
+  public void incrementPermissionCacheMiss(Source source) {
+    permissionCacheMisses.increment(source.getRemoteConfigName());
+  }
+
   public void incrementTaskStarted(Source source) {
     tasksStarted.increment(source.getRemoteConfigName());
   }
@@ -0,0 +1,65 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.math.LongMath;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Delay of the retries of the failed fetch tasks of a source.
+ *
+ * <p>The delay grows by {@code remote.NAME.retryBackoffMultiplier} at every retry of a task, up to
+ * {@code remote.NAME.retryMaxDelay}, and is shortened by a random share of up to {@code
+ * remote.NAME.retryJitter} percent, so that the tasks failed at the same time, for example during
+ * an outage of the source, are not all retried at the same time.
+ */
+class RetryBackoff {
+  private final int multiplier;
+  private final long maxDelayMs;
+  private final int jitterPercent;
+  private final DoubleSupplier random;
+
+  RetryBackoff(SourceConfiguration config) {
+    this(
+        config.getRetryBackoffMultiplier(),
+        config.getRetryMaxDelay(),
+        config.getRetryJitter(),
+        () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  @VisibleForTesting
+  RetryBackoff(int multiplier, long maxDelayMs, int jitterPercent, DoubleSupplier random) {
+    this.multiplier = multiplier;
+    this.maxDelayMs = maxDelayMs;
+    this.jitterPercent = jitterPercent;
+    this.random = random;
+  }
+
+  /**
+   * Compute the delay of a retry.
+   *
+   * @param baseDelayMs the delay of the first retry, never reduced by the maximum delay.
+   * @param retry the number of the retry, starting from 1.
+   * @return the delay of the retry in milliseconds.
+   */
+  long delayMs(long baseDelayMs, int retry) {
+    long maxDelay = Math.max(baseDelayMs, maxDelayMs);
+    long delay = baseDelayMs;
+    for (int i = 1; i < retry && multiplier > 1 && delay < maxDelay; i++) {
+      delay = LongMath.saturatedMultiply(delay, multiplier);
+    }
+    delay = Math.min(delay, maxDelay);
+    return delay - (long) (delay * jitterPercent / 100.0 * random.getAsDouble());
+  }
+}
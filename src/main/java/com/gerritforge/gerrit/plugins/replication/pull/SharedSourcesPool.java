@@ -0,0 +1,249 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Worker pool shared by all the sources, when {@code replication.sharedPoolThreads} is set.
+ *
+ * <p>Every source is granted a quota of the shared threads: it can always run up to its minimum
+ * number of tasks, and can borrow the threads left idle by the other sources up to its maximum, as
+ * long as the minimum of the other sources remains available. The tasks exceeding the quota of
+ * their source wait in its backlog until a thread is released.
+ */
+@Singleton
+public class SharedSourcesPool {
+  private static final Logger repLog = PullReplicationLogger.repLog;
+  static final String POOL_NAME = "ReplicateFrom-shared";
+
+  private final WorkQueue workQueue;
+  private final int threads;
+  private final Map<String, Quota> quotas = new LinkedHashMap<>();
+  private int activeThreads;
+  private ScheduledExecutorService pool;
+
+  @Inject
+  SharedSourcesPool(WorkQueue workQueue, ReplicationConfig replicationConfig) {
+    this.workQueue = workQueue;
+    this.threads =
+        Math.max(0, replicationConfig.getConfig().getInt("replication", "sharedPoolThreads", 0));
+  }
+
+  @VisibleForTesting
+  SharedSourcesPool(ScheduledExecutorService pool, int threads) {
+    this.workQueue = null;
+    this.pool = pool;
+    this.threads = threads;
+  }
+
+  public boolean isEnabled() {
+    return threads > 0;
+  }
+
+  /**
+   * Register the quota of a source, creating the shared pool when it is the first one.
+   *
+   * @param source the name of the source.
+   * @param minThreads the number of threads the source can always use.
+   * @param maxThreads the maximum number of threads the source can use.
+   * @return the quota of the source, to be closed when the source is shut down.
+   */
+  public synchronized Quota register(String source, int minThreads, int maxThreads) {
+    if (pool == null) {
+      pool = workQueue.createQueue(threads, POOL_NAME);
+    }
+    int max = Math.max(1, maxThreads);
+    Quota quota = new Quota(source, Math.min(Math.max(0, minThreads), max), max);
+    quotas.put(source, quota);
+
+    int totalMinThreads = quotas.values().stream().mapToInt(q -> q.minThreads).sum();
+    if (totalMinThreads > threads) {
+      repLog.warn(
+          "The minimum threads of the sources add up to {}, more than the {} of"
+              + " replication.sharedPoolThreads: the minimum of source {} cannot be guaranteed",
+          totalMinThreads,
+          threads,
+          source);
+    }
+    return quota;
+  }
+
+  /** Quota of the shared threads granted to a source. */
+  public class Quota {
+    private final String source;
+    private final int minThreads;
+    private final int maxThreads;
+    private final Deque<QuotaTask> backlog = new ArrayDeque<>();
+    private final ScheduledExecutorService executor;
+    private int active;
+    private boolean closed;
+
+    private Quota(String source, int minThreads, int maxThreads) {
+      this.source = source;
+      this.minThreads = minThreads;
+      this.maxThreads = maxThreads;
+      this.executor = pool;
+    }
+
+    /** The shared executor, for the scheduling of the tasks not subject to the quota. */
+    public ScheduledExecutorService getExecutor() {
+      return executor;
+    }
+
+    /** Schedule a task to run within the quota of the source. */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+      return executor.schedule(new QuotaTask(this, task), delay, unit);
+    }
+
+    public long getActiveThreads() {
+      synchronized (SharedSourcesPool.this) {
+        return active;
+      }
+    }
+
+    public long getQueuedTasks() {
+      synchronized (SharedSourcesPool.this) {
+        return backlog.size();
+      }
+    }
+
+    /**
+     * Release the quota, discarding the tasks waiting in its backlog. The shared pool is shut down
+     * when the last quota is closed.
+     *
+     * @return the number of tasks discarded.
+     */
+    public int close() {
+      synchronized (SharedSourcesPool.this) {
+        closed = true;
+        int discarded = backlog.size();
+        backlog.clear();
+        quotas.remove(source, this);
+        if (quotas.isEmpty() && pool != null && workQueue != null) {
+          pool.shutdownNow();
+          pool = null;
+        }
+        return discarded;
+      }
+    }
+
+    private boolean canRun() {
+      if (closed || active >= maxThreads) {
+        return false;
+      }
+      if (active < minThreads) {
+        return true;
+      }
+      int reservedByOthers = 0;
+      for (Quota other : quotas.values()) {
+        if (other != this) {
+          reservedByOthers += Math.max(0, other.minThreads - other.active);
+        }
+      }
+      return activeThreads + reservedByOthers < threads;
+    }
+  }
+
+  private class QuotaTask implements Runnable {
+    private final Quota quota;
+    private final Runnable task;
+    private boolean acquired;
+
+    QuotaTask(Quota quota, Runnable task) {
+      this.quota = quota;
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      if (acquired || tryAcquire(this)) {
+        runAcquired();
+      }
+    }
+
+    private void runAcquired() {
+      try {
+        task.run();
+      } finally {
+        release(quota);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return task.toString();
+    }
+  }
+
+  private synchronized boolean tryAcquire(QuotaTask task) {
+    Quota quota = task.quota;
+    if (quota.closed) {
+      return false;
+    }
+    if (!quota.canRun()) {
+      quota.backlog.add(task);
+      return false;
+    }
+    acquire(quota);
+    return true;
+  }
+
+  private void acquire(Quota quota) {
+    quota.active++;
+    activeThreads++;
+  }
+
+  private synchronized void release(Quota quota) {
+    quota.active--;
+    activeThreads--;
+    dispatchNext();
+  }
+
+  /**
+   * Dispatch a task waiting in the backlog of a source, favouring the sources below their minimum.
+   * The sources are visited in round-robin, so that the threads released are lent in turn to all
+   * the sources exceeding their minimum.
+   */
+  private void dispatchNext() {
+    if (pool == null) {
+      return;
+    }
+    for (boolean belowMinimumOnly : new boolean[] {true, false}) {
+      for (Quota quota : quotas.values()) {
+        if (!quota.backlog.isEmpty()
+            && (!belowMinimumOnly || quota.active < quota.minThreads)
+            && quota.canRun()) {
+          QuotaTask next = quota.backlog.poll();
+          acquire(quota);
+          next.acquired = true;
+          quotas.remove(quota.source);
+          quotas.put(quota.source, quota);
+          pool.execute(next);
+          return;
+        }
+      }
+    }
+  }
+}
@@ -16,6 +16,8 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationApiRequestMetrics;
+import com.gerritforge.gerrit.plugins.replication.pull.client.AdaptiveConcurrencyLimiter;
+import com.gerritforge.gerrit.plugins.replication.pull.client.CircuitBreaker;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.BatchFetchClient;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.CGitFetch;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.CGitFetchValidator;
@@ -23,6 +25,9 @@ import com.gerritforge.gerrit.plugins.replication.pull.fetch.Fetch;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.FetchClientImplementation;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.FetchFactory;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.JGitFetch;
+import com.gerritforge.gerrit.plugins.replication.pull.fetch.RefUpdateState;
+import com.gerritforge.gerrit.plugins.replication.pull.filter.ExcludedRefsFilter;
+import com.gerritforge.gerrit.plugins.replication.pull.filter.RefNameMatcher;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
@@ -72,7 +77,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -80,8 +85,10 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -92,7 +99,6 @@ import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.URIish;
 import org.slf4j.Logger;
 
@@ -106,23 +112,34 @@ public class Source {
 
   private final ReplicationStateListener stateLog;
   private final UpdateHeadTask.Factory updateHeadFactory;
-  private final Object stateLock = new Object();
-  private final Map<URIish, FetchOne> pending = new HashMap<>();
-  private final Map<URIish, FetchOne> inFlight = new HashMap<>();
+  private final FetchTaskRegistry tasks = new FetchTaskRegistry();
   private final FetchOne.Factory opFactory;
   private final GitRepositoryManager gitManager;
   private final PermissionBackend permissionBackend;
   private final Provider<CurrentUser> userProvider;
   private final ProjectCache projectCache;
   private volatile ScheduledExecutorService pool;
+  private volatile SharedSourcesPool.Quota sharedPoolQuota;
+  private volatile VirtualThreadsPool virtualThreadsPool;
+  private volatile ProjectFairQueue fairQueue;
+  private final SharedSourcesPool sharedPool;
   private final PerThreadRequestScope.Scoper threadScoper;
   private final DynamicItem<EventDispatcher> eventDispatcher;
   private CloseableHttpClient httpClient;
   private final DeleteProjectTask.Factory deleteProjectFactory;
   private final ReplicationQueueMetrics queueMetrics;
+  private final FetchReplicationMetrics fetchMetrics;
+  private final RetryBackoff retryBackoff;
+  private final Optional<AdaptiveReplicationDelay> adaptiveDelay;
+  private final PermissionDecisionCache permissionDecisions;
+  private final RefNameMatcher fetchRefsMatcher;
+  private final Optional<ReplicationFilter> projectsFilter;
+  private final ExcludedRefsFilter excludedRefsFilter;
   private static final int DRAINED_CHECK_FREQUENCY_MS = 50;
   private static final int DRAINED_LOGGING_FREQUENCY_SECS = 5;
   private final SourceConfiguration config;
+  private final ImmutableMap<URIish, CircuitBreaker> circuitBreakers;
+  private final ImmutableMap<URIish, AdaptiveConcurrencyLimiter> concurrencyLimiters;
 
   protected enum RetryReason {
     TRANSPORT_ERROR,
@@ -153,7 +170,10 @@ public class Source {
       ReplicationStateListeners stateLog,
       GroupIncludeCache groupIncludeCache,
       DynamicItem<EventDispatcher> eventDispatcher,
-      ReplicationQueueMetrics queueMetrics) {
+      ReplicationQueueMetrics queueMetrics,
+      SharedSourcesPool sharedPool,
+      FetchReplicationMetrics fetchMetrics,
+      ExcludedRefsFilter excludedRefsFilter) {
     config = cfg;
     this.eventDispatcher = eventDispatcher;
     gitManager = gitRepositoryManager;
@@ -162,6 +182,22 @@ public class Source {
     this.projectCache = projectCache;
     this.stateLog = stateLog;
     this.queueMetrics = queueMetrics;
+    this.sharedPool = sharedPool;
+    this.fetchMetrics = fetchMetrics;
+    this.excludedRefsFilter = excludedRefsFilter;
+    this.retryBackoff = new RetryBackoff(cfg);
+    this.adaptiveDelay =
+        cfg.useAdaptiveReplicationDelay()
+            ? Optional.of(new AdaptiveReplicationDelay(cfg))
+            : Optional.empty();
+    this.permissionDecisions =
+        new PermissionDecisionCache(cfg.getPermissionCacheTtl(), cfg.getPermissionCacheSize());
+    this.fetchRefsMatcher = RefNameMatcher.fromRefSpecs(cfg.getRemoteConfig().getFetchRefSpecs());
+    // by default fetch all projects
+    this.projectsFilter =
+        cfg.getProjects().isEmpty() && cfg.getExcludeProjects().isEmpty()
+            ? Optional.empty()
+            : Optional.of(new ReplicationFilter(cfg.getProjects(), cfg.getExcludeProjects()));
 
     CurrentUser remoteUser;
     if (!cfg.getAuthGroupNames().isEmpty()) {
@@ -225,6 +261,49 @@ public class Source {
     threadScoper = child.getInstance(PerThreadRequestScope.Scoper.class);
     deleteProjectFactory = child.getInstance(DeleteProjectTask.Factory.class);
     updateHeadFactory = child.getInstance(UpdateHeadTask.Factory.class);
+    circuitBreakers = createCircuitBreakers(cfg);
+    concurrencyLimiters = createConcurrencyLimiters(cfg);
+  }
+
+  private static ImmutableMap<URIish, CircuitBreaker> createCircuitBreakers(
+      SourceConfiguration cfg) {
+    ImmutableMap.Builder<URIish, CircuitBreaker> breakers = ImmutableMap.builder();
+    if (cfg.getCircuitBreakerFailureThreshold() > 0) {
+      for (String apiUrl : cfg.getApis()) {
+        try {
+          breakers.put(
+              new URIish(apiUrl),
+              new CircuitBreaker(
+                  apiUrl,
+                  cfg.getCircuitBreakerFailureThreshold(),
+                  cfg.getCircuitBreakerOpenInterval()));
+        } catch (URISyntaxException e) {
+          repLog.warn("Invalid apiUrl {}, circuit breaker not enabled", apiUrl, e);
+        }
+      }
+    }
+    return breakers.buildKeepingLast();
+  }
+
+  private static ImmutableMap<URIish, AdaptiveConcurrencyLimiter> createConcurrencyLimiters(
+      SourceConfiguration cfg) {
+    ImmutableMap.Builder<URIish, AdaptiveConcurrencyLimiter> limiters = ImmutableMap.builder();
+    if (cfg.adaptiveConcurrency()) {
+      for (String apiUrl : cfg.getApis()) {
+        try {
+          limiters.put(
+              new URIish(apiUrl),
+              new AdaptiveConcurrencyLimiter(
+                  apiUrl,
+                  cfg.getAdaptiveConcurrencyMinLimit(),
+                  cfg.getAdaptiveConcurrencyMaxLimit(),
+                  cfg.getAdaptiveConcurrencyLatencyThreshold()));
+        } catch (URISyntaxException e) {
+          repLog.warn("Invalid apiUrl {}, adaptive concurrency not enabled", apiUrl, e);
+        }
+      }
+    }
+    return limiters.buildKeepingLast();
   }
 
   public synchronized CloseableHttpClient memoize(
@@ -249,9 +328,7 @@ public class Source {
   }
 
   public QueueInfo getQueueInfo() {
-    synchronized (stateLock) {
-      return new QueueInfo(pending, inFlight);
-    }
+    return new QueueInfo(tasks.pending(), tasks.inFlight());
   }
 
   public boolean isStoreReflog() {
@@ -260,12 +337,60 @@ public class Source {
 
   public void start(WorkQueue workQueue) {
     String poolName = "ReplicateFrom-" + config.getRemoteConfig().getName();
-    pool = workQueue.createQueue(config.getPoolThreads(), poolName);
+    if (config.useVirtualThreads()) {
+      if (sharedPool.isEnabled()) {
+        repLog.warn(
+            "Source {} runs its tasks on virtual threads: replication.sharedPoolThreads and"
+                + " remote.{}.minThreads are ignored",
+            config.getRemoteConfig().getName(),
+            config.getRemoteConfig().getName());
+      }
+      VirtualThreadsPool virtualPool =
+          new VirtualThreadsPool(
+              workQueue.createQueue(1, poolName), poolName, config.getPoolThreads());
+      pool = virtualPool.getScheduler();
+      virtualThreadsPool = virtualPool;
+    } else if (sharedPool.isEnabled()) {
+      SharedSourcesPool.Quota quota =
+          sharedPool.register(
+              config.getRemoteConfig().getName(),
+              config.getMinPoolThreads(),
+              config.getPoolThreads());
+      pool = quota.getExecutor();
+      sharedPoolQuota = quota;
+    } else {
+      pool = workQueue.createQueue(config.getPoolThreads(), poolName);
+    }
+    if (config.useFairScheduling()) {
+      fairQueue = new ProjectFairQueue(this::executeTask, config.getPoolThreads());
+    }
   }
 
   public synchronized int shutdown() {
     int cnt = 0;
-    if (pool != null) {
+    VirtualThreadsPool virtualPool = virtualThreadsPool;
+    SharedSourcesPool.Quota quota = sharedPoolQuota;
+    if (virtualPool != null) {
+      try {
+        waitUntil(this::isDrained, Duration.ofSeconds(config.getShutDownDrainTimeout()));
+      } catch (InterruptedException e) {
+        logger.atSevere().withCause(e).log("Interrupted during termination.");
+        logInterruptedShutdownStatus(List.of());
+      }
+      cnt = virtualPool.shutdownNow();
+      virtualThreadsPool = null;
+      pool = null;
+    } else if (quota != null) {
+      try {
+        waitUntil(this::isDrained, Duration.ofSeconds(config.getShutDownDrainTimeout()));
+      } catch (InterruptedException e) {
+        logger.atSevere().withCause(e).log("Interrupted during termination.");
+        logInterruptedShutdownStatus(List.of());
+      }
+      cnt = quota.close();
+      sharedPoolQuota = null;
+      pool = null;
+    } else if (pool != null) {
       try {
         waitUntil(this::isDrained, Duration.ofSeconds(config.getShutDownDrainTimeout()));
         cnt = pool.shutdownNow().size();
@@ -277,6 +402,11 @@ public class Source {
       }
       pool = null;
     }
+    ProjectFairQueue queue = fairQueue;
+    if (queue != null) {
+      cnt += queue.clear();
+      fairQueue = null;
+    }
     if (httpClient != null) {
       try {
         httpClient.close();
@@ -293,9 +423,9 @@ public class Source {
     String neverExecutedTasks =
         fetchTasks.stream().map(r -> r.toString()).collect(Collectors.joining(","));
     String pendingTasks =
-        pending.values().stream().map(FetchOne::toString).collect(Collectors.joining(","));
+        tasks.pending().values().stream().map(FetchOne::toString).collect(Collectors.joining(","));
     String inFlightTasks =
-        inFlight.values().stream().map(FetchOne::toString).collect(Collectors.joining(","));
+        tasks.inFlight().values().stream().map(FetchOne::toString).collect(Collectors.joining(","));
 
     repLog.error("Never executed tasks: {}", neverExecutedTasks);
     repLog.error("Pending tasks: {}", pendingTasks);
@@ -303,8 +433,8 @@ public class Source {
   }
 
   private boolean isDrained() {
-    int numberOfPending = pending.size();
-    int numberOfInFlight = inFlight.size();
+    int numberOfPending = tasks.pendingCount();
+    int numberOfInFlight = tasks.inFlightCount();
 
     boolean drained = numberOfPending == 0 && numberOfInFlight == 0;
 
@@ -352,6 +482,18 @@ public class Source {
 
   private boolean shouldReplicate(
       final Project.NameKey project, FetchRefSpec refSpec, ReplicationState... states) {
+    Optional<Boolean> cachedDecision =
+        recordPermissionCacheLookup(
+            skipsRefPermissionCheck(refSpec)
+                ? permissionDecisions.getProjectDecision(project)
+                : permissionDecisions.getRefDecision(project, refSpec.refName()));
+    if (cachedDecision.isPresent()) {
+      if (cachedDecision.get()) {
+        return true;
+      }
+      repLog.warn("NOT scheduling replication {}:{}", project, refSpec);
+      return false;
+    }
     try {
       return threadScoper
           .scope(
@@ -376,29 +518,28 @@ public class Source {
                         refSpec);
                     throw new NoSuchProjectException(project);
                   }
-                  if (!shouldReplicate(projectState.get(), userProvider.get())) {
-                    return false;
+                  if (skipsRefPermissionCheck(refSpec)) {
+                    return permissionDecisions.putProjectDecision(
+                        project, shouldReplicate(projectState.get(), userProvider.get()));
                   }
-                  if (refSpec.equalsToRef(FetchOne.ALL_REFS)) {
-                    return true;
+                  if (!shouldReplicate(projectState.get(), userProvider.get())) {
+                    return permissionDecisions.putRefDecision(project, refSpec.refName(), false);
                   }
                   try {
-                    if (!refSpec.refName().startsWith(RefNames.REFS_CHANGES)) {
-                      permissionBackend
-                          .user(userProvider.get())
-                          .project(project)
-                          .ref(refSpec.refName())
-                          .check(RefPermission.READ);
-                    }
+                    permissionBackend
+                        .user(userProvider.get())
+                        .project(project)
+                        .ref(refSpec.refName())
+                        .check(RefPermission.READ);
                   } catch (AuthException e) {
                     repLog.warn(
                         "NOT scheduling replication {}:{} because lack of permissions to access"
                             + " project/ref",
                         project,
                         refSpec);
-                    return false;
+                    return permissionDecisions.putRefDecision(project, refSpec.refName(), false);
                   }
-                  return true;
+                  return permissionDecisions.putRefDecision(project, refSpec.refName(), true);
                 }
               })
           .call();
@@ -412,7 +553,21 @@ public class Source {
     return false;
   }
 
+  /**
+   * Whether the replication of a ref depends only on the visibility of its project, so that its
+   * decision is shared with the whole project rather than cached for each ref.
+   */
+  private static boolean skipsRefPermissionCheck(FetchRefSpec refSpec) {
+    return refSpec.equalsToRef(FetchOne.ALL_REFS)
+        || refSpec.refName().startsWith(RefNames.REFS_CHANGES);
+  }
+
   private boolean shouldReplicate(Project.NameKey project, ReplicationState... states) {
+    Optional<Boolean> cachedDecision =
+        recordPermissionCacheLookup(permissionDecisions.getProjectDecision(project));
+    if (cachedDecision.isPresent()) {
+      return cachedDecision.get();
+    }
     try {
       return threadScoper
           .scope(
@@ -428,7 +583,8 @@ public class Source {
                   if (!projectState.isPresent()) {
                     throw new NoSuchProjectException(project);
                   }
-                  return shouldReplicate(projectState.get(), userProvider.get());
+                  return permissionDecisions.putProjectDecision(
+                      project, shouldReplicate(projectState.get(), userProvider.get()));
                 }
               })
           .call();
@@ -441,6 +597,25 @@ public class Source {
     return false;
   }
 
+  private Optional<Boolean> recordPermissionCacheLookup(Optional<Boolean> cachedDecision) {
+    if (permissionDecisions.isEnabled()) {
+      if (cachedDecision.isPresent()) {
+        queueMetrics.incrementPermissionCacheHit(this);
+      } else {
+        queueMetrics.incrementPermissionCacheMiss(this);
+      }
+    }
+    return cachedDecision;
+  }
+
+  /**
+   * Discard the cached decisions on whether the projects and refs can be replicated, after a change
+   * of the permissions.
+   */
+  void invalidatePermissionDecisions() {
+    permissionDecisions.invalidateAll();
+  }
+
   public Future<?> schedule(
       Project.NameKey project,
       FetchRefSpec refSpec,
@@ -492,10 +667,7 @@ public class Source {
     }
 
     if (!config.replicatePermissions()) {
-      FetchOne e;
-      synchronized (stateLock) {
-        e = pending.get(uri);
-      }
+      FetchOne e = tasks.getPending(uri);
       if (e == null) {
         try (Repository git = gitManager.openRepository(project)) {
           try {
@@ -519,31 +691,40 @@ public class Source {
       }
     }
 
-    synchronized (stateLock) {
-      FetchOne e = pending.get(uri);
-      Future<?> f = CompletableFuture.completedFuture(null);
-      if (e == null || e.isRetrying()) {
-        e = opFactory.create(project, uri, apiRequestMetrics);
-        addRef(e, refSpec);
-        e.addState(refSpec, state);
-        pending.put(uri, e);
-        f =
-            pool.schedule(
-                queueMetrics.runWithMetrics(this, e),
-                now ? 0 : config.getDelay(),
-                TimeUnit.SECONDS);
-        queueMetrics.incrementTaskScheduled(this);
-      } else if (!e.getRefSpecs().contains(refSpec)) {
-        addRef(e, refSpec);
-        e.addState(refSpec, state);
-        queueMetrics.incrementTaskMerged(this);
+    return tasks.callLocked(
+        uri, () -> scheduleLocked(project, refSpec, uri, state, apiRequestMetrics, now));
+  }
+
+  private Future<?> scheduleLocked(
+      Project.NameKey project,
+      FetchRefSpec refSpec,
+      URIish uri,
+      ReplicationState state,
+      Optional<PullReplicationApiRequestMetrics> apiRequestMetrics,
+      boolean now) {
+    FetchOne e = tasks.getPending(uri);
+    Future<?> f = CompletableFuture.completedFuture(null);
+    if (e == null || e.isRetrying()) {
+      e = opFactory.create(project, uri, apiRequestMetrics);
+      addRef(e, refSpec);
+      e.addState(refSpec, state);
+      tasks.putPending(uri, e);
+      if (!now && adaptiveDelay.isPresent()) {
+        f = scheduleWhenQuiet(e, adaptiveDelay.get().initialDelayMs());
       } else {
-        queueMetrics.incrementTaskNotScheduled(this);
+        f = scheduleFetch(e, now ? 0 : config.getDelay(), TimeUnit.SECONDS);
       }
-      state.increaseFetchTaskCount(project.get(), refSpec.refName());
-      repLog.info("scheduled {}:{} => {} to run after {}s", e, refSpec, project, config.getDelay());
-      return f;
+      queueMetrics.incrementTaskScheduled(this);
+    } else if (!e.getRefSpecs().contains(refSpec)) {
+      addRef(e, refSpec);
+      e.addState(refSpec, state);
+      queueMetrics.incrementTaskMerged(this);
+    } else {
+      queueMetrics.incrementTaskNotScheduled(this);
     }
+    state.increaseFetchTaskCount(project.get(), refSpec.refName());
+    repLog.info("scheduled {}:{} => {} to run after {}s", e, refSpec, project, config.getDelay());
+    return f;
   }
 
   public Optional<FetchOne> fetchSync(
@@ -570,7 +751,7 @@ public class Source {
   void scheduleDeleteProject(String uri, Project.NameKey project) {
     @SuppressWarnings("unused")
     ScheduledFuture<?> ignored =
-        pool.schedule(
+        scheduleTask(
             queueMetrics.runWithMetrics(this, deleteProjectFactory.create(this, uri, project)),
             0,
             TimeUnit.SECONDS);
@@ -578,11 +759,13 @@ public class Source {
   }
 
   void fetchWasCanceled(FetchOne fetchOp) {
-    synchronized (stateLock) {
-      URIish uri = fetchOp.getURI();
-      pending.remove(uri);
-      queueMetrics.incrementTaskCancelled(this);
-    }
+    URIish uri = fetchOp.getURI();
+    tasks.runLocked(
+        uri,
+        () -> {
+          tasks.removePending(uri);
+          queueMetrics.incrementTaskCancelled(this);
+        });
   }
 
   private void addRef(FetchOne e, FetchRefSpec ref) {
@@ -596,7 +779,8 @@ public class Source {
    * <p>If the reason for rescheduling is to avoid a collision with an in-flight push to the same
    * URI, we don't mark the operation as "retrying," and we schedule using the replication delay,
    * rather than the retry delay. Otherwise, the operation is marked as "retrying" and scheduled to
-   * run following the minutes count determined by class attribute retryDelay.
+   * run after the retry delay, backed off according to its number of retries by {@link
+   * RetryBackoff}.
    *
    * <p>In case the FetchOp instance to be scheduled has same URI than one marked as "retrying," it
    * adds to the one pending the refs list of the parameter instance.
@@ -607,146 +791,134 @@ public class Source {
    * scheduled for retry.
    *
    * <p>Notice all operations to indicate a FetchOp should be canceled, or it is retrying, or
-   * remove/add it from/to pending Map should be protected by synchronizing on the stateLock object.
+   * remove/add it from/to pending Map should be performed whilst holding the lock of its URI.
    *
    * @param fetchOp The FetchOp instance to be scheduled.
    */
   void reschedule(FetchOne fetchOp, RetryReason reason) {
-    synchronized (stateLock) {
-      URIish uri = fetchOp.getURI();
-      FetchOne pendingFetchOp = pending.get(uri);
-
-      if (pendingFetchOp != null) {
-        // There is one FetchOp instance already pending to same URI.
-
-        if (pendingFetchOp.isRetrying()) {
-          // The one pending is one already retrying, so it should
-          // maintain it and add to it the refs of the one passed
-          // as parameter to the method.
-
-          // This scenario would happen if a FetchOp has started running
-          // and then before it failed due transport exception, another
-          // one to same URI started. The first one would fail and would
-          // be rescheduled, being present in pending list. When the
-          // second one fails, it will also be rescheduled and then,
-          // here, find out replication to its URI is already pending
-          // for retry (blocking).
-          pendingFetchOp.addRefs(fetchOp.getRefSpecs());
-          pendingFetchOp.addStates(fetchOp.getStates());
-          fetchOp.removeStates();
-
-          stateLog.warn(
-              String.format(
-                  "[%s] Merging all refs to fetch from [%s] to the already retrying task [%s] for"
-                      + " keeping its position into the replication queue",
-                  fetchOp.getTaskIdHex(), fetchOp.getURI(), pendingFetchOp.getTaskIdHex()),
-              fetchOp.getStatesAsArray());
+    URIish uri = fetchOp.getURI();
+    tasks.runLocked(uri, () -> rescheduleLocked(uri, fetchOp, reason));
+  }
+
+  private void rescheduleLocked(URIish uri, FetchOne fetchOp, RetryReason reason) {
+    FetchOne pendingFetchOp = tasks.getPending(uri);
+
+    if (pendingFetchOp != null) {
+      // There is one FetchOp instance already pending to same URI.
+
+      if (pendingFetchOp.isRetrying()) {
+        // The one pending is one already retrying, so it should
+        // maintain it and add to it the refs of the one passed
+        // as parameter to the method.
+
+        // This scenario would happen if a FetchOp has started running
+        // and then before it failed due transport exception, another
+        // one to same URI started. The first one would fail and would
+        // be rescheduled, being present in pending list. When the
+        // second one fails, it will also be rescheduled and then,
+        // here, find out replication to its URI is already pending
+        // for retry (blocking).
+        pendingFetchOp.addRefs(fetchOp.getRefSpecs());
+        pendingFetchOp.addStates(fetchOp.getStates());
+        fetchOp.removeStates();
+
+        stateLog.warn(
+            String.format(
+                "[%s] Merging all refs to fetch from [%s] to the already retrying task [%s] for"
+                    + " keeping its position into the replication queue",
+                fetchOp.getTaskIdHex(), fetchOp.getURI(), pendingFetchOp.getTaskIdHex()),
+            fetchOp.getStatesAsArray());
 
-        } else {
-          // The one pending is one that is NOT retrying, it was just
-          // scheduled believing no problem would happen. The one pending
-          // should be canceled, and this is done by setting its canceled
-          // flag, removing it from pending list, and adding its refs to
-          // the fetchOp instance that should then, later, in this method,
-          // be scheduled for retry.
-
-          // Notice that the FetchOp found pending will start running and,
-          // when notifying it is starting (with pending lock protection),
-          // it will see it was canceled and then it will do nothing with
-          // pending list and it will not execute its run implementation.
-          pendingFetchOp.canceledByReplication();
-          pending.remove(uri);
-
-          Set<FetchRefSpec> fetchOpRefSpecs = fetchOp.getRefSpecs();
-          fetchOp.addRefs(pendingFetchOp.getRefSpecs());
-
-          if (reason == RetryReason.COLLISION) {
-            // The fetch was never executed and is delayed
-            // because of a collision with an in-flight replication.
-            // The pending one was already in the queue and
-            // therefore is for sure older than fetchOp
-            // otherwise it would have been also rescheduled
-            // because of a collision.
-            // FetchOp has to take precedence over the pending
-            // operation that is for sure older, therefore its
-            // initial ref-specs need to be reapplied.
-            fetchOp.addRefs(fetchOpRefSpecs);
-          }
+      } else {
+        // The one pending is one that is NOT retrying, it was just
+        // scheduled believing no problem would happen. The one pending
+        // should be canceled, and this is done by setting its canceled
+        // flag, removing it from pending list, and adding its refs to
+        // the fetchOp instance that should then, later, in this method,
+        // be scheduled for retry.
+
+        // Notice that the FetchOp found pending will start running and,
+        // when notifying it is starting (with pending lock protection),
+        // it will see it was canceled and then it will do nothing with
+        // pending list and it will not execute its run implementation.
+        pendingFetchOp.canceledByReplication();
+        tasks.removePending(uri);
+
+        Set<FetchRefSpec> fetchOpRefSpecs = fetchOp.getRefSpecs();
+        fetchOp.addRefs(pendingFetchOp.getRefSpecs());
+
+        if (reason == RetryReason.COLLISION) {
+          // The fetch was never executed and is delayed
+          // because of a collision with an in-flight replication.
+          // The pending one was already in the queue and
+          // therefore is for sure older than fetchOp
+          // otherwise it would have been also rescheduled
+          // because of a collision.
+          // FetchOp has to take precedence over the pending
+          // operation that is for sure older, therefore its
+          // initial ref-specs need to be reapplied.
+          fetchOp.addRefs(fetchOpRefSpecs);
+        }
 
-          fetchOp.addStates(pendingFetchOp.getStates());
-          pendingFetchOp.removeStates();
+        fetchOp.addStates(pendingFetchOp.getStates());
+        pendingFetchOp.removeStates();
 
-          stateLog.warn(
-              String.format(
-                  "[%s] Merging the pending fetch from [%s] with task [%s] and rescheduling",
-                  pendingFetchOp.getTaskIdHex(), pendingFetchOp.getURI(), fetchOp.getTaskIdHex()),
-              pendingFetchOp.getStatesAsArray());
-        }
-        queueMetrics.incrementTaskMerged(this);
+        stateLog.warn(
+            String.format(
+                "[%s] Merging the pending fetch from [%s] with task [%s] and rescheduling",
+                pendingFetchOp.getTaskIdHex(), pendingFetchOp.getURI(), fetchOp.getTaskIdHex()),
+            pendingFetchOp.getStatesAsArray());
       }
+      queueMetrics.incrementTaskMerged(this);
+    }
 
-      if (pendingFetchOp == null || !pendingFetchOp.isRetrying()) {
-        pending.put(uri, fetchOp);
-        switch (reason) {
-          case COLLISION:
-            queueMetrics.incrementTaskRescheduled(this);
-            pool.schedule(
-                queueMetrics.runWithMetrics(this, fetchOp),
-                config.getRescheduleDelay(),
-                TimeUnit.SECONDS);
-            break;
-          case TRANSPORT_ERROR:
-          case REPOSITORY_MISSING:
-          default:
-            RefUpdate.Result trackingRefUpdate =
-                RetryReason.REPOSITORY_MISSING.equals(reason)
-                    ? RefUpdate.Result.NOT_ATTEMPTED
-                    : RefUpdate.Result.REJECTED_OTHER_REASON;
-            postReplicationFailedEvent(fetchOp, trackingRefUpdate);
-
-            if (fetchOp.setToRetry()) {
-              postReplicationScheduledEvent(fetchOp);
-              pool.schedule(
-                  queueMetrics.runWithMetrics(this, fetchOp),
-                  config.getRetryDelay(),
-                  TimeUnit.MINUTES);
-              queueMetrics.incrementTaskRetrying(this);
-            } else {
-              fetchOp.canceledByReplication();
-              pending.remove(uri);
-              stateLog.error(
-                  "Fetch from " + fetchOp.getURI() + " cancelled after maximum number of retries",
-                  fetchOp.getStatesAsArray());
-              queueMetrics.incrementTaskCancelledMaxRetries(this);
-            }
-            break;
-        }
+    if (pendingFetchOp == null || !pendingFetchOp.isRetrying()) {
+      tasks.putPending(uri, fetchOp);
+      switch (reason) {
+        case COLLISION:
+          queueMetrics.incrementTaskRescheduled(this);
+          scheduleFetch(fetchOp, config.getRescheduleDelay(), TimeUnit.SECONDS);
+          break;
+        case TRANSPORT_ERROR:
+        case REPOSITORY_MISSING:
+        default:
+          RefUpdate.Result trackingRefUpdate =
+              RetryReason.REPOSITORY_MISSING.equals(reason)
+                  ? RefUpdate.Result.NOT_ATTEMPTED
+                  : RefUpdate.Result.REJECTED_OTHER_REASON;
+          postReplicationFailedEvent(fetchOp, trackingRefUpdate);
+
+          if (fetchOp.setToRetry()) {
+            postReplicationScheduledEvent(fetchOp);
+            long retryDelayMs =
+                retryBackoff.delayMs(
+                    TimeUnit.MINUTES.toMillis(config.getRetryDelay()), fetchOp.getRetryCount());
+            fetchMetrics.recordRetryDelay(getRemoteConfigName(), retryDelayMs);
+            scheduleFetch(fetchOp, retryDelayMs, TimeUnit.MILLISECONDS);
+            queueMetrics.incrementTaskRetrying(this);
+          } else {
+            fetchOp.canceledByReplication();
+            tasks.removePending(uri);
+            stateLog.error(
+                "Fetch from " + fetchOp.getURI() + " cancelled after maximum number of retries",
+                fetchOp.getStatesAsArray());
+            queueMetrics.incrementTaskCancelledMaxRetries(this);
+          }
+          break;
       }
     }
   }
 
   boolean requestRunway(FetchOne op) {
-    synchronized (stateLock) {
-      if (op.wasCanceled()) {
-        return false;
-      }
-      pending.remove(op.getURI());
-      if (inFlight.containsKey(op.getURI())) {
-        return false;
-      }
-      inFlight.put(op.getURI(), op);
-    }
-    return true;
+    return tasks.requestRunway(op);
   }
 
   Optional<FetchOne> getInFlight(URIish uri) {
-    return Optional.ofNullable(inFlight.get(uri));
+    return tasks.getInFlight(uri);
   }
 
   void notifyFinished(FetchOne op) {
-    synchronized (stateLock) {
-      inFlight.remove(op.getURI());
-    }
+    tasks.notifyFinished(op);
 
     Set<TransportException> fetchFailures = op.getFetchFailures();
     fetchFailures.forEach(
@@ -762,12 +934,7 @@ public class Source {
     if (FetchOne.ALL_REFS.equals(ref)) {
       return true;
     }
-    for (RefSpec s : config.getRemoteConfig().getFetchRefSpecs()) {
-      if (s.matchSource(ref)) {
-        return true;
-      }
-    }
-    return false;
+    return fetchRefsMatcher.matches(ref);
   }
 
   public boolean wouldDeleteProject(Project.NameKey project) {
@@ -790,14 +957,7 @@ public class Source {
   }
 
   private boolean configSettingsAllowReplication(Project.NameKey project) {
-    // by default fetch all projects
-    List<String> includeProjects = config.getProjects();
-    ImmutableList<String> excludeProjects = config.getExcludeProjects();
-    if (includeProjects.isEmpty() && excludeProjects.isEmpty()) {
-      return true;
-    }
-
-    return (new ReplicationFilter(includeProjects, excludeProjects)).matches(project);
+    return projectsFilter.map(filter -> filter.matches(project)).orElse(true);
   }
 
   public boolean isSingleProjectMatch() {
@@ -953,7 +1113,7 @@ public class Source {
       URIish apiURI = new URIish(apiUrl);
       @SuppressWarnings("unused")
       ScheduledFuture<?> ignored =
-          pool.schedule(
+          scheduleTask(
               queueMetrics.runWithMetrics(
                   this, updateHeadFactory.create(this, apiURI, project, newHead)),
               0,
@@ -965,20 +1125,229 @@ public class Source {
     }
   }
 
+  public Optional<CircuitBreaker> getCircuitBreaker(URIish apiUri) {
+    return Optional.ofNullable(circuitBreakers.get(apiUri));
+  }
+
+  Collection<CircuitBreaker> getCircuitBreakers() {
+    return circuitBreakers.values();
+  }
+
+  public long openCircuitBreakersCount() {
+    return circuitBreakers.values().stream()
+        .filter(b -> b.getState() != CircuitBreaker.State.CLOSED)
+        .count();
+  }
+
+  public Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter(URIish apiUri) {
+    return Optional.ofNullable(concurrencyLimiters.get(apiUri));
+  }
+
+  Collection<AdaptiveConcurrencyLimiter> getConcurrencyLimiters() {
+    return concurrencyLimiters.values();
+  }
+
+  public long concurrencyLimit() {
+    return concurrencyLimiters.values().stream()
+        .mapToLong(AdaptiveConcurrencyLimiter::getLimit)
+        .sum();
+  }
+
+  public long concurrencyInFlight() {
+    return concurrencyLimiters.values().stream()
+        .mapToLong(AdaptiveConcurrencyLimiter::getInFlight)
+        .sum();
+  }
+
+  public void scheduleCircuitBreakerProbe(Runnable probe, long delayMs) {
+    schedule(probe, delayMs);
+  }
+
+  public boolean isMultiProjectBatchEnabled() {
+    return config.enableBatchedRefs() && config.getMultiProjectBatchWindow() > 0;
+  }
+
+  public int getMultiProjectBatchMaxProjects() {
+    return config.getMultiProjectBatchMaxProjects();
+  }
+
+  public int getApplyObjectMaxRetries() {
+    return config.getApplyObjectMaxRetries();
+  }
+
+  public long getApplyObjectRetryDelay() {
+    return config.getApplyObjectRetryDelay();
+  }
+
+  public boolean isAtomicBatchApplyObject() {
+    return config.isAtomicBatchApplyObject();
+  }
+
+  public boolean isAsyncApplyObject() {
+    return config.isAsyncApplyObject();
+  }
+
+  public long getAsyncApplyObjectPollInterval() {
+    return config.getAsyncApplyObjectPollInterval();
+  }
+
+  public long getAsyncApplyObjectTimeout() {
+    return config.getAsyncApplyObjectTimeout();
+  }
+
+  public int getMaxRequestDeferrals() {
+    return config.getMaxRequestDeferrals();
+  }
+
+  public boolean useVirtualThreads() {
+    return config.useVirtualThreads();
+  }
+
+  void scheduleDeferredCall(Runnable call, long delayMs) {
+    schedule(call, delayMs);
+  }
+
+  void scheduleMultiProjectBatchFlush(Runnable flush) {
+    schedule(flush, config.getMultiProjectBatchWindow());
+  }
+
+  private void schedule(Runnable task, long delayMs) {
+    VirtualThreadsPool virtualPool = virtualThreadsPool;
+    if (virtualPool != null) {
+      @SuppressWarnings("unused")
+      ScheduledFuture<?> ignored = virtualPool.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+      return;
+    }
+    ScheduledExecutorService currentPool = pool;
+    if (currentPool == null) {
+      return;
+    }
+    @SuppressWarnings("unused")
+    ScheduledFuture<?> ignored = currentPool.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private ScheduledFuture<?> scheduleTask(Runnable task, long delay, TimeUnit unit) {
+    VirtualThreadsPool virtualPool = virtualThreadsPool;
+    if (virtualPool != null) {
+      return virtualPool.schedule(task, delay, unit);
+    }
+    SharedSourcesPool.Quota quota = sharedPoolQuota;
+    if (quota != null) {
+      return quota.schedule(task, delay, unit);
+    }
+    return pool.schedule(task, delay, unit);
+  }
+
+  /**
+   * Schedule a fetch task. With fair scheduling, the task joins the queue of its project when its
+   * delay has elapsed and runs when its turn comes.
+   */
+  private ScheduledFuture<?> scheduleFetch(FetchOne fetchOp, long delay, TimeUnit unit) {
+    Runnable task = queueMetrics.runWithMetrics(this, fetchOp);
+    ProjectFairQueue queue = fairQueue;
+    if (queue == null) {
+      return scheduleTask(task, delay, unit);
+    }
+    return pool.schedule(
+        () ->
+            queue.submit(
+                fetchOp.getProjectNameKey(),
+                tasks.callLocked(fetchOp.getURI(), () -> fetchOp.getRefSpecs().size()),
+                task),
+        delay,
+        unit);
+  }
+
+  /**
+   * Schedule a fetch task with the adaptive replication delay: the task is scheduled as soon as no
+   * new ref has been merged into it for the quiet period, or when it has waited for the maximum
+   * delay.
+   */
+  private ScheduledFuture<?> scheduleWhenQuiet(FetchOne fetchOp, long delayMs) {
+    return pool.schedule(() -> fetchWhenQuiet(fetchOp), delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void fetchWhenQuiet(FetchOne fetchOp) {
+    if (pool == null) {
+      return;
+    }
+    long now = System.nanoTime();
+    long waitedMs = TimeUnit.NANOSECONDS.toMillis(now - fetchOp.getCreatedAt());
+    long quietMs = TimeUnit.NANOSECONDS.toMillis(now - fetchOp.getLastRefAddedAt());
+    long remainingMs = adaptiveDelay.get().remainingDelayMs(waitedMs, quietMs);
+    if (remainingMs > 0) {
+      @SuppressWarnings("unused")
+      ScheduledFuture<?> ignored = scheduleWhenQuiet(fetchOp, remainingMs);
+      return;
+    }
+    fetchMetrics.recordEffectiveDelay(getRemoteConfigName(), waitedMs);
+    @SuppressWarnings("unused")
+    ScheduledFuture<?> ignored = scheduleFetch(fetchOp, 0, TimeUnit.MILLISECONDS);
+  }
+
+  private void executeTask(Runnable task) {
+    if (pool == null) {
+      throw new RejectedExecutionException("Source " + getRemoteConfigName() + " is shut down");
+    }
+    @SuppressWarnings("unused")
+    ScheduledFuture<?> ignored = scheduleTask(task, 0, TimeUnit.SECONDS);
+  }
+
+  public long poolActiveThreads() {
+    VirtualThreadsPool virtualPool = virtualThreadsPool;
+    if (virtualPool != null) {
+      return virtualPool.getActiveThreads();
+    }
+    SharedSourcesPool.Quota quota = sharedPoolQuota;
+    if (quota != null) {
+      return quota.getActiveThreads();
+    }
+    ScheduledExecutorService currentPool = pool;
+    return currentPool instanceof ThreadPoolExecutor
+        ? ((ThreadPoolExecutor) currentPool).getActiveCount()
+        : 0;
+  }
+
+  public long poolQueuedTasks() {
+    VirtualThreadsPool virtualPool = virtualThreadsPool;
+    if (virtualPool != null) {
+      return virtualPool.getQueuedTasks();
+    }
+    SharedSourcesPool.Quota quota = sharedPoolQuota;
+    return quota != null ? quota.getQueuedTasks() : 0;
+  }
+
   public long inflightTasksCount() {
-    return inFlight.size();
+    return tasks.inFlightCount();
   }
 
   public long pendingTasksCount() {
-    return pending.size();
+    return tasks.pendingCount();
   }
 
   public boolean zeroPendingTasksForRepo(Project.NameKey project) {
-    return pending.values().stream().noneMatch(fetch -> fetch.getProjectNameKey().equals(project));
+    return tasks.pendingCount(project) == 0;
   }
 
   public boolean zeroInflightTasksForRepo(Project.NameKey project) {
-    return inFlight.values().stream().noneMatch(fetch -> fetch.getProjectNameKey().equals(project));
+    return tasks.inFlightCount(project) == 0;
+  }
+
+  public Map<Project.NameKey, Integer> pendingTasksPerProject() {
+    return tasks.pendingPerProject();
+  }
+
+  public Map<Project.NameKey, Integer> inflightTasksPerProject() {
+    return tasks.inFlightPerProject();
+  }
+
+  public Map<Project.NameKey, Long> maxWaitPerProject() {
+    ProjectFairQueue queue = fairQueue;
+    return queue != null ? queue.maxWaitPerProject() : Map.of();
+  }
+
+  public long maxWait() {
+    return maxWaitPerProject().values().stream().mapToLong(Long::longValue).max().orElse(0);
   }
 
   private static boolean matches(URIish uri, String urlMatch) {
@@ -1006,6 +1375,57 @@ public class Source {
     }
   }
 
+  /**
+   * Whether {@code replication.excludeRefs} may exclude some refs starting with a prefix, which
+   * then cannot be fetched with a wildcard refspec.
+   */
+  boolean mayExcludeRefsStartingWith(String prefix) {
+    return excludedRefsFilter.mayMatchRefsStartingWith(prefix);
+  }
+
+  /**
+   * Post the replication events of the refs fetched by a task through a wildcard refspec without
+   * being part of the task, so that they are processed like the refs of the task.
+   */
+  void postUnrequestedRefsReplicatedEvents(FetchOne fetchOp, List<RefUpdateState> refUpdates) {
+    Project.NameKey project = fetchOp.getProjectNameKey();
+    try {
+      Context.setLocalEvent(true);
+      for (RefUpdateState refUpdate : refUpdates) {
+        String ref = refUpdate.getRemoteName();
+        FetchRefReplicatedEvent event =
+            new FetchRefReplicatedEvent(
+                project.get(),
+                ref,
+                fetchOp.getURI(),
+                isSuccessful(refUpdate.getResult())
+                    ? ReplicationState.RefFetchResult.SUCCEEDED
+                    : ReplicationState.RefFetchResult.FAILED,
+                refUpdate.getResult());
+        try {
+          eventDispatcher.get().postEvent(BranchNameKey.create(project, ref), event);
+        } catch (PermissionBackendException e) {
+          repLog.error("error posting event", e);
+        }
+      }
+    } finally {
+      Context.unsetLocalEvent();
+    }
+  }
+
+  private static boolean isSuccessful(RefUpdate.Result result) {
+    switch (result) {
+      case NO_CHANGE:
+      case NEW:
+      case FORCED:
+      case RENAMED:
+      case FAST_FORWARD:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private void postReplicationFailedEvent(FetchOne fetchOp, RefUpdate.Result result) {
     Project.NameKey project = fetchOp.getProjectNameKey();
     try {
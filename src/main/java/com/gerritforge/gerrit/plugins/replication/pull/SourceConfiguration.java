@@ -30,6 +30,25 @@ public class SourceConfiguration implements RemoteConfiguration {
   static final int DEFAULT_CONNECTIONS_PER_ROUTE = 100;
   static final int DEFAULT_DRAIN_SHUTDOWN_TIMEOUT_SECS = 300;
   static final long DEFAULT_PERIODIC_FETCH_DISABLED = 0L;
+  static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 0;
+  static final long DEFAULT_CIRCUIT_BREAKER_OPEN_INTERVAL_MS = 30000L;
+  static final int DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT = 1;
+  static final long DEFAULT_ADAPTIVE_CONCURRENCY_LATENCY_THRESHOLD_MS = 1000L;
+  static final long DEFAULT_MULTI_PROJECT_BATCH_WINDOW_MS = 0L;
+  static final int DEFAULT_MULTI_PROJECT_BATCH_MAX_PROJECTS = 100;
+  static final int DEFAULT_APPLY_OBJECT_MAX_RETRIES = 2;
+  static final long DEFAULT_APPLY_OBJECT_RETRY_DELAY_MS = 100L;
+  static final long DEFAULT_ASYNC_APPLY_OBJECT_POLL_INTERVAL_MS = 100L;
+  static final long DEFAULT_ASYNC_APPLY_OBJECT_TIMEOUT_MS = 60000L;
+  static final int DEFAULT_MAX_REQUEST_DEFERRALS = 3;
+  static final int DEFAULT_MIN_POOL_THREADS = 1;
+  static final int DEFAULT_RETRY_BACKOFF_MULTIPLIER = 1;
+  static final long DEFAULT_RETRY_MAX_DELAY_MS = TimeUnit.HOURS.toMillis(1);
+  static final int DEFAULT_RETRY_JITTER_PERCENT = 0;
+  static final long DEFAULT_REPLICATION_QUIET_PERIOD_MS = 500L;
+  static final long DEFAULT_REPLICATION_MAX_DELAY_MS = 30000L;
+  static final long DEFAULT_PERMISSION_CACHE_TTL_MS = 0L;
+  static final long DEFAULT_PERMISSION_CACHE_SIZE = 10000L;
 
   private final int delay;
   private final int rescheduleDelay;
@@ -37,6 +56,7 @@ public class SourceConfiguration implements RemoteConfiguration {
   private final int lockErrorMaxRetries;
   private final ImmutableList<String> adminUrls;
   private final int poolThreads;
+  private final int minPoolThreads;
   private final boolean replicatePermissions;
   private final boolean replicateHiddenProjects;
   private final boolean createMissingRepositories;
@@ -53,13 +73,39 @@ public class SourceConfiguration implements RemoteConfiguration {
   private final int maxConnectionsPerRoute;
   private final int maxConnections;
   private final int maxRetries;
+  private final int retryBackoffMultiplier;
+  private final long retryMaxDelay;
+  private final int retryJitter;
+  private final boolean adaptiveReplicationDelay;
+  private final long replicationQuietPeriod;
+  private final long replicationMaxDelay;
   private final int shutDownDrainTimeout;
   private int slowLatencyThreshold;
   private boolean useCGitClient;
+  private final boolean useVirtualThreads;
+  private final boolean useFairScheduling;
+  private final long permissionCacheTtl;
+  private final long permissionCacheSize;
   private int refsBatchSize;
+  private final int refsCompactionThreshold;
   private boolean enableBatchedRefs;
   private final long fetchEvery;
   private final boolean storeRefLog;
+  private final int circuitBreakerFailureThreshold;
+  private final long circuitBreakerOpenInterval;
+  private final boolean adaptiveConcurrency;
+  private final int adaptiveConcurrencyMinLimit;
+  private final int adaptiveConcurrencyMaxLimit;
+  private final long adaptiveConcurrencyLatencyThreshold;
+  private final long multiProjectBatchWindow;
+  private final int multiProjectBatchMaxProjects;
+  private final int applyObjectMaxRetries;
+  private final long applyObjectRetryDelay;
+  private final boolean atomicBatchApplyObject;
+  private final boolean asyncApplyObject;
+  private final long asyncApplyObjectPollInterval;
+  private final long asyncApplyObjectTimeout;
+  private final int maxRequestDeferrals;
 
   public SourceConfiguration(RemoteConfig remoteConfig, Config cfg) {
     this.remoteConfig = remoteConfig;
@@ -88,6 +134,10 @@ public class SourceConfiguration implements RemoteConfiguration {
     adminUrls = ImmutableList.copyOf(cfg.getStringList("remote", name, "adminUrl"));
     retryDelay = Math.max(0, getInt(remoteConfig, cfg, "replicationretry", 1));
     poolThreads = Math.max(0, getInt(remoteConfig, cfg, "threads", 1));
+    minPoolThreads =
+        Math.min(
+            poolThreads,
+            Math.max(0, cfg.getInt("remote", name, "minThreads", DEFAULT_MIN_POOL_THREADS)));
     authGroupNames = ImmutableList.copyOf(cfg.getStringList("remote", name, "authGroup"));
     lockErrorMaxRetries = cfg.getInt("replication", "lockErrorMaxRetries", 0);
 
@@ -96,14 +146,56 @@ public class SourceConfiguration implements RemoteConfiguration {
     replicatePermissions = cfg.getBoolean("remote", name, "replicatePermissions", true);
     replicateHiddenProjects = cfg.getBoolean("remote", name, "replicateHiddenProjects", false);
     useCGitClient = cfg.getBoolean("replication", "useCGitClient", false);
+    useVirtualThreads = cfg.getBoolean("replication", "useVirtualThreads", false);
+    useFairScheduling = cfg.getBoolean("replication", "fairScheduling", false);
+    permissionCacheTtl =
+        cfg.getTimeUnit(
+            "replication",
+            null,
+            "permissionCacheTtl",
+            DEFAULT_PERMISSION_CACHE_TTL_MS,
+            TimeUnit.MILLISECONDS);
+    permissionCacheSize =
+        cfg.getLong("replication", "permissionCacheSize", DEFAULT_PERMISSION_CACHE_SIZE);
     refsBatchSize = cfg.getInt("replication", "refsBatchSize", 50);
     if (refsBatchSize <= 0)
       throw new IllegalArgumentException("refsBatchSize must be greater than zero");
+    refsCompactionThreshold = Math.max(0, cfg.getInt("replication", "refsCompactionThreshold", 0));
     remoteNameStyle =
         MoreObjects.firstNonNull(cfg.getString("remote", name, "remoteNameStyle"), "slash");
     maxRetries =
         getInt(
             remoteConfig, cfg, "replicationMaxRetries", cfg.getInt("replication", "maxRetries", 0));
+    retryBackoffMultiplier =
+        Math.max(
+            1,
+            cfg.getInt("remote", name, "retryBackoffMultiplier", DEFAULT_RETRY_BACKOFF_MULTIPLIER));
+    retryMaxDelay =
+        cfg.getTimeUnit(
+            "remote", name, "retryMaxDelay", DEFAULT_RETRY_MAX_DELAY_MS, TimeUnit.MILLISECONDS);
+    retryJitter =
+        Math.min(
+            100,
+            Math.max(0, cfg.getInt("remote", name, "retryJitter", DEFAULT_RETRY_JITTER_PERCENT)));
+    adaptiveReplicationDelay = cfg.getBoolean("remote", name, "adaptiveReplicationDelay", false);
+    replicationQuietPeriod =
+        Math.max(
+            0,
+            cfg.getTimeUnit(
+                "remote",
+                name,
+                "replicationQuietPeriod",
+                DEFAULT_REPLICATION_QUIET_PERIOD_MS,
+                TimeUnit.MILLISECONDS));
+    replicationMaxDelay =
+        Math.max(
+            replicationQuietPeriod,
+            cfg.getTimeUnit(
+                "remote",
+                name,
+                "replicationMaxDelay",
+                DEFAULT_REPLICATION_MAX_DELAY_MS,
+                TimeUnit.MILLISECONDS));
     slowLatencyThreshold =
         (int)
             ConfigUtil.getTimeUnit(
@@ -138,6 +230,99 @@ public class SourceConfiguration implements RemoteConfiguration {
         cfg.getTimeUnit(
             "remote", name, "fetchEvery", DEFAULT_PERIODIC_FETCH_DISABLED, TimeUnit.SECONDS);
     storeRefLog = cfg.getBoolean("remote", name, "storeRefLog", false);
+
+    circuitBreakerFailureThreshold =
+        Math.max(
+            0,
+            cfg.getInt(
+                "remote",
+                name,
+                "circuitBreakerFailureThreshold",
+                DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD));
+    circuitBreakerOpenInterval =
+        cfg.getTimeUnit(
+            "remote",
+            name,
+            "circuitBreakerOpenInterval",
+            DEFAULT_CIRCUIT_BREAKER_OPEN_INTERVAL_MS,
+            TimeUnit.MILLISECONDS);
+
+    adaptiveConcurrency = cfg.getBoolean("remote", name, "adaptiveConcurrency", false);
+    adaptiveConcurrencyMinLimit =
+        Math.max(
+            1,
+            cfg.getInt(
+                "remote",
+                name,
+                "adaptiveConcurrencyMinLimit",
+                DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT));
+    adaptiveConcurrencyMaxLimit =
+        Math.max(
+            adaptiveConcurrencyMinLimit,
+            cfg.getInt("remote", name, "adaptiveConcurrencyMaxLimit", maxConnectionsPerRoute));
+    adaptiveConcurrencyLatencyThreshold =
+        cfg.getTimeUnit(
+            "remote",
+            name,
+            "adaptiveConcurrencyLatencyThreshold",
+            DEFAULT_ADAPTIVE_CONCURRENCY_LATENCY_THRESHOLD_MS,
+            TimeUnit.MILLISECONDS);
+
+    multiProjectBatchWindow =
+        cfg.getTimeUnit(
+            "remote",
+            name,
+            "multiProjectBatchWindow",
+            DEFAULT_MULTI_PROJECT_BATCH_WINDOW_MS,
+            TimeUnit.MILLISECONDS);
+    multiProjectBatchMaxProjects =
+        Math.max(
+            1,
+            cfg.getInt(
+                "remote",
+                name,
+                "multiProjectBatchMaxProjects",
+                DEFAULT_MULTI_PROJECT_BATCH_MAX_PROJECTS));
+
+    applyObjectMaxRetries =
+        Math.max(
+            0,
+            cfg.getInt("remote", name, "applyObjectMaxRetries", DEFAULT_APPLY_OBJECT_MAX_RETRIES));
+    applyObjectRetryDelay =
+        Math.max(
+            0L,
+            cfg.getTimeUnit(
+                "remote",
+                name,
+                "applyObjectRetryDelay",
+                DEFAULT_APPLY_OBJECT_RETRY_DELAY_MS,
+                TimeUnit.MILLISECONDS));
+
+    atomicBatchApplyObject = cfg.getBoolean("remote", name, "atomicBatchApplyObject", true);
+
+    asyncApplyObject = cfg.getBoolean("remote", name, "asyncApplyObject", false);
+    asyncApplyObjectPollInterval =
+        Math.max(
+            1L,
+            cfg.getTimeUnit(
+                "remote",
+                name,
+                "asyncApplyObjectPollInterval",
+                DEFAULT_ASYNC_APPLY_OBJECT_POLL_INTERVAL_MS,
+                TimeUnit.MILLISECONDS));
+    asyncApplyObjectTimeout =
+        Math.max(
+            0L,
+            cfg.getTimeUnit(
+                "remote",
+                name,
+                "asyncApplyObjectTimeout",
+                DEFAULT_ASYNC_APPLY_OBJECT_TIMEOUT_MS,
+                TimeUnit.MILLISECONDS));
+
+    maxRequestDeferrals =
+        Math.max(
+            0, cfg.getInt("remote", name, "maxRequestDeferrals", DEFAULT_MAX_REQUEST_DEFERRALS));
   }
 
   @Override
@@ -159,6 +344,10 @@ public class SourceConfiguration implements RemoteConfiguration {
     return poolThreads;
   }
 
+  public int getMinPoolThreads() {
+    return minPoolThreads;
+  }
+
   public int getLockErrorMaxRetries() {
     return lockErrorMaxRetries;
   }
@@ -226,10 +415,30 @@ public class SourceConfiguration implements RemoteConfiguration {
     return useCGitClient;
   }
 
+  public boolean useVirtualThreads() {
+    return useVirtualThreads;
+  }
+
+  public boolean useFairScheduling() {
+    return useFairScheduling;
+  }
+
+  public long getPermissionCacheTtl() {
+    return permissionCacheTtl;
+  }
+
+  public long getPermissionCacheSize() {
+    return permissionCacheSize;
+  }
+
   public int getRefsBatchSize() {
     return refsBatchSize;
   }
 
+  public int getRefsCompactionThreshold() {
+    return refsCompactionThreshold;
+  }
+
   @Override
   public RemoteConfig getRemoteConfig() {
     return remoteConfig;
@@ -240,6 +449,30 @@ public class SourceConfiguration implements RemoteConfiguration {
     return maxRetries;
   }
 
+  public int getRetryBackoffMultiplier() {
+    return retryBackoffMultiplier;
+  }
+
+  public long getRetryMaxDelay() {
+    return retryMaxDelay;
+  }
+
+  public int getRetryJitter() {
+    return retryJitter;
+  }
+
+  public boolean useAdaptiveReplicationDelay() {
+    return adaptiveReplicationDelay;
+  }
+
+  public long getReplicationQuietPeriod() {
+    return replicationQuietPeriod;
+  }
+
+  public long getReplicationMaxDelay() {
+    return replicationMaxDelay;
+  }
+
   public boolean createMissingRepositories() {
     return createMissingRepositories;
   }
@@ -283,4 +516,64 @@ public class SourceConfiguration implements RemoteConfiguration {
   public long fetchEvery() {
     return fetchEvery;
   }
+
+  public int getCircuitBreakerFailureThreshold() {
+    return circuitBreakerFailureThreshold;
+  }
+
+  public long getCircuitBreakerOpenInterval() {
+    return circuitBreakerOpenInterval;
+  }
+
+  public boolean adaptiveConcurrency() {
+    return adaptiveConcurrency;
+  }
+
+  public int getAdaptiveConcurrencyMinLimit() {
+    return adaptiveConcurrencyMinLimit;
+  }
+
+  public int getAdaptiveConcurrencyMaxLimit() {
+    return adaptiveConcurrencyMaxLimit;
+  }
+
+  public long getAdaptiveConcurrencyLatencyThreshold() {
+    return adaptiveConcurrencyLatencyThreshold;
+  }
+
+  public long getMultiProjectBatchWindow() {
+    return multiProjectBatchWindow;
+  }
+
+  public int getMultiProjectBatchMaxProjects() {
+    return multiProjectBatchMaxProjects;
+  }
+
+  public int getApplyObjectMaxRetries() {
+    return applyObjectMaxRetries;
+  }
+
+  public long getApplyObjectRetryDelay() {
+    return applyObjectRetryDelay;
+  }
+
+  public boolean isAtomicBatchApplyObject() {
+    return atomicBatchApplyObject;
+  }
+
+  public boolean isAsyncApplyObject() {
+    return asyncApplyObject;
+  }
+
+  public long getAsyncApplyObjectPollInterval() {
+    return asyncApplyObjectPollInterval;
+  }
+
+  public long getAsyncApplyObjectTimeout() {
+    return asyncApplyObjectTimeout;
+  }
+
+  public int getMaxRequestDeferrals() {
+    return maxRequestDeferrals;
+  }
 }
@@ -0,0 +1,110 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor of the tasks of a source on virtual threads, when {@code replication.useVirtualThreads}
+ * is set.
+ *
+ * <p>The tasks are scheduled by a single platform thread and then run each on a new virtual thread,
+ * with at most {@code remote.NAME.threads} of them running at the same time. The tasks above the
+ * limit wait for a permit without holding any platform thread.
+ *
+ * <p>Every task runs on its own virtual thread, therefore the thread-locals set by a task, like the
+ * request scope and the replication task id, are never visible to the other tasks.
+ */
+class VirtualThreadsPool {
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService virtualThreads;
+  private final Semaphore permits;
+  private final int maxConcurrency;
+
+  VirtualThreadsPool(ScheduledExecutorService scheduler, String name, int maxConcurrency) {
+    this.scheduler = scheduler;
+    this.virtualThreads =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.permits = new Semaphore(this.maxConcurrency, true);
+  }
+
+  /** The platform scheduler, for the scheduling of the tasks not subject to the limit. */
+  ScheduledExecutorService getScheduler() {
+    return scheduler;
+  }
+
+  ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+    return scheduler.schedule(new VirtualThreadTask(task), delay, unit);
+  }
+
+  long getActiveThreads() {
+    return maxConcurrency - permits.availablePermits();
+  }
+
+  long getQueuedTasks() {
+    return permits.getQueueLength();
+  }
+
+  /**
+   * Stop scheduling the tasks and interrupt the ones running.
+   *
+   * @return the number of tasks scheduled that never started.
+   */
+  int shutdownNow() {
+    int neverStarted = scheduler.shutdownNow().size();
+    virtualThreads.shutdownNow();
+    return neverStarted;
+  }
+
+  private class VirtualThreadTask implements Runnable {
+    private final Runnable task;
+
+    VirtualThreadTask(Runnable task) {
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      try {
+        virtualThreads.execute(this::runWithPermit);
+      } catch (RejectedExecutionException e) {
+        // The source is shutting down: the task is discarded like the ones never started.
+      }
+    }
+
+    private void runWithPermit() {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        task.run();
+      } finally {
+        permits.release();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return task.toString();
+    }
+  }
+}
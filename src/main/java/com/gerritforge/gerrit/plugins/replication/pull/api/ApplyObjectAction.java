@@ -12,13 +12,18 @@
 package com.gerritforge.gerrit.plugins.replication.pull.api;
 
 import static com.gerritforge.gerrit.plugins.replication.pull.PullReplicationLogger.repLog;
+import static com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationEndpoints.APPLY_OBJECT_TICKET_PARAMETER;
+import static java.util.stream.Collectors.joining;
 
+import com.gerritforge.gerrit.plugins.replication.pull.Source;
 import com.gerritforge.gerrit.plugins.replication.pull.SourcesCollection;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingLatestPatchSetException;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.RefUpdateException;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
 import com.google.gerrit.entities.RefNames;
 import com.google.gerrit.extensions.restapi.AuthException;
 import com.google.gerrit.extensions.restapi.BadRequestException;
@@ -28,11 +33,19 @@ import com.google.gerrit.extensions.restapi.Response;
 import com.google.gerrit.extensions.restapi.RestApiException;
 import com.google.gerrit.extensions.restapi.RestModifyView;
 import com.google.gerrit.extensions.restapi.UnprocessableEntityException;
+import com.google.gerrit.extensions.restapi.Url;
 import com.google.gerrit.server.project.ProjectResource;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import org.eclipse.jgit.lib.RefUpdate;
 
 @Singleton
@@ -41,15 +54,18 @@ public class ApplyObjectAction implements RestModifyView<ProjectResource, Revisi
   private final ApplyObjectCommand applyObjectCommand;
   private final FetchPreconditions preConditions;
   private final SourcesCollection sourcesCollection;
+  private final AsyncApplyObjectQueue asyncApplyObjectQueue;
 
   @Inject
   public ApplyObjectAction(
       ApplyObjectCommand applyObjectCommand,
       FetchPreconditions preConditions,
-      SourcesCollection sourcesCollection) {
+      SourcesCollection sourcesCollection,
+      AsyncApplyObjectQueue asyncApplyObjectQueue) {
     this.applyObjectCommand = applyObjectCommand;
     this.preConditions = preConditions;
     this.sourcesCollection = sourcesCollection;
+    this.asyncApplyObjectQueue = asyncApplyObjectQueue;
   }
 
   @Override
@@ -58,45 +74,126 @@ public class ApplyObjectAction implements RestModifyView<ProjectResource, Revisi
     if (!preConditions.canCallFetchApi()) {
       throw new AuthException("Not allowed to call fetch command");
     }
-    if (Strings.isNullOrEmpty(input.getLabel())) {
-      throw new BadRequestException("Source label cannot be null or empty");
+    validateInput(resource, input);
+    return applyValidatedInput(resource.getNameKey(), input);
+  }
+
+  /**
+   * Validate the revision and accept it for being applied asynchronously, returning {@code 202
+   * Accepted} with the location for querying its outcome through {@link #getAsyncStatus}. The
+   * revision is applied synchronously when the asynchronous apply-object is not enabled or does not
+   * accept any more revisions.
+   *
+   * @param statusUrl the URL of the apply-object status endpoint of the project.
+   */
+  public Response<?> applyAsync(ProjectResource resource, RevisionInput input, String statusUrl)
+      throws RestApiException {
+    if (!preConditions.canCallFetchApi()) {
+      throw new AuthException("Not allowed to call fetch command");
     }
-    if (sourcesCollection.getByRemoteName(input.getLabel()).isEmpty()) {
-      throw new BadRequestException(
-          "Source label " + input.getLabel() + " is not a configured remote");
+    validateInput(resource, input);
+
+    Optional<String> ticket = acceptAsync(resource.getNameKey(), ImmutableList.of(input), false);
+    if (ticket.isPresent()) {
+      return Response.accepted(statusLocation(statusUrl, ticket.get()));
     }
-    if (Strings.isNullOrEmpty(input.getRefName())) {
-      throw new BadRequestException("Ref-update refname cannot be null or empty");
+    return applyValidatedInput(resource.getNameKey(), input);
+  }
+
+  /**
+   * Validate a batch of revisions and accept it for being applied asynchronously, as {@link
+   * #applyAsync} does for a single revision.
+   */
+  public Response<?> applyBatchAsync(
+      ProjectResource resource, List<RevisionInput> inputs, String statusUrl)
+      throws RestApiException {
+    if (!preConditions.canCallFetchApi()) {
+      throw new AuthException("Not allowed to call fetch command");
     }
-    if (Objects.isNull(input.getRevisionData())) {
-      throw new BadRequestException("Revision data cannot be null");
+    for (RevisionInput input : inputs) {
+      validateInput(resource, input);
+    }
+
+    Optional<String> ticket = acceptAsync(resource.getNameKey(), inputs, true);
+    if (ticket.isPresent()) {
+      return Response.accepted(statusLocation(statusUrl, ticket.get()));
+    }
+    return applyValidatedInputs(resource.getNameKey(), inputs);
+  }
+
+  /**
+   * Get the outcome of the revisions accepted by {@link #applyAsync} or {@link #applyBatchAsync}:
+   * {@code 202 Accepted} whilst pending, otherwise the same response, or failure, of the
+   * synchronous apply-object.
+   */
+  public Response<?> getAsyncStatus(ProjectResource resource, String ticket, String statusUrl)
+      throws RestApiException {
+    if (!preConditions.canCallFetchApi()) {
+      throw new AuthException("Not allowed to call fetch command");
+    }
+    Optional<Response<?>> outcome = asyncApplyObjectQueue.status(resource.getNameKey(), ticket);
+    if (outcome.isPresent()) {
+      return outcome.get();
     }
+    return Response.accepted(statusLocation(statusUrl, ticket));
+  }
+
+  /** Apply the revisions of a request accepted by the {@link AsyncApplyObjectQueue}. */
+  Response<?> applyAccepted(Project.NameKey project, List<RevisionInput> inputs, boolean batch)
+      throws RestApiException {
+    return batch
+        ? applyValidatedInputs(project, inputs)
+        : applyValidatedInput(project, inputs.get(0));
+  }
 
+  private Optional<String> acceptAsync(
+      Project.NameKey project, List<RevisionInput> inputs, boolean batch) {
+    if (!asyncApplyObjectQueue.isEnabled() || inputs.isEmpty()) {
+      return Optional.empty();
+    }
+    String label = inputs.get(0).getLabel();
+    String refNames = inputs.stream().map(RevisionInput::getRefName).collect(joining(","));
     try {
+      String ticket = asyncApplyObjectQueue.submit(project, inputs, batch);
       repLog.info(
-          "Apply object API from {} for {}:{} - {}",
-          input.getLabel(),
-          resource.getNameKey(),
-          input.getRefName(),
-          input.getRevisionData());
+          "Apply object API from {} for {}:[{}] accepted with ticket {}",
+          label,
+          project,
+          refNames,
+          ticket);
+      return Optional.of(ticket);
+    } catch (RejectedExecutionException e) {
+      repLog.warn(
+          "Apply object API from {} for {}:[{}] not accepted for asynchronous processing: {}",
+          label,
+          project,
+          refNames,
+          e.getMessage());
+      return Optional.empty();
+    }
+  }
 
-      try {
-        input.validate();
-      } catch (IllegalArgumentException e) {
-        BadRequestException bre =
-            new BadRequestException("Ref-update with invalid input: " + e.getMessage(), e);
-        repLog.error(
-            "Apply object API *FAILED* from {} for {}:{} - {}",
-            input.getLabel(),
-            resource.getNameKey(),
-            input.getRefName(),
-            input.getRevisionData(),
-            bre);
-        throw bre;
-      }
+  private static String statusLocation(String statusUrl, String ticket) {
+    return String.format("%s?%s=%s", statusUrl, APPLY_OBJECT_TICKET_PARAMETER, Url.encode(ticket));
+  }
+
+  private Response<?> applyValidatedInputs(Project.NameKey project, List<RevisionInput> inputs)
+      throws RestApiException {
+    if (canApplyInSingleTransaction(inputs)) {
+      return applyValidatedInSingleTransaction(project, inputs);
+    }
+    List<Response<?>> allResponses = new ArrayList<>();
+    for (RevisionInput input : inputs) {
+      allResponses.add(applyValidatedInput(project, input));
+    }
+    return Response.ok(allResponses);
+  }
 
+  private Response<?> applyValidatedInput(Project.NameKey project, RevisionInput input)
+      throws RestApiException {
+    try {
       applyObjectCommand.applyObject(
-          resource.getNameKey(),
+          project,
           input.getRefName(),
           input.getRevisionData(),
           input.getLabel(),
@@ -106,7 +203,7 @@ public class ApplyObjectAction implements RestModifyView<ProjectResource, Revisi
       repLog.error(
           "Apply object API *FAILED* from {} for {}:{} - {}",
           input.getLabel(),
-          resource.getNameKey(),
+          project,
           input.getRefName(),
           input.getRevisionData(),
           e);
@@ -115,7 +212,7 @@ public class ApplyObjectAction implements RestModifyView<ProjectResource, Revisi
       repLog.error(
           "Apply object API *FAILED* from {} for {}:{} - {}",
           input.getLabel(),
-          resource.getNameKey(),
+          project,
           input.getRefName(),
           input.getRevisionData(),
           e);
@@ -126,14 +223,14 @@ public class ApplyObjectAction implements RestModifyView<ProjectResource, Revisi
         repLog.info(
             "Apply object API *REJECTED* from {} for {}:{} - {}",
             input.getLabel(),
-            resource.getNameKey(),
+            project,
             input.getRefName(),
             input.getRevisionData());
       } else {
         repLog.error(
             "Apply object API *FAILED* from {} for {}:{} - {}",
             input.getLabel(),
-            resource.getNameKey(),
+            project,
             input.getRefName(),
             input.getRevisionData(),
             e);
@@ -143,11 +240,120 @@ public class ApplyObjectAction implements RestModifyView<ProjectResource, Revisi
       repLog.error(
           "Apply object API *FAILED* from {} for {}:{} - {}",
           input.getLabel(),
-          resource.getNameKey(),
+          project,
           input.getRefName(),
           input.getRevisionData(),
           e);
       throw new PreconditionFailedException(e.getMessage());
     }
   }
+
+  /**
+   * Check whether a batch of revisions can be applied in a single transaction, which requires that
+   * all the revisions come from the same source, which has the atomic batch apply-object enabled,
+   * and that they update distinct refs without deleting any.
+   */
+  public boolean canApplyInSingleTransaction(List<RevisionInput> inputs) {
+    if (inputs.size() < 2) {
+      return false;
+    }
+    String label = inputs.get(0).getLabel();
+    if (Strings.isNullOrEmpty(label)
+        || !sourcesCollection
+            .getByRemoteName(label)
+            .map(Source::isAtomicBatchApplyObject)
+            .orElse(false)) {
+      return false;
+    }
+    Set<String> refNames = new HashSet<>();
+    for (RevisionInput input : inputs) {
+      if (!label.equals(input.getLabel())
+          || Objects.isNull(input.getRevisionData())
+          || !refNames.add(input.getRefName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Apply a batch of revisions in a single transaction, opening the repository once, inserting all
+   * the objects with a single flush and updating all the refs through one batch ref update.
+   *
+   * @return the result of the update of every ref, keyed by ref name.
+   */
+  public Response<Map<String, RefUpdate.Result>> applyInSingleTransaction(
+      ProjectResource resource, List<RevisionInput> inputs) throws RestApiException {
+    if (!preConditions.canCallFetchApi()) {
+      throw new AuthException("Not allowed to call fetch command");
+    }
+    for (RevisionInput input : inputs) {
+      validateInput(resource, input);
+    }
+    return applyValidatedInSingleTransaction(resource.getNameKey(), inputs);
+  }
+
+  private Response<Map<String, RefUpdate.Result>> applyValidatedInSingleTransaction(
+      Project.NameKey project, List<RevisionInput> inputs) throws RestApiException {
+    String label = inputs.get(0).getLabel();
+    String refNames = inputs.stream().map(RevisionInput::getRefName).collect(joining(","));
+    try {
+      return Response.ok(applyObjectCommand.batchApplyObjects(project, inputs, label));
+    } catch (MissingParentObjectException e) {
+      repLog.error(
+          "Batch apply object API *FAILED* from {} for {}:[{}]", label, project, refNames, e);
+      throw new ResourceConflictException(e.getMessage(), e);
+    } catch (NumberFormatException | IOException e) {
+      repLog.error(
+          "Batch apply object API *FAILED* from {} for {}:[{}]", label, project, refNames, e);
+      throw RestApiException.wrap(e.getMessage(), e);
+    } catch (RefUpdateException e) {
+      repLog.error(
+          "Batch apply object API *FAILED* from {} for {}:[{}]", label, project, refNames, e);
+      throw new UnprocessableEntityException(e.getMessage());
+    } catch (MissingLatestPatchSetException e) {
+      repLog.error(
+          "Batch apply object API *FAILED* from {} for {}:[{}]", label, project, refNames, e);
+      throw new PreconditionFailedException(e.getMessage());
+    }
+  }
+
+  private void validateInput(ProjectResource resource, RevisionInput input)
+      throws BadRequestException {
+    if (Strings.isNullOrEmpty(input.getLabel())) {
+      throw new BadRequestException("Source label cannot be null or empty");
+    }
+    if (sourcesCollection.getByRemoteName(input.getLabel()).isEmpty()) {
+      throw new BadRequestException(
+          "Source label " + input.getLabel() + " is not a configured remote");
+    }
+    if (Strings.isNullOrEmpty(input.getRefName())) {
+      throw new BadRequestException("Ref-update refname cannot be null or empty");
+    }
+    if (Objects.isNull(input.getRevisionData())) {
+      throw new BadRequestException("Revision data cannot be null");
+    }
+
+    repLog.info(
+        "Apply object API from {} for {}:{} - {}",
+        input.getLabel(),
+        resource.getNameKey(),
+        input.getRefName(),
+        input.getRevisionData());
+
+    try {
+      input.validate();
+    } catch (IllegalArgumentException e) {
+      BadRequestException bre =
+          new BadRequestException("Ref-update with invalid input: " + e.getMessage(), e);
+      repLog.error(
+          "Apply object API *FAILED* from {} for {}:{} - {}",
+          input.getLabel(),
+          resource.getNameKey(),
+          input.getRefName(),
+          input.getRevisionData(),
+          bre);
+      throw bre;
+    }
+  }
 }
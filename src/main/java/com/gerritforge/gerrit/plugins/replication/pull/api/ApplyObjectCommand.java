@@ -14,6 +14,7 @@ package com.gerritforge.gerrit.plugins.replication.pull.api;
 import static com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectCacheModule.APPLY_OBJECTS_CACHE;
 import static com.gerritforge.gerrit.plugins.replication.pull.PullReplicationLogger.repLog;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.joining;
 
 import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectsCacheKey;
@@ -25,11 +26,13 @@ import com.gerritforge.gerrit.plugins.replication.pull.ReplicationState.RefFetch
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
 import com.gerritforge.gerrit.plugins.replication.pull.SourcesCollection;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingLatestPatchSetException;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.RefUpdateException;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.ApplyObject;
+import com.gerritforge.gerrit.plugins.replication.pull.fetch.ApplyObjectGroupCommit;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.RefUpdateState;
 import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableSet;
@@ -41,14 +44,24 @@ import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.server.events.EventDispatcher;
 import com.google.gerrit.server.permissions.PermissionBackendException;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.transport.RefSpec;
 
+@Singleton
 public class ApplyObjectCommand {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
@@ -62,20 +75,35 @@ public class ApplyObjectCommand {
 
   private final PullReplicationStateLogger fetchStateLog;
   private final ApplyObject applyObject;
+  private final ApplyObjectGroupCommit groupCommit;
+  private final ApplyObjectExecutor executor;
   private final ApplyObjectMetrics metrics;
   private final DynamicItem<EventDispatcher> eventDispatcher;
   private final SourcesCollection sourcesCollection;
 
+  /**
+   * Applications in progress, keyed by project, ref and target object id, so that the identical
+   * requests received concurrently from multiple sources wait for the first one and share its
+   * successful result instead of applying the same objects again. When the first one fails, the
+   * waiting requests apply their own objects, which may include the ones it was missing.
+   */
+  private final ConcurrentMap<ApplyObjectsCacheKey, CompletableFuture<RefUpdateState>>
+      inFlightRequests = new ConcurrentHashMap<>();
+
   @Inject
   public ApplyObjectCommand(
       PullReplicationStateLogger fetchStateLog,
       ApplyObject applyObject,
+      ApplyObjectGroupCommit groupCommit,
+      ApplyObjectExecutor executor,
       ApplyObjectMetrics metrics,
       DynamicItem<EventDispatcher> eventDispatcher,
       SourcesCollection sourcesCollection,
       @Named(APPLY_OBJECTS_CACHE) Cache<ApplyObjectsCacheKey, Long> refUpdatesSucceededCache) {
     this.fetchStateLog = fetchStateLog;
     this.applyObject = applyObject;
+    this.groupCommit = groupCommit;
+    this.executor = executor;
     this.metrics = metrics;
     this.eventDispatcher = eventDispatcher;
     this.sourcesCollection = sourcesCollection;
@@ -114,31 +142,222 @@ public class ApplyObjectCommand {
         name,
         refName,
         Arrays.toString(revisionsData));
+    Optional<ApplyObjectsCacheKey> requestKey = requestKey(name, refName, revisionsData);
+    if (requestKey.isPresent() && isAlreadyApplied(requestKey.get(), eventCreatedOn)) {
+      metrics.incrementDuplicates();
+      repLog.info(
+          "Apply object from {} for project {}, ref name {} skipped: already applied",
+          sourceLabel,
+          name,
+          refName);
+      return;
+    }
+
+    CompletableFuture<RefUpdateState> inFlightRequest = new CompletableFuture<>();
+    while (requestKey.isPresent()) {
+      CompletableFuture<RefUpdateState> firstRequest =
+          inFlightRequests.putIfAbsent(requestKey.get(), inFlightRequest);
+      if (firstRequest == null) {
+        break;
+      }
+      metrics.incrementDuplicates();
+      Optional<RefUpdateState> sharedRefUpdateState =
+          awaitSuccessfulInFlightRequest(name, refName, firstRequest);
+      if (sharedRefUpdateState.isPresent()) {
+        repLog.info(
+            "Apply object from {} for project {}, ref name {} shared the result {} of a concurrent"
+                + " identical request",
+            sourceLabel,
+            name,
+            refName,
+            sharedRefUpdateState.get().getResult());
+        return;
+      }
+      repLog.info(
+          "Apply object from {} for project {}, ref name {} applying its own objects after the"
+              + " failure of a concurrent identical request",
+          sourceLabel,
+          name,
+          refName);
+    }
+
+    Timer1.Context<String> context = metrics.start(sourceLabel);
+    RefUpdateState refUpdateState;
+    Boolean isRefUpdateSuccessful;
+    try {
+      // The group commit collects the concurrent calls of the same project: queueing them one by
+      // one behind the project serial executor would leave nothing to group within the window
+      refUpdateState =
+          groupCommit.isEnabled()
+              ? groupCommit.apply(name, new RefSpec(refName), revisionsData)
+              : executor.execute(
+                  name, () -> applyObject.apply(name, new RefSpec(refName), revisionsData));
+      isRefUpdateSuccessful = isSuccessful(refUpdateState.getResult());
+
+      // Cached before leaving the in-flight table, so that the later duplicates find one of them
+      if (isRefUpdateSuccessful) {
+        cacheRefUpdate(name, refName, revisionsData, eventCreatedOn);
+      }
+      inFlightRequest.complete(refUpdateState);
+    } catch (Exception e) {
+      inFlightRequest.completeExceptionally(e);
+      throw e;
+    } finally {
+      requestKey.ifPresent(key -> inFlightRequests.remove(key, inFlightRequest));
+    }
+    long elapsed = NANOSECONDS.toMillis(context.stop());
+
+    postRefReplicatedEvent(name, refName, sourceLabel, refUpdateState);
+
+    if (!isRefUpdateSuccessful) {
+      String message =
+          String.format(
+              "RefUpdate failed with result %s for: sourceLabel=%s, project=%s, refName=%s",
+              refUpdateState.getResult().name(), sourceLabel, name, refName);
+      fetchStateLog.error(message);
+      throw new RefUpdateException(refUpdateState.getResult(), message);
+    }
+    repLog.info(
+        "Apply object from {} for project {}, ref name {} completed in {}ms",
+        sourceLabel,
+        name,
+        refName,
+        elapsed);
+  }
+
+  /**
+   * Apply the objects of many refs of a project in a single transaction.
+   *
+   * @param name the project name.
+   * @param inputs the revisions to apply, one for each distinct ref name.
+   * @param sourceLabel the label of the source of all the revisions.
+   * @return the result of the update of every ref.
+   * @throws RefUpdateException when the update of any of the refs is not successful.
+   */
+  public Map<String, RefUpdate.Result> batchApplyObjects(
+      Project.NameKey name, List<RevisionInput> inputs, String sourceLabel)
+      throws IOException,
+          RefUpdateException,
+          MissingParentObjectException,
+          ResourceNotFoundException,
+          MissingLatestPatchSetException {
+    String refNames = inputs.stream().map(RevisionInput::getRefName).collect(joining(","));
+    repLog.info("Batch apply object from {} for {}:[{}]", sourceLabel, name, refNames);
     Timer1.Context<String> context = metrics.start(sourceLabel);
 
-    RefUpdateState refUpdateState = applyObject.apply(name, new RefSpec(refName), revisionsData);
-    Boolean isRefUpdateSuccessful = isSuccessful(refUpdateState.getResult());
+    Map<String, RevisionData> revisionsData = new LinkedHashMap<>();
+    for (RevisionInput input : inputs) {
+      revisionsData.put(input.getRefName(), input.getRevisionData());
+    }
+    Map<String, RefUpdateState> refUpdateStates =
+        executor.execute(name, () -> applyObject.applyBatch(name, revisionsData));
 
-    if (isRefUpdateSuccessful) {
-      for (RevisionData revisionData : revisionsData) {
-        RevisionObjectData commitObj = revisionData.getCommitObject();
-        List<RevisionObjectData> blobs = revisionData.getBlobs();
+    Map<String, RefUpdate.Result> results = new LinkedHashMap<>();
+    for (RevisionInput input : inputs) {
+      RefUpdateState refUpdateState = refUpdateStates.get(input.getRefName());
+      if (isSuccessful(refUpdateState.getResult())) {
+        cacheRefUpdate(
+            name,
+            input.getRefName(),
+            new RevisionData[] {input.getRevisionData()},
+            input.getEventCreatedOn());
+      }
+      results.put(input.getRefName(), refUpdateState.getResult());
+    }
+    long elapsed = NANOSECONDS.toMillis(context.stop());
 
-        if (commitObj != null) {
+    for (RevisionInput input : inputs) {
+      postRefReplicatedEvent(
+          name, input.getRefName(), sourceLabel, refUpdateStates.get(input.getRefName()));
+    }
+
+    Optional<RefUpdate.Result> failedResult =
+        results.values().stream().filter(result -> !isSuccessful(result)).findFirst();
+    if (failedResult.isPresent()) {
+      String message =
+          String.format(
+              "BatchRefUpdate failed with results %s for: sourceLabel=%s, project=%s",
+              results, sourceLabel, name);
+      fetchStateLog.error(message);
+      throw new RefUpdateException(failedResult.get(), message);
+    }
+    repLog.info(
+        "Batch apply object from {} for project {}, ref names [{}] completed in {}ms",
+        sourceLabel,
+        name,
+        refNames,
+        elapsed);
+    return results;
+  }
+
+  /**
+   * Key of an apply object request: the project, the ref and the object id the ref is updated to,
+   * which is the commit of the last revision or its first blob for the non-commit refs.
+   */
+  private static Optional<ApplyObjectsCacheKey> requestKey(
+      Project.NameKey name, String refName, RevisionData[] revisionsData) {
+    if (revisionsData.length == 0) {
+      return Optional.empty();
+    }
+
+    RevisionData lastRevisionData = revisionsData[revisionsData.length - 1];
+    RevisionObjectData refHead = lastRevisionData.getCommitObject();
+    if (refHead == null) {
+      List<RevisionObjectData> blobs = lastRevisionData.getBlobs();
+      refHead = blobs == null || blobs.isEmpty() ? null : blobs.get(0);
+    }
+    return Optional.ofNullable(refHead)
+        .map(RevisionObjectData::getSha1)
+        .map(sha1 -> ApplyObjectsCacheKey.create(sha1, refName, name.get()));
+  }
+
+  private boolean isAlreadyApplied(ApplyObjectsCacheKey requestKey, long eventCreatedOn) {
+    Long refUpdateSucceededTimestamp = refUpdatesSucceededCache.getIfPresent(requestKey);
+    return refUpdateSucceededTimestamp != null && eventCreatedOn <= refUpdateSucceededTimestamp;
+  }
+
+  /**
+   * Wait for the completion of an identical request in progress.
+   *
+   * @return the result of the identical request, or empty when it failed.
+   */
+  private Optional<RefUpdateState> awaitSuccessfulInFlightRequest(
+      Project.NameKey name, String refName, CompletableFuture<RefUpdateState> inFlightRequest)
+      throws InterruptedIOException {
+    try {
+      return Optional.of(inFlightRequest.get()).filter(state -> isSuccessful(state.getResult()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          String.format(
+              "Interrupted whilst waiting for the identical apply object of %s:%s", name, refName));
+    } catch (ExecutionException e) {
+      return Optional.empty();
+    }
+  }
+
+  private void cacheRefUpdate(
+      Project.NameKey name, String refName, RevisionData[] revisionsData, long eventCreatedOn) {
+    for (RevisionData revisionData : revisionsData) {
+      RevisionObjectData commitObj = revisionData.getCommitObject();
+      List<RevisionObjectData> blobs = revisionData.getBlobs();
+
+      if (commitObj != null) {
+        refUpdatesSucceededCache.put(
+            ApplyObjectsCacheKey.create(
+                revisionData.getCommitObject().getSha1(), refName, name.get()),
+            eventCreatedOn);
+      } else if (blobs != null) {
+        for (RevisionObjectData blob : blobs) {
           refUpdatesSucceededCache.put(
-              ApplyObjectsCacheKey.create(
-                  revisionData.getCommitObject().getSha1(), refName, name.get()),
-              eventCreatedOn);
-        } else if (blobs != null) {
-          for (RevisionObjectData blob : blobs) {
-            refUpdatesSucceededCache.put(
-                ApplyObjectsCacheKey.create(blob.getSha1(), refName, name.get()), eventCreatedOn);
-          }
+              ApplyObjectsCacheKey.create(blob.getSha1(), refName, name.get()), eventCreatedOn);
         }
       }
     }
-    long elapsed = NANOSECONDS.toMillis(context.stop());
+  }
 
+  private void postRefReplicatedEvent(
+      Project.NameKey name, String refName, String sourceLabel, RefUpdateState refUpdateState) {
     try {
       Context.setLocalEvent(true);
       Source source =
@@ -163,21 +382,6 @@ public class ApplyObjectCommand {
     } finally {
       Context.unsetLocalEvent();
     }
-
-    if (!isRefUpdateSuccessful) {
-      String message =
-          String.format(
-              "RefUpdate failed with result %s for: sourceLabel=%s, project=%s, refName=%s",
-              refUpdateState.getResult().name(), sourceLabel, name, refName);
-      fetchStateLog.error(message);
-      throw new RefUpdateException(refUpdateState.getResult(), message);
-    }
-    repLog.info(
-        "Apply object from {} for project {}, ref name {} completed in {}ms",
-        sourceLabel,
-        name,
-        refName,
-        elapsed);
   }
 
   private RefFetchResult getStatus(RefUpdateState refUpdateState) {
@@ -0,0 +1,231 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingLatestPatchSetException;
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.metrics.CallbackMetric1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor of the apply-object work on the receiving side, keyed by project.
+ *
+ * <p>The tasks of the same project are executed serially, in order of arrival, to avoid contending
+ * on the same repository locks, whilst the tasks of different projects are executed in parallel up
+ * to the {@code replication.applyObjectThreads} global limit. A burst of updates to one project is
+ * therefore queued behind its own tasks without starving the other projects.
+ */
+@Singleton
+public class ApplyObjectExecutor implements LifecycleListener {
+  static final int DEFAULT_APPLY_OBJECT_THREADS = 0;
+  private static final String POOL_NAME = "PullReplication-ApplyObject";
+
+  private final WorkQueue workQueue;
+  private final int threads;
+  private final Map<Project.NameKey, ProjectTasks> projectsTasks = new HashMap<>();
+  private volatile ExecutorService pool;
+
+  @FunctionalInterface
+  public interface ProjectTask<T> {
+    T call()
+        throws IOException,
+            MissingParentObjectException,
+            ResourceNotFoundException,
+            MissingLatestPatchSetException;
+  }
+
+  @Inject
+  ApplyObjectExecutor(
+      WorkQueue workQueue, ReplicationConfig replicationConfig, MetricMaker metricMaker) {
+    this.workQueue = workQueue;
+    this.threads =
+        replicationConfig
+            .getConfig()
+            .getInt("replication", "applyObjectThreads", DEFAULT_APPLY_OBJECT_THREADS);
+    registerQueueDepthMetric(metricMaker);
+  }
+
+  @VisibleForTesting
+  ApplyObjectExecutor(ExecutorService pool, MetricMaker metricMaker) {
+    this.workQueue = null;
+    this.threads = 0;
+    this.pool = pool;
+    registerQueueDepthMetric(metricMaker);
+  }
+
+  @Override
+  public void start() {
+    if (threads > 0) {
+      pool = workQueue.createQueue(threads, POOL_NAME);
+    }
+  }
+
+  @Override
+  public void stop() {
+    ExecutorService currentPool = pool;
+    if (currentPool != null) {
+      pool = null;
+      currentPool.shutdown();
+    }
+  }
+
+  /**
+   * Execute a task after all the previous tasks of the same project, and wait for its result.
+   *
+   * <p>The task is executed in the calling thread when no apply-object threads are configured.
+   */
+  public <T> T execute(Project.NameKey project, ProjectTask<T> task)
+      throws IOException,
+          MissingParentObjectException,
+          ResourceNotFoundException,
+          MissingLatestPatchSetException {
+    ExecutorService currentPool = pool;
+    if (currentPool == null) {
+      return task.call();
+    }
+
+    FutureTask<T> futureTask = new FutureTask<>(task::call);
+    enqueue(currentPool, project, futureTask);
+    try {
+      return futureTask.get();
+    } catch (InterruptedException e) {
+      futureTask.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          "Interrupted whilst waiting for the apply object of project " + project);
+    } catch (CancellationException e) {
+      throw new IOException("Apply object of project " + project + " cancelled", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, IOException.class);
+      Throwables.throwIfInstanceOf(cause, MissingParentObjectException.class);
+      Throwables.throwIfInstanceOf(cause, ResourceNotFoundException.class);
+      Throwables.throwIfInstanceOf(cause, MissingLatestPatchSetException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new IOException(cause);
+    }
+  }
+
+  /** Number of tasks of a project waiting for the completion of a previous one. */
+  public int queueDepth(Project.NameKey project) {
+    synchronized (projectsTasks) {
+      ProjectTasks tasks = projectsTasks.get(project);
+      return tasks == null ? 0 : tasks.pending.size();
+    }
+  }
+
+  private void enqueue(ExecutorService currentPool, Project.NameKey project, FutureTask<?> task) {
+    boolean scheduleProject;
+    synchronized (projectsTasks) {
+      ProjectTasks tasks = projectsTasks.computeIfAbsent(project, k -> new ProjectTasks());
+      tasks.pending.add(task);
+      scheduleProject = !tasks.scheduled;
+      tasks.scheduled = true;
+    }
+    if (scheduleProject) {
+      scheduleNext(currentPool, project);
+    }
+  }
+
+  /**
+   * Schedule the next task of a project. Every task is submitted separately, rather than draining
+   * the whole project queue in one thread, so that the projects share the pool fairly.
+   */
+  private void scheduleNext(ExecutorService currentPool, Project.NameKey project) {
+    try {
+      currentPool.execute(() -> runNext(currentPool, project));
+    } catch (RejectedExecutionException e) {
+      synchronized (projectsTasks) {
+        ProjectTasks tasks = projectsTasks.remove(project);
+        if (tasks != null) {
+          tasks.pending.forEach(task -> task.cancel(false));
+        }
+      }
+    }
+  }
+
+  private void runNext(ExecutorService currentPool, Project.NameKey project) {
+    FutureTask<?> task;
+    synchronized (projectsTasks) {
+      task = projectsTasks.get(project).pending.poll();
+    }
+    try {
+      task.run();
+    } finally {
+      boolean hasMoreTasks;
+      synchronized (projectsTasks) {
+        ProjectTasks tasks = projectsTasks.get(project);
+        hasMoreTasks = !tasks.pending.isEmpty();
+        if (!hasMoreTasks) {
+          projectsTasks.remove(project);
+        }
+      }
+      if (hasMoreTasks) {
+        scheduleNext(currentPool, project);
+      }
+    }
+  }
+
+  private void registerQueueDepthMetric(MetricMaker metricMaker) {
+    CallbackMetric1<String, Integer> queueDepth =
+        metricMaker.newCallbackMetric(
+            "apply_object_queue_depth",
+            Integer.class,
+            new Description("Apply object tasks waiting for a previous task of the same project")
+                .setGauge()
+                .setUnit("tasks"),
+            Field.ofString(
+                    "project",
+                    (metadataBuilder, fieldValue) -> metadataBuilder.projectName(fieldValue))
+                .build());
+    metricMaker.newTrigger(
+        queueDepth,
+        () -> {
+          synchronized (projectsTasks) {
+            if (projectsTasks.isEmpty()) {
+              queueDepth.forceCreate("");
+            } else {
+              projectsTasks.forEach(
+                  (project, tasks) -> queueDepth.set(project.get(), tasks.pending.size()));
+              queueDepth.prune();
+            }
+          }
+        });
+  }
+
+  private static class ProjectTasks {
+    private final Queue<FutureTask<?>> pending = new ArrayDeque<>();
+    private boolean scheduled;
+  }
+}
@@ -0,0 +1,286 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import static com.gerritforge.gerrit.plugins.replication.pull.PullReplicationLogger.repLog;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.restapi.IdString;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Queue of the apply-object requests accepted for asynchronous processing.
+ *
+ * <p>Every accepted request is identified by a ticket, which the caller uses for querying its
+ * outcome. The request is stored under the plugin data directory before being accepted and removed
+ * once applied, so that the requests still pending upon restart are applied when the queue starts
+ * again. The outcome of a completed request is the response, or the failure, that the synchronous
+ * apply-object would have returned, and is kept in memory for {@link #TICKET_EXPIRY} after its
+ * completion.
+ */
+@Singleton
+public class AsyncApplyObjectQueue implements LifecycleListener {
+  static final int DEFAULT_ASYNC_APPLY_OBJECT_THREADS = 0;
+  static final Duration TICKET_EXPIRY = Duration.ofHours(1);
+  static final String QUEUE_DIRECTORY = "async-apply-object";
+  private static final String POOL_NAME = "PullReplication-AsyncApplyObject";
+  private static final String REQUEST_FILE_SUFFIX = ".json";
+  private static final Gson GSON = HttpPayloadGsonProvider.get();
+
+  private final WorkQueue workQueue;
+  private final int threads;
+  private final Path queueDir;
+  private final Provider<ApplyObjectAction> applyObjectAction;
+  private final Cache<String, AcceptedApplyObject> tickets =
+      CacheBuilder.newBuilder().expireAfterWrite(TICKET_EXPIRY).build();
+  private volatile ExecutorService pool;
+
+  @Inject
+  AsyncApplyObjectQueue(
+      WorkQueue workQueue,
+      ReplicationConfig replicationConfig,
+      @PluginData Path pluginData,
+      Provider<ApplyObjectAction> applyObjectAction) {
+    this.workQueue = workQueue;
+    this.threads =
+        replicationConfig
+            .getConfig()
+            .getInt("replication", "asyncApplyObjectThreads", DEFAULT_ASYNC_APPLY_OBJECT_THREADS);
+    this.queueDir = pluginData.resolve(QUEUE_DIRECTORY);
+    this.applyObjectAction = applyObjectAction;
+  }
+
+  @VisibleForTesting
+  AsyncApplyObjectQueue(
+      ExecutorService pool, Path queueDir, Provider<ApplyObjectAction> applyObjectAction) {
+    this.workQueue = null;
+    this.threads = 0;
+    this.queueDir = queueDir;
+    this.applyObjectAction = applyObjectAction;
+    this.pool = pool;
+  }
+
+  @Override
+  public void start() {
+    if (threads > 0) {
+      pool = workQueue.createQueue(threads, POOL_NAME);
+    }
+    if (pool != null) {
+      resumePendingRequests();
+    }
+  }
+
+  @Override
+  public void stop() {
+    ExecutorService currentPool = pool;
+    if (currentPool != null) {
+      pool = null;
+      currentPool.shutdown();
+    }
+  }
+
+  public boolean isEnabled() {
+    return pool != null;
+  }
+
+  /**
+   * Accept the revisions of an apply-object, or of a batch apply-object, for asynchronous
+   * processing. The request is stored durably before being accepted.
+   *
+   * @return the ticket of the accepted request.
+   * @throws RejectedExecutionException when the queue is not running, cannot store the request or
+   *     does not accept it.
+   */
+  public String submit(Project.NameKey project, List<RevisionInput> inputs, boolean batch) {
+    ExecutorService currentPool = pool;
+    if (currentPool == null) {
+      throw new RejectedExecutionException("Asynchronous apply object is not running");
+    }
+
+    String ticket = UUID.randomUUID().toString();
+    ApplyObjectRequest request = new ApplyObjectRequest(project.get(), inputs, batch);
+    try {
+      store(ticket, request);
+    } catch (IOException e) {
+      throw new RejectedExecutionException(
+          String.format("Cannot store the asynchronous apply object of project %s", project), e);
+    }
+    try {
+      execute(currentPool, ticket, request);
+    } catch (RejectedExecutionException e) {
+      tickets.invalidate(ticket);
+      remove(ticket);
+      throw e;
+    }
+    return ticket;
+  }
+
+  /**
+   * Get the outcome of an accepted apply-object request.
+   *
+   * @return the response of the completed request, or empty whilst the request is pending.
+   * @throws RestApiException the failure of the completed request.
+   * @throws ResourceNotFoundException when the ticket is unknown for the project, or expired.
+   */
+  public Optional<Response<?>> status(Project.NameKey project, String ticket)
+      throws RestApiException {
+    AcceptedApplyObject accepted = ticket == null ? null : tickets.getIfPresent(ticket);
+    if (accepted == null || !accepted.project.equals(project)) {
+      throw new ResourceNotFoundException(IdString.fromDecoded(String.valueOf(ticket)));
+    }
+    if (!accepted.result.isDone()) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(accepted.result.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), RestApiException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw RestApiException.wrap(e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  private void execute(ExecutorService currentPool, String ticket, ApplyObjectRequest request) {
+    AcceptedApplyObject accepted = new AcceptedApplyObject(Project.nameKey(request.project));
+    tickets.put(ticket, accepted);
+    currentPool.execute(() -> run(ticket, accepted, request));
+  }
+
+  private void run(String ticket, AcceptedApplyObject accepted, ApplyObjectRequest request) {
+    try {
+      accepted.result.complete(
+          applyObjectAction.get().applyAccepted(accepted.project, request.inputs, request.batch));
+    } catch (RestApiException | RuntimeException e) {
+      repLog.info(
+          "Asynchronous apply object {} for project {} failed: {}",
+          ticket,
+          accepted.project,
+          e.getMessage());
+      accepted.result.completeExceptionally(e);
+    } finally {
+      remove(ticket);
+      // Restart the expiry from the completion of the request
+      tickets.put(ticket, accepted);
+    }
+  }
+
+  private void resumePendingRequests() {
+    if (!Files.isDirectory(queueDir)) {
+      return;
+    }
+    try (DirectoryStream<Path> requestFiles =
+        Files.newDirectoryStream(queueDir, "*" + REQUEST_FILE_SUFFIX)) {
+      for (Path requestFile : requestFiles) {
+        String fileName = requestFile.getFileName().toString();
+        String ticket = fileName.substring(0, fileName.length() - REQUEST_FILE_SUFFIX.length());
+        try {
+          ApplyObjectRequest request =
+              GSON.fromJson(Files.readString(requestFile, UTF_8), ApplyObjectRequest.class);
+          execute(pool, ticket, request);
+          repLog.info(
+              "Asynchronous apply object {} for project {} resumed", ticket, request.project);
+        } catch (IOException | JsonParseException | RejectedExecutionException e) {
+          repLog.error("Cannot resume the asynchronous apply object {}", requestFile, e);
+        }
+      }
+    } catch (IOException e) {
+      repLog.error("Cannot list the asynchronous apply objects in {}", queueDir, e);
+    }
+  }
+
+  private void store(String ticket, ApplyObjectRequest request) throws IOException {
+    Files.createDirectories(queueDir);
+    Path tmpFile = Files.createTempFile(queueDir, ticket, ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+        ByteBuffer content = ByteBuffer.wrap(GSON.toJson(request).getBytes(UTF_8));
+        while (content.hasRemaining()) {
+          channel.write(content);
+        }
+        channel.force(true);
+      }
+      Files.move(tmpFile, requestFile(ticket), StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  private void remove(String ticket) {
+    try {
+      Files.deleteIfExists(requestFile(ticket));
+    } catch (IOException e) {
+      repLog.error("Cannot remove the asynchronous apply object {}", ticket, e);
+    }
+  }
+
+  private Path requestFile(String ticket) {
+    return queueDir.resolve(ticket + REQUEST_FILE_SUFFIX);
+  }
+
+  private static class ApplyObjectRequest {
+    private final String project;
+    private final List<RevisionInput> inputs;
+    private final boolean batch;
+
+    ApplyObjectRequest(String project, List<RevisionInput> inputs, boolean batch) {
+      this.project = project;
+      this.inputs = inputs;
+      this.batch = batch;
+    }
+  }
+
+  private static class AcceptedApplyObject {
+    private final Project.NameKey project;
+    private final CompletableFuture<Response<?>> result = new CompletableFuture<>();
+
+    AcceptedApplyObject(Project.NameKey project) {
+      this.project = project;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.util.RequestScopePropagator;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Worker pool processing the replication REST-API requests asynchronously, so that the servlet
+ * threads are released whilst the objects are applied or fetched.
+ *
+ * <p>The tasks are executed within the scope of the request that submitted them.
+ */
+@Singleton
+public class AsyncRequestExecutor implements LifecycleListener {
+  static final int DEFAULT_ASYNC_REQUEST_THREADS = 0;
+  private static final String POOL_NAME = "PullReplication-AsyncRequest";
+
+  private final WorkQueue workQueue;
+  private final RequestScopePropagator requestScopePropagator;
+  private final int threads;
+  private volatile ExecutorService pool;
+
+  @Inject
+  AsyncRequestExecutor(
+      WorkQueue workQueue,
+      RequestScopePropagator requestScopePropagator,
+      ReplicationConfig replicationConfig) {
+    this.workQueue = workQueue;
+    this.requestScopePropagator = requestScopePropagator;
+    this.threads =
+        replicationConfig
+            .getConfig()
+            .getInt("replication", "asyncRequestThreads", DEFAULT_ASYNC_REQUEST_THREADS);
+  }
+
+  @VisibleForTesting
+  AsyncRequestExecutor(ExecutorService pool, RequestScopePropagator requestScopePropagator) {
+    this.workQueue = null;
+    this.requestScopePropagator = requestScopePropagator;
+    this.threads = 0;
+    this.pool = pool;
+  }
+
+  @Override
+  public void start() {
+    if (threads > 0) {
+      pool = workQueue.createQueue(threads, POOL_NAME);
+    }
+  }
+
+  @Override
+  public void stop() {
+    ExecutorService currentPool = pool;
+    if (currentPool != null) {
+      pool = null;
+      currentPool.shutdown();
+    }
+  }
+
+  public boolean isEnabled() {
+    return pool != null;
+  }
+
+  /**
+   * Execute a task in the scope of the current request.
+   *
+   * @throws RejectedExecutionException when the pool is not running or does not accept the task.
+   */
+  public void execute(Runnable task) {
+    ExecutorService currentPool = pool;
+    if (currentPool == null) {
+      throw new RejectedExecutionException("Asynchronous request processing is not running");
+    }
+    currentPool.execute(requestScopePropagator.wrap(task));
+  }
+}
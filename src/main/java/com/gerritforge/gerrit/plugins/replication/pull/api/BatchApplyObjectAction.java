@@ -43,6 +43,10 @@ class BatchApplyObjectAction implements RestModifyView<ProjectResource, List<Rev
         resource.getNameKey(),
         inputs.stream().map(RevisionInput::getRefName).collect(Collectors.joining(",")));
 
+    if (applyObjectAction.canApplyInSingleTransaction(inputs)) {
+      return applyObjectAction.applyInSingleTransaction(resource, inputs);
+    }
+
     List<Response<?>> allResponses = new ArrayList<>();
     for (RevisionInput input : inputs) {
       Response<?> individualResponse = applyObjectAction.apply(resource, input);
@@ -51,4 +55,20 @@ class BatchApplyObjectAction implements RestModifyView<ProjectResource, List<Rev
 
     return Response.ok(allResponses);
   }
+
+  /**
+   * Accept the batch for being applied asynchronously, returning {@code 202 Accepted} with the
+   * location for querying its outcome at the given apply-object status endpoint.
+   */
+  public Response<?> applyAsync(
+      ProjectResource resource, List<RevisionInput> inputs, String statusUrl)
+      throws RestApiException {
+
+    repLog.info(
+        "Asynchronous batch Apply object API from {} for refs {}",
+        resource.getNameKey(),
+        inputs.stream().map(RevisionInput::getRefName).collect(Collectors.joining(",")));
+
+    return applyObjectAction.applyBatchAsync(resource, inputs, statusUrl);
+  }
 }
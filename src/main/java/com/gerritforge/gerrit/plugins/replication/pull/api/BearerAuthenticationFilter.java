@@ -126,7 +126,9 @@ public class BearerAuthenticationFilter extends AllRequestFilter {
                 || requestURI.endsWith(String.format("/%s~fetch", pluginName))
                 || requestURI.endsWith(String.format("/%s~batch-fetch", pluginName))
                 || requestURI.endsWith(String.format("/%s~delete-project", pluginName))
-                || requestURI.contains(String.format("/%s/init-project/", pluginName))))
+                || requestURI.contains(String.format("/%s/init-project/", pluginName))
+                || requestURI.endsWith(
+                    String.format("/%s/multi-project-batch-apply-object", pluginName))))
         || (requestURI.matches(String.format(".*/projects/[^/]+/%s~HEAD", pluginName))
             && "PUT".equals(requestMethod));
   }
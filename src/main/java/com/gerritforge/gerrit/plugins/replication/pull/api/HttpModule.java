@@ -12,10 +12,12 @@
 package com.gerritforge.gerrit.plugins.replication.pull.api;
 
 import com.gerritforge.gerrit.plugins.replication.pull.BearerTokenProvider;
+import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.httpd.AllRequestFilter;
 import com.google.inject.Inject;
 import com.google.inject.Scopes;
+import com.google.inject.internal.UniqueAnnotations;
 import com.google.inject.name.Names;
 import com.google.inject.servlet.ServletModule;
 
@@ -43,6 +45,9 @@ public class HttpModule extends ServletModule {
                   .in(Scopes.SINGLETON);
             });
 
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(AsyncRequestExecutor.class);
     DynamicSet.bind(binder(), AllRequestFilter.class)
         .to(PullReplicationFilter.class)
         .in(Scopes.SINGLETON);
@@ -0,0 +1,136 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import static com.gerritforge.gerrit.plugins.replication.pull.PullReplicationLogger.repLog;
+import static com.google.gerrit.httpd.restapi.RestApiServlet.SC_UNPROCESSABLE_ENTITY;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
+import static javax.servlet.http.HttpServletResponse.SC_FORBIDDEN;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_PRECONDITION_FAILED;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectResult;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.IdString;
+import com.google.gerrit.extensions.restapi.PreconditionFailedException;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.gerrit.extensions.restapi.UnprocessableEntityException;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Plugin-level endpoint applying the ref updates of many projects in a single request.
+ *
+ * <p>Every project is applied through the {@link BatchApplyObjectAction}, and its outcome is
+ * reported in the per-project result map, so that a failure on one project does not prevent the
+ * others from being applied.
+ */
+@Singleton
+public class MultiProjectBatchApplyObjectAction {
+
+  private final BatchApplyObjectAction batchApplyObjectAction;
+  private final FetchPreconditions preConditions;
+  private final ProjectCache projectCache;
+  private final Provider<CurrentUser> currentUserProvider;
+
+  @Inject
+  MultiProjectBatchApplyObjectAction(
+      BatchApplyObjectAction batchApplyObjectAction,
+      FetchPreconditions preConditions,
+      ProjectCache projectCache,
+      Provider<CurrentUser> currentUserProvider) {
+    this.batchApplyObjectAction = batchApplyObjectAction;
+    this.preConditions = preConditions;
+    this.projectCache = projectCache;
+    this.currentUserProvider = currentUserProvider;
+  }
+
+  public Response<Map<String, ProjectBatchApplyObjectResult>> apply(
+      Map<String, List<RevisionInput>> inputs) throws RestApiException {
+    if (!preConditions.canCallFetchApi()) {
+      throw new AuthException("Not allowed to call fetch command");
+    }
+    if (inputs == null || inputs.isEmpty()) {
+      throw new BadRequestException("Multi-project batch cannot be null or empty");
+    }
+
+    repLog.info(
+        "Multi-project batch apply object API for projects {}", String.join(",", inputs.keySet()));
+
+    Map<String, ProjectBatchApplyObjectResult> results = new LinkedHashMap<>();
+    for (Map.Entry<String, List<RevisionInput>> projectInputs : inputs.entrySet()) {
+      results.put(
+          projectInputs.getKey(), applyProject(projectInputs.getKey(), projectInputs.getValue()));
+    }
+    return Response.ok(results);
+  }
+
+  private ProjectBatchApplyObjectResult applyProject(
+      String projectName, List<RevisionInput> projectInputs) {
+    try {
+      Response<?> response =
+          batchApplyObjectAction.apply(parseProjectResource(projectName), projectInputs);
+      return new ProjectBatchApplyObjectResult(response.statusCode(), null);
+    } catch (ResourceNotFoundException e) {
+      return failure(projectName, SC_NOT_FOUND, e);
+    } catch (ResourceConflictException e) {
+      return failure(projectName, SC_CONFLICT, e);
+    } catch (UnprocessableEntityException e) {
+      return failure(projectName, SC_UNPROCESSABLE_ENTITY, e);
+    } catch (PreconditionFailedException e) {
+      return failure(projectName, SC_PRECONDITION_FAILED, e);
+    } catch (BadRequestException | IllegalArgumentException e) {
+      return failure(projectName, SC_BAD_REQUEST, e);
+    } catch (AuthException e) {
+      return failure(projectName, SC_FORBIDDEN, e);
+    } catch (RestApiException | RuntimeException e) {
+      repLog.error("Multi-project batch apply object API *FAILED* for project {}", projectName, e);
+      return failure(projectName, SC_INTERNAL_SERVER_ERROR, e);
+    }
+  }
+
+  private ProjectResource parseProjectResource(String projectName)
+      throws ResourceNotFoundException {
+    Optional<ProjectState> project = projectCache.get(Project.nameKey(projectName));
+    if (project.isEmpty()) {
+      throw new ResourceNotFoundException(IdString.fromDecoded(projectName));
+    }
+    return new ProjectResource(project.get(), currentUserProvider.get());
+  }
+
+  private static ProjectBatchApplyObjectResult failure(
+      String projectName, int statusCode, Exception e) {
+    repLog.info(
+        "Multi-project batch apply object API for project {} returned {}: {}",
+        projectName,
+        statusCode,
+        e.getMessage());
+    return new ProjectBatchApplyObjectResult(statusCode, e.getMessage());
+  }
+}
@@ -30,7 +30,12 @@ public interface PullReplicationEndpoints {
   @UsedAt(PLUGIN_MULTI_SITE)
   public static final String APPLY_OBJECTS_API_ENDPOINT = "apply-objects";
 
+  public static final String APPLY_OBJECT_STATUS_API_ENDPOINT = "apply-object-status";
+  public static final String APPLY_OBJECT_ASYNC_PARAMETER = "async";
+  public static final String APPLY_OBJECT_TICKET_PARAMETER = "ticket";
   public static final String BATCH_APPLY_OBJECT_API_ENDPOINT = "batch-apply-object";
+  public static final String MULTI_PROJECT_BATCH_APPLY_OBJECT_API_ENDPOINT =
+      "multi-project-batch-apply-object";
 
   public static final String FETCH_ENDPOINT = "fetch";
   public static final String BATCH_FETCH_ENDPOINT = "batch-fetch";
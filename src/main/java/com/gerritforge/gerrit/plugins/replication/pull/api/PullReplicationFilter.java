@@ -12,22 +12,26 @@
 package com.gerritforge.gerrit.plugins.replication.pull.api;
 
 import static com.gerritforge.gerrit.plugins.replication.pull.api.HttpServletOps.checkAcceptHeader;
+import static com.gerritforge.gerrit.plugins.replication.pull.api.RequestAdmissionControl.SC_TOO_MANY_REQUESTS;
 import static com.google.gerrit.httpd.restapi.RestApiServlet.SC_UNPROCESSABLE_ENTITY;
 import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
 import static javax.servlet.http.HttpServletResponse.SC_CREATED;
 import static javax.servlet.http.HttpServletResponse.SC_FORBIDDEN;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static javax.servlet.http.HttpServletResponse.SC_UNAUTHORIZED;
 
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.BatchInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.Input;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectResult;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionsInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.UnauthorizedAuthException;
 import com.gerritforge.gerrit.plugins.replication.pull.api.util.PayloadSerDes;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.net.HttpHeaders;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.api.projects.HeadInput;
@@ -63,8 +67,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.servlet.AsyncContext;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
@@ -82,6 +88,7 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
   private ApplyObjectAction applyObjectAction;
   private ApplyObjectsAction applyObjectsAction;
   private BatchApplyObjectAction batchApplyObjectAction;
+  private MultiProjectBatchApplyObjectAction multiProjectBatchApplyObjectAction;
   private ProjectInitializationAction projectInitializationAction;
   private UpdateHeadAction updateHEADAction;
   private ProjectDeletionAction projectDeletionAction;
@@ -89,6 +96,8 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
   private Gson gson;
   private String pluginName;
   private final Provider<CurrentUser> currentUserProvider;
+  private final AsyncRequestExecutor asyncRequestExecutor;
+  private final RequestAdmissionControl admissionControl;
 
   @Inject
   public PullReplicationFilter(
@@ -97,17 +106,21 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
       ApplyObjectAction applyObjectAction,
       ApplyObjectsAction applyObjectsAction,
       BatchApplyObjectAction batchApplyObjectAction,
+      MultiProjectBatchApplyObjectAction multiProjectBatchApplyObjectAction,
       ProjectInitializationAction projectInitializationAction,
       UpdateHeadAction updateHEADAction,
       ProjectDeletionAction projectDeletionAction,
       ProjectCache projectCache,
       @PluginName String pluginName,
-      Provider<CurrentUser> currentUserProvider) {
+      Provider<CurrentUser> currentUserProvider,
+      AsyncRequestExecutor asyncRequestExecutor,
+      RequestAdmissionControl admissionControl) {
     this.fetchAction = fetchAction;
     this.batchFetchAction = batchFetchAction;
     this.applyObjectAction = applyObjectAction;
     this.applyObjectsAction = applyObjectsAction;
     this.batchApplyObjectAction = batchApplyObjectAction;
+    this.multiProjectBatchApplyObjectAction = multiProjectBatchApplyObjectAction;
     this.projectInitializationAction = projectInitializationAction;
     this.updateHEADAction = updateHEADAction;
     this.projectDeletionAction = projectDeletionAction;
@@ -115,6 +128,8 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
     this.pluginName = pluginName;
     this.gson = HttpPayloadGsonProvider.get();
     this.currentUserProvider = currentUserProvider;
+    this.asyncRequestExecutor = asyncRequestExecutor;
+    this.admissionControl = admissionControl;
   }
 
   @Override
@@ -127,6 +142,95 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
 
     HttpServletResponse httpResponse = (HttpServletResponse) response;
     HttpServletRequest httpRequest = (HttpServletRequest) request;
+    if (!isReplicationAction(httpRequest)) {
+      doFilterSync(httpRequest, httpResponse, chain);
+      return;
+    }
+
+    Optional<RequestAdmissionControl.Permit> permit =
+        admissionControl.tryAcquire(getProjectName(httpRequest).map(IdString::get));
+    if (permit.isEmpty()) {
+      replyTooManyRequests(httpRequest, httpResponse);
+      return;
+    }
+
+    if (asyncRequestExecutor.isEnabled() && httpRequest.isAsyncSupported()) {
+      doFilterAsync(httpRequest, httpResponse, chain, permit.get());
+    } else {
+      try (RequestAdmissionControl.Permit p = permit.get()) {
+        doFilterSync(httpRequest, httpResponse, chain);
+      }
+    }
+  }
+
+  private void replyTooManyRequests(
+      HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+    logger.atFine().log(
+        "Too many concurrent replication requests: rejecting %s", httpRequest.getRequestURI());
+    httpResponse.setHeader(
+        HttpHeaders.RETRY_AFTER, Long.toString(admissionControl.getRetryAfterSec()));
+    RestApiServlet.replyError(
+        httpRequest,
+        httpResponse,
+        SC_TOO_MANY_REQUESTS,
+        "Too many concurrent replication requests",
+        null);
+  }
+
+  /**
+   * Process the request in the asynchronous request pool, releasing the servlet thread until the
+   * response is complete. The request is processed in the servlet thread when the pool does not
+   * accept it.
+   */
+  private void doFilterAsync(
+      HttpServletRequest httpRequest,
+      HttpServletResponse httpResponse,
+      FilterChain chain,
+      RequestAdmissionControl.Permit permit) {
+    AsyncContext asyncContext = httpRequest.startAsync(httpRequest, httpResponse);
+    // The caller applies its own socket timeout
+    asyncContext.setTimeout(0);
+    PullReplicationApiRequestMetrics apiRequestMetrics = PullReplicationApiRequestMetrics.get();
+    Runnable task =
+        () -> {
+          PullReplicationApiRequestMetrics.set(apiRequestMetrics);
+          try {
+            doFilterSync(httpRequest, httpResponse, chain);
+          } catch (IOException | ServletException | RuntimeException e) {
+            logger.atSevere().withCause(e).log(
+                "Asynchronous processing of %s failed", httpRequest.getRequestURI());
+            replyInternalServerError(httpResponse);
+          } finally {
+            PullReplicationApiRequestMetrics.set(null);
+            permit.close();
+            asyncContext.complete();
+          }
+        };
+
+    try {
+      asyncRequestExecutor.execute(task);
+    } catch (RejectedExecutionException e) {
+      logger.atWarning().withCause(e).log(
+          "Asynchronous processing of %s rejected: processing it in the servlet thread",
+          httpRequest.getRequestURI());
+      task.run();
+    }
+  }
+
+  private static void replyInternalServerError(HttpServletResponse httpResponse) {
+    if (httpResponse.isCommitted()) {
+      return;
+    }
+    try {
+      httpResponse.sendError(SC_INTERNAL_SERVER_ERROR);
+    } catch (IOException e) {
+      logger.atFine().withCause(e).log("Unable to send the error response");
+    }
+  }
+
+  private void doFilterSync(
+      HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain chain)
+      throws IOException, ServletException {
     try {
       if (isFetchAction(httpRequest)) {
         failIfcurrentUserIsAnonymous();
@@ -137,12 +241,18 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
       } else if (isApplyObjectAction(httpRequest)) {
         failIfcurrentUserIsAnonymous();
         PayloadSerDes.writeResponse(httpResponse, doApplyObject(httpRequest));
+      } else if (isApplyObjectStatusAction(httpRequest)) {
+        failIfcurrentUserIsAnonymous();
+        PayloadSerDes.writeResponse(httpResponse, doApplyObjectStatus(httpRequest));
       } else if (isApplyObjectsAction(httpRequest)) {
         failIfcurrentUserIsAnonymous();
         PayloadSerDes.writeResponse(httpResponse, doApplyObjects(httpRequest));
       } else if (isBatchApplyObjectsAction(httpRequest)) {
         failIfcurrentUserIsAnonymous();
         PayloadSerDes.writeResponse(httpResponse, doBatchApplyObject(httpRequest));
+      } else if (isMultiProjectBatchApplyObjectAction(httpRequest)) {
+        failIfcurrentUserIsAnonymous();
+        PayloadSerDes.writeResponse(httpResponse, doMultiProjectBatchApplyObject(httpRequest));
       } else if (isInitProjectAction(httpRequest)) {
         failIfcurrentUserIsAnonymous();
         if (!checkAcceptHeader(httpRequest, httpResponse)) {
@@ -156,7 +266,7 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
         failIfcurrentUserIsAnonymous();
         PayloadSerDes.writeResponse(httpResponse, doDeleteProject(httpRequest));
       } else {
-        chain.doFilter(request, response);
+        chain.doFilter(httpRequest, httpResponse);
       }
 
     } catch (UnauthorizedAuthException e) {
@@ -212,9 +322,32 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
     RevisionInput input = PayloadSerDes.parseRevisionInput(httpRequest);
     IdString id = getProjectName(httpRequest).get();
 
+    if (Boolean.parseBoolean(httpRequest.getParameter(APPLY_OBJECT_ASYNC_PARAMETER))) {
+      return (Response<String>)
+          applyObjectAction.applyAsync(parseProjectResource(id), input, statusUrl(httpRequest));
+    }
     return (Response<String>) applyObjectAction.apply(parseProjectResource(id), input);
   }
 
+  @SuppressWarnings("unchecked")
+  private Response<String> doApplyObjectStatus(HttpServletRequest httpRequest)
+      throws RestApiException {
+    IdString id = getProjectName(httpRequest).get();
+
+    return (Response<String>)
+        applyObjectAction.getAsyncStatus(
+            parseProjectResource(id),
+            httpRequest.getParameter(APPLY_OBJECT_TICKET_PARAMETER),
+            statusUrl(httpRequest));
+  }
+
+  /** URL of the apply-object status endpoint of the project of an apply-object request. */
+  private static String statusUrl(HttpServletRequest httpRequest) {
+    String requestUrl = httpRequest.getRequestURL().toString();
+    return requestUrl.substring(0, requestUrl.lastIndexOf('~') + 1)
+        + APPLY_OBJECT_STATUS_API_ENDPOINT;
+  }
+
   @SuppressWarnings("unchecked")
   private Response<String> doApplyObjects(HttpServletRequest httpRequest)
       throws RestApiException, IOException, PermissionBackendException {
@@ -231,10 +364,23 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
     List<RevisionInput> inputs = readJson(httpRequest, collectionType.getType());
     IdString id = getProjectName(httpRequest).get();
 
+    if (Boolean.parseBoolean(httpRequest.getParameter(APPLY_OBJECT_ASYNC_PARAMETER))) {
+      return (Response<Map<String, Object>>)
+          batchApplyObjectAction.applyAsync(
+              parseProjectResource(id), inputs, statusUrl(httpRequest));
+    }
     return (Response<Map<String, Object>>)
         batchApplyObjectAction.apply(parseProjectResource(id), inputs);
   }
 
+  private Response<Map<String, ProjectBatchApplyObjectResult>> doMultiProjectBatchApplyObject(
+      HttpServletRequest httpRequest) throws RestApiException, IOException {
+    TypeLiteral<Map<String, List<RevisionInput>>> collectionType = new TypeLiteral<>() {};
+    Map<String, List<RevisionInput>> inputs = readJson(httpRequest, collectionType.getType());
+
+    return multiProjectBatchApplyObjectAction.apply(inputs);
+  }
+
   @SuppressWarnings("unchecked")
   private Response<String> doUpdateHEAD(HttpServletRequest httpRequest) throws Exception {
     HeadInput input = PayloadSerDes.parseHeadInput(httpRequest);
@@ -337,12 +483,28 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
     return Optional.empty();
   }
 
+  private boolean isReplicationAction(HttpServletRequest httpRequest) {
+    return isFetchAction(httpRequest)
+        || isBatchFetchAction(httpRequest)
+        || isApplyObjectAction(httpRequest)
+        || isApplyObjectsAction(httpRequest)
+        || isBatchApplyObjectsAction(httpRequest)
+        || isMultiProjectBatchApplyObjectAction(httpRequest);
+  }
+
   private boolean isApplyObjectAction(HttpServletRequest httpRequest) {
     return httpRequest
         .getRequestURI()
         .endsWith(String.format("/%s~" + APPLY_OBJECT_API_ENDPOINT, pluginName));
   }
 
+  private boolean isApplyObjectStatusAction(HttpServletRequest httpRequest) {
+    return httpRequest
+            .getRequestURI()
+            .endsWith(String.format("/%s~" + APPLY_OBJECT_STATUS_API_ENDPOINT, pluginName))
+        && "GET".equals(httpRequest.getMethod());
+  }
+
   private boolean isApplyObjectsAction(HttpServletRequest httpRequest) {
     return httpRequest
         .getRequestURI()
@@ -355,6 +517,14 @@ public class PullReplicationFilter extends AllRequestFilter implements PullRepli
         .endsWith(String.format("/%s~" + BATCH_APPLY_OBJECT_API_ENDPOINT, pluginName));
   }
 
+  private boolean isMultiProjectBatchApplyObjectAction(HttpServletRequest httpRequest) {
+    return httpRequest
+            .getRequestURI()
+            .endsWith(
+                String.format("/%s/" + MULTI_PROJECT_BATCH_APPLY_OBJECT_API_ENDPOINT, pluginName))
+        && "POST".equals(httpRequest.getMethod());
+  }
+
   private boolean isFetchAction(HttpServletRequest httpRequest) {
     return httpRequest.getRequestURI().endsWith(String.format("/%s~" + FETCH_ENDPOINT, pluginName));
   }
@@ -0,0 +1,124 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jgit.lib.Config;
+
+/**
+ * Admission control of the concurrent fetch and apply-object REST-API requests, globally and per
+ * project.
+ *
+ * <p>The requests exceeding the limits are not processed and are answered with {@link
+ * #SC_TOO_MANY_REQUESTS} and a {@code Retry-After} header, so that the source defers them instead
+ * of waiting for a timeout and falling back to a more expensive git fetch.
+ */
+@Singleton
+public class RequestAdmissionControl {
+  public static final int SC_TOO_MANY_REQUESTS = 429;
+
+  static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 0;
+  static final long DEFAULT_RETRY_AFTER_SEC = 5L;
+
+  /** Admission of a request, to be closed when its processing is complete. */
+  public interface Permit extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Permit UNLIMITED = () -> {};
+
+  private final int maxRequests;
+  private final int maxRequestsPerProject;
+  private final long retryAfterSec;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final ConcurrentMap<String, Integer> inFlightPerProject = new ConcurrentHashMap<>();
+
+  @Inject
+  RequestAdmissionControl(ReplicationConfig replicationConfig) {
+    this(replicationConfig.getConfig());
+  }
+
+  private RequestAdmissionControl(Config config) {
+    this(
+        config.getInt("replication", "maxConcurrentRequests", DEFAULT_MAX_CONCURRENT_REQUESTS),
+        config.getInt(
+            "replication", "maxConcurrentRequestsPerProject", DEFAULT_MAX_CONCURRENT_REQUESTS),
+        config.getTimeUnit(
+            "replication", null, "requestRetryAfter", DEFAULT_RETRY_AFTER_SEC, SECONDS));
+  }
+
+  @VisibleForTesting
+  RequestAdmissionControl(int maxRequests, int maxRequestsPerProject, long retryAfterSec) {
+    this.maxRequests = Math.max(0, maxRequests);
+    this.maxRequestsPerProject = Math.max(0, maxRequestsPerProject);
+    this.retryAfterSec = Math.max(1L, retryAfterSec);
+  }
+
+  public boolean isEnabled() {
+    return maxRequests > 0 || maxRequestsPerProject > 0;
+  }
+
+  /**
+   * Admit a request, unless the global limit or the limit of its project is reached.
+   *
+   * @param project the project of the request, or empty for the requests across projects, which are
+   *     subject to the global limit only.
+   * @return the permit of the request, or empty when it is not admitted.
+   */
+  public Optional<Permit> tryAcquire(Optional<String> project) {
+    if (!isEnabled()) {
+      return Optional.of(UNLIMITED);
+    }
+
+    if (maxRequests > 0 && inFlight.incrementAndGet() > maxRequests) {
+      inFlight.decrementAndGet();
+      return Optional.empty();
+    }
+
+    Optional<String> limitedProject = project.filter(p -> maxRequestsPerProject > 0);
+    if (limitedProject.isPresent()
+        && inFlightPerProject.merge(limitedProject.get(), 1, Integer::sum)
+            > maxRequestsPerProject) {
+      release(limitedProject);
+      return Optional.empty();
+    }
+
+    return Optional.of(() -> release(limitedProject));
+  }
+
+  /** Seconds the source should wait before sending again a request that was not admitted. */
+  public long getRetryAfterSec() {
+    return retryAfterSec;
+  }
+
+  @VisibleForTesting
+  int getInFlight(String project) {
+    return inFlightPerProject.getOrDefault(project, 0);
+  }
+
+  private void release(Optional<String> project) {
+    project.ifPresent(p -> inFlightPerProject.computeIfPresent(p, (k, v) -> v > 1 ? v - 1 : null));
+    if (maxRequests > 0) {
+      inFlight.decrementAndGet();
+    }
+  }
+}
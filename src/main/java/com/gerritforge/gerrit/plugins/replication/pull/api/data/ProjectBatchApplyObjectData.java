@@ -0,0 +1,40 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api.data;
+
+import com.google.auto.value.AutoValue;
+import com.google.gerrit.entities.Project;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@AutoValue
+public abstract class ProjectBatchApplyObjectData {
+
+  public static ProjectBatchApplyObjectData create(
+      Project.NameKey project, List<BatchApplyObjectData> refs, long eventCreatedOn) {
+    return new AutoValue_ProjectBatchApplyObjectData(project, refs, eventCreatedOn);
+  }
+
+  public abstract Project.NameKey project();
+
+  public abstract List<BatchApplyObjectData> refs();
+
+  public abstract long eventCreatedOn();
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s:[%s]",
+        project().get(),
+        refs().stream().map(BatchApplyObjectData::toString).collect(Collectors.joining(",")));
+  }
+}
@@ -0,0 +1,31 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api.data;
+
+public class ProjectBatchApplyObjectResult {
+  private int statusCode;
+
+  private String message;
+
+  public ProjectBatchApplyObjectResult(int statusCode, String message) {
+    this.statusCode = statusCode;
+    this.message = message;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+}
@@ -11,6 +11,7 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull.api.util;
 
+import static com.google.common.net.HttpHeaders.LOCATION;
 import static javax.servlet.http.HttpServletResponse.SC_CREATED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
@@ -18,6 +19,7 @@ import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction;
 import com.gerritforge.gerrit.plugins.replication.pull.api.HttpPayloadGsonProvider;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionsInput;
+import com.google.common.base.Strings;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.extensions.api.projects.HeadInput;
 import com.google.gerrit.extensions.restapi.BadRequestException;
@@ -60,6 +62,12 @@ public class PayloadSerDes {
   public static <T> void writeResponse(HttpServletResponse httpResponse, Response<T> response)
       throws IOException {
     String responseJson = gson.toJson(response);
+    if (response instanceof Response.Accepted) {
+      String location = ((Response.Accepted) response).location();
+      if (!Strings.isNullOrEmpty(location)) {
+        httpResponse.setHeader(LOCATION, location);
+      }
+    }
     if (response.statusCode() == SC_OK || response.statusCode() == SC_CREATED) {
 
       httpResponse.setContentType("application/json");
@@ -0,0 +1,136 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.client;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+
+/**
+ * AIMD (additive-increase/multiplicative-decrease) limiter of the concurrent calls to a single
+ * remote apiUrl.
+ *
+ * <p>Every call completed within the latency threshold increases the limit by {@code 1/limit},
+ * which adds roughly one permit per round of successful calls. A call that is slower than the
+ * threshold, fails or reports the target as unavailable cuts the limit by {@link #BACKOFF_RATIO},
+ * at most once per latency threshold interval so that a burst of slow calls backs off only once.
+ * The limit always stays between the configured minimum and maximum.
+ */
+public class AdaptiveConcurrencyLimiter {
+  static final double BACKOFF_RATIO = 0.5;
+
+  private final String apiUrl;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final Ticker ticker;
+
+  private double limit;
+  private int inFlight;
+  private long rejected;
+  private long lastBackoffNanos;
+
+  public AdaptiveConcurrencyLimiter(
+      String apiUrl, int minLimit, int maxLimit, long latencyThresholdMs) {
+    this(apiUrl, minLimit, maxLimit, latencyThresholdMs, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  AdaptiveConcurrencyLimiter(
+      String apiUrl, int minLimit, int maxLimit, long latencyThresholdMs, Ticker ticker) {
+    this.apiUrl = apiUrl;
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.latencyThresholdNanos = MILLISECONDS.toNanos(latencyThresholdMs);
+    this.ticker = ticker;
+    this.limit = this.maxLimit;
+    this.lastBackoffNanos = ticker.read() - latencyThresholdNanos;
+  }
+
+  public String getApiUrl() {
+    return apiUrl;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Acquire a permit without waiting.
+   *
+   * @return true if the permit has been acquired, false if the limit has been reached.
+   */
+  public synchronized boolean tryAcquire() {
+    if (inFlight < (int) limit) {
+      inFlight++;
+      return true;
+    }
+    rejected++;
+    return false;
+  }
+
+  /**
+   * Acquire a permit, waiting for one to be released if the limit has been reached.
+   *
+   * @param timeoutMs maximum time to wait for a permit.
+   * @return true if the permit has been acquired, false if the timeout expired.
+   * @throws InterruptedException if the thread has been interrupted while waiting.
+   */
+  public synchronized boolean acquire(long timeoutMs) throws InterruptedException {
+    long deadlineNanos = System.nanoTime() + MILLISECONDS.toNanos(timeoutMs);
+    while (inFlight >= (int) limit) {
+      long waitNanos = deadlineNanos - System.nanoTime();
+      if (waitNanos <= 0) {
+        rejected++;
+        return false;
+      }
+      NANOSECONDS.timedWait(this, waitNanos);
+    }
+    inFlight++;
+    return true;
+  }
+
+  /**
+   * Release a permit and adjust the limit based on the outcome of the call.
+   *
+   * @param latencyNanos time spent executing the call.
+   * @param overloaded true if the call failed or reported the target as unavailable.
+   */
+  public synchronized void release(long latencyNanos, boolean overloaded) {
+    inFlight--;
+    if (overloaded || latencyNanos > latencyThresholdNanos) {
+      long now = ticker.read();
+      if (now - lastBackoffNanos >= latencyThresholdNanos) {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        lastBackoffNanos = now;
+      }
+    } else {
+      limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+    notifyAll();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return apiUrl + " limit=" + (int) limit + " in-flight=" + inFlight + " rejected=" + rejected;
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.client;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+
+/**
+ * Circuit breaker guarding the calls to a single remote apiUrl.
+ *
+ * <p>The breaker trips to {@link State#OPEN} after a configurable number of consecutive failures
+ * and rejects all the calls until a background probe succeeds. While the probe is running, the
+ * breaker is {@link State#HALF_OPEN} and keeps rejecting the calls.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String apiUrl;
+  private final int failureThreshold;
+  private final long openIntervalMs;
+  private final Ticker ticker;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+
+  public CircuitBreaker(String apiUrl, int failureThreshold, long openIntervalMs) {
+    this(apiUrl, failureThreshold, openIntervalMs, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  CircuitBreaker(String apiUrl, int failureThreshold, long openIntervalMs, Ticker ticker) {
+    this.apiUrl = apiUrl;
+    this.failureThreshold = failureThreshold;
+    this.openIntervalMs = openIntervalMs;
+    this.ticker = ticker;
+  }
+
+  public String getApiUrl() {
+    return apiUrl;
+  }
+
+  public long getOpenIntervalMs() {
+    return openIntervalMs;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public synchronized int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  /**
+   * Check whether a call to the remote apiUrl is allowed.
+   *
+   * @return true if the breaker is closed, false if the call must fail fast.
+   */
+  public synchronized boolean allowRequest() {
+    return state == State.CLOSED;
+  }
+
+  /**
+   * Move the breaker from {@link State#OPEN} to {@link State#HALF_OPEN} for running a probe.
+   *
+   * @return true if the caller is in charge of running the probe, false if the breaker is not open.
+   */
+  public synchronized boolean tryHalfOpen() {
+    if (state != State.OPEN) {
+      return false;
+    }
+    state = State.HALF_OPEN;
+    return true;
+  }
+
+  public synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    state = State.CLOSED;
+  }
+
+  /**
+   * Record a failed call to the remote apiUrl.
+   *
+   * @return true if the failure has tripped the breaker into the {@link State#OPEN} state.
+   */
+  public synchronized boolean recordFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN
+        || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+      state = State.OPEN;
+      openedAtNanos = ticker.read();
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public synchronized String toString() {
+    String print = apiUrl + " " + state;
+    if (state != State.CLOSED) {
+      print +=
+          " (failures="
+              + consecutiveFailures
+              + ", open for "
+              + NANOSECONDS.toMillis(ticker.read() - openedAtNanos)
+              + " ms)";
+    }
+    return print;
+  }
+}
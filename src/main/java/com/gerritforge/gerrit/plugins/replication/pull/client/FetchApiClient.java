@@ -16,6 +16,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.RefInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.BatchApplyObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.Project;
@@ -23,6 +24,7 @@ import com.google.gerrit.entities.Project.NameKey;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import org.eclipse.jgit.transport.URIish;
 
 public interface FetchApiClient {
@@ -93,6 +95,29 @@ public interface FetchApiClient {
       URIish targetUri)
       throws IOException;
 
+  /**
+   * Queries the outcome of an apply-object call accepted for asynchronous processing.
+   *
+   * @param statusUrl The URL returned in the location of the accepted result, which may be relative
+   *     to the target.
+   * @param targetUri The URI of the target that accepted the call.
+   * @return {@code 202 Accepted} whilst the call is pending, otherwise the result of the call.
+   * @throws IOException If an I/O error occurs during the query.
+   */
+  HttpResult callApplyObjectStatus(String statusUrl, URIish targetUri) throws IOException;
+
+  /**
+   * Replicates the ref updates of many projects with a single multi-project batch apply-object
+   * call.
+   *
+   * @param projectBatches The ref updates to apply, grouped by project.
+   * @param targetUri The destination URI where the ref updates should be applied.
+   * @return The HTTP result of every project in the batch.
+   * @throws IOException If an I/O error occurs during the call.
+   */
+  Map<Project.NameKey, HttpResult> callMultiProjectBatchSendObject(
+      List<ProjectBatchApplyObjectData> projectBatches, URIish targetUri) throws IOException;
+
   HttpResult callSendObjects(
       NameKey project,
       String refName,
@@ -11,15 +11,26 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull.client;
 
+import static com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationEndpoints.APPLY_OBJECT_ASYNC_PARAMETER;
+import static com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationEndpoints.APPLY_OBJECT_STATUS_API_ENDPOINT;
+import static com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationEndpoints.APPLY_OBJECT_TICKET_PARAMETER;
+import static com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationEndpoints.MULTI_PROJECT_BATCH_APPLY_OBJECT_API_ENDPOINT;
+import static com.gerritforge.gerrit.plugins.replication.pull.api.RequestAdmissionControl.SC_TOO_MANY_REQUESTS;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.gson.FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
 
 import com.gerritforge.gerrit.plugins.replication.pull.BearerTokenProvider;
+import com.gerritforge.gerrit.plugins.replication.pull.ReplicationQueueMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.RefInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.PullReplicationApiRequestMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.BatchApplyObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectResult;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionsInput;
@@ -33,20 +44,33 @@ import com.google.gerrit.entities.Project.NameKey;
 import com.google.gerrit.entities.RefNames;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.restapi.Url;
+import com.google.gerrit.server.config.AllProjectsNameProvider;
 import com.google.gerrit.server.config.GerritInstanceId;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.googlesource.gerrit.plugins.replication.CredentialsFactory;
 import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.ParseException;
@@ -55,10 +79,12 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.message.BasicHeader;
@@ -68,6 +94,11 @@ import org.eclipse.jgit.transport.URIish;
 
 public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpResult> {
   public static final boolean FORCE_ASYNC = true;
+  private static final boolean QUEUE_WHEN_LIMITED = true;
+  private static final boolean REJECT_WHEN_LIMITED = false;
+  static final int MAX_ERROR_MESSAGE_LENGTH = 4096;
+  static final String TRUNCATED_MESSAGE_SUFFIX = "... (truncated)";
+  private static final String CIRCUIT_BREAKER_PROBE_TICKET = "circuit-breaker-probe";
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
@@ -82,6 +113,7 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
   private final SyncRefsFilter syncRefsFilter;
   private final BearerTokenProvider bearerTokenProvider;
   private final String urlAuthenticationPrefix;
+  private final ReplicationQueueMetrics queueMetrics;
 
   @Inject
   FetchRestApiClient(
@@ -92,6 +124,7 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
       @PluginName String pluginName,
       @Nullable @GerritInstanceId String instanceId,
       BearerTokenProvider bearerTokenProvider,
+      ReplicationQueueMetrics queueMetrics,
       @Assisted Source source) {
     this.credentials = credentials;
     this.httpClientFactory = httpClientFactory;
@@ -110,6 +143,7 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
 
     this.bearerTokenProvider = bearerTokenProvider;
     this.urlAuthenticationPrefix = bearerTokenProvider.get().map(br -> "").orElse("a/");
+    this.queueMetrics = queueMetrics;
   }
 
   @Override
@@ -260,11 +294,40 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
     RevisionInput input = new RevisionInput(instanceId, refName, eventCreatedOn, revisionData);
 
     String url = formatUrl(targetUri.toString(), project, "apply-object");
+    if (!isDelete && source.isAsyncApplyObject()) {
+      return callAsyncSendObject(url, input, targetUri);
+    }
 
     HttpPost post = new HttpPost(url);
     post.setEntity(new StringEntity(GSON.toJson(input)));
     post.addHeader(new BasicHeader(CONTENT_TYPE, MediaType.JSON_UTF_8.toString()));
-    return executeRequest(post, bearerTokenProvider.get(), targetUri);
+    return executeRequest(post, bearerTokenProvider.get(), targetUri, REJECT_WHEN_LIMITED);
+  }
+
+  /**
+   * Send the objects to be applied asynchronously, returning as soon as the target has accepted
+   * them. The target does not hold a request thread for the whole object insertion and ref update,
+   * and the {@link HttpResult#getLocation() location} of the accepted result is the URL for
+   * querying the outcome through {@link #callApplyObjectStatus}.
+   */
+  private HttpResult callAsyncSendObject(String url, Object input, URIish targetUri)
+      throws IOException {
+    HttpPost post = new HttpPost(url + "?" + APPLY_OBJECT_ASYNC_PARAMETER + "=true");
+    post.setEntity(new StringEntity(GSON.toJson(input)));
+    post.addHeader(new BasicHeader(CONTENT_TYPE, MediaType.JSON_UTF_8.toString()));
+    return executeRequest(
+        post,
+        bearerTokenProvider.get(),
+        targetUri,
+        REJECT_WHEN_LIMITED,
+        this::handleAcceptedResponse);
+  }
+
+  @Override
+  public HttpResult callApplyObjectStatus(String statusUrl, URIish targetUri) throws IOException {
+    // The location may be relative to the target
+    URI url = URI.create(targetUri.toString()).resolve(statusUrl);
+    return executeRequest(new HttpGet(url), bearerTokenProvider.get(), targetUri);
   }
 
   @Override
@@ -286,11 +349,71 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
             .collect(Collectors.toList());
 
     String url = formatUrl(targetUri.toString(), project, "batch-apply-object");
+    if (source.isAsyncApplyObject()) {
+      return callAsyncSendObject(url, inputs, targetUri);
+    }
 
     HttpPost post = new HttpPost(url);
     post.setEntity(new StringEntity(GSON.toJson(inputs)));
     post.addHeader(new BasicHeader(CONTENT_TYPE, MediaType.JSON_UTF_8.toString()));
-    return executeRequest(post, bearerTokenProvider.get(), targetUri);
+    return executeRequest(post, bearerTokenProvider.get(), targetUri, REJECT_WHEN_LIMITED);
+  }
+
+  @Override
+  public Map<NameKey, HttpResult> callMultiProjectBatchSendObject(
+      List<ProjectBatchApplyObjectData> projectBatches, URIish targetUri) throws IOException {
+    Map<String, List<RevisionInput>> inputs = new LinkedHashMap<>();
+    for (ProjectBatchApplyObjectData projectBatch : projectBatches) {
+      inputs.put(
+          projectBatch.project().get(),
+          projectBatch.refs().stream()
+              .map(
+                  batchApplyObject ->
+                      new RevisionInput(
+                          instanceId,
+                          batchApplyObject.refName(),
+                          projectBatch.eventCreatedOn(),
+                          batchApplyObject.revisionData().orElse(null)))
+              .collect(Collectors.toList()));
+    }
+
+    String url =
+        String.format(
+            "%s/%splugins/%s/%s",
+            targetUri,
+            urlAuthenticationPrefix,
+            pluginName,
+            MULTI_PROJECT_BATCH_APPLY_OBJECT_API_ENDPOINT);
+
+    HttpPost post = new HttpPost(url);
+    post.setEntity(new StringEntity(GSON.toJson(inputs)));
+    post.addHeader(new BasicHeader(CONTENT_TYPE, MediaType.JSON_UTF_8.toString()));
+
+    Map<NameKey, HttpResult> projectResults = new HashMap<>();
+    HttpResult result =
+        executeRequest(
+            post,
+            bearerTokenProvider.get(),
+            targetUri,
+            REJECT_WHEN_LIMITED,
+            response -> handleMultiProjectBatchResponse(response, projectResults));
+
+    Map<NameKey, HttpResult> results = new LinkedHashMap<>();
+    for (ProjectBatchApplyObjectData projectBatch : projectBatches) {
+      NameKey project = projectBatch.project();
+      if (!result.isSuccessful()) {
+        results.put(project, result);
+      } else {
+        results.put(
+            project,
+            projectResults.getOrDefault(
+                project,
+                new HttpResult(
+                    SC_INTERNAL_SERVER_ERROR,
+                    Optional.of("No result returned for project " + project.get()))));
+      }
+    }
+    return results;
   }
 
   @Override
@@ -319,7 +442,7 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
     HttpPost post = new HttpPost(url);
     post.setEntity(new StringEntity(GSON.toJson(input)));
     post.addHeader(new BasicHeader(CONTENT_TYPE, MediaType.JSON_UTF_8.toString()));
-    return executeRequest(post, bearerTokenProvider.get(), targetUri);
+    return executeRequest(post, bearerTokenProvider.get(), targetUri, REJECT_WHEN_LIMITED);
   }
 
   private String formatUrl(String targetUri, Project.NameKey project, String api) {
@@ -350,33 +473,265 @@ public class FetchRestApiClient implements FetchApiClient, ResponseHandler<HttpR
 
   @Override
   public HttpResult handleResponse(HttpResponse response) {
+    int responseCode = response.getStatusLine().getStatusCode();
+    HttpEntity body = response.getEntity();
+    if (responseCode == SC_TOO_MANY_REQUESTS) {
+      EntityUtils.consumeQuietly(body);
+      return new HttpResult(responseCode, Optional.empty(), parseRetryAfter(response));
+    }
+    if (body == null) {
+      return new HttpResult(responseCode, Optional.empty());
+    }
+
+    try {
+      if (HttpResult.isSuccessful(responseCode)) {
+        // Nobody reads the successful replies: discard them without buffering
+        // so that the connection is returned to the pool straight away.
+        EntityUtils.consume(body);
+        return new HttpResult(responseCode, Optional.empty());
+      }
+      return new HttpResult(responseCode, Optional.of(readMessagePrefix(body)));
+    } catch (ParseException | UnsupportedCharsetException | IOException e) {
+      logger.atSevere().withCause(e).log("Unable get response body from %s", response.toString());
+      return new HttpResult(responseCode, Optional.empty());
+    }
+  }
 
-    Optional<String> responseBody =
-        Optional.ofNullable(response.getEntity())
-            .flatMap(
-                body -> {
-                  try {
-                    return Optional.of(EntityUtils.toString(body));
-                  } catch (ParseException | IOException e) {
-                    logger.atSevere().withCause(e).log(
-                        "Unable get response body from %s", response.toString());
-                    return Optional.empty();
-                  }
-                });
+  private HttpResult handleAcceptedResponse(HttpResponse response) {
+    HttpResult result = handleResponse(response);
+    Header location = response.getFirstHeader(HttpHeaders.LOCATION);
+    if (!result.isAccepted() || location == null) {
+      return result;
+    }
+    return new HttpResult(
+        SC_ACCEPTED, result.getMessage(), Optional.empty(), Optional.of(location.getValue()));
+  }
 
-    return new HttpResult(response.getStatusLine().getStatusCode(), responseBody);
+  /** Parse the Retry-After header expressed in seconds, the only form used by the targets. */
+  private static Optional<Long> parseRetryAfter(HttpResponse response) {
+    Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+    if (retryAfter == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Math.max(0L, Long.parseLong(retryAfter.getValue().trim())));
+    } catch (NumberFormatException e) {
+      logger.atFine().log("Ignoring the Retry-After header '%s'", retryAfter.getValue());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Parse incrementally the per-project results of a successful multi-project batch apply-object
+   * call, without buffering the whole response.
+   */
+  private HttpResult handleMultiProjectBatchResponse(
+      HttpResponse response, Map<NameKey, HttpResult> projectResults) throws IOException {
+    int responseCode = response.getStatusLine().getStatusCode();
+    HttpEntity body = response.getEntity();
+    if (body == null || !HttpResult.isSuccessful(responseCode)) {
+      return handleResponse(response);
+    }
+
+    try (JsonReader json =
+        new JsonReader(new InputStreamReader(body.getContent(), StandardCharsets.UTF_8))) {
+      // Lenient mode skips the XSSI prefix of the Gerrit JSON responses
+      json.setLenient(true);
+      json.beginObject();
+      while (json.hasNext()) {
+        if (!"value".equals(json.nextName())) {
+          json.skipValue();
+          continue;
+        }
+        json.beginObject();
+        while (json.hasNext()) {
+          NameKey project = Project.nameKey(json.nextName());
+          ProjectBatchApplyObjectResult projectResult =
+              GSON.fromJson(json, ProjectBatchApplyObjectResult.class);
+          projectResults.put(
+              project,
+              new HttpResult(
+                  projectResult.getStatusCode(), Optional.ofNullable(projectResult.getMessage())));
+        }
+        json.endObject();
+      }
+      json.endObject();
+    } catch (JsonParseException | IllegalStateException e) {
+      logger.atSevere().withCause(e).log(
+          "Unable to parse the multi-project batch apply object response from %s",
+          response.toString());
+    }
+    return new HttpResult(responseCode, Optional.empty());
+  }
+
+  private static String readMessagePrefix(HttpEntity body) throws IOException {
+    Charset charset =
+        Optional.ofNullable(ContentType.get(body))
+            .map(ContentType::getCharset)
+            .orElse(StandardCharsets.UTF_8);
+    try (Reader reader = new InputStreamReader(body.getContent(), charset)) {
+      char[] buffer = new char[MAX_ERROR_MESSAGE_LENGTH];
+      int length = 0;
+      int read;
+      while (length < buffer.length
+          && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+      }
+      String message = new String(buffer, 0, length);
+      // Closing the reader drains the rest of the body, which keeps the connection reusable
+      return length == buffer.length && reader.read() != -1
+          ? message + TRUNCATED_MESSAGE_SUFFIX
+          : message;
+    }
   }
 
   private HttpResult executeRequest(
       HttpRequestBase httpRequest, Optional<String> bearerToken, URIish targetUri)
       throws IOException {
+    return executeRequest(httpRequest, bearerToken, targetUri, QUEUE_WHEN_LIMITED);
+  }
+
+  private HttpResult executeRequest(
+      HttpRequestBase httpRequest,
+      Optional<String> bearerToken,
+      URIish targetUri,
+      boolean queueWhenLimited)
+      throws IOException {
+    return executeRequest(httpRequest, bearerToken, targetUri, queueWhenLimited, this);
+  }
+
+  private HttpResult executeRequest(
+      HttpRequestBase httpRequest,
+      Optional<String> bearerToken,
+      URIish targetUri,
+      boolean queueWhenLimited,
+      ResponseHandler<HttpResult> responseHandler)
+      throws IOException {
+
+    HttpRequestBase reqWithAuthentication = withAuthentication(httpRequest, bearerToken, targetUri);
 
-    HttpRequestBase reqWithAuthentication =
-        bearerToken.isPresent()
-            ? withBearerTokenAuthentication(httpRequest, bearerToken.get())
-            : withBasicAuthentication(targetUri, httpRequest);
+    Optional<CircuitBreaker> circuitBreaker = source.getCircuitBreaker(targetUri);
+    if (circuitBreaker.isPresent() && !circuitBreaker.get().allowRequest()) {
+      queueMetrics.incrementCircuitBreakerRejected(source);
+      throw new CircuitBreakerOpenException(targetUri);
+    }
+
+    Optional<AdaptiveConcurrencyLimiter> limiter = source.getConcurrencyLimiter(targetUri);
+    if (limiter.isPresent()) {
+      acquirePermit(limiter.get(), targetUri, queueWhenLimited);
+    }
+
+    long startNanos = System.nanoTime();
+    boolean serverUnavailable = true;
+    boolean overloaded = true;
+    HttpResult result;
+    try {
+      result = httpClientFactory.create(source).execute(reqWithAuthentication, responseHandler);
+      serverUnavailable = result.isServerUnavailable();
+      overloaded = serverUnavailable || result.isTooManyRequests();
+    } finally {
+      if (limiter.isPresent()) {
+        limiter.get().release(System.nanoTime() - startNanos, overloaded);
+      }
+      if (circuitBreaker.isPresent()) {
+        if (serverUnavailable) {
+          recordCircuitBreakerFailure(circuitBreaker.get(), targetUri);
+        } else {
+          circuitBreaker.get().recordSuccess();
+        }
+      }
+    }
+
+    // The target is alive but too busy: the request is deferred rather than failed
+    if (result.isTooManyRequests()) {
+      queueMetrics.incrementRequestsDeferred(source);
+      throw new RequestDeferredException(
+          targetUri,
+          result
+              .getRetryAfterSec()
+              .map(SECONDS::toMillis)
+              .orElseGet(source::getApplyObjectRetryDelay));
+    }
+    return result;
+  }
+
+  private void acquirePermit(
+      AdaptiveConcurrencyLimiter limiter, URIish targetUri, boolean queueWhenLimited)
+      throws IOException {
+    boolean acquired;
+    try {
+      acquired =
+          queueWhenLimited ? limiter.acquire(source.getConnectionTimeout()) : limiter.tryAcquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          String.format("Interrupted while waiting for a permit to call %s", targetUri));
+    }
+
+    if (!acquired) {
+      queueMetrics.incrementConcurrencyLimitRejected(source);
+      throw new ConcurrencyLimitExceededException(targetUri, limiter.getLimit());
+    }
+  }
+
+  private void recordCircuitBreakerFailure(CircuitBreaker circuitBreaker, URIish targetUri) {
+    if (circuitBreaker.recordFailure()) {
+      logger.atWarning().log(
+          "Circuit breaker for %s is OPEN after %d consecutive failures, probing again in %d ms",
+          targetUri, circuitBreaker.getConsecutiveFailures(), circuitBreaker.getOpenIntervalMs());
+      queueMetrics.incrementCircuitBreakerTripped(source);
+      source.scheduleCircuitBreakerProbe(
+          () -> probe(circuitBreaker, targetUri), circuitBreaker.getOpenIntervalMs());
+    }
+  }
+
+  /**
+   * Probe a remote apiUrl guarded by an open circuit breaker.
+   *
+   * <p>The probe queries the apply-object status of an unknown ticket of {@code All-Projects},
+   * authenticated like the replication calls, so that it goes through the same authentication and
+   * pull-replication filters. Any HTTP response other than a gateway or availability error means
+   * that the target is reachable again, and closes the breaker.
+   */
+  private void probe(CircuitBreaker circuitBreaker, URIish targetUri) {
+    if (!circuitBreaker.tryHalfOpen()) {
+      return;
+    }
+
+    HttpGet probe =
+        new HttpGet(
+            formatUrl(
+                    targetUri.toString(),
+                    Project.nameKey(AllProjectsNameProvider.DEFAULT),
+                    APPLY_OBJECT_STATUS_API_ENDPOINT)
+                + "?"
+                + APPLY_OBJECT_TICKET_PARAMETER
+                + "="
+                + CIRCUIT_BREAKER_PROBE_TICKET);
+    try {
+      HttpResult result =
+          httpClientFactory
+              .create(source)
+              .execute(withAuthentication(probe, bearerTokenProvider.get(), targetUri), this);
+      if (result.isServerUnavailable()) {
+        recordCircuitBreakerFailure(circuitBreaker, targetUri);
+        return;
+      }
+    } catch (IOException e) {
+      logger.atFine().withCause(e).log("Circuit breaker probe to %s failed", targetUri);
+      recordCircuitBreakerFailure(circuitBreaker, targetUri);
+      return;
+    }
+
+    circuitBreaker.recordSuccess();
+    logger.atInfo().log("Circuit breaker for %s is CLOSED", targetUri);
+  }
 
-    return httpClientFactory.create(source).execute(reqWithAuthentication, this);
+  private HttpRequestBase withAuthentication(
+      HttpRequestBase httpRequest, Optional<String> bearerToken, URIish targetUri) {
+    return bearerToken.isPresent()
+        ? withBearerTokenAuthentication(httpRequest, bearerToken.get())
+        : withBasicAuthentication(targetUri, httpRequest);
   }
 
   private HttpRequestBase withBasicAuthentication(URIish targetUri, HttpRequestBase req) {
@@ -11,7 +11,12 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull.client;
 
+import static com.gerritforge.gerrit.plugins.replication.pull.api.RequestAdmissionControl.SC_TOO_MANY_REQUESTS;
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_GATEWAY;
 import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
+import static javax.servlet.http.HttpServletResponse.SC_GATEWAY_TIMEOUT;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
 import com.google.gerrit.entities.Project;
 import java.util.Optional;
@@ -19,10 +24,26 @@ import java.util.Optional;
 public class HttpResult {
   private final Optional<String> message;
   private final int responseCode;
+  private final Optional<Long> retryAfterSec;
+  private final Optional<String> location;
 
   HttpResult(int responseCode, Optional<String> message) {
+    this(responseCode, message, Optional.empty());
+  }
+
+  HttpResult(int responseCode, Optional<String> message, Optional<Long> retryAfterSec) {
+    this(responseCode, message, retryAfterSec, Optional.empty());
+  }
+
+  HttpResult(
+      int responseCode,
+      Optional<String> message,
+      Optional<Long> retryAfterSec,
+      Optional<String> location) {
     this.message = message;
     this.responseCode = responseCode;
+    this.retryAfterSec = retryAfterSec;
+    this.location = location;
   }
 
   public Optional<String> getMessage() {
@@ -30,6 +51,10 @@ public class HttpResult {
   }
 
   public boolean isSuccessful() {
+    return isSuccessful(responseCode);
+  }
+
+  static boolean isSuccessful(int responseCode) {
     return responseCode / 100 == 2; // Any 2xx response code is a success
   }
 
@@ -42,6 +67,30 @@ public class HttpResult {
     return responseCode == SC_CONFLICT;
   }
 
+  public boolean isAccepted() {
+    return responseCode == SC_ACCEPTED;
+  }
+
+  public boolean isTooManyRequests() {
+    return responseCode == SC_TOO_MANY_REQUESTS;
+  }
+
+  /** Seconds to wait before sending the request again, as requested by the target. */
+  public Optional<Long> getRetryAfterSec() {
+    return retryAfterSec;
+  }
+
+  /** URL for querying the outcome of a request accepted for asynchronous processing. */
+  public Optional<String> getLocation() {
+    return location;
+  }
+
+  public boolean isServerUnavailable() {
+    return responseCode == SC_BAD_GATEWAY
+        || responseCode == SC_SERVICE_UNAVAILABLE
+        || responseCode == SC_GATEWAY_TIMEOUT;
+  }
+
   @Override
   public String toString() {
     return isSuccessful()
@@ -13,7 +13,12 @@
 package com.gerritforge.gerrit.plugins.replication.pull.client;
 
 import com.google.gerrit.entities.Project;
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.util.Optional;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
 
 public class HttpResultUtils {
 
@@ -37,4 +42,15 @@ public class HttpResultUtils {
   public static String errorMsg(Optional<HttpResult> maybeResult) {
     return maybeResult.flatMap(HttpResult::getMessage).orElse("unknown");
   }
+
+  /**
+   * Check whether a REST-API call failure is transient, such as a connection refused or reset by
+   * the target, and therefore worth retrying.
+   */
+  public static boolean isTransientFailure(IOException e) {
+    return e instanceof SocketException
+        || e instanceof SocketTimeoutException
+        || e instanceof ConnectTimeoutException
+        || e instanceof NoHttpResponseException;
+  }
 }
@@ -0,0 +1,30 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.client;
+
+import java.io.IOException;
+import org.eclipse.jgit.transport.URIish;
+
+public class RequestDeferredException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  private final long retryAfterMs;
+
+  public RequestDeferredException(URIish apiUri, long retryAfterMs) {
+    super(String.format("Too many requests to %s, retry after %d ms", apiUri, retryAfterMs));
+    this.retryAfterMs = retryAfterMs;
+  }
+
+  public long getRetryAfterMs() {
+    return retryAfterMs;
+  }
+}
@@ -15,6 +15,7 @@ import static com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectCacheMo
 import static com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.BatchInput.fromInput;
 import static java.util.Objects.requireNonNull;
 
+import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectsCacheKey;
 import com.gerritforge.gerrit.plugins.replication.pull.FetchOne;
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
@@ -73,6 +74,7 @@ public class StreamEventListener implements EventListener {
   private final Cache<ApplyObjectsCacheKey, Long> refUpdatesSucceededCache;
   private final ProjectDeletionAction projectDeletionAction;
   private final ProjectsCollection projectsCollection;
+  private final ApplyObjectMetrics applyObjectMetrics;
 
   @Inject
   public StreamEventListener(
@@ -86,7 +88,8 @@ public class StreamEventListener implements EventListener {
       ExcludedRefsFilter excludedRefsFilter,
       @Named(APPLY_OBJECTS_CACHE) Cache<ApplyObjectsCacheKey, Long> refUpdatesSucceededCache,
       ProjectDeletionAction projectDeletionAction,
-      ProjectsCollection projectsCollection) {
+      ProjectsCollection projectsCollection,
+      ApplyObjectMetrics applyObjectMetrics) {
     this.instanceId = instanceId;
     this.updateHeadCommand = updateHeadCommand;
     this.projectInitializationAction = projectInitializationAction;
@@ -98,6 +101,7 @@ public class StreamEventListener implements EventListener {
     this.refUpdatesSucceededCache = refUpdatesSucceededCache;
     this.projectDeletionAction = projectDeletionAction;
     this.projectsCollection = projectsCollection;
+    this.applyObjectMetrics = applyObjectMetrics;
 
     requireNonNull(
         Strings.emptyToNull(this.instanceId), "gerrit.instanceId cannot be null or empty");
@@ -286,7 +290,15 @@ public class StreamEventListener implements EventListener {
             ApplyObjectsCacheKey.create(
                 refUpdateAttribute.newRev, refUpdateAttribute.refName, refUpdateAttribute.project));
 
-    return refUpdateSuccededTimestamp != null
-        && refUpdateEvent.eventCreatedOn <= refUpdateSuccededTimestamp;
+    if (refUpdateSuccededTimestamp == null) {
+      applyObjectMetrics.incrementApplyObjectsCacheMisses();
+      return false;
+    }
+    if (refUpdateEvent.eventCreatedOn > refUpdateSuccededTimestamp) {
+      applyObjectMetrics.incrementApplyObjectsCacheOutdated();
+      return false;
+    }
+    applyObjectMetrics.incrementApplyObjectsCacheHits();
+    return true;
   }
 }
@@ -11,6 +11,7 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull.fetch;
 
+import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.LocalGitRepositoryManagerProvider;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionObjectData;
@@ -21,26 +22,58 @@ import com.google.gerrit.extensions.restapi.IdString;
 import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
 import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectDatabase;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
 import org.eclipse.jgit.transport.RefSpec;
 
 public class ApplyObject {
+  static final int DEFAULT_PACK_INSERTER_THRESHOLD = 0;
 
   private final GitRepositoryManager gitManager;
+  private final int packInserterThreshold;
+  private final ApplyObjectMetrics metrics;
 
   // NOTE: We do need specifically the local GitRepositoryManager to make sure
   // to be able to write onto the directly physical repository without any wrapper.
   // Using for instance the multi-site wrapper injected by Guice would result
   // in a split-brain because of the misalignment of local vs. global refs values.
   @Inject
-  public ApplyObject(LocalGitRepositoryManagerProvider gitManagerProvider) {
+  public ApplyObject(
+      LocalGitRepositoryManagerProvider gitManagerProvider,
+      ReplicationConfig replicationConfig,
+      ApplyObjectMetrics metrics) {
     this.gitManager = gitManagerProvider.get();
+    this.metrics = metrics;
+    this.packInserterThreshold =
+        Math.max(
+            0,
+            replicationConfig
+                .getConfig()
+                .getInt(
+                    "replication", "applyObjectPackThreshold", DEFAULT_PACK_INSERTER_THRESHOLD));
   }
 
   public RefUpdateState apply(Project.NameKey name, RefSpec refSpec, RevisionData[] revisionsData)
@@ -49,59 +82,399 @@ public class ApplyObject {
           ResourceNotFoundException,
           MissingLatestPatchSetException {
     try (Repository git = gitManager.openRepository(name)) {
+      ObjectId refHead = insertObjects(git, name, refSpec.getSource(), revisionsData);
 
-      ObjectId refHead = null;
       RefUpdate ru = git.updateRef(refSpec.getSource());
-      try (ObjectInserter oi = git.newObjectInserter()) {
-        for (RevisionData revisionData : revisionsData) {
+      if (!hasOnlyCommits(revisionsData)) {
+        // Non-commits must be forced as they do not have a graph associated
+        ru.setForceUpdate(true);
+      }
+      ru.setNewObjectId(refHead);
+      RefUpdate.Result result = ru.update();
+      return new RefUpdateState(refSpec.getSource(), result);
+    } catch (RepositoryNotFoundException e) {
+      throw new ResourceNotFoundException(IdString.fromDecoded(name.get()), e);
+    }
+  }
 
-          ObjectId newObjectID = null;
-          RevisionObjectData commitObject = revisionData.getCommitObject();
+  /**
+   * Insert the objects of a ref without updating it, so that the ref can be updated later on
+   * together with others through {@link #updateRefs(Project.NameKey, Map, Set)}.
+   *
+   * @return the object id the ref should be updated to.
+   */
+  public ObjectId insertObjects(Project.NameKey name, String refName, RevisionData[] revisionsData)
+      throws MissingParentObjectException,
+          IOException,
+          ResourceNotFoundException,
+          MissingLatestPatchSetException {
+    try (Repository git = gitManager.openRepository(name)) {
+      return insertObjects(git, name, refName, revisionsData);
+    } catch (RepositoryNotFoundException e) {
+      throw new ResourceNotFoundException(IdString.fromDecoded(name.get()), e);
+    }
+  }
 
-          if (commitObject != null) {
-            RevCommit commit = RevCommit.parse(commitObject.getContent());
-            for (RevCommit parent : commit.getParents()) {
-              if (!git.getObjectDatabase().has(parent.getId())) {
-                throw new MissingParentObjectException(name, refSpec.getSource(), parent.getId());
-              }
-            }
+  private ObjectId insertObjects(
+      Repository git, Project.NameKey name, String refName, RevisionData[] revisionsData)
+      throws MissingParentObjectException, IOException, MissingLatestPatchSetException {
+    ObjectId refHead = null;
+    try (ObjectInserter oi = newObjectInserter(git, Arrays.asList(revisionsData))) {
+      ExistingObjects existingObjects = new ExistingObjects(git, oi, Arrays.asList(revisionsData));
+      for (RevisionData revisionData : revisionsData) {
 
-            StringBuffer error = new StringBuffer();
-            if (!ChangeMetaCommitValidator.isValid(
-                git, refSpec.getSource(), commit, error::append)) {
-              throw new MissingLatestPatchSetException(name, refSpec.getSource(), error.toString());
+        ObjectId newObjectID = null;
+        RevisionObjectData commitObject = revisionData.getCommitObject();
+
+        if (commitObject != null) {
+          RevCommit commit = existingObjects.commit(commitObject);
+          for (RevCommit parent : commit.getParents()) {
+            // The objects are flushed only once at the end, hence the parents inserted by the
+            // previous revisions are known to the lookup only and not to the object database yet
+            if (!existingObjects.has(parent.getId())) {
+              throw new MissingParentObjectException(name, refName, parent.getId());
             }
           }
 
-          for (RevisionObjectData rev : revisionData.getBlobs()) {
-            ObjectId blobObjectId = oi.insert(rev.getType(), rev.getContent());
-            if (newObjectID == null) {
-              newObjectID = blobObjectId;
-            }
-            refHead = newObjectID;
+          StringBuffer error = new StringBuffer();
+          if (!ChangeMetaCommitValidator.isValid(git, refName, commit, error::append)) {
+            throw new MissingLatestPatchSetException(name, refName, error.toString());
           }
+        }
 
-          if (commitObject != null) {
-            RevisionObjectData treeObject = revisionData.getTreeObject();
-            oi.insert(treeObject.getType(), treeObject.getContent());
+        for (RevisionObjectData rev : revisionData.getBlobs()) {
+          ObjectId blobObjectId = existingObjects.insert(oi, rev);
+          if (newObjectID == null) {
+            newObjectID = blobObjectId;
+          }
+          refHead = newObjectID;
+        }
+
+        if (commitObject != null) {
+          existingObjects.insert(oi, revisionData.getTreeObject());
+          refHead = existingObjects.insert(oi, commitObject);
+        }
+      }
+      oi.flush();
+      existingObjects.updateMetrics(metrics);
+    }
+    return refHead;
+  }
 
-            refHead = oi.insert(commitObject.getType(), commitObject.getContent());
+  /**
+   * Update many refs of a project, whose objects have been already inserted, through one {@link
+   * BatchRefUpdate}. The refs are updated atomically when the ref database supports it, and the
+   * updates aborted because of the failure of any other are then retried independently.
+   *
+   * @param name the project name.
+   * @param refHeads the object ids the refs should be updated to, keyed by ref name.
+   * @param commitRefs the refs pointing to commits, which cannot be updated non-fast-forward.
+   * @return the result of the update of every ref, in the same order of the input.
+   */
+  public Map<String, RefUpdateState> updateRefs(
+      Project.NameKey name, Map<String, ObjectId> refHeads, Set<String> commitRefs)
+      throws IOException, ResourceNotFoundException {
+    try (Repository git = gitManager.openRepository(name)) {
+      boolean atomic = git.getRefDatabase().performsAtomicTransactions();
+      Map<String, ReceiveCommand> commands = updateRefs(git, refHeads, commitRefs, atomic);
+      if (atomic) {
+        Map<String, ObjectId> abortedRefHeads = new LinkedHashMap<>();
+        for (Map.Entry<String, ReceiveCommand> command : commands.entrySet()) {
+          if (isTransactionAborted(command.getValue())) {
+            abortedRefHeads.put(command.getKey(), refHeads.get(command.getKey()));
           }
+        }
+        if (!abortedRefHeads.isEmpty()) {
+          commands.putAll(updateRefs(git, abortedRefHeads, commitRefs, false));
+        }
+      }
+      return toRefUpdateStates(commands);
+    } catch (RepositoryNotFoundException e) {
+      throw new ResourceNotFoundException(IdString.fromDecoded(name.get()), e);
+    }
+  }
 
-          oi.flush();
+  static boolean hasOnlyCommits(RevisionData[] revisionsData) {
+    for (RevisionData revisionData : revisionsData) {
+      if (revisionData.getCommitObject() == null) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-          if (commitObject == null) {
-            // Non-commits must be forced as they do not have a graph associated
-            ru.setForceUpdate(true);
+  /**
+   * Apply the objects of many refs of a project in a single transaction: the repository is opened
+   * once, the objects of all refs are inserted through one inserter with a single flush and the
+   * refs are updated through one {@link BatchRefUpdate}, atomically when the ref database supports
+   * it.
+   *
+   * @param name the project name.
+   * @param revisionsData the revision data to apply, keyed by ref name.
+   * @return the result of the update of every ref, in the same order of the input.
+   */
+  public Map<String, RefUpdateState> applyBatch(
+      Project.NameKey name, Map<String, RevisionData> revisionsData)
+      throws MissingParentObjectException,
+          IOException,
+          ResourceNotFoundException,
+          MissingLatestPatchSetException {
+    try (Repository git = gitManager.openRepository(name)) {
+      Map<String, ObjectId> refHeads = new LinkedHashMap<>();
+      Map<String, RevCommit> refCommits = new HashMap<>();
+      ExistingObjects existingObjects;
+      try (ObjectInserter oi = newObjectInserter(git, revisionsData.values())) {
+        existingObjects = new ExistingObjects(git, oi, revisionsData.values());
+        for (Map.Entry<String, RevisionData> refRevisionData : revisionsData.entrySet()) {
+          String refName = refRevisionData.getKey();
+          RevisionData revisionData = refRevisionData.getValue();
+
+          ObjectId refHead =
+              revisionData.getBlobs().isEmpty()
+                  ? null
+                  : existingObjects.idOf(revisionData.getBlobs().get(0));
+          RevisionObjectData commitObject = revisionData.getCommitObject();
+          if (commitObject != null) {
+            refHead = existingObjects.idOf(commitObject);
+            refCommits.put(refName, existingObjects.commit(commitObject));
+          }
+          refHeads.put(refName, refHead);
+        }
+
+        // The whole batch is validated before inserting any object, so that a rejected batch does
+        // not leave unreachable objects behind. The parents, or the latest patch-set of a change,
+        // can be amongst the objects of the other refs of the batch.
+        for (Map.Entry<String, RevCommit> refCommit : refCommits.entrySet()) {
+          String refName = refCommit.getKey();
+          RevCommit commit = refCommit.getValue();
+          for (RevCommit parent : commit.getParents()) {
+            if (!existingObjects.hasOrReceived(parent.getId())) {
+              throw new MissingParentObjectException(name, refName, parent.getId());
+            }
+          }
+
+          StringBuffer error = new StringBuffer();
+          if (!ChangeMetaCommitValidator.isValid(git, refName, commit, refHeads, error::append)) {
+            throw new MissingLatestPatchSetException(name, refName, error.toString());
           }
         }
 
-        ru.setNewObjectId(refHead);
-        RefUpdate.Result result = ru.update();
-        return new RefUpdateState(refSpec.getSource(), result);
+        for (RevisionData revisionData : revisionsData.values()) {
+          for (RevisionObjectData rev : revisionData.getBlobs()) {
+            existingObjects.insert(oi, rev);
+          }
+          if (revisionData.getCommitObject() != null) {
+            existingObjects.insert(oi, revisionData.getTreeObject());
+            existingObjects.insert(oi, revisionData.getCommitObject());
+          }
+        }
+        oi.flush();
+        existingObjects.updateMetrics(metrics);
       }
+
+      return toRefUpdateStates(
+          updateRefs(
+              git,
+              refHeads,
+              refCommits.keySet(),
+              git.getRefDatabase().performsAtomicTransactions()));
     } catch (RepositoryNotFoundException e) {
       throw new ResourceNotFoundException(IdString.fromDecoded(name.get()), e);
     }
   }
+
+  /**
+   * Create the inserter of the objects of an apply call: when their number reaches the
+   * replication.applyObjectPackThreshold, they are all written into a single pack instead of one
+   * loose object file each.
+   */
+  private ObjectInserter newObjectInserter(Repository git, Collection<RevisionData> revisionsData) {
+    ObjectDatabase objectDatabase = git.getObjectDatabase();
+    if (packInserterThreshold > 0
+        && objectDatabase instanceof ObjectDirectory
+        && countObjects(revisionsData) >= packInserterThreshold) {
+      return ((ObjectDirectory) objectDatabase).newPackInserter();
+    }
+    return git.newObjectInserter();
+  }
+
+  private static int countObjects(Collection<RevisionData> revisionsData) {
+    int count = 0;
+    for (RevisionData revisionData : revisionsData) {
+      if (revisionData.getCommitObject() != null) {
+        count += 2; // The commit and its tree
+      }
+      count += revisionData.getBlobs().size();
+    }
+    return count;
+  }
+
+  /**
+   * Lookup of the objects of an apply call already present in the repository, so that they are not
+   * deflated and written again. The objects, and the parents of the commits, are all checked
+   * upfront through a single {@link ObjectReader}, and the objects inserted during the call are
+   * then added to the lookup.
+   */
+  private static class ExistingObjects {
+    private final Map<RevisionObjectData, ObjectId> ids = new IdentityHashMap<>();
+    private final Map<RevisionObjectData, RevCommit> commits = new IdentityHashMap<>();
+    private final Set<ObjectId> existing = new HashSet<>();
+    private final Set<ObjectId> received = new HashSet<>();
+    private long skippedObjects;
+    private long skippedBytes;
+
+    ExistingObjects(Repository git, ObjectInserter oi, Collection<RevisionData> revisionsData)
+        throws IOException {
+      Set<ObjectId> lookup = new HashSet<>();
+      for (RevisionData revisionData : revisionsData) {
+        RevisionObjectData commitObject = revisionData.getCommitObject();
+        if (commitObject != null) {
+          RevCommit commit = RevCommit.parse(commitObject.getContent());
+          commits.put(commitObject, commit);
+          for (RevCommit parent : commit.getParents()) {
+            lookup.add(parent.getId());
+          }
+          received.add(idFor(oi, commitObject));
+          received.add(idFor(oi, revisionData.getTreeObject()));
+        }
+        for (RevisionObjectData blob : revisionData.getBlobs()) {
+          received.add(idFor(oi, blob));
+        }
+      }
+      lookup.addAll(received);
+
+      try (ObjectReader reader = git.newObjectReader()) {
+        for (ObjectId id : lookup) {
+          if (reader.has(id)) {
+            existing.add(id);
+          }
+        }
+      }
+    }
+
+    RevCommit commit(RevisionObjectData commitObject) {
+      return commits.get(commitObject);
+    }
+
+    boolean has(ObjectId id) {
+      return existing.contains(id);
+    }
+
+    /** Whether an object is in the repository or amongst the objects received, still to insert. */
+    boolean hasOrReceived(ObjectId id) {
+      return existing.contains(id) || received.contains(id);
+    }
+
+    ObjectId idOf(RevisionObjectData object) {
+      return ids.get(object);
+    }
+
+    ObjectId insert(ObjectInserter oi, RevisionObjectData object) throws IOException {
+      ObjectId id = ids.get(object);
+      if (existing.contains(id)) {
+        skippedObjects++;
+        skippedBytes += object.getContent().length;
+        return id;
+      }
+      oi.insert(object.getType(), object.getContent());
+      existing.add(id);
+      return id;
+    }
+
+    void updateMetrics(ApplyObjectMetrics metrics) {
+      if (skippedObjects > 0) {
+        metrics.incrementSkippedObjects(skippedObjects, skippedBytes);
+      }
+    }
+
+    private ObjectId idFor(ObjectInserter oi, RevisionObjectData object) {
+      return ids.computeIfAbsent(object, o -> oi.idFor(o.getType(), o.getContent()));
+    }
+  }
+
+  private static Map<String, ReceiveCommand> updateRefs(
+      Repository git, Map<String, ObjectId> refHeads, Set<String> commitRefs, boolean atomic)
+      throws IOException {
+    BatchRefUpdate bru = git.getRefDatabase().newBatchUpdate();
+    bru.setAtomic(atomic);
+    // Non-commits must be forced as they do not have a graph associated, whilst the
+    // non-fast-forward updates of commits are rejected upfront.
+    bru.setAllowNonFastForwards(true);
+
+    Map<String, ReceiveCommand> commands = new LinkedHashMap<>();
+    boolean rejected = false;
+    try (RevWalk rw = new RevWalk(git)) {
+      for (Map.Entry<String, ObjectId> refHead : refHeads.entrySet()) {
+        String refName = refHead.getKey();
+        Ref ref = git.exactRef(refName);
+        ReceiveCommand cmd =
+            new ReceiveCommand(
+                ref != null ? ref.getObjectId() : ObjectId.zeroId(), refHead.getValue(), refName);
+        if (!cmd.getOldId().equals(cmd.getNewId())) {
+          cmd.updateType(rw);
+          if (cmd.getType() == ReceiveCommand.Type.UPDATE_NONFASTFORWARD
+              && commitRefs.contains(refName)) {
+            cmd.setResult(ReceiveCommand.Result.REJECTED_NONFASTFORWARD);
+            rejected = true;
+          } else {
+            bru.addCommand(cmd);
+          }
+        }
+        commands.put(refName, cmd);
+      }
+
+      if (rejected && bru.isAtomic()) {
+        ReceiveCommand.abort(bru.getCommands());
+      } else if (!bru.getCommands().isEmpty()) {
+        bru.execute(rw, NullProgressMonitor.INSTANCE);
+      }
+    }
+
+    return commands;
+  }
+
+  private static Map<String, RefUpdateState> toRefUpdateStates(
+      Map<String, ReceiveCommand> commands) {
+    Map<String, RefUpdateState> results = new LinkedHashMap<>();
+    for (Map.Entry<String, ReceiveCommand> command : commands.entrySet()) {
+      String refName = command.getKey();
+      results.put(refName, new RefUpdateState(refName, toRefUpdateResult(command.getValue())));
+    }
+    return results;
+  }
+
+  private static boolean isTransactionAborted(ReceiveCommand cmd) {
+    return cmd.getResult() == ReceiveCommand.Result.REJECTED_OTHER_REASON
+        && JGitText.get().transactionAborted.equals(cmd.getMessage());
+  }
+
+  private static RefUpdate.Result toRefUpdateResult(ReceiveCommand cmd) {
+    if (cmd.getOldId().equals(cmd.getNewId())) {
+      return RefUpdate.Result.NO_CHANGE;
+    }
+
+    switch (cmd.getResult()) {
+      case OK:
+        switch (cmd.getType()) {
+          case CREATE:
+            return RefUpdate.Result.NEW;
+          case UPDATE:
+            return RefUpdate.Result.FAST_FORWARD;
+          default:
+            return RefUpdate.Result.FORCED;
+        }
+      case NOT_ATTEMPTED:
+        return RefUpdate.Result.NOT_ATTEMPTED;
+      case LOCK_FAILURE:
+        return RefUpdate.Result.LOCK_FAILURE;
+      case REJECTED_NONFASTFORWARD:
+        return RefUpdate.Result.REJECTED;
+      case REJECTED_MISSING_OBJECT:
+        return RefUpdate.Result.REJECTED_MISSING_OBJECT;
+      case REJECTED_CURRENT_BRANCH:
+        return RefUpdate.Result.REJECTED_CURRENT_BRANCH;
+      default:
+        return RefUpdate.Result.REJECTED_OTHER_REASON;
+    }
+  }
 }
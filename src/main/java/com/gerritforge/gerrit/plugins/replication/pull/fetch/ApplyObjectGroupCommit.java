@@ -0,0 +1,219 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.fetch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingLatestPatchSetException;
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.RefSpec;
+
+/**
+ * Group commit of the ref updates of concurrent apply-object calls to the same project.
+ *
+ * <p>The objects of every call are inserted independently, whilst the ref updates arriving within
+ * the {@code replication.applyObjectGroupCommitWindow} are committed together through one {@link
+ * BatchRefUpdate}, so that they do not contend on the ref database locks. The first call of a group
+ * commits it on behalf of all the others, which wait for the result of their own ref update.
+ */
+@Singleton
+public class ApplyObjectGroupCommit {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  static final long DEFAULT_GROUP_COMMIT_WINDOW_MS = 0L;
+
+  private final ApplyObject applyObject;
+  private final long windowMs;
+  private final Map<Project.NameKey, ProjectRefUpdates> projectsRefUpdates = new HashMap<>();
+
+  @Inject
+  ApplyObjectGroupCommit(ApplyObject applyObject, ReplicationConfig replicationConfig) {
+    this(
+        applyObject,
+        replicationConfig
+            .getConfig()
+            .getTimeUnit(
+                "replication",
+                null,
+                "applyObjectGroupCommitWindow",
+                DEFAULT_GROUP_COMMIT_WINDOW_MS,
+                MILLISECONDS));
+  }
+
+  @VisibleForTesting
+  ApplyObjectGroupCommit(ApplyObject applyObject, long windowMs) {
+    this.applyObject = applyObject;
+    this.windowMs = windowMs;
+  }
+
+  public boolean isEnabled() {
+    return windowMs > 0;
+  }
+
+  public RefUpdateState apply(Project.NameKey name, RefSpec refSpec, RevisionData[] revisionsData)
+      throws MissingParentObjectException,
+          IOException,
+          ResourceNotFoundException,
+          MissingLatestPatchSetException {
+    String refName = refSpec.getSource();
+    PendingRefUpdate refUpdate =
+        new PendingRefUpdate(
+            refName,
+            applyObject.insertObjects(name, refName, revisionsData),
+            ApplyObject.hasOnlyCommits(revisionsData));
+
+    ProjectRefUpdates projectRefUpdates;
+    synchronized (projectsRefUpdates) {
+      projectRefUpdates = projectsRefUpdates.computeIfAbsent(name, k -> new ProjectRefUpdates());
+      projectRefUpdates.pending.add(refUpdate);
+    }
+    return awaitCommit(name, projectRefUpdates, refUpdate);
+  }
+
+  private RefUpdateState awaitCommit(
+      Project.NameKey name, ProjectRefUpdates projectRefUpdates, PendingRefUpdate refUpdate)
+      throws IOException, ResourceNotFoundException {
+    try {
+      while (!refUpdate.result.isDone()) {
+        if (tryLead(projectRefUpdates)) {
+          try {
+            MILLISECONDS.sleep(windowMs);
+            while (!refUpdate.result.isDone()) {
+              commitNextGroup(name, projectRefUpdates);
+            }
+          } finally {
+            releaseLead(name, projectRefUpdates);
+          }
+        } else {
+          try {
+            refUpdate.result.get(windowMs, MILLISECONDS);
+          } catch (TimeoutException e) {
+            // The leader may have left after committing its own ref update: take over
+          }
+        }
+      }
+      return refUpdate.result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          String.format(
+              "Interrupted whilst waiting for the group commit of %s:%s", name, refUpdate.refName));
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfInstanceOf(e.getCause(), ResourceNotFoundException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private boolean tryLead(ProjectRefUpdates projectRefUpdates) {
+    synchronized (projectsRefUpdates) {
+      if (projectRefUpdates.leading) {
+        return false;
+      }
+      projectRefUpdates.leading = true;
+      return true;
+    }
+  }
+
+  private void releaseLead(Project.NameKey name, ProjectRefUpdates projectRefUpdates) {
+    synchronized (projectsRefUpdates) {
+      projectRefUpdates.leading = false;
+      if (projectRefUpdates.pending.isEmpty()) {
+        projectsRefUpdates.remove(name, projectRefUpdates);
+      }
+    }
+  }
+
+  /**
+   * Commit the pending ref updates of a project, leaving for the next group the further updates of
+   * a ref already in the current one.
+   */
+  private void commitNextGroup(Project.NameKey name, ProjectRefUpdates projectRefUpdates) {
+    List<PendingRefUpdate> group = new ArrayList<>();
+    synchronized (projectsRefUpdates) {
+      Set<String> refNames = new HashSet<>();
+      Iterator<PendingRefUpdate> pending = projectRefUpdates.pending.iterator();
+      while (pending.hasNext()) {
+        PendingRefUpdate refUpdate = pending.next();
+        if (refNames.add(refUpdate.refName)) {
+          group.add(refUpdate);
+          pending.remove();
+        }
+      }
+    }
+
+    Map<String, ObjectId> refHeads = new LinkedHashMap<>();
+    Set<String> commitRefs = new HashSet<>();
+    for (PendingRefUpdate refUpdate : group) {
+      refHeads.put(refUpdate.refName, refUpdate.refHead);
+      if (refUpdate.isCommit) {
+        commitRefs.add(refUpdate.refName);
+      }
+    }
+
+    logger.atFine().log("Group commit of %d ref updates of project %s", group.size(), name);
+    try {
+      Map<String, RefUpdateState> results = applyObject.updateRefs(name, refHeads, commitRefs);
+      for (PendingRefUpdate refUpdate : group) {
+        refUpdate.result.complete(results.get(refUpdate.refName));
+      }
+    } catch (IOException | ResourceNotFoundException | RuntimeException e) {
+      for (PendingRefUpdate refUpdate : group) {
+        refUpdate.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static class ProjectRefUpdates {
+    private final Queue<PendingRefUpdate> pending = new ArrayDeque<>();
+    private boolean leading;
+  }
+
+  private static class PendingRefUpdate {
+    private final String refName;
+    private final ObjectId refHead;
+    private final boolean isCommit;
+    private final CompletableFuture<RefUpdateState> result = new CompletableFuture<>();
+
+    PendingRefUpdate(String refName, ObjectId refHead, boolean isCommit) {
+      this.refName = refName;
+      this.refHead = refHead;
+      this.isCommit = isCommit;
+    }
+  }
+}
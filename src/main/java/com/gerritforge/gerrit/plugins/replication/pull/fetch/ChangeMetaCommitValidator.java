@@ -15,6 +15,7 @@ import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.entities.RefNames;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.function.Consumer;
@@ -31,6 +32,20 @@ class ChangeMetaCommitValidator {
   public static boolean isValid(
       Repository repo, String refName, RevCommit commit, Consumer<String> errorCallback)
       throws IOException {
+    return isValid(repo, refName, commit, Map.of(), errorCallback);
+  }
+
+  /**
+   * Validate a change meta commit, resolving its latest patch-set ref also amongst the refs that
+   * are going to be updated in the same transaction, whose objects may not be inserted yet.
+   */
+  public static boolean isValid(
+      Repository repo,
+      String refName,
+      RevCommit commit,
+      Map<String, ObjectId> pendingRefs,
+      Consumer<String> errorCallback)
+      throws IOException {
     if (!refName.startsWith(RefNames.REFS_CHANGES) || !refName.endsWith(RefNames.META_SUFFIX)) {
       return true;
     }
@@ -43,6 +58,15 @@ class ChangeMetaCommitValidator {
     }
 
     String patchSetRef = refName.replace(RefNames.META_SUFFIX, "/" + latestPatchSet.getAsInt());
+    ObjectId pendingPatchSetObjectId = pendingRefs.get(patchSetRef);
+    if (pendingPatchSetObjectId != null) {
+      logger.atFine().log(
+          "Change on repository %s ref %s has latest patch-set %d resolved to %s in the same"
+              + " transaction",
+          repo, refName, latestPatchSet.getAsInt(), pendingPatchSetObjectId.getName());
+      return true;
+    }
+
     Optional<ObjectId> patchSetObjectId =
         Optional.ofNullable(repo.exactRef(patchSetRef)).map(Ref::getObjectId);
 
@@ -0,0 +1,176 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.filter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.eclipse.jgit.transport.RefSpec;
+
+/**
+ * Matcher of the ref names against a set of patterns, compiled once when the configuration is
+ * loaded.
+ *
+ * <p>The exact names are looked up in a hash set and the regular expressions are combined into a
+ * single alternation, compiled once. The wildcard prefixes are kept in a sorted set without the
+ * prefixes already covered by a shorter one: the only prefix that can match a ref name is then the
+ * greatest one not after it, found in logarithmic time whatever the number of patterns.
+ */
+public class RefNameMatcher {
+  private final ImmutableSet<String> exactNames;
+  private final ImmutableSortedSet<String> prefixes;
+  private final boolean prefixMatchesItself;
+  private final Optional<Pattern> regex;
+  private final ImmutableList<RefSpec> otherRefSpecs;
+
+  /**
+   * Compile the patterns of the ref filters: the regular expressions starting with {@code ^}, the
+   * wildcards ending with {@code *}, and the exact ref names.
+   */
+  public static RefNameMatcher fromPatterns(Collection<String> patterns) {
+    Set<String> exactNames = new HashSet<>();
+    List<String> prefixes = new ArrayList<>();
+    List<Pattern> regexes = new ArrayList<>();
+    for (String pattern : patterns) {
+      switch (RefsFilter.PatternType.getPatternType(pattern)) {
+        case REGEX:
+          regexes.add(Pattern.compile(pattern));
+          break;
+        case WILDCARD:
+          prefixes.add(pattern.substring(0, pattern.length() - 1));
+          break;
+        case EXACT_MATCH:
+          exactNames.add(pattern);
+      }
+    }
+    return new RefNameMatcher(exactNames, prefixes, true, regexes, List.of());
+  }
+
+  /**
+   * Compile the sources of the fetch refspecs, matching the ref names like {@link
+   * RefSpec#matchSource(String)}.
+   */
+  public static RefNameMatcher fromRefSpecs(Collection<? extends RefSpec> refSpecs) {
+    Set<String> exactNames = new HashSet<>();
+    List<String> prefixes = new ArrayList<>();
+    List<RefSpec> otherRefSpecs = new ArrayList<>();
+    for (RefSpec refSpec : refSpecs) {
+      String source = refSpec.getSource();
+      if (source == null) {
+        continue;
+      }
+      if (!RefSpec.isWildcard(source)) {
+        exactNames.add(source);
+      } else if (source.indexOf('*') == source.length() - 1) {
+        prefixes.add(source.substring(0, source.length() - 1));
+      } else {
+        otherRefSpecs.add(refSpec);
+      }
+    }
+    return new RefNameMatcher(exactNames, prefixes, false, List.of(), otherRefSpecs);
+  }
+
+  private RefNameMatcher(
+      Set<String> exactNames,
+      List<String> prefixes,
+      boolean prefixMatchesItself,
+      List<Pattern> regexes,
+      List<RefSpec> otherRefSpecs) {
+    this.exactNames = ImmutableSet.copyOf(exactNames);
+    this.prefixes = withoutCoveredPrefixes(prefixes);
+    this.prefixMatchesItself = prefixMatchesItself;
+    this.regex = combine(regexes);
+    this.otherRefSpecs = ImmutableList.copyOf(otherRefSpecs);
+  }
+
+  public boolean matches(String refName) {
+    if (exactNames.contains(refName)) {
+      return true;
+    }
+
+    String prefix = prefixes.floor(refName);
+    if (prefix != null
+        && refName.startsWith(prefix)
+        && (prefixMatchesItself || refName.length() > prefix.length())) {
+      return true;
+    }
+
+    if (regex.isPresent() && regex.get().matcher(refName).matches()) {
+      return true;
+    }
+    for (RefSpec refSpec : otherRefSpecs) {
+      if (refSpec.matchSource(refName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether some ref names starting with a prefix may match, conservatively assuming that they do
+   * when there is any regular expression or refspec with a wildcard in the middle.
+   */
+  public boolean mayMatchRefsStartingWith(String prefix) {
+    if (regex.isPresent() || !otherRefSpecs.isEmpty()) {
+      return true;
+    }
+    if (exactNames.stream().anyMatch(name -> name.startsWith(prefix))) {
+      return true;
+    }
+    String shorterPrefix = prefixes.floor(prefix);
+    if (shorterPrefix != null && prefix.startsWith(shorterPrefix)) {
+      return true;
+    }
+    String longerPrefix = prefixes.ceiling(prefix);
+    return longerPrefix != null && longerPrefix.startsWith(prefix);
+  }
+
+  /**
+   * Combine the regular expressions into a single one, wrapping each of them in a non-capturing
+   * group so that their anchors and inline flags keep applying to them only.
+   */
+  private static Optional<Pattern> combine(List<Pattern> regexes) {
+    if (regexes.isEmpty()) {
+      return Optional.empty();
+    }
+    if (regexes.size() == 1) {
+      return Optional.of(regexes.get(0));
+    }
+    return Optional.of(
+        Pattern.compile(
+            regexes.stream()
+                .map(regex -> "(?:" + regex.pattern() + ")")
+                .collect(Collectors.joining("|"))));
+  }
+
+  private static ImmutableSortedSet<String> withoutCoveredPrefixes(List<String> prefixes) {
+    TreeSet<String> sortedPrefixes = new TreeSet<>(prefixes);
+    ImmutableSortedSet.Builder<String> uncoveredPrefixes = ImmutableSortedSet.naturalOrder();
+    String lastUncovered = null;
+    for (String prefix : sortedPrefixes) {
+      if (lastUncovered == null || !prefix.startsWith(lastUncovered)) {
+        uncoveredPrefixes.add(prefix);
+        lastUncovered = prefix;
+      }
+    }
+    return uncoveredPrefixes.build();
+  }
+}
@@ -34,10 +34,10 @@ public abstract class RefsFilter {
     }
   }
 
-  private final List<String> refsPatterns;
+  private final RefNameMatcher refsMatcher;
 
   public RefsFilter(ReplicationConfig replicationConfig) {
-    refsPatterns = getRefNamePatterns(replicationConfig.getConfig());
+    refsMatcher = RefNameMatcher.fromPatterns(getRefNamePatterns(replicationConfig.getConfig()));
   }
 
   public boolean match(String refName) {
@@ -46,28 +46,12 @@ public abstract class RefsFilter {
           String.format("Ref name cannot be null or empty, but was %s", refName));
     }
 
-    for (String pattern : refsPatterns) {
-      if (matchesPattern(refName, pattern)) {
-        return true;
-      }
-    }
-    return false;
+    return refsMatcher.matches(refName);
   }
 
-  protected abstract List<String> getRefNamePatterns(Config cfg);
-
-  private boolean matchesPattern(String refName, String pattern) {
-    boolean match = false;
-    switch (PatternType.getPatternType(pattern)) {
-      case REGEX:
-        match = refName.matches(pattern);
-        break;
-      case WILDCARD:
-        match = refName.startsWith(pattern.substring(0, pattern.length() - 1));
-        break;
-      case EXACT_MATCH:
-        match = refName.equals(pattern);
-    }
-    return match;
+  public boolean mayMatchRefsStartingWith(String prefix) {
+    return refsMatcher.mayMatchRefsStartingWith(prefix);
   }
+
+  protected abstract List<String> getRefNamePatterns(Config cfg);
 }
@@ -0,0 +1,50 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class AdaptiveReplicationDelayTest {
+  private static final long QUIET_PERIOD_MS = 500L;
+  private static final long MAX_DELAY_MS = 30000L;
+
+  private final AdaptiveReplicationDelay objectUnderTest =
+      new AdaptiveReplicationDelay(QUIET_PERIOD_MS, MAX_DELAY_MS);
+
+  @Test
+  public void shouldRunAnIsolatedUpdateAfterTheQuietPeriod() {
+    assertThat(objectUnderTest.initialDelayMs()).isEqualTo(QUIET_PERIOD_MS);
+    assertThat(objectUnderTest.remainingDelayMs(QUIET_PERIOD_MS, QUIET_PERIOD_MS)).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldWaitForTheQuietPeriodAfterTheLastMergedRef() {
+    assertThat(objectUnderTest.remainingDelayMs(QUIET_PERIOD_MS, 100L)).isEqualTo(400L);
+    assertThat(objectUnderTest.remainingDelayMs(10000L, 0L)).isEqualTo(QUIET_PERIOD_MS);
+  }
+
+  @Test
+  public void shouldNeverWaitLongerThanTheMaximumDelay() {
+    assertThat(objectUnderTest.remainingDelayMs(MAX_DELAY_MS - 200L, 0L)).isEqualTo(200L);
+    assertThat(objectUnderTest.remainingDelayMs(MAX_DELAY_MS, 0L)).isEqualTo(0L);
+    assertThat(objectUnderTest.remainingDelayMs(MAX_DELAY_MS + 1000L, 0L)).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldNeverCapTheDelayBelowTheQuietPeriod() {
+    AdaptiveReplicationDelay cappedDelay = new AdaptiveReplicationDelay(QUIET_PERIOD_MS, 100L);
+
+    assertThat(cappedDelay.remainingDelayMs(100L, 100L)).isEqualTo(400L);
+  }
+}
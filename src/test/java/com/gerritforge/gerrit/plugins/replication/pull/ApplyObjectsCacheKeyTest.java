@@ -0,0 +1,48 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+
+public class ApplyObjectsCacheKeyTest {
+  private static final String SHA1 = "0000000000000000000000000000000000000001";
+  private static final String REF_NAME = "refs/heads/master";
+  private static final String PROJECT = "test_project";
+
+  @Test
+  public void shouldBeEqualWhenCreatedFromTheHexOrTheBinaryObjectId() {
+    assertThat(ApplyObjectsCacheKey.create(SHA1, REF_NAME, PROJECT))
+        .isEqualTo(ApplyObjectsCacheKey.create(ObjectId.fromString(SHA1), REF_NAME, PROJECT));
+  }
+
+  @Test
+  public void shouldShareTheProjectNameAcrossKeys() {
+    ApplyObjectsCacheKey key =
+        ApplyObjectsCacheKey.create(SHA1, new String(REF_NAME), new String(PROJECT));
+    ApplyObjectsCacheKey otherKey =
+        ApplyObjectsCacheKey.create(ObjectId.zeroId(), new String(REF_NAME), new String(PROJECT));
+
+    assertThat(otherKey.project()).isSameInstanceAs(key.project());
+    assertThat(otherKey.refName()).isNotSameInstanceAs(key.refName());
+  }
+
+  @Test
+  public void shouldWeighTheRefName() {
+    ApplyObjectsCacheWeigher weigher = new ApplyObjectsCacheWeigher();
+
+    assertThat(weigher.weigh(ApplyObjectsCacheKey.create(SHA1, REF_NAME, PROJECT), 1L))
+        .isEqualTo(ApplyObjectsCacheWeigher.ENTRY_OVERHEAD_BYTES + REF_NAME.length());
+  }
+}
@@ -0,0 +1,209 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toMap;
+
+import com.gerritforge.gerrit.plugins.replication.pull.fetch.RefUpdateState;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TestProtocol;
+import org.eclipse.jgit.transport.Transport;
+import org.eclipse.jgit.transport.UploadPack;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FetchRefSpecsCompactionTest {
+  private static final RefSpec CHANGES_REFSPEC = new RefSpec("+refs/changes/*:refs/changes/*");
+  private static final List<RefSpec> CONFIG_REFSPECS =
+      List.of(new RefSpec("refs/meta/config:refs/meta/config"), CHANGES_REFSPEC);
+  private static final String CHANGE_1 = "refs/changes/01/1/1";
+  private static final String CHANGE_2 = "refs/changes/02/2/1";
+  private static final String CHANGE_3 = "refs/changes/03/3/1";
+
+  private TestRepository<InMemoryRepository> repo;
+
+  @Before
+  public void setUp() throws Exception {
+    repo = newRepository("project");
+  }
+
+  @Test
+  public void shouldNotCompactTheRefsWhenDisabled() {
+    List<FetchRefSpec> refSpecs = refSpecs(CHANGE_1, CHANGE_2, CHANGE_3);
+
+    FetchRefSpecsCompaction compaction = compact(refSpecs, CONFIG_REFSPECS, 0);
+
+    assertThat(compaction.isCompacted()).isFalse();
+    assertThat(compaction.getRefSpecs()).isEqualTo(refSpecs);
+  }
+
+  @Test
+  public void shouldNotCompactTheRefsBelowTheThreshold() {
+    List<FetchRefSpec> refSpecs = refSpecs(CHANGE_1, CHANGE_2, "refs/meta/config");
+
+    FetchRefSpecsCompaction compaction = compact(refSpecs, CONFIG_REFSPECS, 3);
+
+    assertThat(compaction.isCompacted()).isFalse();
+    assertThat(compaction.getRefSpecs()).containsExactlyElementsIn(refSpecs);
+  }
+
+  @Test
+  public void shouldCompactTheRefsMatchingTheSameWildcardRefSpec() {
+    FetchRefSpecsCompaction compaction =
+        compact(refSpecs(CHANGE_1, CHANGE_2, "refs/meta/config"), CONFIG_REFSPECS, 2);
+
+    assertThat(compaction.isCompacted()).isTrue();
+    assertThat(compaction.getRefSpecs())
+        .containsExactly(
+            fetchRefSpec("refs/meta/config"), FetchRefSpec.fromRefSpec(CHANGES_REFSPEC));
+  }
+
+  @Test
+  public void shouldNeverCompactTheRefsIntoTheWildcardOfAllTheRefs() {
+    RefSpec allRefsSpec = new RefSpec("+refs/*:refs/*");
+    List<FetchRefSpec> refSpecs =
+        Stream.of(CHANGE_1, CHANGE_2, CHANGE_3)
+            .map(refName -> FetchRefSpec.fromRefSpec(allRefsSpec.expandFromSource(refName)))
+            .toList();
+
+    FetchRefSpecsCompaction compaction = compact(refSpecs, List.of(allRefsSpec), 2);
+
+    assertThat(compaction.isCompacted()).isFalse();
+    assertThat(compaction.getRefSpecs()).containsExactlyElementsIn(refSpecs);
+  }
+
+  @Test
+  public void shouldNeverCompactTheRefsIntoAWildcardThatMayFetchExcludedRefs() {
+    List<FetchRefSpec> refSpecs = refSpecs(CHANGE_1, CHANGE_2, CHANGE_3);
+
+    FetchRefSpecsCompaction compaction =
+        FetchRefSpecsCompaction.compact(
+            refSpecs, CONFIG_REFSPECS, 2, prefix -> prefix.equals("refs/changes/"));
+
+    assertThat(compaction.isCompacted()).isFalse();
+    assertThat(compaction.getRefSpecs()).containsExactlyElementsIn(refSpecs);
+  }
+
+  @Test
+  public void shouldReportTheResultOfEveryCompactedRef() throws Exception {
+    repo.branch(CHANGE_1).commit().create();
+    repo.branch(CHANGE_2).commit().create();
+    FetchRefSpecsCompaction compaction =
+        compact(refSpecs(CHANGE_1, CHANGE_2, CHANGE_3, "refs/meta/config"), CONFIG_REFSPECS, 3);
+    List<RefUpdateState> fetchResults =
+        List.of(
+            new RefUpdateState(CHANGE_1, RefUpdate.Result.NEW),
+            new RefUpdateState("refs/changes/04/4/1", RefUpdate.Result.NEW),
+            new RefUpdateState("refs/meta/config", RefUpdate.Result.FAST_FORWARD));
+
+    assertThat(resultsByRef(compaction.results(fetchResults, repo.getRepository())))
+        .containsExactly(
+            CHANGE_1,
+            RefUpdate.Result.NEW,
+            CHANGE_2,
+            RefUpdate.Result.NO_CHANGE,
+            CHANGE_3,
+            RefUpdate.Result.NOT_ATTEMPTED,
+            "refs/meta/config",
+            RefUpdate.Result.FAST_FORWARD);
+    assertThat(resultsByRef(compaction.unrequestedResults(fetchResults)))
+        .containsExactly("refs/changes/04/4/1", RefUpdate.Result.NEW);
+  }
+
+  @Test
+  public void shouldReportTheResultOfTheWildcardRefSpecForTheCompactedRefs() throws Exception {
+    repo.branch(CHANGE_1).commit().create();
+    repo.branch(CHANGE_2).commit().create();
+    FetchRefSpecsCompaction compaction = compact(refSpecs(CHANGE_1, CHANGE_2), CONFIG_REFSPECS, 2);
+    List<RefUpdateState> fetchResults =
+        List.of(new RefUpdateState("refs/changes/*", RefUpdate.Result.NEW));
+
+    assertThat(resultsByRef(compaction.results(fetchResults, repo.getRepository())))
+        .containsExactly(CHANGE_1, RefUpdate.Result.NEW, CHANGE_2, RefUpdate.Result.NEW);
+    assertThat(compaction.unrequestedResults(fetchResults)).isEmpty();
+  }
+
+  @Test
+  public void shouldReportTheRefsFetchedOutsideTheTask() throws Exception {
+    TestRepository<InMemoryRepository> remote = newRepository("remote");
+    remote.branch(CHANGE_1).commit().create();
+    remote.branch(CHANGE_2).commit().create();
+    remote.branch(CHANGE_3).commit().create();
+    remote.branch("refs/heads/master").commit().create();
+    FetchRefSpecsCompaction compaction =
+        compact(
+            refSpecs(CHANGE_1, CHANGE_2),
+            List.of(new RefSpec("+refs/heads/*:refs/heads/*"), CHANGES_REFSPEC),
+            2);
+
+    TestProtocol<Object> protocol = new TestProtocol<>((req, db) -> new UploadPack(db), null);
+    Transport.register(protocol);
+    List<RefUpdateState> fetchResults;
+    try (Transport transport =
+        Transport.open(
+            repo.getRepository(), protocol.register(new Object(), remote.getRepository()))) {
+      fetchResults =
+          transport
+              .fetch(
+                  NullProgressMonitor.INSTANCE,
+                  FetchRefSpec.toListOfRefSpec(compaction.getRefSpecs()))
+              .getTrackingRefUpdates()
+              .stream()
+              .map(update -> new RefUpdateState(update.getRemoteName(), update.getResult()))
+              .toList();
+    } finally {
+      Transport.unregister(protocol);
+    }
+
+    assertThat(resultsByRef(compaction.results(fetchResults, repo.getRepository())))
+        .containsExactly(CHANGE_1, RefUpdate.Result.NEW, CHANGE_2, RefUpdate.Result.NEW);
+    assertThat(resultsByRef(compaction.unrequestedResults(fetchResults)))
+        .containsExactly(CHANGE_3, RefUpdate.Result.NEW);
+    assertThat(repo.getRepository().exactRef("refs/heads/master")).isNull();
+  }
+
+  private static TestRepository<InMemoryRepository> newRepository(String name) throws Exception {
+    return new TestRepository<>(new InMemoryRepository(new DfsRepositoryDescription(name)));
+  }
+
+  private static FetchRefSpecsCompaction compact(
+      List<FetchRefSpec> refSpecs, List<RefSpec> configRefSpecs, int threshold) {
+    return FetchRefSpecsCompaction.compact(refSpecs, configRefSpecs, threshold, prefix -> false);
+  }
+
+  private static List<FetchRefSpec> refSpecs(String... refNames) {
+    return Stream.of(refNames).map(FetchRefSpecsCompactionTest::fetchRefSpec).toList();
+  }
+
+  private static FetchRefSpec fetchRefSpec(String refName) {
+    return FetchRefSpec.fromRefSpec(
+        CONFIG_REFSPECS.stream()
+            .filter(configRefSpec -> configRefSpec.matchSource(refName))
+            .findFirst()
+            .get()
+            .expandFromSource(refName));
+  }
+
+  private static Map<String, RefUpdate.Result> resultsByRef(List<RefUpdateState> results) {
+    return results.stream()
+        .collect(toMap(RefUpdateState::getRemoteName, RefUpdateState::getResult));
+  }
+}
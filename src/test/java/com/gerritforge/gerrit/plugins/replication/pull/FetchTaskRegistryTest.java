@@ -0,0 +1,161 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.entities.Project;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.Test;
+
+public class FetchTaskRegistryTest {
+  private static final int THREADS = 16;
+  private static final int URIS = 4;
+  private static final int ITERATIONS = 2000;
+
+  private final FetchTaskRegistry objectUnderTest = new FetchTaskRegistry();
+
+  @Test
+  public void shouldGiveTheRunwayToOneTaskPerUri() throws Exception {
+    URIish uri = new URIish("http://source/project");
+    FetchOne fetchOp = fetchOp(uri);
+    FetchOne otherFetchOp = fetchOp(uri);
+    FetchOne otherUriFetchOp = fetchOp(new URIish("http://source/other-project"));
+
+    objectUnderTest.putPending(uri, fetchOp);
+    assertThat(objectUnderTest.requestRunway(fetchOp)).isTrue();
+    assertThat(objectUnderTest.pendingCount()).isEqualTo(0);
+    assertThat(objectUnderTest.requestRunway(otherFetchOp)).isFalse();
+    assertThat(objectUnderTest.requestRunway(otherUriFetchOp)).isTrue();
+
+    objectUnderTest.notifyFinished(fetchOp);
+    assertThat(objectUnderTest.getInFlight(uri).isPresent()).isFalse();
+    assertThat(objectUnderTest.requestRunway(otherFetchOp)).isTrue();
+  }
+
+  @Test
+  public void shouldNotGiveTheRunwayToCanceledTask() throws Exception {
+    URIish uri = new URIish("http://source/project");
+    FetchOne fetchOp = fetchOp(uri);
+    when(fetchOp.wasCanceled()).thenReturn(true);
+    objectUnderTest.putPending(uri, fetchOp);
+
+    assertThat(objectUnderTest.requestRunway(fetchOp)).isFalse();
+    assertThat(objectUnderTest.getPending(uri)).isSameInstanceAs(fetchOp);
+    assertThat(objectUnderTest.inFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldCountTheTasksPerProject() throws Exception {
+    URIish uri = new URIish("http://source/project");
+    Project.NameKey project = Project.nameKey(uri.getPath());
+    FetchOne fetchOp = fetchOp(uri);
+    FetchOne mergedFetchOp = fetchOp(uri);
+
+    objectUnderTest.putPending(uri, fetchOp);
+    objectUnderTest.putPending(uri, mergedFetchOp);
+    assertThat(objectUnderTest.pendingCount(project)).isEqualTo(1);
+    assertThat(objectUnderTest.inFlightCount(project)).isEqualTo(0);
+
+    assertThat(objectUnderTest.requestRunway(mergedFetchOp)).isTrue();
+    assertThat(objectUnderTest.pendingCount(project)).isEqualTo(0);
+    assertThat(objectUnderTest.inFlightCount(project)).isEqualTo(1);
+
+    objectUnderTest.notifyFinished(mergedFetchOp);
+    assertThat(objectUnderTest.inFlightCount(project)).isEqualTo(0);
+    assertThat(objectUnderTest.pendingPerProject()).isEmpty();
+    assertThat(objectUnderTest.inFlightPerProject()).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepOneTaskInFlightPerUriUnderConcurrentScheduling() throws Exception {
+    List<URIish> uris = new ArrayList<>();
+    List<AtomicInteger> running = new ArrayList<>();
+    for (int i = 0; i < URIS; i++) {
+      uris.add(new URIish("http://source/project-" + i));
+      running.add(new AtomicInteger());
+    }
+    FetchOne[][] fetchOps = new FetchOne[THREADS][URIS];
+    for (int t = 0; t < THREADS; t++) {
+      for (int i = 0; i < URIS; i++) {
+        fetchOps[t][i] = fetchOp(uris.get(i));
+      }
+    }
+
+    AtomicInteger runways = new AtomicInteger();
+    AtomicInteger overlaps = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        FetchOne[] threadFetchOps = fetchOps[t];
+        workers.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int n = 0; n < ITERATIONS; n++) {
+                    int i = n % URIS;
+                    URIish uri = uris.get(i);
+                    FetchOne fetchOp = threadFetchOps[i];
+                    objectUnderTest.runLocked(
+                        uri,
+                        () -> {
+                          if (objectUnderTest.getPending(uri) == null) {
+                            objectUnderTest.putPending(uri, fetchOp);
+                          }
+                        });
+                    if (objectUnderTest.requestRunway(fetchOp)) {
+                      runways.incrementAndGet();
+                      if (running.get(i).incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                      }
+                      running.get(i).decrementAndGet();
+                      objectUnderTest.notifyFinished(fetchOp);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> worker : workers) {
+        worker.get(30, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(overlaps.get()).isEqualTo(0);
+    assertThat(runways.get()).isGreaterThan(0);
+    assertThat(objectUnderTest.pendingCount()).isEqualTo(0);
+    assertThat(objectUnderTest.inFlightCount()).isEqualTo(0);
+    assertThat(objectUnderTest.pendingPerProject()).isEmpty();
+    assertThat(objectUnderTest.inFlightPerProject()).isEmpty();
+  }
+
+  private static FetchOne fetchOp(URIish uri) {
+    FetchOne fetchOp = mock(FetchOne.class);
+    when(fetchOp.getURI()).thenReturn(uri);
+    when(fetchOp.getProjectNameKey()).thenReturn(Project.nameKey(uri.getPath()));
+    return fetchOp;
+  }
+}
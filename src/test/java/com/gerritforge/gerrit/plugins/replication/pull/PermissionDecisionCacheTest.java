@@ -0,0 +1,73 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.FakeTicker;
+import com.google.common.truth.Truth8;
+import com.google.gerrit.entities.Project;
+import java.time.Duration;
+import org.junit.Test;
+
+public class PermissionDecisionCacheTest {
+  private static final long TTL_MS = 30000L;
+  private static final Project.NameKey PROJECT = Project.nameKey("project");
+  private static final String REF = "refs/heads/master";
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final PermissionDecisionCache objectUnderTest =
+      new PermissionDecisionCache(TTL_MS, 100, ticker);
+
+  @Test
+  public void shouldKeepTheProjectAndRefDecisionsApart() {
+    assertThat(objectUnderTest.putProjectDecision(PROJECT, true)).isTrue();
+    assertThat(objectUnderTest.putRefDecision(PROJECT, REF, false)).isFalse();
+
+    Truth8.assertThat(objectUnderTest.getProjectDecision(PROJECT)).hasValue(true);
+    Truth8.assertThat(objectUnderTest.getRefDecision(PROJECT, REF)).hasValue(false);
+    Truth8.assertThat(objectUnderTest.getRefDecision(PROJECT, "refs/heads/stable")).isEmpty();
+    Truth8.assertThat(objectUnderTest.getProjectDecision(Project.nameKey("other-project")))
+        .isEmpty();
+  }
+
+  @Test
+  public void shouldExpireTheDecisions() {
+    objectUnderTest.putRefDecision(PROJECT, REF, true);
+
+    ticker.advance(Duration.ofMillis(TTL_MS - 1));
+    Truth8.assertThat(objectUnderTest.getRefDecision(PROJECT, REF)).hasValue(true);
+
+    ticker.advance(Duration.ofMillis(1));
+    Truth8.assertThat(objectUnderTest.getRefDecision(PROJECT, REF)).isEmpty();
+  }
+
+  @Test
+  public void shouldDiscardAllTheDecisionsWhenInvalidated() {
+    objectUnderTest.putProjectDecision(PROJECT, true);
+    objectUnderTest.putRefDecision(PROJECT, REF, true);
+
+    objectUnderTest.invalidateAll();
+
+    Truth8.assertThat(objectUnderTest.getProjectDecision(PROJECT)).isEmpty();
+    Truth8.assertThat(objectUnderTest.getRefDecision(PROJECT, REF)).isEmpty();
+  }
+
+  @Test
+  public void shouldNotCacheTheDecisionsWhenDisabled() {
+    PermissionDecisionCache disabledCache = new PermissionDecisionCache(0, 100, ticker);
+
+    assertThat(disabledCache.isEnabled()).isFalse();
+    assertThat(disabledCache.putRefDecision(PROJECT, REF, true)).isTrue();
+    Truth8.assertThat(disabledCache.getRefDecision(PROJECT, REF)).isEmpty();
+  }
+}
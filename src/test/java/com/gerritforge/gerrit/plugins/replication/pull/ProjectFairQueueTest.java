@@ -0,0 +1,146 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.FakeTicker;
+import com.google.gerrit.entities.Project;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ProjectFairQueueTest {
+  private static final Project.NameKey HOT_PROJECT = Project.nameKey("hot-project");
+  private static final Project.NameKey QUIET_PROJECT = Project.nameKey("quiet-project");
+
+  private final List<Runnable> workers = new ArrayList<>();
+  private final List<String> completed = new ArrayList<>();
+  private final FakeTicker ticker = new FakeTicker();
+  private final ProjectFairQueue objectUnderTest = new ProjectFairQueue(workers::add, 1, ticker);
+
+  @Test
+  public void shouldNotDelayTheQuietProjectBehindTheBurstOfAHotProject() {
+    for (int i = 0; i < 5; i++) {
+      submit(HOT_PROJECT, 1, "hot-" + i);
+    }
+    submit(QUIET_PROJECT, 1, "quiet");
+
+    drain();
+
+    assertThat(completed)
+        .containsExactly("hot-0", "quiet", "hot-1", "hot-2", "hot-3", "hot-4")
+        .inOrder();
+  }
+
+  @Test
+  public void shouldChargeTheProjectWithTheRefsOfItsTasks() {
+    submit(HOT_PROJECT, 3, "hot-retry");
+    submit(HOT_PROJECT, 1, "hot");
+    for (int i = 0; i < 3; i++) {
+      submit(QUIET_PROJECT, 1, "quiet-" + i);
+    }
+
+    drain();
+
+    assertThat(completed)
+        .containsExactly("hot-retry", "quiet-0", "quiet-1", "quiet-2", "hot")
+        .inOrder();
+  }
+
+  @Test
+  public void shouldKeepTheDebtOfTheProjectLeftIdleAfterATaskOfManyRefs() {
+    submit(HOT_PROJECT, 3, "hot-retry");
+    drain();
+
+    submit(HOT_PROJECT, 1, "hot");
+    for (int i = 0; i < 3; i++) {
+      submit(QUIET_PROJECT, 1, "quiet-" + i);
+    }
+    drain();
+
+    assertThat(completed)
+        .containsExactly("hot-retry", "quiet-0", "quiet-1", "hot", "quiet-2")
+        .inOrder();
+  }
+
+  @Test
+  public void shouldForgetTheDebtOfTheProjectIdleForLongerThanTheRetention() {
+    submit(HOT_PROJECT, 3, "hot-retry");
+    drain();
+    ticker.advance(Duration.ofMillis(ProjectFairQueue.IDLE_DEBT_RETENTION_MS));
+
+    submit(HOT_PROJECT, 1, "hot");
+    submit(QUIET_PROJECT, 1, "quiet");
+    drain();
+
+    assertThat(completed).containsExactly("hot-retry", "hot", "quiet").inOrder();
+  }
+
+  @Test
+  public void shouldRunOneTaskPerWorkerUpToTheMaximum() {
+    ProjectFairQueue queue = new ProjectFairQueue(workers::add, 2, ticker);
+    for (int i = 0; i < 3; i++) {
+      queue.submit(HOT_PROJECT, 1, task("hot-" + i));
+    }
+    assertThat(workers).hasSize(2);
+
+    workers.remove(0).run();
+    assertThat(completed).containsExactly("hot-0");
+    assertThat(workers).hasSize(2);
+
+    drain();
+    assertThat(completed).containsExactly("hot-0", "hot-1", "hot-2").inOrder();
+    assertThat(workers).isEmpty();
+    assertThat(queue.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldReportTheWaitOfTheOldestTaskOfEveryProject() {
+    submit(HOT_PROJECT, 1, "hot-0");
+    ticker.advance(Duration.ofMillis(300));
+    submit(HOT_PROJECT, 1, "hot-1");
+    submit(QUIET_PROJECT, 1, "quiet");
+    ticker.advance(Duration.ofMillis(200));
+
+    assertThat(objectUnderTest.maxWaitPerProject())
+        .containsExactly(HOT_PROJECT, 500L, QUIET_PROJECT, 200L);
+
+    drain();
+    assertThat(objectUnderTest.maxWaitPerProject()).isEmpty();
+  }
+
+  @Test
+  public void shouldDiscardTheTasksWaitingWhenCleared() {
+    submit(HOT_PROJECT, 1, "hot-0");
+    submit(QUIET_PROJECT, 1, "quiet");
+
+    assertThat(objectUnderTest.clear()).isEqualTo(2);
+    drain();
+    assertThat(completed).isEmpty();
+  }
+
+  private void submit(Project.NameKey project, int refs, String name) {
+    objectUnderTest.submit(project, refs, task(name));
+  }
+
+  private Runnable task(String name) {
+    return () -> completed.add(name);
+  }
+
+  private void drain() {
+    while (!workers.isEmpty()) {
+      workers.remove(0).run();
+    }
+  }
+}
@@ -18,8 +18,10 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -28,10 +30,12 @@ import static org.mockito.Mockito.when;
 
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.RefInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.BatchApplyObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.client.FetchApiClient;
 import com.gerritforge.gerrit.plugins.replication.pull.client.FetchRestApiClient;
 import com.gerritforge.gerrit.plugins.replication.pull.client.HttpResult;
+import com.gerritforge.gerrit.plugins.replication.pull.client.RequestDeferredException;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.ApplyObjectBannedCreateRefsFilter;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.ApplyObjectsRefsFilter;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.ExcludedRefsFilter;
@@ -58,10 +62,12 @@ import com.googlesource.gerrit.plugins.replication.MergedConfigResource;
 import com.googlesource.gerrit.plugins.replication.ReplicationConfigImpl;
 import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
 import java.io.IOException;
+import java.net.SocketException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -86,6 +92,7 @@ public class ReplicationQueueTest {
   private static final String TEST_REF_NAME = "refs/meta/heads/anyref";
 
   private static final Project.NameKey PROJECT = Project.nameKey("defaultProject");
+  private static final Project.NameKey ANOTHER_PROJECT = Project.nameKey("anotherProject");
   private static final String OLD_OBJECT_ID =
       ObjectId.fromString("00f11fd1e3206333235603f889837bad2692da4b").getName();
   private static final String NEW_OBJECT_ID =
@@ -96,6 +103,7 @@ public class ReplicationQueueTest {
   @Mock private SourcesCollection sourceCollection;
   @Mock private Provider<SourcesCollection> rd;
   @Mock private DynamicItem<EventDispatcher> dis;
+  @Mock private EventDispatcher eventDispatcher;
   @Mock ReplicationStateListeners sl;
   @Mock FetchRestApiClient fetchRestApiClient;
   @Mock FetchApiClient.Factory fetchClientFactory;
@@ -121,6 +129,9 @@ public class ReplicationQueueTest {
   @Captor ArgumentCaptor<Project.NameKey> projectNameKeyCaptor;
   @Captor ArgumentCaptor<List<RevisionData>> revisionsDataCaptor;
   @Captor ArgumentCaptor<List<BatchApplyObjectData>> batchRefsCaptor;
+  @Captor ArgumentCaptor<List<ProjectBatchApplyObjectData>> projectBatchesCaptor;
+  @Captor ArgumentCaptor<Runnable> runnableCaptor;
+  @Captor ArgumentCaptor<Event> eventCaptor;
 
   private ExcludedRefsFilter refsFilter;
   private ReplicationQueue objectUnderTest;
@@ -647,19 +658,399 @@ public class ReplicationQueueTest {
     verify(source, never()).scheduleUpdateHead(any(), any(), any());
   }
 
+  @Test
+  public void shouldGroupTheEventsOfManyProjectsIntoAMultiProjectBatch() throws Exception {
+    when(source.isMultiProjectBatchEnabled()).thenReturn(true);
+    when(source.getMultiProjectBatchMaxProjects()).thenReturn(2);
+    when(fetchRestApiClient.callMultiProjectBatchSendObject(any(), any()))
+        .thenReturn(Map.of(PROJECT, httpResult, ANOTHER_PROJECT, httpResult));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(PROJECT, TEST_REF_NAME));
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(ANOTHER_PROJECT, TEST_REF_NAME));
+
+    verify(fetchRestApiClient)
+        .callMultiProjectBatchSendObject(projectBatchesCaptor.capture(), any());
+    assertThat(
+            projectBatchesCaptor.getValue().stream()
+                .map(ProjectBatchApplyObjectData::project)
+                .collect(Collectors.toList()))
+        .containsExactly(PROJECT, ANOTHER_PROJECT)
+        .inOrder();
+    verify(fetchRestApiClient, never()).callBatchSendObject(any(), any(), anyLong(), any());
+  }
+
+  @Test
+  public void shouldScheduleTheMultiProjectBatchUntilTheWindowExpires() throws Exception {
+    when(source.isMultiProjectBatchEnabled()).thenReturn(true);
+    when(source.getMultiProjectBatchMaxProjects()).thenReturn(100);
+    when(fetchRestApiClient.callMultiProjectBatchSendObject(any(), any()))
+        .thenReturn(Map.of(PROJECT, httpResult));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(PROJECT, TEST_REF_NAME));
+
+    verify(source).scheduleMultiProjectBatchFlush(runnableCaptor.capture());
+    verify(fetchRestApiClient, never()).callMultiProjectBatchSendObject(any(), any());
+
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient).callMultiProjectBatchSendObject(any(), any());
+  }
+
+  @Test
+  public void shouldFallbackToBatchSendObjectForTheProjectsFailedInTheMultiProjectBatch()
+      throws Exception {
+    HttpResult failedHttpResult = mock(HttpResult.class);
+    when(source.isMultiProjectBatchEnabled()).thenReturn(true);
+    when(source.getMultiProjectBatchMaxProjects()).thenReturn(2);
+    when(fetchRestApiClient.callMultiProjectBatchSendObject(any(), any()))
+        .thenReturn(Map.of(PROJECT, failedHttpResult, ANOTHER_PROJECT, httpResult));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(PROJECT, TEST_REF_NAME));
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(ANOTHER_PROJECT, TEST_REF_NAME));
+
+    verify(fetchRestApiClient).callBatchSendObject(eq(PROJECT), any(), anyLong(), any());
+    verify(fetchRestApiClient, never())
+        .callBatchSendObject(eq(ANOTHER_PROJECT), any(), anyLong(), any());
+  }
+
+  @Test
+  public void shouldFallbackToBatchSendObjectForTheApiUrlsFailedInTheMultiProjectBatchOnly()
+      throws Exception {
+    URIish api = new URIish("http://localhost:18080");
+    URIish failingApi = new URIish("http://localhost:18081");
+    HttpResult failedHttpResult = mock(HttpResult.class);
+    when(source.getApis()).thenReturn(ImmutableList.of(api.toString(), failingApi.toString()));
+    when(source.isMultiProjectBatchEnabled()).thenReturn(true);
+    when(source.getMultiProjectBatchMaxProjects()).thenReturn(2);
+    when(fetchRestApiClient.callMultiProjectBatchSendObject(any(), eq(api)))
+        .thenReturn(Map.of(PROJECT, httpResult, ANOTHER_PROJECT, httpResult));
+    when(fetchRestApiClient.callMultiProjectBatchSendObject(any(), eq(failingApi)))
+        .thenReturn(Map.of(PROJECT, failedHttpResult, ANOTHER_PROJECT, httpResult));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(PROJECT, TEST_REF_NAME));
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(ANOTHER_PROJECT, TEST_REF_NAME));
+
+    verify(fetchRestApiClient).callBatchSendObject(eq(PROJECT), any(), anyLong(), eq(failingApi));
+    verify(fetchRestApiClient, never()).callBatchSendObject(any(), any(), anyLong(), eq(api));
+  }
+
+  @Test
+  public void shouldRetryBatchSendObjectOnServerUnavailableBeforeFallingBackToFetch()
+      throws Exception {
+    HttpResult unavailableHttpResult = mock(HttpResult.class);
+    when(unavailableHttpResult.isServerUnavailable()).thenReturn(true);
+    when(source.getApplyObjectMaxRetries()).thenReturn(2);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenReturn(unavailableHttpResult, batchHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(fetchRestApiClient, times(2)).callBatchSendObject(any(), any(), anyLong(), any());
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldRetryBatchSendObjectOnConnectionResetBeforeFallingBackToFetch()
+      throws Exception {
+    when(source.getApplyObjectMaxRetries()).thenReturn(2);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenThrow(new SocketException("Connection reset"))
+        .thenReturn(batchHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(fetchRestApiClient, times(2)).callBatchSendObject(any(), any(), anyLong(), any());
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldFallbackToCallBatchFetchWhenBatchSendObjectRetriesAreExhausted()
+      throws Exception {
+    HttpResult unavailableHttpResult = mock(HttpResult.class);
+    when(unavailableHttpResult.isServerUnavailable()).thenReturn(true);
+    when(source.getApplyObjectMaxRetries()).thenReturn(1);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenReturn(unavailableHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(fetchRestApiClient, times(2)).callBatchSendObject(any(), any(), anyLong(), any());
+    verify(fetchRestApiClient).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldNotRetryBatchSendObjectBeyondTheFetchCallsTimeout() throws Exception {
+    HttpResult unavailableHttpResult = mock(HttpResult.class);
+    when(unavailableHttpResult.isServerUnavailable()).thenReturn(true);
+    when(source.getApplyObjectMaxRetries()).thenReturn(2);
+    when(source.getApplyObjectRetryDelay()).thenReturn(CONNECTION_TIMEOUT + 1L);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenReturn(unavailableHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(fetchRestApiClient, times(1)).callBatchSendObject(any(), any(), anyLong(), any());
+    verify(fetchRestApiClient).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldNotRetryBatchSendObjectOnNonTransientFailures() throws Exception {
+    when(source.getApplyObjectMaxRetries()).thenReturn(2);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenThrow(new IOException("BOOM"));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(fetchRestApiClient, times(1)).callBatchSendObject(any(), any(), anyLong(), any());
+    verify(fetchRestApiClient).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldDeferBatchSendObjectWithoutFallingBackToFetchWhenTooManyRequests()
+      throws Exception {
+    when(source.getMaxRequestDeferrals()).thenReturn(3);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenThrow(new RequestDeferredException(new URIish("http://gerrit-host"), 5000L))
+        .thenReturn(batchHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(5000L));
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient, times(2)).callBatchSendObject(any(), any(), anyLong(), any());
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldDeferTheBatchSendObjectToTheTooBusyApiUrlOnly() throws Exception {
+    URIish busyApi = new URIish("http://localhost:18080");
+    URIish api = new URIish("http://localhost:18081");
+    when(source.getApis()).thenReturn(ImmutableList.of(busyApi.toString(), api.toString()));
+    when(source.getMaxRequestDeferrals()).thenReturn(3);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), eq(busyApi)))
+        .thenThrow(new RequestDeferredException(busyApi, 5000L))
+        .thenReturn(batchHttpResult);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), eq(api)))
+        .thenReturn(batchHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(fetchRestApiClient).callBatchSendObject(any(), any(), anyLong(), eq(api));
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(5000L));
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient, times(2)).callBatchSendObject(any(), any(), anyLong(), eq(busyApi));
+    verify(fetchRestApiClient).callBatchSendObject(any(), any(), anyLong(), eq(api));
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldFallbackToCallBatchFetchWhenTheDeferralsAreExhausted() throws Exception {
+    when(source.getMaxRequestDeferrals()).thenReturn(0);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenThrow(new RequestDeferredException(new URIish("http://gerrit-host"), 5000L));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(source, never()).scheduleDeferredCall(any(), anyLong());
+    verify(fetchRestApiClient).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldDeferTheBatchFetchToTheTooBusyApiUrlOnly() throws Exception {
+    URIish api = new URIish("http://localhost:18080");
+    URIish busyApi = new URIish("http://localhost:18081");
+    when(source.getApis()).thenReturn(ImmutableList.of(api.toString(), busyApi.toString()));
+    when(source.getMaxRequestDeferrals()).thenReturn(3);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenThrow(new IOException("BOOM"));
+    when(fetchRestApiClient.callBatchFetch(any(), any(), eq(busyApi)))
+        .thenThrow(new RequestDeferredException(busyApi, 5000L))
+        .thenReturn(batchFetchHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(5000L));
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient).callBatchFetch(any(), any(), eq(api));
+    verify(fetchRestApiClient, times(2)).callBatchFetch(any(), any(), eq(busyApi));
+  }
+
+  @Test
+  public void shouldDeferTheFetchOfAllTheRemainingRefsWhenTheApiUrlIsTooBusy() throws Exception {
+    BatchRefUpdateEvent event =
+        generateBatchRefUpdateEvent("refs/changes/01/1/1", "refs/changes/02/2/1");
+    when(source.enableBatchedRefs()).thenReturn(false);
+    when(source.getMaxRequestDeferrals()).thenReturn(3);
+    when(httpResult.isSuccessful()).thenReturn(false);
+    when(httpResult.isParentObjectMissing()).thenReturn(false);
+    when(fetchRestApiClient.callFetch(any(), anyString(), any(), anyLong(), anyBoolean()))
+        .thenThrow(new RequestDeferredException(new URIish("http://localhost:18080"), 5000L))
+        .thenReturn(fetchHttpResult);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(event);
+
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(5000L));
+    verify(fetchRestApiClient, times(1))
+        .callFetch(any(), anyString(), any(), anyLong(), anyBoolean());
+
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient, times(3))
+        .callFetch(any(), anyString(), any(), anyLong(), anyBoolean());
+  }
+
+  @Test
+  public void shouldGiveUpTheBatchFetchWhenTheDeferralsAreExhausted() throws Exception {
+    when(source.getMaxRequestDeferrals()).thenReturn(0);
+    when(fetchRestApiClient.callBatchSendObject(any(), any(), anyLong(), any()))
+        .thenThrow(new IOException("BOOM"));
+    when(fetchRestApiClient.callBatchFetch(any(), any(), any()))
+        .thenThrow(new RequestDeferredException(new URIish("http://localhost:18080"), 5000L));
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(source, never()).scheduleDeferredCall(any(), anyLong());
+    verify(fetchRestApiClient, times(1)).callBatchFetch(any(), any(), any());
+  }
+
+  @Test
+  public void shouldPollTheAcceptedBatchSendObjectUntilCompleted() throws Exception {
+    String statusUrl = "http://localhost:18080/a/projects/test~apply-object-status?ticket=1";
+    when(source.getAsyncApplyObjectPollInterval()).thenReturn(100L);
+    when(source.getAsyncApplyObjectTimeout()).thenReturn(60000L);
+    when(batchHttpResult.isAccepted()).thenReturn(true);
+    when(batchHttpResult.getLocation()).thenReturn(Optional.of(statusUrl));
+    HttpResult pendingResult = mock(HttpResult.class);
+    when(pendingResult.isAccepted()).thenReturn(true);
+    HttpResult completedResult = mock(HttpResult.class);
+    when(completedResult.isSuccessful()).thenReturn(true);
+    when(fetchRestApiClient.callApplyObjectStatus(eq(statusUrl), any()))
+        .thenReturn(pendingResult, completedResult);
+    when(dis.get()).thenReturn(eventDispatcher);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(100L));
+    runnableCaptor.getValue().run();
+    verify(source, times(2)).scheduleDeferredCall(runnableCaptor.capture(), eq(100L));
+    verifyNoInteractions(eventDispatcher);
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient, times(2)).callApplyObjectStatus(eq(statusUrl), any());
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+    assertThat(postedFetchRefReplicatedEventStatuses())
+        .containsExactly(ReplicationState.RefFetchResult.SUCCEEDED.toString());
+  }
+
+  @Test
+  public void shouldFallbackToCallBatchFetchWhenTheAcceptedBatchSendObjectFails() throws Exception {
+    String statusUrl = "http://localhost:18080/a/projects/test~apply-object-status?ticket=1";
+    when(source.getAsyncApplyObjectPollInterval()).thenReturn(100L);
+    when(source.getAsyncApplyObjectTimeout()).thenReturn(60000L);
+    when(batchHttpResult.isAccepted()).thenReturn(true);
+    when(batchHttpResult.getLocation()).thenReturn(Optional.of(statusUrl));
+    HttpResult failedResult = mock(HttpResult.class);
+    when(fetchRestApiClient.callApplyObjectStatus(eq(statusUrl), any())).thenReturn(failedResult);
+    when(dis.get()).thenReturn(eventDispatcher);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent(TEST_REF_NAME));
+
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(100L));
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient).callBatchFetch(any(), any(), any());
+    assertThat(postedFetchRefReplicatedEventStatuses())
+        .containsExactly(ReplicationState.RefFetchResult.NOT_ATTEMPTED.toString());
+  }
+
+  @Test
+  public void shouldApplyAllParentObjectsWhenTheAcceptedBatchSendObjectMissesTheParentOnMetaRef()
+      throws Exception {
+    String statusUrl = "http://localhost:18080/a/projects/test~apply-object-status?ticket=1";
+    when(source.getAsyncApplyObjectPollInterval()).thenReturn(100L);
+    when(source.getAsyncApplyObjectTimeout()).thenReturn(60000L);
+    when(batchHttpResult.isAccepted()).thenReturn(true);
+    when(batchHttpResult.getLocation()).thenReturn(Optional.of(statusUrl));
+    HttpResult parentMissingResult = mock(HttpResult.class);
+    when(parentMissingResult.isParentObjectMissing()).thenReturn(true);
+    when(fetchRestApiClient.callApplyObjectStatus(eq(statusUrl), any()))
+        .thenReturn(parentMissingResult);
+    when(dis.get()).thenReturn(eventDispatcher);
+
+    objectUnderTest.start();
+    objectUnderTest.onEvent(generateBatchRefUpdateEvent("refs/changes/01/1/meta"));
+
+    verify(source).scheduleDeferredCall(runnableCaptor.capture(), eq(100L));
+    runnableCaptor.getValue().run();
+
+    verify(fetchRestApiClient)
+        .callSendObjects(any(), anyString(), anyLong(), revisionsDataCaptor.capture(), any());
+    assertThat(revisionsDataCaptor.getValue()).hasSize(1 + revisionDataParentObjectIds.size());
+    verify(fetchRestApiClient, never()).callBatchFetch(any(), any(), any());
+    assertThat(postedFetchRefReplicatedEventStatuses())
+        .containsExactly(ReplicationState.RefFetchResult.SUCCEEDED.toString());
+  }
+
+  private List<String> postedFetchRefReplicatedEventStatuses() throws Exception {
+    verify(eventDispatcher, atLeastOnce()).postEvent(eventCaptor.capture());
+    return eventCaptor.getAllValues().stream()
+        .filter(FetchRefReplicatedEvent.class::isInstance)
+        .map(event -> ((FetchRefReplicatedEvent) event).getStatus())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldBoundTheJitteredBackoffByTheExponentialDelay() {
+    for (int retry = 0; retry < 5; retry++) {
+      long backoff = ReplicationQueue.jitteredBackoff(100L, retry);
+      assertThat(backoff).isAtLeast(0L);
+      assertThat(backoff).isAtMost(100L << retry);
+    }
+    assertThat(ReplicationQueue.jitteredBackoff(0L, 3)).isEqualTo(0L);
+  }
+
   protected static Path createTempPath(String prefix) throws Exception {
     return createTempDirectory(prefix);
   }
 
   private BatchRefUpdateEvent generateBatchRefUpdateEvent(String... refs) {
-    return generateBatchRefEvent(OLD_OBJECT_ID, NEW_OBJECT_ID, refs);
+    return generateBatchRefUpdateEvent(PROJECT, refs);
+  }
+
+  private BatchRefUpdateEvent generateBatchRefUpdateEvent(Project.NameKey project, String... refs) {
+    return generateBatchRefEvent(project, OLD_OBJECT_ID, NEW_OBJECT_ID, refs);
   }
 
   private BatchRefUpdateEvent generateBatchCreateRefEvent(String... refs) {
-    return generateBatchRefEvent(ObjectId.zeroId().name(), NEW_OBJECT_ID, refs);
+    return generateBatchRefEvent(PROJECT, ObjectId.zeroId().name(), NEW_OBJECT_ID, refs);
   }
 
-  private BatchRefUpdateEvent generateBatchRefEvent(String oldRev, String newRev, String[] refs) {
+  private BatchRefUpdateEvent generateBatchRefEvent(
+      Project.NameKey project, String oldRev, String newRev, String[] refs) {
     List<RefUpdateAttribute> refUpdates =
         Arrays.stream(refs)
             .map(
@@ -667,7 +1058,7 @@ public class ReplicationQueueTest {
                   RefUpdateAttribute upd = new RefUpdateAttribute();
                   upd.newRev = newRev;
                   upd.oldRev = oldRev;
-                  upd.project = PROJECT.get();
+                  upd.project = project.get();
                   upd.refName = ref;
                   return upd;
                 })
@@ -675,7 +1066,7 @@ public class ReplicationQueueTest {
 
     BatchRefUpdateEvent event =
         new BatchRefUpdateEvent(
-            PROJECT, Suppliers.ofInstance(refUpdates), Suppliers.ofInstance(accountAttribute));
+            project, Suppliers.ofInstance(refUpdates), Suppliers.ofInstance(accountAttribute));
     event.instanceId = LOCAL_INSTANCE_ID;
     return event;
   }
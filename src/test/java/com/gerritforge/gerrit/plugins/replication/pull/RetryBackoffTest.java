@@ -0,0 +1,57 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class RetryBackoffTest {
+  private static final long BASE_DELAY_MS = 60000L;
+  private static final long MAX_DELAY_MS = 600000L;
+
+  @Test
+  public void shouldKeepTheRetryDelayByDefault() {
+    RetryBackoff objectUnderTest = new RetryBackoff(1, MAX_DELAY_MS, 0, () -> 0.5);
+
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 1)).isEqualTo(BASE_DELAY_MS);
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 1000)).isEqualTo(BASE_DELAY_MS);
+  }
+
+  @Test
+  public void shouldGrowTheDelayExponentiallyUpToTheMaximum() {
+    RetryBackoff objectUnderTest = new RetryBackoff(2, MAX_DELAY_MS, 0, () -> 0.5);
+
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 1)).isEqualTo(60000L);
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 2)).isEqualTo(120000L);
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 4)).isEqualTo(480000L);
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 5)).isEqualTo(MAX_DELAY_MS);
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, Integer.MAX_VALUE)).isEqualTo(MAX_DELAY_MS);
+  }
+
+  @Test
+  public void shouldNeverCapTheDelayBelowTheRetryDelay() {
+    RetryBackoff objectUnderTest = new RetryBackoff(2, BASE_DELAY_MS / 2, 0, () -> 0.5);
+
+    assertThat(objectUnderTest.delayMs(BASE_DELAY_MS, 3)).isEqualTo(BASE_DELAY_MS);
+  }
+
+  @Test
+  public void shouldShortenTheDelayByTheJitter() {
+    assertThat(new RetryBackoff(2, MAX_DELAY_MS, 50, () -> 0.0).delayMs(BASE_DELAY_MS, 2))
+        .isEqualTo(120000L);
+    assertThat(new RetryBackoff(2, MAX_DELAY_MS, 50, () -> 0.5).delayMs(BASE_DELAY_MS, 2))
+        .isEqualTo(90000L);
+    assertThat(new RetryBackoff(2, MAX_DELAY_MS, 100, () -> 0.75).delayMs(BASE_DELAY_MS, 5))
+        .isEqualTo(150000L);
+  }
+}
@@ -0,0 +1,102 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.gerritforge.gerrit.plugins.replication.pull.WaitUtil.waitUntil;
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class SharedSourcesPoolTest {
+  private static final int THREADS = 4;
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(THREADS);
+  private final SharedSourcesPool objectUnderTest = new SharedSourcesPool(executor, THREADS);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger completed = new AtomicInteger();
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldBorrowTheIdleThreadsUpToTheMaximum() throws Exception {
+    SharedSourcesPool.Quota busySource = objectUnderTest.register("busy", 1, 3);
+    objectUnderTest.register("idle", 1, 3);
+
+    scheduleBlockingTasks(busySource, 4);
+
+    waitUntil(() -> busySource.getQueuedTasks() == 1, TIMEOUT);
+    assertThat(busySource.getActiveThreads()).isEqualTo(3);
+
+    release.countDown();
+    waitUntil(() -> completed.get() == 4, TIMEOUT);
+    assertThat(busySource.getActiveThreads()).isEqualTo(0);
+    assertThat(busySource.getQueuedTasks()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldKeepTheMinimumOfTheOtherSourcesAvailable() throws Exception {
+    SharedSourcesPool.Quota busySource = objectUnderTest.register("busy", 1, 4);
+    SharedSourcesPool.Quota otherSource = objectUnderTest.register("other", 2, 4);
+
+    scheduleBlockingTasks(busySource, 4);
+    waitUntil(() -> busySource.getQueuedTasks() == 2, TIMEOUT);
+    assertThat(busySource.getActiveThreads()).isEqualTo(2);
+
+    scheduleBlockingTasks(otherSource, 2);
+    waitUntil(() -> otherSource.getActiveThreads() == 2, TIMEOUT);
+    assertThat(otherSource.getQueuedTasks()).isEqualTo(0);
+
+    release.countDown();
+    waitUntil(() -> completed.get() == 6, TIMEOUT);
+  }
+
+  @Test
+  public void shouldDiscardTheQueuedTasksWhenClosed() throws Exception {
+    SharedSourcesPool.Quota source = objectUnderTest.register("source", 1, 1);
+
+    scheduleBlockingTasks(source, 3);
+    waitUntil(() -> source.getQueuedTasks() == 2, TIMEOUT);
+
+    assertThat(source.close()).isEqualTo(2);
+    release.countDown();
+    waitUntil(() -> completed.get() == 1, TIMEOUT);
+    assertThat(source.getQueuedTasks()).isEqualTo(0);
+  }
+
+  private void scheduleBlockingTasks(SharedSourcesPool.Quota quota, int tasks) {
+    for (int i = 0; i < tasks; i++) {
+      quota.schedule(
+          () -> {
+            try {
+              release.await(TIMEOUT.getSeconds(), SECONDS);
+              completed.incrementAndGet();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          },
+          0,
+          SECONDS);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.flogger.FluentLogger;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.Test;
+
+/**
+ * Compares the blocking tasks run by a {@link VirtualThreadsPool} with the ones run by a platform
+ * threads pool of the same size. It is not part of the tests, as its outcome depends on the host:
+ * run it with {@code bazel test //plugins/pull-replication:benchmarks}.
+ */
+public class VirtualThreadsPoolBenchmark {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final Duration TIMEOUT = Duration.ofSeconds(60);
+  private static final int TASKS = 2048;
+  private static final int CONCURRENCY = 256;
+  private static final long BLOCKING_MS = 20;
+
+  @Test
+  public void runBlockingTasks() throws Exception {
+    ScheduledExecutorService platformPool = Executors.newScheduledThreadPool(CONCURRENCY);
+    Result platform =
+        run(
+            task -> platformPool.schedule(task, 0, SECONDS),
+            () -> {
+              platformPool.shutdownNow();
+              platformPool.awaitTermination(TIMEOUT.getSeconds(), SECONDS);
+            });
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    VirtualThreadsPool virtualPool =
+        new VirtualThreadsPool(scheduler, "ReplicateFrom-benchmark", CONCURRENCY);
+    Result virtual =
+        run(
+            task -> virtualPool.schedule(task, 0, SECONDS),
+            () -> {
+              virtualPool.shutdownNow();
+              scheduler.awaitTermination(TIMEOUT.getSeconds(), SECONDS);
+            });
+
+    logger.atInfo().log("Platform threads pool: %s", platform);
+    logger.atInfo().log("Virtual threads pool: %s", virtual);
+  }
+
+  private static Result run(Consumer<Runnable> scheduler, Shutdown shutdown) throws Exception {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    int platformThreadsBefore = threads.getThreadCount();
+    AtomicInteger peakPlatformThreads = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(TASKS);
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < TASKS; i++) {
+      scheduler.accept(
+          () -> {
+            try {
+              MILLISECONDS.sleep(BLOCKING_MS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            peakPlatformThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+            done.countDown();
+          });
+    }
+    assertThat(done.await(TIMEOUT.getSeconds(), SECONDS)).isTrue();
+    long elapsedMs = stopwatch.elapsed().toMillis();
+    shutdown.run();
+
+    return new Result(elapsedMs, peakPlatformThreads.get() - platformThreadsBefore);
+  }
+
+  @FunctionalInterface
+  private interface Shutdown {
+    void run() throws InterruptedException;
+  }
+
+  private static class Result {
+    final long elapsedMs;
+    final int platformThreads;
+
+    Result(long elapsedMs, int platformThreads) {
+      this.elapsedMs = elapsedMs;
+      this.platformThreads = platformThreads;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d blocking tasks in %dms (%.0f tasks/s) with %d additional platform threads",
+          TASKS, elapsedMs, TASKS * 1000.0 / Math.max(1, elapsedMs), platformThreads);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull;
+
+import static com.gerritforge.gerrit.plugins.replication.pull.WaitUtil.waitUntil;
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.Mockito.mock;
+
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.git.PerThreadRequestScope;
+import com.google.gerrit.server.util.RequestContext;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.servlet.RequestScoped;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class VirtualThreadsPoolTest {
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private final AtomicInteger completed = new AtomicInteger();
+  private VirtualThreadsPool objectUnderTest;
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if (objectUnderTest != null) {
+      objectUnderTest.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldLimitTheTasksRunningAtTheSameTime() throws Exception {
+    objectUnderTest = newVirtualThreadsPool(2);
+
+    for (int i = 0; i < 5; i++) {
+      objectUnderTest.schedule(this::blockingTask, 0, SECONDS);
+    }
+
+    waitUntil(
+        () -> objectUnderTest.getActiveThreads() == 2 && objectUnderTest.getQueuedTasks() == 3,
+        TIMEOUT);
+    release.countDown();
+    waitUntil(() -> completed.get() == 5, TIMEOUT);
+    assertThat(maxRunning.get()).isEqualTo(2);
+    assertThat(objectUnderTest.getActiveThreads()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldIsolateTheReplicationTaskIdOfEveryTask() throws Exception {
+    objectUnderTest = newVirtualThreadsPool(4);
+    Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    for (int i = 0; i < 16; i++) {
+      String taskId = "task-" + i;
+      objectUnderTest.schedule(
+          () -> {
+            if (ReplicationTaskId.get() != null) {
+              failures.add(taskId + " started with task id " + ReplicationTaskId.get());
+            }
+            try {
+              String unused =
+                  ReplicationTaskId.withTaskId(
+                      taskId,
+                      () -> {
+                        sleep(10);
+                        if (!taskId.equals(ReplicationTaskId.get())) {
+                          failures.add(taskId + " ran with task id " + ReplicationTaskId.get());
+                        }
+                        return taskId;
+                      });
+            } catch (Exception e) {
+              failures.add(taskId + " failed: " + e);
+            }
+            completed.incrementAndGet();
+          },
+          0,
+          SECONDS);
+    }
+
+    waitUntil(() -> completed.get() == 16, TIMEOUT);
+    assertThat(failures).isEmpty();
+  }
+
+  @Test
+  public void shouldRunEveryTaskOnItsOwnVirtualThread() throws Exception {
+    objectUnderTest = newVirtualThreadsPool(4);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    for (int i = 0; i < 16; i++) {
+      objectUnderTest.schedule(
+          () -> {
+            threads.add(Thread.currentThread());
+            completed.incrementAndGet();
+          },
+          0,
+          SECONDS);
+    }
+
+    waitUntil(() -> completed.get() == 16, TIMEOUT);
+    assertThat(threads).hasSize(16);
+    assertThat(threads.stream().allMatch(Thread::isVirtual)).isTrue();
+  }
+
+  @Test
+  public void shouldIsolateTheRequestScopeOfEveryTask() throws Exception {
+    objectUnderTest = newVirtualThreadsPool(4);
+    Injector injector =
+        Guice.createInjector(
+            new AbstractModule() {
+              @Override
+              protected void configure() {
+                bindScope(RequestScoped.class, PerThreadRequestScope.REQUEST);
+                bind(PerThreadRequestScope.Propagator.class);
+              }
+            });
+    PerThreadRequestScope.Propagator propagator =
+        injector.getInstance(PerThreadRequestScope.Propagator.class);
+    Provider<RequestScopedState> requestScopedState =
+        injector.getProvider(RequestScopedState.class);
+    RequestContext requestContext = () -> mock(CurrentUser.class);
+    Set<RequestScopedState> states = ConcurrentHashMap.newKeySet();
+    Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    for (int i = 0; i < 16; i++) {
+      String taskId = "task-" + i;
+      objectUnderTest.schedule(
+          () -> {
+            try {
+              RequestScopedState state =
+                  propagator
+                      .scope(
+                          requestContext,
+                          () -> {
+                            RequestScopedState scoped = requestScopedState.get();
+                            sleep(10);
+                            if (scoped != requestScopedState.get()) {
+                              failures.add(taskId + " changed request scope while running");
+                            }
+                            return scoped;
+                          })
+                      .call();
+              states.add(state);
+            } catch (Exception e) {
+              failures.add(taskId + " failed: " + e);
+            }
+            completed.incrementAndGet();
+          },
+          0,
+          SECONDS);
+    }
+
+    waitUntil(() -> completed.get() == 16, TIMEOUT);
+    assertThat(failures).isEmpty();
+    assertThat(states).hasSize(16);
+  }
+
+  private VirtualThreadsPool newVirtualThreadsPool(int maxConcurrency) {
+    return new VirtualThreadsPool(
+        Executors.newSingleThreadScheduledExecutor(), "ReplicateFrom-test", maxConcurrency);
+  }
+
+  private void blockingTask() {
+    int concurrent = running.incrementAndGet();
+    maxRunning.accumulateAndGet(concurrent, Math::max);
+    try {
+      release.await(TIMEOUT.getSeconds(), SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      running.decrementAndGet();
+      completed.incrementAndGet();
+    }
+  }
+
+  private static void sleep(long ms) {
+    try {
+      MILLISECONDS.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @RequestScoped
+  static class RequestScopedState {
+    @Inject
+    RequestScopedState() {}
+  }
+}
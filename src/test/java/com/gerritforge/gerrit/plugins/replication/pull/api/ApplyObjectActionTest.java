@@ -12,11 +12,18 @@
 package com.gerritforge.gerrit.plugins.replication.pull.api;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static org.apache.http.HttpStatus.SC_ACCEPTED;
 import static org.apache.http.HttpStatus.SC_CREATED;
+import static org.apache.http.HttpStatus.SC_OK;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
@@ -25,22 +32,34 @@ import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.RefUpdateException;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.restapi.AuthException;
 import com.google.gerrit.extensions.restapi.BadRequestException;
 import com.google.gerrit.extensions.restapi.ResourceConflictException;
 import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
 import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.UnprocessableEntityException;
 import com.google.gerrit.server.project.ProjectResource;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -49,6 +68,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 public class ApplyObjectActionTest {
 
   private static final long DUMMY_EVENT_TIMESTAMP = 1684875939;
+  private static final String STATUS_URL =
+      "http://gerrit-host/a/projects/test_projects/pull-replication~apply-object-status";
 
   ApplyObjectAction applyObjectAction;
   String label = "instance-2-label";
@@ -89,13 +110,23 @@ public class ApplyObjectActionTest {
   @Mock FetchPreconditions preConditions;
   @Mock SourcesCollection sourcesCollection;
   @Mock Source source;
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+  AsyncApplyObjectQueue asyncApplyObjectQueue;
 
   @Before
   public void setup() throws Exception {
     when(preConditions.canCallFetchApi()).thenReturn(true);
     when(sourcesCollection.getByRemoteName(label)).thenReturn(Optional.of(source));
 
-    applyObjectAction = new ApplyObjectAction(applyObjectCommand, preConditions, sourcesCollection);
+    asyncApplyObjectQueue =
+        new AsyncApplyObjectQueue(
+            MoreExecutors.newDirectExecutorService(),
+            tempFolder.getRoot().toPath(),
+            () -> applyObjectAction);
+
+    applyObjectAction =
+        new ApplyObjectAction(
+            applyObjectCommand, preConditions, sourcesCollection, asyncApplyObjectQueue);
   }
 
   @Test
@@ -237,6 +268,173 @@ public class ApplyObjectActionTest {
     applyObjectAction.apply(projectResource, inputParams);
   }
 
+  @Test
+  public void shouldAcceptTheRevisionAndReturnItsOutcomeByTicket() throws Exception {
+    Project.NameKey project = Project.nameKey("test_projects");
+    when(projectResource.getNameKey()).thenReturn(project);
+    RevisionInput inputParams =
+        new RevisionInput(label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData());
+
+    Response<?> response = applyObjectAction.applyAsync(projectResource, inputParams, STATUS_URL);
+
+    assertThat(response.statusCode()).isEqualTo(SC_ACCEPTED);
+    assertThat(((Response.Accepted) response).location()).startsWith(STATUS_URL + "?ticket=");
+    assertThat(
+            applyObjectAction
+                .getAsyncStatus(projectResource, ticketOf(response), STATUS_URL)
+                .statusCode())
+        .isEqualTo(SC_CREATED);
+    verify(applyObjectCommand)
+        .applyObject(project, refName, inputParams.getRevisionData(), label, DUMMY_EVENT_TIMESTAMP);
+  }
+
+  @Test
+  public void shouldAcceptTheBatchAndReturnItsOutcomeByTicket() throws Exception {
+    Project.NameKey project = Project.nameKey("test_projects");
+    when(projectResource.getNameKey()).thenReturn(project);
+    List<RevisionInput> inputs =
+        List.of(
+            new RevisionInput(label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()),
+            new RevisionInput(
+                label, refMetaName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()));
+
+    Response<?> response = applyObjectAction.applyBatchAsync(projectResource, inputs, STATUS_URL);
+
+    assertThat(response.statusCode()).isEqualTo(SC_ACCEPTED);
+    assertThat(
+            applyObjectAction
+                .getAsyncStatus(projectResource, ticketOf(response), STATUS_URL)
+                .statusCode())
+        .isEqualTo(SC_OK);
+    verify(applyObjectCommand).applyObject(eq(project), eq(refName), any(), eq(label), anyLong());
+    verify(applyObjectCommand)
+        .applyObject(eq(project), eq(refMetaName), any(), eq(label), anyLong());
+  }
+
+  @Test
+  public void shouldReturnTheFailureOfTheAcceptedRevisionByTicket() throws Exception {
+    Project.NameKey project = Project.nameKey("test_projects");
+    when(projectResource.getNameKey()).thenReturn(project);
+    RevisionInput inputParams =
+        new RevisionInput(label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData());
+    doThrow(new MissingParentObjectException(project, refName, ObjectId.zeroId()))
+        .when(applyObjectCommand)
+        .applyObject(any(), anyString(), any(), anyString(), anyLong());
+
+    String ticket =
+        ticketOf(applyObjectAction.applyAsync(projectResource, inputParams, STATUS_URL));
+
+    assertThrows(
+        ResourceConflictException.class,
+        () -> applyObjectAction.getAsyncStatus(projectResource, ticket, STATUS_URL));
+  }
+
+  @Test
+  public void shouldNotFindAnUnknownTicket() throws Exception {
+    when(projectResource.getNameKey()).thenReturn(Project.nameKey("test_projects"));
+
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> applyObjectAction.getAsyncStatus(projectResource, "unknown-ticket", STATUS_URL));
+  }
+
+  @Test
+  public void shouldApplyTheAcceptedRevisionsStillPendingUponRestart() throws Exception {
+    Project.NameKey project = Project.nameKey("test_projects");
+    RevisionInput inputParams =
+        new RevisionInput(label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData());
+    AsyncApplyObjectQueue stoppedQueue =
+        new AsyncApplyObjectQueue(
+            mock(ExecutorService.class), tempFolder.getRoot().toPath(), () -> applyObjectAction);
+
+    String ticket = stoppedQueue.submit(project, List.of(inputParams), false);
+    verify(applyObjectCommand, never()).applyObject(any(), anyString(), any(), any(), anyLong());
+
+    asyncApplyObjectQueue.start();
+
+    assertThat(asyncApplyObjectQueue.status(project, ticket).get().statusCode())
+        .isEqualTo(SC_CREATED);
+    verify(applyObjectCommand)
+        .applyObject(eq(project), eq(refName), any(), eq(label), eq(DUMMY_EVENT_TIMESTAMP));
+    try (Stream<Path> pendingRequests = Files.list(tempFolder.getRoot().toPath())) {
+      assertThat(pendingRequests.count()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void shouldApplyInSingleTransactionDistinctRefsFromAnAtomicBatchApplyObjectSource() {
+    when(source.isAtomicBatchApplyObject()).thenReturn(true);
+
+    assertThat(
+            applyObjectAction.canApplyInSingleTransaction(
+                List.of(
+                    new RevisionInput(
+                        label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()),
+                    new RevisionInput(
+                        label, refMetaName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()))))
+        .isTrue();
+  }
+
+  @Test
+  public void shouldNotApplyInSingleTransactionDuplicateRefs() {
+    when(source.isAtomicBatchApplyObject()).thenReturn(true);
+
+    assertThat(
+            applyObjectAction.canApplyInSingleTransaction(
+                List.of(
+                    new RevisionInput(
+                        label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()),
+                    new RevisionInput(
+                        label, refName, DUMMY_EVENT_TIMESTAMP + 1, createSampleRevisionData()))))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldNotApplyInSingleTransactionWhenAtomicBatchApplyObjectIsDisabled() {
+    when(source.isAtomicBatchApplyObject()).thenReturn(false);
+
+    assertThat(
+            applyObjectAction.canApplyInSingleTransaction(
+                List.of(
+                    new RevisionInput(
+                        label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()),
+                    new RevisionInput(
+                        label, refMetaName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()))))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldReturnTheResultOfEveryRefWhenAppliedInSingleTransaction() throws Exception {
+    List<RevisionInput> inputs =
+        List.of(
+            new RevisionInput(label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()),
+            new RevisionInput(
+                label, refMetaName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()));
+    Map<String, RefUpdate.Result> results =
+        Map.of(refName, RefUpdate.Result.FAST_FORWARD, refMetaName, RefUpdate.Result.NEW);
+    when(applyObjectCommand.batchApplyObjects(any(), eq(inputs), eq(label))).thenReturn(results);
+
+    Response<Map<String, RefUpdate.Result>> response =
+        applyObjectAction.applyInSingleTransaction(projectResource, inputs);
+
+    assertThat(response.statusCode()).isEqualTo(SC_OK);
+    assertThat(response.value()).isEqualTo(results);
+  }
+
+  @Test(expected = UnprocessableEntityException.class)
+  public void shouldThrowUnprocessableEntityExceptionWhenSingleTransactionRefUpdateFails()
+      throws Exception {
+    List<RevisionInput> inputs =
+        List.of(
+            new RevisionInput(label, refName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()),
+            new RevisionInput(
+                label, refMetaName, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData()));
+    when(applyObjectCommand.batchApplyObjects(any(), eq(inputs), eq(label)))
+        .thenThrow(new RefUpdateException(RefUpdate.Result.LOCK_FAILURE, "BOOM"));
+
+    applyObjectAction.applyInSingleTransaction(projectResource, inputs);
+  }
+
   private RevisionData createSampleRevisionData() {
     RevisionObjectData commitData =
         new RevisionObjectData(
@@ -254,4 +452,9 @@ public class ApplyObjectActionTest {
   private RevisionData createSampleRevisionDataBlob(RevisionObjectData blob) {
     return new RevisionData(Collections.emptyList(), null, null, Arrays.asList(blob));
   }
+
+  private static String ticketOf(Response<?> acceptedResponse) {
+    String statusLocation = ((Response.Accepted) acceptedResponse).location();
+    return statusLocation.substring(statusLocation.indexOf("?ticket=") + "?ticket=".length());
+  }
 }
@@ -12,9 +12,16 @@
 package com.gerritforge.gerrit.plugins.replication.pull.api;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectMetrics;
@@ -25,8 +32,10 @@ import com.gerritforge.gerrit.plugins.replication.pull.Source;
 import com.gerritforge.gerrit.plugins.replication.pull.SourcesCollection;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
 import com.gerritforge.gerrit.plugins.replication.pull.api.exception.RefUpdateException;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.ApplyObject;
+import com.gerritforge.gerrit.plugins.replication.pull.fetch.ApplyObjectGroupCommit;
 import com.gerritforge.gerrit.plugins.replication.pull.fetch.RefUpdateState;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -34,12 +43,20 @@ import com.google.common.collect.Lists;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.entities.Project.NameKey;
 import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.metrics.DisabledMetricMaker;
 import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.server.events.Event;
 import com.google.gerrit.server.events.EventDispatcher;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.transport.URIish;
 import org.junit.Before;
@@ -67,6 +84,7 @@ public class ApplyObjectCommandTest {
 
   @Mock private PullReplicationStateLogger fetchStateLog;
   @Mock private ApplyObject applyObject;
+  @Mock private ApplyObjectGroupCommit groupCommit;
   @Mock private ApplyObjectMetrics metrics;
   @Mock private DynamicItem<EventDispatcher> eventDispatcherDataItem;
   @Mock private EventDispatcher eventDispatcher;
@@ -86,13 +104,20 @@ public class ApplyObjectCommandTest {
     when(eventDispatcherDataItem.get()).thenReturn(eventDispatcher);
     when(metrics.start(anyString())).thenReturn(timetContext);
     when(timetContext.stop()).thenReturn(100L);
-    when(applyObject.apply(any(), any(), any())).thenReturn(state);
+    lenient().when(applyObject.apply(any(), any(), any())).thenReturn(state);
     when(sourceCollection.getByRemoteName(TEST_SOURCE_LABEL)).thenReturn(Optional.of(source));
     when(source.getURI(TEST_PROJECT_NAME)).thenReturn(TEST_REMOTE_URI);
 
     objectUnderTest =
         new ApplyObjectCommand(
-            fetchStateLog, applyObject, metrics, eventDispatcherDataItem, sourceCollection, cache);
+            fetchStateLog,
+            applyObject,
+            groupCommit,
+            new ApplyObjectExecutor(null, new DisabledMetricMaker()),
+            metrics,
+            eventDispatcherDataItem,
+            sourceCollection,
+            cache);
   }
 
   @Test
@@ -166,6 +191,152 @@ public class ApplyObjectCommandTest {
         .isNull();
   }
 
+  @Test
+  public void shouldNotApplyAgainAnIdenticalRequestAlreadyApplied() throws Exception {
+    RevisionData sampleRevisionData =
+        createSampleRevisionData(sampleCommitObjectId, sampleTreeObjectId);
+    for (int i = 0; i < 2; i++) {
+      objectUnderTest.applyObject(
+          TEST_PROJECT_NAME,
+          TEST_REF_NAME,
+          sampleRevisionData,
+          TEST_SOURCE_LABEL,
+          TEST_EVENT_TIMESTAMP);
+    }
+
+    verify(applyObject, times(1)).apply(any(), any(), any());
+    verify(eventDispatcher, times(1)).postEvent(any());
+    verify(metrics).incrementDuplicates();
+  }
+
+  @Test
+  public void shouldShareTheResultOfAConcurrentIdenticalRequest() throws Exception {
+    RevisionData sampleRevisionData =
+        createSampleRevisionData(sampleCommitObjectId, sampleTreeObjectId);
+    CountDownLatch applying = new CountDownLatch(1);
+    CountDownLatch applied = new CountDownLatch(1);
+    when(applyObject.apply(any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              applying.countDown();
+              applied.await();
+              return new RefUpdateState(TEST_REMOTE_NAME, RefUpdate.Result.NEW);
+            });
+    ExecutorService sources = Executors.newFixedThreadPool(2);
+    try {
+      Callable<Void> applyCall =
+          () -> {
+            objectUnderTest.applyObject(
+                TEST_PROJECT_NAME,
+                TEST_REF_NAME,
+                sampleRevisionData,
+                TEST_SOURCE_LABEL,
+                TEST_EVENT_TIMESTAMP);
+            return null;
+          };
+      Future<Void> firstRequest = sources.submit(applyCall);
+      assertThat(applying.await(5, SECONDS)).isTrue();
+      Future<Void> identicalRequest = sources.submit(applyCall);
+      verify(metrics, timeout(5000)).incrementDuplicates();
+
+      applied.countDown();
+      firstRequest.get(5, SECONDS);
+      identicalRequest.get(5, SECONDS);
+    } finally {
+      sources.shutdownNow();
+    }
+
+    verify(applyObject, times(1)).apply(any(), any(), any());
+  }
+
+  @Test
+  public void shouldApplyTheParentsOfAConcurrentIdenticalRequestWhenTheFirstOneFails()
+      throws Exception {
+    RevisionData parentRevisionData =
+        createSampleRevisionData(sampleCommitObjectId2, sampleTreeObjectId2);
+    RevisionData sampleRevisionData =
+        createSampleRevisionData(sampleCommitObjectId, sampleTreeObjectId);
+    CountDownLatch applying = new CountDownLatch(1);
+    CountDownLatch applied = new CountDownLatch(1);
+    when(applyObject.apply(any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              RevisionData[] revisionsData = invocation.getArgument(2);
+              if (revisionsData.length > 1) {
+                return new RefUpdateState(TEST_REMOTE_NAME, RefUpdate.Result.NEW);
+              }
+              applying.countDown();
+              applied.await();
+              throw new MissingParentObjectException(
+                  TEST_PROJECT_NAME, TEST_REF_NAME, ObjectId.fromString(sampleCommitObjectId2));
+            });
+    ExecutorService sources = Executors.newFixedThreadPool(2);
+    try {
+      Future<Void> firstRequest =
+          sources.submit(
+              () -> {
+                objectUnderTest.applyObject(
+                    TEST_PROJECT_NAME,
+                    TEST_REF_NAME,
+                    sampleRevisionData,
+                    TEST_SOURCE_LABEL,
+                    TEST_EVENT_TIMESTAMP);
+                return null;
+              });
+      assertThat(applying.await(5, SECONDS)).isTrue();
+      Future<Void> requestWithParents =
+          sources.submit(
+              () -> {
+                objectUnderTest.applyObjects(
+                    TEST_PROJECT_NAME,
+                    TEST_REF_NAME,
+                    new RevisionData[] {parentRevisionData, sampleRevisionData},
+                    TEST_SOURCE_LABEL,
+                    TEST_EVENT_TIMESTAMP);
+                return null;
+              });
+      verify(metrics, timeout(5000)).incrementDuplicates();
+
+      applied.countDown();
+      ExecutionException firstFailure =
+          assertThrows(ExecutionException.class, () -> firstRequest.get(5, SECONDS));
+      assertThat(firstFailure).hasCauseThat().isInstanceOf(MissingParentObjectException.class);
+      requestWithParents.get(5, SECONDS);
+    } finally {
+      sources.shutdownNow();
+    }
+
+    verify(applyObject, times(2)).apply(any(), any(), any());
+  }
+
+  @Test
+  public void shouldGroupCommitOutsideOfTheProjectSerialExecutor() throws Exception {
+    ExecutorService applyObjectPool = mock(ExecutorService.class);
+    when(groupCommit.isEnabled()).thenReturn(true);
+    when(groupCommit.apply(any(), any(), any()))
+        .thenReturn(new RefUpdateState(TEST_REMOTE_NAME, RefUpdate.Result.NEW));
+    objectUnderTest =
+        new ApplyObjectCommand(
+            fetchStateLog,
+            applyObject,
+            groupCommit,
+            new ApplyObjectExecutor(applyObjectPool, new DisabledMetricMaker()),
+            metrics,
+            eventDispatcherDataItem,
+            sourceCollection,
+            cache);
+
+    objectUnderTest.applyObject(
+        TEST_PROJECT_NAME,
+        TEST_REF_NAME,
+        createSampleRevisionData(sampleCommitObjectId, sampleTreeObjectId),
+        TEST_SOURCE_LABEL,
+        TEST_EVENT_TIMESTAMP);
+
+    verify(groupCommit).apply(any(), any(), any());
+    verifyNoInteractions(applyObjectPool);
+  }
+
   private RevisionData createSampleRevisionData(String commitObjectId, String treeObjectId) {
     RevisionObjectData commitData =
         new RevisionObjectData(commitObjectId, Constants.OBJ_COMMIT, new byte[] {});
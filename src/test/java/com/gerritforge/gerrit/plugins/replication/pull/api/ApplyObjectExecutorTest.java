@@ -0,0 +1,165 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.exception.MissingParentObjectException;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApplyObjectExecutorTest {
+  private static final Project.NameKey PROJECT_A = Project.nameKey("project-a");
+  private static final Project.NameKey PROJECT_B = Project.nameKey("project-b");
+
+  private ExecutorService pool;
+  private ExecutorService callers;
+  private ApplyObjectExecutor objectUnderTest;
+
+  @Before
+  public void setup() {
+    pool = Executors.newFixedThreadPool(2);
+    callers = Executors.newFixedThreadPool(2);
+    objectUnderTest = new ApplyObjectExecutor(pool, new DisabledMetricMaker());
+  }
+
+  @After
+  public void tearDown() {
+    callers.shutdownNow();
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void shouldExecuteInTheCallingThreadWhenDisabled() throws Exception {
+    ApplyObjectExecutor disabledExecutor = new ApplyObjectExecutor(null, new DisabledMetricMaker());
+    Thread callingThread = Thread.currentThread();
+
+    assertThat(disabledExecutor.execute(PROJECT_A, () -> Thread.currentThread()))
+        .isSameInstanceAs(callingThread);
+  }
+
+  @Test
+  public void shouldExecuteTheTasksOfTheSameProjectSerially() throws Exception {
+    CountDownLatch firstTaskStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstTask = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    Future<Integer> first =
+        callers.submit(
+            () ->
+                objectUnderTest.execute(
+                    PROJECT_A,
+                    () -> {
+                      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                      firstTaskStarted.countDown();
+                      awaitLatch(releaseFirstTask);
+                      running.decrementAndGet();
+                      return 1;
+                    }));
+    assertThat(firstTaskStarted.await(5, SECONDS)).isTrue();
+
+    Future<Integer> second =
+        callers.submit(
+            () ->
+                objectUnderTest.execute(
+                    PROJECT_A,
+                    () -> {
+                      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                      running.decrementAndGet();
+                      return 2;
+                    }));
+    while (objectUnderTest.queueDepth(PROJECT_A) == 0) {
+      Thread.sleep(10L);
+    }
+    assertThat(objectUnderTest.queueDepth(PROJECT_A)).isEqualTo(1);
+
+    releaseFirstTask.countDown();
+
+    assertThat(first.get(5, SECONDS)).isEqualTo(1);
+    assertThat(second.get(5, SECONDS)).isEqualTo(2);
+    assertThat(maxRunning.get()).isEqualTo(1);
+    assertThat(objectUnderTest.queueDepth(PROJECT_A)).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldExecuteTheTasksOfDifferentProjectsInParallel() throws Exception {
+    CyclicBarrier bothProjectsRunning = new CyclicBarrier(2);
+
+    Future<Integer> projectA =
+        callers.submit(
+            () ->
+                objectUnderTest.execute(
+                    PROJECT_A,
+                    () -> {
+                      awaitBarrier(bothProjectsRunning);
+                      return 1;
+                    }));
+    Future<Integer> projectB =
+        callers.submit(
+            () ->
+                objectUnderTest.execute(
+                    PROJECT_B,
+                    () -> {
+                      awaitBarrier(bothProjectsRunning);
+                      return 2;
+                    }));
+
+    assertThat(projectA.get(5, SECONDS)).isEqualTo(1);
+    assertThat(projectB.get(5, SECONDS)).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldPropagateTheTaskFailure() throws Exception {
+    MissingParentObjectException failure =
+        new MissingParentObjectException(PROJECT_A, "refs/heads/master", "target-instance");
+
+    MissingParentObjectException e =
+        assertThrows(
+            MissingParentObjectException.class,
+            () ->
+                objectUnderTest.execute(
+                    PROJECT_A,
+                    () -> {
+                      throw failure;
+                    }));
+
+    assertThat(e).isSameInstanceAs(failure);
+  }
+
+  private static void awaitLatch(CountDownLatch latch) {
+    try {
+      latch.await(5, SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void awaitBarrier(CyclicBarrier barrier) {
+    try {
+      barrier.await(5, SECONDS);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
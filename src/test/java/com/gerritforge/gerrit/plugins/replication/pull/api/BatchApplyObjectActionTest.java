@@ -27,8 +27,10 @@ import com.google.gerrit.extensions.restapi.RestApiException;
 import com.google.gerrit.server.project.ProjectResource;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -197,6 +199,28 @@ public class BatchApplyObjectActionTest {
     }
   }
 
+  @Test
+  public void shouldApplyAllRevisionsInSingleTransactionWhenPossible() throws RestApiException {
+    RevisionInput first =
+        new RevisionInput(LABEL, REF_NAME, DUMMY_EVENT_TIMESTAMP, createSampleRevisionData());
+    RevisionInput second =
+        new RevisionInput(LABEL, "foo", DUMMY_EVENT_TIMESTAMP, createSampleRevisionData());
+    List<RevisionInput> inputs = List.of(first, second);
+    Map<String, RefUpdate.Result> results =
+        Map.of(REF_NAME, RefUpdate.Result.FAST_FORWARD, "foo", RefUpdate.Result.NEW);
+
+    when(applyObjectAction.canApplyInSingleTransaction(inputs)).thenReturn(true);
+    when(applyObjectAction.applyInSingleTransaction(projectResource, inputs))
+        .thenReturn(Response.ok(results));
+
+    Response<?> response = batchApplyObjectAction.apply(projectResource, inputs);
+
+    assertThat(response.statusCode()).isEqualTo(SC_OK);
+    assertThat(response.value()).isEqualTo(results);
+    verify(applyObjectAction, never()).apply(projectResource, first);
+    verify(applyObjectAction, never()).apply(projectResource, second);
+  }
+
   private RevisionData createSampleRevisionData() {
     RevisionObjectData commitData =
         new RevisionObjectData(
@@ -0,0 +1,133 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectResult;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionInput;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.util.Providers;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MultiProjectBatchApplyObjectActionTest {
+  private static final String LABEL = "instance-2-label";
+  private static final String REF_NAME = "refs/heads/master";
+  private static final long DUMMY_EVENT_TIMESTAMP = 1684875939;
+  private static final String PROJECT_A = "project-a";
+  private static final String PROJECT_B = "project-b";
+
+  @Mock private BatchApplyObjectAction batchApplyObjectAction;
+  @Mock private FetchPreconditions preConditions;
+  @Mock private ProjectCache projectCache;
+  @Mock private ProjectState projectState;
+  @Mock private CurrentUser currentUser;
+
+  private MultiProjectBatchApplyObjectAction objectUnderTest;
+  private List<RevisionInput> inputs;
+
+  @Before
+  public void setup() {
+    inputs = List.of(new RevisionInput(LABEL, REF_NAME, DUMMY_EVENT_TIMESTAMP, null));
+    when(preConditions.canCallFetchApi()).thenReturn(true);
+    objectUnderTest =
+        new MultiProjectBatchApplyObjectAction(
+            batchApplyObjectAction, preConditions, projectCache, Providers.of(currentUser));
+  }
+
+  @Test
+  public void shouldApplyEveryProjectAndReturnAResultForEach() throws Exception {
+    when(projectCache.get(any())).thenReturn(Optional.of(projectState));
+    when(batchApplyObjectAction.apply(any(), eq(inputs)))
+        .thenAnswer((Answer<Response<?>>) invocation -> Response.ok(List.of()));
+
+    Response<Map<String, ProjectBatchApplyObjectResult>> response =
+        objectUnderTest.apply(projectInputs(PROJECT_A, PROJECT_B));
+
+    assertThat(response.statusCode()).isEqualTo(SC_OK);
+    assertThat(response.value().keySet()).containsExactly(PROJECT_A, PROJECT_B).inOrder();
+    assertThat(response.value().get(PROJECT_A).getStatusCode()).isEqualTo(SC_OK);
+    assertThat(response.value().get(PROJECT_B).getStatusCode()).isEqualTo(SC_OK);
+  }
+
+  @Test
+  public void shouldReportTheMissingProjectsWithoutFailingTheOthers() throws Exception {
+    when(projectCache.get(Project.nameKey(PROJECT_A))).thenReturn(Optional.empty());
+    when(projectCache.get(Project.nameKey(PROJECT_B))).thenReturn(Optional.of(projectState));
+    when(batchApplyObjectAction.apply(any(), eq(inputs)))
+        .thenAnswer((Answer<Response<?>>) invocation -> Response.ok(List.of()));
+
+    Map<String, ProjectBatchApplyObjectResult> results =
+        objectUnderTest.apply(projectInputs(PROJECT_A, PROJECT_B)).value();
+
+    assertThat(results.get(PROJECT_A).getStatusCode()).isEqualTo(SC_NOT_FOUND);
+    assertThat(results.get(PROJECT_A).getMessage()).contains("Not found: " + PROJECT_A);
+    assertThat(results.get(PROJECT_B).getStatusCode()).isEqualTo(SC_OK);
+  }
+
+  @Test
+  public void shouldMapTheProjectFailuresToTheirStatusCode() throws Exception {
+    when(projectCache.get(any())).thenReturn(Optional.of(projectState));
+    when(batchApplyObjectAction.apply(any(ProjectResource.class), eq(inputs)))
+        .thenThrow(new ResourceConflictException("BOOM"));
+
+    Map<String, ProjectBatchApplyObjectResult> results =
+        objectUnderTest.apply(projectInputs(PROJECT_A)).value();
+
+    assertThat(results.get(PROJECT_A).getStatusCode()).isEqualTo(SC_CONFLICT);
+    assertThat(results.get(PROJECT_A).getMessage()).isEqualTo("BOOM");
+  }
+
+  @Test
+  public void shouldFailWhenNotAllowedToCallFetchApi() throws RestApiException {
+    when(preConditions.canCallFetchApi()).thenReturn(false);
+
+    assertThrows(AuthException.class, () -> objectUnderTest.apply(projectInputs(PROJECT_A)));
+
+    verify(batchApplyObjectAction, never()).apply(any(), any());
+  }
+
+  private Map<String, List<RevisionInput>> projectInputs(String... projects) {
+    Map<String, List<RevisionInput>> projectInputs = new LinkedHashMap<>();
+    for (String project : projects) {
+      projectInputs.put(project, inputs);
+    }
+    return projectInputs;
+  }
+}
@@ -12,10 +12,15 @@
 package com.gerritforge.gerrit.plugins.replication.pull.api;
 
 import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.gerrit.httpd.restapi.RestApiServlet.SC_UNPROCESSABLE_ENTITY;
 import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.atLeastOnce;
@@ -40,7 +45,11 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import javax.servlet.AsyncContext;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
@@ -61,6 +70,7 @@ public class PullReplicationFilterTest {
   @Mock private ApplyObjectAction applyObjectAction;
   @Mock private ApplyObjectsAction applyObjectsAction;
   @Mock private BatchApplyObjectAction batchApplyObjectAction;
+  @Mock private MultiProjectBatchApplyObjectAction multiProjectBatchApplyObjectAction;
   @Mock private ProjectInitializationAction projectInitializationAction;
   @Mock private UpdateHeadAction updateHEADAction;
   @Mock private ProjectDeletionAction projectDeletionAction;
@@ -70,6 +80,8 @@ public class PullReplicationFilterTest {
   @Mock private PrintWriter printWriter;
   @Mock private IdentifiedUser identifiedUserMock;
   @Mock private AnonymousUser anonymousUserMock;
+  @Mock private AsyncRequestExecutor asyncRequestExecutor;
+  @Mock private AsyncContext asyncContext;
   private final String PLUGIN_NAME = "pull-replication";
   private final String PROJECT_NAME = "some-project";
   private final String PROJECT_NAME_GIT = "some-project.git";
@@ -86,6 +98,8 @@ public class PullReplicationFilterTest {
 
   private final String BATCH_APPLY_OBJECT_URI =
       String.format("any-prefix/projects/%s/%s~batch-apply-object", PROJECT_NAME, PLUGIN_NAME);
+  private final String MULTI_PROJECT_BATCH_APPLY_OBJECT_URI =
+      String.format("any-prefix/%s/multi-project-batch-apply-object", PLUGIN_NAME);
   private final String DELETE_PROJECT_URI =
       String.format("any-prefix/projects/%s/%s~delete-project", PROJECT_NAME, PLUGIN_NAME);
   private final String INIT_PROJECT_URI =
@@ -93,6 +107,8 @@ public class PullReplicationFilterTest {
 
   private final Response OK_RESPONSE = Response.ok();
 
+  private RequestAdmissionControl admissionControl = new RequestAdmissionControl(0, 0, 1L);
+
   private PullReplicationFilter createPullReplicationFilter() {
     return createPullReplicationFilter(identifiedUserMock);
   }
@@ -104,12 +120,15 @@ public class PullReplicationFilterTest {
         applyObjectAction,
         applyObjectsAction,
         batchApplyObjectAction,
+        multiProjectBatchApplyObjectAction,
         projectInitializationAction,
         updateHEADAction,
         projectDeletionAction,
         projectCache,
         PLUGIN_NAME,
-        Providers.of(currentUser));
+        Providers.of(currentUser),
+        asyncRequestExecutor,
+        admissionControl);
   }
 
   private void defineBehaviours(byte[] payload, String uri) throws Exception {
@@ -214,6 +233,103 @@ public class PullReplicationFilterTest {
     verify(applyObjectsAction).apply(any(ProjectResource.class), any());
   }
 
+  @Test
+  public void shouldProcessApplyObjectActionAsynchronouslyWhenEnabled() throws Exception {
+    byte[] payloadApplyObject =
+        ("{\"label\":\"Replication\",\"ref_name\":\"refs/heads/master\","
+                + "\"revision_data\":{"
+                + "\"commit_object\":{\"type\":1,\"content\":\"some-content\"},"
+                + "\"tree_object\":{\"type\":2,\"content\":\"some-content\"},"
+                + "\"blobs\":[]}"
+                + "}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    defineBehaviours(payloadApplyObject, APPLY_OBJECT_URI);
+    when(asyncRequestExecutor.isEnabled()).thenReturn(true);
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync(request, response)).thenReturn(asyncContext);
+    doAnswer(
+            invocation -> {
+              invocation.<Runnable>getArgument(0).run();
+              return null;
+            })
+        .when(asyncRequestExecutor)
+        .execute(any());
+    when(applyObjectAction.apply(any(), any())).thenReturn(OK_RESPONSE);
+
+    PullReplicationFilter pullReplicationFilter = createPullReplicationFilter();
+    pullReplicationFilter.doFilter(request, response, filterChain);
+
+    verifyBehaviours();
+    verify(applyObjectAction).apply(any(ProjectResource.class), any());
+    verify(asyncContext).complete();
+  }
+
+  @Test
+  public void shouldProcessInTheServletThreadWhenTheAsynchronousExecutionIsRejected()
+      throws Exception {
+    byte[] payloadApplyObject =
+        ("{\"label\":\"Replication\",\"ref_name\":\"refs/heads/master\","
+                + "\"revision_data\":{"
+                + "\"commit_object\":{\"type\":1,\"content\":\"some-content\"},"
+                + "\"tree_object\":{\"type\":2,\"content\":\"some-content\"},"
+                + "\"blobs\":[]}"
+                + "}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    defineBehaviours(payloadApplyObject, APPLY_OBJECT_URI);
+    when(asyncRequestExecutor.isEnabled()).thenReturn(true);
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync(request, response)).thenReturn(asyncContext);
+    doThrow(new RejectedExecutionException()).when(asyncRequestExecutor).execute(any());
+    when(applyObjectAction.apply(any(), any())).thenReturn(OK_RESPONSE);
+
+    PullReplicationFilter pullReplicationFilter = createPullReplicationFilter();
+    pullReplicationFilter.doFilter(request, response, filterChain);
+
+    verifyBehaviours();
+    verify(applyObjectAction).apply(any(ProjectResource.class), any());
+    verify(asyncContext).complete();
+  }
+
+  @Test
+  public void shouldBe429WhenTheProjectHasTooManyConcurrentRequests() throws Exception {
+    admissionControl = new RequestAdmissionControl(0, 1, 10L);
+    Optional<RequestAdmissionControl.Permit> inFlightRequest =
+        admissionControl.tryAcquire(Optional.of(PROJECT_NAME));
+    assertThat(inFlightRequest.isPresent()).isTrue();
+    when(request.getRequestURI()).thenReturn(APPLY_OBJECT_URI);
+    when(response.getOutputStream()).thenReturn(outputStream);
+
+    PullReplicationFilter pullReplicationFilter = createPullReplicationFilter();
+    pullReplicationFilter.doFilter(request, response, filterChain);
+
+    verify(response).setHeader("Retry-After", "10");
+    verify(response).setStatus(RequestAdmissionControl.SC_TOO_MANY_REQUESTS);
+    verify(applyObjectAction, never()).apply(any(), any());
+  }
+
+  @Test
+  public void shouldAdmitTheRequestsAgainWhenTheInFlightRequestsComplete() throws Exception {
+    admissionControl = new RequestAdmissionControl(1, 0, 10L);
+    byte[] payloadFetch =
+        ("{"
+                + "\"label\":\"Replication\", "
+                + "\"ref_name\": \"refs/heads/master\", "
+                + "\"async\":false"
+                + "}")
+            .getBytes(StandardCharsets.UTF_8);
+    defineBehaviours(payloadFetch, FETCH_URI);
+    when(fetchAction.apply(any(ProjectResource.class), any(FetchAction.Input.class)))
+        .thenReturn(OK_RESPONSE);
+
+    PullReplicationFilter pullReplicationFilter = createPullReplicationFilter();
+    pullReplicationFilter.doFilter(request, response, filterChain);
+
+    verifyBehaviours();
+    assertThat(admissionControl.tryAcquire(Optional.empty()).isPresent()).isTrue();
+  }
+
   @Test
   public void shouldFilterProjectInitializationAction() throws Exception {
 
@@ -420,4 +536,36 @@ public class PullReplicationFilterTest {
     verifyBehaviours();
     verify(batchApplyObjectAction).apply(any(ProjectResource.class), any());
   }
+
+  @Test
+  public void shouldFilterMultiProjectBatchApplyObjectAction() throws Exception {
+    String revisionInput =
+        "[{\"label\":\"Replication\",\"ref_name\":\"refs/heads/foo\","
+            + "\"revision_data\":{"
+            + "\"commit_object\":{\"type\":1,\"content\":\"some-content\"},"
+            + "\"tree_object\":{\"type\":2,\"content\":\"some-content\"},"
+            + "\"blobs\":[]}"
+            + "}]";
+    byte[] payloadMultiProjectBatchApplyObject =
+        ("{\"some-project\":" + revisionInput + ",\"another-project\":" + revisionInput + "}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    when(request.getRequestURI()).thenReturn(MULTI_PROJECT_BATCH_APPLY_OBJECT_URI);
+    when(request.getMethod()).thenReturn("POST");
+    when(request.getReader())
+        .thenReturn(
+            new BufferedReader(
+                new InputStreamReader(
+                    new ByteArrayInputStream(payloadMultiProjectBatchApplyObject))));
+    when(response.getWriter()).thenReturn(printWriter);
+    when(multiProjectBatchApplyObjectAction.apply(any())).thenReturn(Response.ok(Map.of()));
+
+    PullReplicationFilter pullReplicationFilter = createPullReplicationFilter();
+    pullReplicationFilter.doFilter(request, response, filterChain);
+
+    verify(multiProjectBatchApplyObjectAction)
+        .apply(
+            argThat(inputs -> inputs.keySet().equals(Set.of("some-project", "another-project"))));
+    verify(response).setStatus(HttpServletResponse.SC_OK);
+  }
 }
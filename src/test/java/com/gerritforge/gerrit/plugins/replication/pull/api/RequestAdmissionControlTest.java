@@ -0,0 +1,73 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Optional;
+import org.junit.Test;
+
+public class RequestAdmissionControlTest {
+  private static final Optional<String> PROJECT = Optional.of("some-project");
+  private static final Optional<String> ANOTHER_PROJECT = Optional.of("another-project");
+
+  @Test
+  public void shouldAdmitAllTheRequestsWhenNotLimited() {
+    RequestAdmissionControl objectUnderTest = new RequestAdmissionControl(0, 0, 1L);
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isTrue();
+    }
+    assertThat(objectUnderTest.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void shouldRejectTheRequestsAboveTheGlobalLimit() {
+    RequestAdmissionControl objectUnderTest = new RequestAdmissionControl(2, 0, 1L);
+
+    assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isTrue();
+    assertThat(objectUnderTest.tryAcquire(Optional.empty()).isPresent()).isTrue();
+    assertThat(objectUnderTest.tryAcquire(ANOTHER_PROJECT).isPresent()).isFalse();
+  }
+
+  @Test
+  public void shouldRejectTheRequestsAboveTheProjectLimitOnlyForThatProject() {
+    RequestAdmissionControl objectUnderTest = new RequestAdmissionControl(0, 1, 1L);
+
+    assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isTrue();
+    assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isFalse();
+    assertThat(objectUnderTest.tryAcquire(ANOTHER_PROJECT).isPresent()).isTrue();
+    assertThat(objectUnderTest.tryAcquire(Optional.empty()).isPresent()).isTrue();
+  }
+
+  @Test
+  public void shouldAdmitTheRequestsAgainWhenThePermitsAreClosed() {
+    RequestAdmissionControl objectUnderTest = new RequestAdmissionControl(1, 1, 1L);
+
+    Optional<RequestAdmissionControl.Permit> permit = objectUnderTest.tryAcquire(PROJECT);
+    assertThat(objectUnderTest.tryAcquire(ANOTHER_PROJECT).isPresent()).isFalse();
+    permit.get().close();
+
+    assertThat(objectUnderTest.getInFlight(PROJECT.get())).isEqualTo(0);
+    assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isTrue();
+  }
+
+  @Test
+  public void shouldNotLeakTheGlobalPermitWhenTheProjectLimitIsReached() {
+    RequestAdmissionControl objectUnderTest = new RequestAdmissionControl(2, 1, 1L);
+
+    assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isTrue();
+    assertThat(objectUnderTest.tryAcquire(PROJECT).isPresent()).isFalse();
+
+    assertThat(objectUnderTest.tryAcquire(ANOTHER_PROJECT).isPresent()).isTrue();
+  }
+}
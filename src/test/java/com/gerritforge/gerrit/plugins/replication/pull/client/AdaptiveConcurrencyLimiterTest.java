@@ -0,0 +1,140 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.client;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.testing.FakeTicker;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+  private static final int MIN_LIMIT = 1;
+  private static final int MAX_LIMIT = 4;
+  private static final long LATENCY_THRESHOLD_MS = 1000L;
+  private static final long FAST_CALL_NANOS = MILLISECONDS.toNanos(10L);
+  private static final long SLOW_CALL_NANOS = MILLISECONDS.toNanos(LATENCY_THRESHOLD_MS + 1);
+
+  private FakeTicker ticker;
+  private AdaptiveConcurrencyLimiter objectUnderTest;
+
+  @Before
+  public void setup() {
+    ticker = new FakeTicker();
+    objectUnderTest =
+        new AdaptiveConcurrencyLimiter(
+            "http://gerrit-host", MIN_LIMIT, MAX_LIMIT, LATENCY_THRESHOLD_MS, ticker);
+  }
+
+  @Test
+  public void shouldStartFromTheMaxLimit() {
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MAX_LIMIT);
+    assertThat(objectUnderTest.getInFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldRejectWhenTheLimitIsReached() {
+    for (int i = 0; i < MAX_LIMIT; i++) {
+      assertThat(objectUnderTest.tryAcquire()).isTrue();
+    }
+
+    assertThat(objectUnderTest.tryAcquire()).isFalse();
+    assertThat(objectUnderTest.getInFlight()).isEqualTo(MAX_LIMIT);
+    assertThat(objectUnderTest.getRejected()).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldTimeoutWaitingForAPermit() throws Exception {
+    for (int i = 0; i < MAX_LIMIT; i++) {
+      objectUnderTest.tryAcquire();
+    }
+
+    assertThat(objectUnderTest.acquire(1L)).isFalse();
+    assertThat(objectUnderTest.getRejected()).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldAcquireAfterAPermitIsReleased() throws Exception {
+    for (int i = 0; i < MAX_LIMIT; i++) {
+      objectUnderTest.tryAcquire();
+    }
+    objectUnderTest.release(FAST_CALL_NANOS, false);
+
+    assertThat(objectUnderTest.acquire(1L)).isTrue();
+    assertThat(objectUnderTest.getInFlight()).isEqualTo(MAX_LIMIT);
+  }
+
+  @Test
+  public void shouldHalveTheLimitWhenTheTargetIsOverloaded() {
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(FAST_CALL_NANOS, true);
+
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MAX_LIMIT / 2);
+  }
+
+  @Test
+  public void shouldHalveTheLimitWhenTheCallIsSlow() {
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(SLOW_CALL_NANOS, false);
+
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MAX_LIMIT / 2);
+  }
+
+  @Test
+  public void shouldBackOffOnlyOncePerLatencyThresholdInterval() {
+    objectUnderTest.tryAcquire();
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(SLOW_CALL_NANOS, false);
+    objectUnderTest.release(SLOW_CALL_NANOS, false);
+
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MAX_LIMIT / 2);
+
+    ticker.advance(Duration.ofMillis(LATENCY_THRESHOLD_MS));
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(SLOW_CALL_NANOS, false);
+
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MAX_LIMIT / 4);
+  }
+
+  @Test
+  public void shouldNeverGoBelowTheMinLimit() {
+    for (int i = 0; i < 10; i++) {
+      objectUnderTest.tryAcquire();
+      objectUnderTest.release(SLOW_CALL_NANOS, true);
+      ticker.advance(Duration.ofMillis(LATENCY_THRESHOLD_MS));
+    }
+
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MIN_LIMIT);
+    assertThat(objectUnderTest.tryAcquire()).isTrue();
+  }
+
+  @Test
+  public void shouldIncreaseTheLimitAdditivelyUpToTheMaxLimit() {
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(SLOW_CALL_NANOS, true);
+    assertThat(objectUnderTest.getLimit()).isEqualTo(2);
+
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(FAST_CALL_NANOS, false);
+    objectUnderTest.tryAcquire();
+    objectUnderTest.release(FAST_CALL_NANOS, false);
+    assertThat(objectUnderTest.getLimit()).isEqualTo(2);
+
+    for (int i = 0; i < 100; i++) {
+      objectUnderTest.tryAcquire();
+      objectUnderTest.release(FAST_CALL_NANOS, false);
+    }
+    assertThat(objectUnderTest.getLimit()).isEqualTo(MAX_LIMIT);
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.client;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.gerritforge.gerrit.plugins.replication.pull.client.CircuitBreaker.State;
+import com.google.common.testing.FakeTicker;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+  private static final int FAILURE_THRESHOLD = 3;
+  private static final long OPEN_INTERVAL_MS = 1000L;
+
+  private FakeTicker ticker;
+  private CircuitBreaker objectUnderTest;
+
+  @Before
+  public void setup() {
+    ticker = new FakeTicker();
+    objectUnderTest =
+        new CircuitBreaker("http://gerrit-host", FAILURE_THRESHOLD, OPEN_INTERVAL_MS, ticker);
+  }
+
+  @Test
+  public void shouldAllowRequestsWhenClosed() {
+    assertThat(objectUnderTest.getState()).isEqualTo(State.CLOSED);
+    assertThat(objectUnderTest.allowRequest()).isTrue();
+  }
+
+  @Test
+  public void shouldTripOpenAfterConsecutiveFailures() {
+    assertThat(objectUnderTest.recordFailure()).isFalse();
+    assertThat(objectUnderTest.recordFailure()).isFalse();
+    assertThat(objectUnderTest.recordFailure()).isTrue();
+
+    assertThat(objectUnderTest.getState()).isEqualTo(State.OPEN);
+    assertThat(objectUnderTest.allowRequest()).isFalse();
+  }
+
+  @Test
+  public void shouldResetFailuresOnSuccess() {
+    objectUnderTest.recordFailure();
+    objectUnderTest.recordFailure();
+    objectUnderTest.recordSuccess();
+
+    assertThat(objectUnderTest.recordFailure()).isFalse();
+    assertThat(objectUnderTest.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  public void shouldTripOnlyOnceWhileOpen() {
+    tripOpen();
+
+    assertThat(objectUnderTest.recordFailure()).isFalse();
+    assertThat(objectUnderTest.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void shouldRejectRequestsWhileHalfOpen() {
+    tripOpen();
+
+    assertThat(objectUnderTest.tryHalfOpen()).isTrue();
+    assertThat(objectUnderTest.tryHalfOpen()).isFalse();
+    assertThat(objectUnderTest.getState()).isEqualTo(State.HALF_OPEN);
+    assertThat(objectUnderTest.allowRequest()).isFalse();
+  }
+
+  @Test
+  public void shouldCloseWhenProbeSucceeds() {
+    tripOpen();
+    objectUnderTest.tryHalfOpen();
+
+    objectUnderTest.recordSuccess();
+
+    assertThat(objectUnderTest.getState()).isEqualTo(State.CLOSED);
+    assertThat(objectUnderTest.allowRequest()).isTrue();
+  }
+
+  @Test
+  public void shouldTripOpenAgainWhenProbeFails() {
+    tripOpen();
+    objectUnderTest.tryHalfOpen();
+
+    assertThat(objectUnderTest.recordFailure()).isTrue();
+    assertThat(objectUnderTest.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void shouldNotHalfOpenWhenClosed() {
+    assertThat(objectUnderTest.tryHalfOpen()).isFalse();
+    assertThat(objectUnderTest.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  public void shouldReportOpenDuration() {
+    tripOpen();
+    ticker.advance(Duration.ofMillis(OPEN_INTERVAL_MS));
+
+    assertThat(objectUnderTest.toString())
+        .isEqualTo("http://gerrit-host OPEN (failures=3, open for 1000 ms)");
+  }
+
+  private void tripOpen() {
+    for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+      objectUnderTest.recordFailure();
+    }
+  }
+}
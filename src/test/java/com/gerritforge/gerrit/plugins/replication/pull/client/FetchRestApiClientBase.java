@@ -11,26 +11,39 @@
 
 package com.gerritforge.gerrit.plugins.replication.pull.client;
 
+import static com.gerritforge.gerrit.plugins.replication.pull.api.RequestAdmissionControl.SC_TOO_MANY_REQUESTS;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
+import static javax.servlet.http.HttpServletResponse.SC_CREATED;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.gerritforge.gerrit.plugins.replication.pull.BearerTokenProvider;
+import com.gerritforge.gerrit.plugins.replication.pull.ReplicationQueueMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
 import com.gerritforge.gerrit.plugins.replication.pull.api.FetchAction.RefInput;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.BatchApplyObjectData;
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.ProjectBatchApplyObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionObjectData;
 import com.gerritforge.gerrit.plugins.replication.pull.filter.SyncRefsFilter;
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.io.CharStreams;
 import com.google.common.net.MediaType;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.metrics.DisabledMetricMaker;
 import com.googlesource.gerrit.plugins.replication.CredentialsFactory;
 import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
 import java.io.InputStreamReader;
@@ -38,16 +51,24 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.storage.file.FileBasedConfig;
 import org.eclipse.jgit.transport.CredentialsProvider;
@@ -70,10 +91,14 @@ public abstract class FetchRestApiClientBase {
   @Mock ReplicationConfig replicationConfig;
   @Mock Source source;
   @Mock BearerTokenProvider bearerTokenProvider;
+  ReplicationQueueMetrics queueMetrics =
+      new ReplicationQueueMetrics("pull-replication", new DisabledMetricMaker());
   @Captor ArgumentCaptor<HttpPost> httpPostCaptor;
   @Captor ArgumentCaptor<HttpPut> httpPutCaptor;
   @Captor ArgumentCaptor<HttpDelete> httpDeleteCaptor;
   String api = "http://gerrit-host";
+  static final String STATUS_URL =
+      "http://gerrit-host/a/projects/test_repo/pull-replication~apply-object-status";
   String pluginName = "pull-replication";
   String instanceId = "Replication";
   String refName = RefNames.REFS_HEADS + "master";
@@ -226,6 +251,7 @@ public abstract class FetchRestApiClientBase {
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
 
     objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api));
@@ -251,6 +277,7 @@ public abstract class FetchRestApiClientBase {
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
 
     String testRef = RefNames.REFS_HEADS + "test";
@@ -291,6 +318,7 @@ public abstract class FetchRestApiClientBase {
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
 
     objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api));
@@ -325,6 +353,7 @@ public abstract class FetchRestApiClientBase {
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
 
     objectUnderTest.callBatchFetch(
@@ -386,6 +415,7 @@ public abstract class FetchRestApiClientBase {
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
     objectUnderTest.callBatchFetch(Project.nameKey("test_repo"), refs, new URIish(api));
 
@@ -455,6 +485,67 @@ public abstract class FetchRestApiClientBase {
     assertAuthentication(httpPost);
   }
 
+  @Test
+  public void shouldReturnTheStatusLocationWhenTheAsyncApplyObjectIsAccepted() throws Exception {
+    when(source.isAsyncApplyObject()).thenReturn(true);
+    HttpResponse accepted = httpResponse(SC_ACCEPTED, "");
+    accepted.setHeader("Location", STATUS_URL + "?ticket=ticket-1");
+    when(httpClient.execute(any(HttpRequestBase.class), any()))
+        .thenAnswer(
+            invocation ->
+                invocation.<ResponseHandler<HttpResult>>getArgument(1).handleResponse(accepted));
+
+    HttpResult result =
+        objectUnderTest.callSendObject(
+            Project.nameKey("test_repo"),
+            refName,
+            eventCreatedOn,
+            IS_REF_UPDATE,
+            createSampleRevisionData(),
+            new URIish(api));
+
+    assertThat(result.isAccepted()).isTrue();
+    assertThat(result.getLocation()).hasValue(STATUS_URL + "?ticket=ticket-1");
+    verify(httpClient, times(1)).execute(httpPostCaptor.capture(), any());
+    assertThat(httpPostCaptor.getValue().getURI().getQuery()).isEqualTo("async=true");
+  }
+
+  @Test
+  public void shouldSendTheBatchApplyObjectAsynchronouslyWhenEnabled() throws Exception {
+    when(source.isAsyncApplyObject()).thenReturn(true);
+    List<BatchApplyObjectData> batchApplyObjects =
+        List.of(
+            BatchApplyObjectData.newUpdateRef(refName, Optional.of(createSampleRevisionData("a"))));
+
+    objectUnderTest.callBatchSendObject(
+        Project.nameKey("test_repo"), batchApplyObjects, eventCreatedOn, new URIish(api));
+
+    verify(httpClient, times(1)).execute(httpPostCaptor.capture(), any());
+    HttpPost httpPost = httpPostCaptor.getValue();
+    assertThat(httpPost.getURI().getPath())
+        .isEqualTo(
+            String.format(
+                "%s/projects/test_repo/pull-replication~batch-apply-object",
+                urlAuthenticationPrefix()));
+    assertThat(httpPost.getURI().getQuery()).isEqualTo("async=true");
+  }
+
+  @Test
+  public void shouldQueryTheApplyObjectStatusAtTheAcceptedLocation() throws Exception {
+    objectUnderTest.callApplyObjectStatus(
+        "/a/projects/test_repo/pull-replication~apply-object-status?ticket=ticket-1",
+        new URIish(api));
+
+    ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+    verify(httpClient, times(1)).execute(request.capture(), any());
+    assertThat(request.getValue().getMethod()).isEqualTo("GET");
+    assertThat(request.getValue().getURI().toString())
+        .isEqualTo(
+            "http://gerrit-host/a/projects/test_repo/pull-replication~apply-object-status"
+                + "?ticket=ticket-1");
+    assertAuthentication(request.getValue());
+  }
+
   @Test
   public void shouldCallSendObjectEndpointWithPayload() throws Exception {
 
@@ -497,6 +588,7 @@ public abstract class FetchRestApiClientBase {
                 pluginName,
                 null,
                 bearerTokenProvider,
+                queueMetrics,
                 source));
   }
 
@@ -513,6 +605,7 @@ public abstract class FetchRestApiClientBase {
                 pluginName,
                 " ",
                 bearerTokenProvider,
+                queueMetrics,
                 source));
   }
 
@@ -529,6 +622,7 @@ public abstract class FetchRestApiClientBase {
                 pluginName,
                 "",
                 bearerTokenProvider,
+                queueMetrics,
                 source));
   }
 
@@ -544,6 +638,7 @@ public abstract class FetchRestApiClientBase {
             pluginName,
             "",
             bearerTokenProvider,
+            queueMetrics,
             source);
     objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api));
 
@@ -642,6 +737,73 @@ public abstract class FetchRestApiClientBase {
     assertAuthentication(httpPost);
   }
 
+  @Test
+  public void shouldCallMultiProjectBatchApplyObjectEndpoint() throws Exception {
+    List<ProjectBatchApplyObjectData> projectBatches =
+        List.of(
+            ProjectBatchApplyObjectData.create(
+                Project.nameKey("test_repo"),
+                List.of(
+                    BatchApplyObjectData.newUpdateRef(
+                        refName, Optional.of(createSampleRevisionData("a")))),
+                eventCreatedOn),
+            ProjectBatchApplyObjectData.create(
+                Project.nameKey("another_repo"),
+                List.of(
+                    BatchApplyObjectData.newUpdateRef(
+                        refName, Optional.of(createSampleRevisionData("b")))),
+                eventCreatedOn));
+
+    objectUnderTest.callMultiProjectBatchSendObject(projectBatches, new URIish(api));
+
+    verify(httpClient, times(1)).execute(httpPostCaptor.capture(), any());
+
+    HttpPost httpPost = httpPostCaptor.getValue();
+    assertThat(httpPost.getURI().getHost()).isEqualTo("gerrit-host");
+    assertThat(httpPost.getURI().getPath())
+        .isEqualTo(
+            String.format(
+                "%s/plugins/pull-replication/multi-project-batch-apply-object",
+                urlAuthenticationPrefix()));
+    assertAuthentication(httpPost);
+    String payload = readPayload(httpPost);
+    assertThat(payload).startsWith("{\"test_repo\":[{\"label\":\"Replication\"");
+    assertThat(payload).contains("\"another_repo\":[{\"label\":\"Replication\"");
+  }
+
+  @Test
+  public void shouldReturnThePerProjectResultsOfTheMultiProjectBatchApplyObject() throws Exception {
+    String responseBody =
+        ")]}'\n{\"status_code\":200,\"value\":{"
+            + "\"test_repo\":{\"status_code\":200},"
+            + "\"another_repo\":{\"status_code\":404,\"message\":\"Not found: another_repo\"}}}";
+    when(httpClient.execute(any(HttpRequestBase.class), any()))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<ResponseHandler<HttpResult>>getArgument(1)
+                    .handleResponse(httpResponse(SC_OK, responseBody)));
+    List<ProjectBatchApplyObjectData> projectBatches =
+        Stream.of("test_repo", "another_repo")
+            .map(
+                project ->
+                    ProjectBatchApplyObjectData.create(
+                        Project.nameKey(project),
+                        List.of(
+                            BatchApplyObjectData.newUpdateRef(
+                                refName, Optional.of(createSampleRevisionData(project)))),
+                        eventCreatedOn))
+            .collect(Collectors.toList());
+
+    Map<Project.NameKey, HttpResult> results =
+        objectUnderTest.callMultiProjectBatchSendObject(projectBatches, new URIish(api));
+
+    assertThat(results.get(Project.nameKey("test_repo")).isSuccessful()).isTrue();
+    HttpResult anotherRepoResult = results.get(Project.nameKey("another_repo"));
+    assertThat(anotherRepoResult.isSuccessful()).isFalse();
+    assertThat(anotherRepoResult.isProjectMissing(Project.nameKey("another_repo"))).isTrue();
+  }
+
   @Test
   public void shouldCallBatchApplyObjectEndpointWithAListOfRefsInPayload() throws Exception {
     List<BatchApplyObjectData> batchApplyObjects = new ArrayList<>();
@@ -689,6 +851,127 @@ public abstract class FetchRestApiClientBase {
     return RawParseUtils.decode(buf.array(), buf.arrayOffset(), buf.limit()).trim();
   }
 
+  @Test
+  public void shouldFailFastWhenCircuitBreakerIsOpen() throws Exception {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(api, 1, 1000L);
+    circuitBreaker.recordFailure();
+    when(source.getCircuitBreaker(any())).thenReturn(Optional.of(circuitBreaker));
+
+    assertThrows(
+        CircuitBreakerOpenException.class,
+        () -> objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api)));
+
+    verify(httpClient, never()).execute(any(), any());
+  }
+
+  @Test
+  public void shouldTripCircuitBreakerAndScheduleProbeWhenTargetIsUnavailable() throws Exception {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(api, 2, 1000L);
+    when(source.getCircuitBreaker(any())).thenReturn(Optional.of(circuitBreaker));
+    when(httpClient.execute(any(HttpRequestBase.class), any()))
+        .thenReturn(new HttpResult(SC_SERVICE_UNAVAILABLE, Optional.empty()));
+
+    objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api));
+    objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api));
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    verify(source, times(1)).scheduleCircuitBreakerProbe(any(), eq(1000L));
+  }
+
+  @Test
+  public void shouldProbeThePullReplicationEndpointWithAuthentication() throws Exception {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(api, 1, 1000L);
+    when(source.getCircuitBreaker(any())).thenReturn(Optional.of(circuitBreaker));
+    when(httpClient.execute(any(HttpRequestBase.class), any()))
+        .thenReturn(
+            new HttpResult(SC_SERVICE_UNAVAILABLE, Optional.empty()),
+            new HttpResult(SC_NOT_FOUND, Optional.empty()));
+    objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api));
+    ArgumentCaptor<Runnable> probe = ArgumentCaptor.forClass(Runnable.class);
+    verify(source).scheduleCircuitBreakerProbe(probe.capture(), eq(1000L));
+
+    probe.getValue().run();
+
+    ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+    verify(httpClient, times(2)).execute(request.capture(), any());
+    HttpRequestBase probeRequest = request.getAllValues().get(1);
+    assertThat(probeRequest.getMethod()).isEqualTo("GET");
+    assertThat(probeRequest.getURI().getPath())
+        .isEqualTo(
+            String.format(
+                "%s/projects/All-Projects/pull-replication~apply-object-status",
+                urlAuthenticationPrefix()));
+    assertThat(probeRequest.getURI().getQuery()).isEqualTo("ticket=circuit-breaker-probe");
+    assertAuthentication(probeRequest);
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void shouldDeferTheRequestWhenTheTargetHasTooManyRequests() throws Exception {
+    when(httpClient.execute(any(HttpRequestBase.class), any()))
+        .thenReturn(new HttpResult(SC_TOO_MANY_REQUESTS, Optional.empty(), Optional.of(7L)));
+
+    RequestDeferredException e =
+        assertThrows(
+            RequestDeferredException.class,
+            () ->
+                objectUnderTest.callFetch(Project.nameKey("test_repo"), refName, new URIish(api)));
+
+    assertThat(e.getRetryAfterMs()).isEqualTo(7000L);
+  }
+
+  @Test
+  public void shouldParseTheRetryAfterOfTooManyRequestsResponses() throws Exception {
+    HttpResponse response = httpResponse(SC_TOO_MANY_REQUESTS, "Too many requests");
+    response.setHeader(HttpHeaders.RETRY_AFTER, "7");
+
+    HttpResult result = ((FetchRestApiClient) objectUnderTest).handleResponse(response);
+
+    assertThat(result.isTooManyRequests()).isTrue();
+    assertThat(result.getRetryAfterSec()).hasValue(7L);
+  }
+
+  @Test
+  public void shouldDiscardTheBodyOfSuccessfulResponses() throws Exception {
+    HttpResult result =
+        ((FetchRestApiClient) objectUnderTest)
+            .handleResponse(httpResponse(SC_CREATED, "result message"));
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getMessage()).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepTheBodyOfFailedResponses() throws Exception {
+    HttpResult result =
+        ((FetchRestApiClient) objectUnderTest)
+            .handleResponse(httpResponse(SC_NOT_FOUND, "Not found: test_repo"));
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.isProjectMissing(Project.nameKey("test_repo"))).isTrue();
+  }
+
+  @Test
+  public void shouldTruncateTheBodyOfFailedResponsesToABoundedPrefix() throws Exception {
+    String largeErrorPage = Strings.repeat("x", FetchRestApiClient.MAX_ERROR_MESSAGE_LENGTH * 10);
+
+    HttpResult result =
+        ((FetchRestApiClient) objectUnderTest)
+            .handleResponse(httpResponse(SC_INTERNAL_SERVER_ERROR, largeErrorPage));
+
+    assertThat(result.getMessage())
+        .hasValue(
+            largeErrorPage.substring(0, FetchRestApiClient.MAX_ERROR_MESSAGE_LENGTH)
+                + FetchRestApiClient.TRUNCATED_MESSAGE_SUFFIX);
+  }
+
+  private HttpResponse httpResponse(int responseCode, String body) {
+    HttpResponse response =
+        new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, responseCode, null));
+    response.setEntity(new StringEntity(body, ContentType.TEXT_PLAIN));
+    return response;
+  }
+
   private RevisionData createSampleRevisionData(String prefix) {
     String commitPrefix = "commit" + prefix;
     String treePrefix = "tree" + prefix;
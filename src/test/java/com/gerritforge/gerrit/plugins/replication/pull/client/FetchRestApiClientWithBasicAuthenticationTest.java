@@ -70,6 +70,7 @@ public class FetchRestApiClientWithBasicAuthenticationTest extends FetchRestApiC
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
     verify(bearerTokenProvider).get();
   }
@@ -49,6 +49,7 @@ public class FetchRestApiClientWithBearerTokenTest extends FetchRestApiClientBas
             pluginName,
             instanceId,
             bearerTokenProvider,
+            queueMetrics,
             source);
     verify(bearerTokenProvider).get();
   }
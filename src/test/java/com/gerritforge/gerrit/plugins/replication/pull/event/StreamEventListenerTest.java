@@ -19,6 +19,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectsCacheKey;
 import com.gerritforge.gerrit.plugins.replication.pull.FetchOne;
 import com.gerritforge.gerrit.plugins.replication.pull.Source;
@@ -75,6 +76,7 @@ public class StreamEventListenerTest {
   @Mock private ExcludedRefsFilter refsFilter;
   @Mock private ProjectDeletionAction projectDeletionAction;
   @Mock private ProjectsCollection projectsCollection;
+  @Mock private ApplyObjectMetrics applyObjectMetrics;
 
   private Cache<ApplyObjectsCacheKey, Long> cache;
 
@@ -104,7 +106,8 @@ public class StreamEventListenerTest {
             refsFilter,
             cache,
             projectDeletionAction,
-            projectsCollection);
+            projectsCollection,
+            applyObjectMetrics);
   }
 
   @Test
@@ -270,6 +273,7 @@ public class StreamEventListenerTest {
     sendRefUpdateEventWithTimestamp(TEST_EVENT_TIMESTAMP, TEST_EVENT_TIMESTAMP);
     verify(executor, never()).submit(any(Runnable.class));
     verify(fetchJob, never()).run();
+    verify(applyObjectMetrics).incrementApplyObjectsCacheHits();
   }
 
   @Test
@@ -284,6 +288,7 @@ public class StreamEventListenerTest {
     sendRefUpdateEventWithTimestamp(TEST_EVENT_TIMESTAMP + 1, TEST_EVENT_TIMESTAMP);
     verify(executor, never()).submit(any(Runnable.class));
     verify(fetchJob).run();
+    verify(applyObjectMetrics).incrementApplyObjectsCacheOutdated();
   }
 
   private void sendRefUpdateEventWithTimestamp(long eventTimestamp, long cachedTimestamp) {
@@ -321,6 +326,7 @@ public class StreamEventListenerTest {
 
     verify(executor, never()).submit(any(FetchJob.class));
     verify(fetchJob).run();
+    verify(applyObjectMetrics).incrementApplyObjectsCacheMisses();
   }
 
   @Test
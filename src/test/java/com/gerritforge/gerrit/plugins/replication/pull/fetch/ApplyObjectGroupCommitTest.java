@@ -0,0 +1,140 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.fetch;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
+import com.google.gerrit.entities.Project;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ApplyObjectGroupCommitTest {
+  private static final Project.NameKey PROJECT = Project.nameKey("test-project");
+  private static final String REF_A = "refs/heads/a";
+  private static final String REF_B = "refs/heads/b";
+  private static final ObjectId OBJECT_ID_A =
+      ObjectId.fromString("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+  private static final ObjectId OBJECT_ID_B =
+      ObjectId.fromString("bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb");
+  private static final long WINDOW_MS = 500L;
+  private static final RevisionData[] NO_REVISIONS = new RevisionData[0];
+
+  @Mock private ApplyObject applyObject;
+
+  private ExecutorService executor;
+  private ApplyObjectGroupCommit objectUnderTest;
+
+  @Before
+  public void setup() {
+    executor = Executors.newFixedThreadPool(2);
+    objectUnderTest = new ApplyObjectGroupCommit(applyObject, WINDOW_MS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldBeDisabledWithoutAWindow() {
+    assertThat(new ApplyObjectGroupCommit(applyObject, 0L).isEnabled()).isFalse();
+    assertThat(objectUnderTest.isEnabled()).isTrue();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCommitConcurrentRefUpdatesTogetherAndReturnTheirOwnResult() throws Exception {
+    CountDownLatch insertedObjects = new CountDownLatch(2);
+    when(applyObject.insertObjects(PROJECT, REF_A, NO_REVISIONS))
+        .thenAnswer(
+            invocation -> {
+              insertedObjects.countDown();
+              return OBJECT_ID_A;
+            });
+    when(applyObject.insertObjects(PROJECT, REF_B, NO_REVISIONS))
+        .thenAnswer(
+            invocation -> {
+              insertedObjects.countDown();
+              return OBJECT_ID_B;
+            });
+    when(applyObject.updateRefs(eq(PROJECT), any(), any()))
+        .thenReturn(
+            Map.of(
+                REF_A, new RefUpdateState(REF_A, RefUpdate.Result.NEW),
+                REF_B, new RefUpdateState(REF_B, RefUpdate.Result.LOCK_FAILURE)));
+
+    Future<RefUpdateState> resultA = executor.submit(() -> apply(REF_A));
+    Future<RefUpdateState> resultB = executor.submit(() -> apply(REF_B));
+    assertThat(insertedObjects.await(WINDOW_MS, TimeUnit.MILLISECONDS)).isTrue();
+
+    assertThat(resultA.get().getResult()).isEqualTo(RefUpdate.Result.NEW);
+    assertThat(resultB.get().getResult()).isEqualTo(RefUpdate.Result.LOCK_FAILURE);
+
+    ArgumentCaptor<Map<String, ObjectId>> refHeads = ArgumentCaptor.forClass(Map.class);
+    ArgumentCaptor<Set<String>> commitRefs = ArgumentCaptor.forClass(Set.class);
+    verify(applyObject, times(1)).updateRefs(eq(PROJECT), refHeads.capture(), commitRefs.capture());
+    assertThat(refHeads.getValue()).containsExactly(REF_A, OBJECT_ID_A, REF_B, OBJECT_ID_B);
+    assertThat(commitRefs.getValue()).containsExactly(REF_A, REF_B);
+  }
+
+  @Test
+  public void shouldCommitTheUpdatesOfTheSameRefInSeparateGroups() throws Exception {
+    when(applyObject.insertObjects(PROJECT, REF_A, NO_REVISIONS)).thenReturn(OBJECT_ID_A);
+    when(applyObject.updateRefs(eq(PROJECT), any(), any()))
+        .thenReturn(Map.of(REF_A, new RefUpdateState(REF_A, RefUpdate.Result.FAST_FORWARD)));
+
+    Future<RefUpdateState> first = executor.submit(() -> apply(REF_A));
+    Future<RefUpdateState> second = executor.submit(() -> apply(REF_A));
+
+    assertThat(first.get().getResult()).isEqualTo(RefUpdate.Result.FAST_FORWARD);
+    assertThat(second.get().getResult()).isEqualTo(RefUpdate.Result.FAST_FORWARD);
+    verify(applyObject, times(2)).updateRefs(eq(PROJECT), any(), any());
+  }
+
+  @Test
+  public void shouldPropagateTheFailureOfTheGroupCommit() throws Exception {
+    when(applyObject.insertObjects(PROJECT, REF_A, NO_REVISIONS)).thenReturn(OBJECT_ID_A);
+    when(applyObject.updateRefs(eq(PROJECT), any(), any())).thenThrow(new IOException("BOOM"));
+
+    IOException e = assertThrows(IOException.class, () -> apply(REF_A));
+
+    assertThat(e).hasMessageThat().isEqualTo("BOOM");
+  }
+
+  private RefUpdateState apply(String refName) throws Exception {
+    return objectUnderTest.apply(PROJECT, new RefSpec(refName), NO_REVISIONS);
+  }
+}
@@ -13,8 +13,15 @@ package com.gerritforge.gerrit.plugins.replication.pull.fetch;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.gerritforge.gerrit.plugins.replication.pull.ApplyObjectMetrics;
 import com.gerritforge.gerrit.plugins.replication.pull.FetchRefSpec;
+import com.gerritforge.gerrit.plugins.replication.pull.LocalGitRepositoryManagerProvider;
 import com.gerritforge.gerrit.plugins.replication.pull.RevisionReader;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionData;
 import com.gerritforge.gerrit.plugins.replication.pull.api.data.RevisionObjectData;
@@ -47,10 +54,16 @@ import com.googlesource.gerrit.plugins.replication.ReplicationConfigImpl;
 import com.googlesource.gerrit.plugins.replication.api.ConfigResource;
 import com.googlesource.gerrit.plugins.replication.api.ReplicationConfig;
 import com.googlesource.gerrit.plugins.replication.api.ReplicationConfigOverrides;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
 import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.junit.Before;
 import org.junit.Test;
@@ -101,6 +114,71 @@ public class ApplyObjectIT extends LightweightPluginDaemonTest {
     }
   }
 
+  @Test
+  public void shouldApplyBatchOfRefsInSingleTransaction() throws Exception {
+    String testRepoProjectName = project + TEST_REPLICATION_SUFFIX;
+    testRepo = cloneProject(createTestProject(testRepoProjectName));
+
+    Result pushResult = createChange();
+    Change.Id changeId = pushResult.getChange().getId();
+    String refName = RefNames.changeMetaRef(changeId);
+    String patchSetRefName = RefNames.patchSetRef(PatchSet.id(changeId, 1));
+    NameKey testRepoKey = Project.nameKey(testRepoProjectName);
+
+    Optional<RevisionData> revisionData;
+    Map<String, RefUpdateState> refUpdateStates;
+    try (Repository repo = repoManager.openRepository(testRepoKey)) {
+      revisionData = reader.read(testRepoKey, repo.exactRef(refName).getObjectId(), refName, 0);
+      // The latest patch-set of the change meta ref is resolved within the same batch
+      Map<String, RevisionData> revisionsData = new LinkedHashMap<>();
+      revisionsData.put(refName, revisionData.get());
+      revisionsData.put(patchSetRefName, revisionData.get());
+      refUpdateStates = objectUnderTest.applyBatch(project, revisionsData);
+    }
+
+    assertThat(refUpdateStates.keySet()).containsExactly(refName, patchSetRefName).inOrder();
+    assertThat(refUpdateStates.get(refName).getResult()).isEqualTo(RefUpdate.Result.NEW);
+    assertThat(refUpdateStates.get(patchSetRefName).getResult()).isEqualTo(RefUpdate.Result.NEW);
+    try (Repository repo = repoManager.openRepository(project);
+        TestRepository<Repository> testRepo = new TestRepository<>(repo); ) {
+      Optional<RevisionData> newRevisionData =
+          reader.read(project, repo.exactRef(refName).getObjectId(), refName, 0);
+      compareObjects(revisionData.get(), newRevisionData);
+      assertThat(repo.exactRef(patchSetRefName).getObjectId())
+          .isEqualTo(repo.exactRef(refName).getObjectId());
+      testRepo.fsck();
+    }
+  }
+
+  @Test
+  public void shouldNotUpdateAnyRefOfTheBatchWhenPatchSetIsMissing() throws Exception {
+    String testRepoProjectName = project + TEST_REPLICATION_SUFFIX;
+    ObjectId metaObjectId;
+    NameKey createTestProject = createTestProject(testRepoProjectName);
+    try (Repository repo = repoManager.openRepository(createTestProject)) {
+      testRepo = cloneProject(createTestProject);
+
+      String seqChangesRef = RefNames.REFS_SEQUENCES + "changes";
+      Result pushResult = createChange();
+      String refName = RefNames.changeMetaRef(pushResult.getChange().getId());
+      metaObjectId = repo.exactRef(refName).getObjectId();
+
+      Map<String, RevisionData> revisionsData = new LinkedHashMap<>();
+      revisionsData.put(seqChangesRef, reader.read(allProjects, seqChangesRef, 0).get());
+      revisionsData.put(refName, reader.read(createTestProject, metaObjectId, refName, 0).get());
+
+      assertThrows(
+          MissingLatestPatchSetException.class,
+          () -> objectUnderTest.applyBatch(project, revisionsData));
+    }
+
+    try (Repository repo = repoManager.openRepository(project)) {
+      assertThat(repo.exactRef(RefNames.REFS_SEQUENCES + "changes")).isNull();
+      // The batch is validated before inserting its objects
+      assertThat(repo.getObjectDatabase().has(metaObjectId)).isFalse();
+    }
+  }
+
   @Test
   public void shouldApplyRefSequencesChanges() throws Exception {
     String testRepoProjectName = project + TEST_REPLICATION_SUFFIX;
@@ -123,6 +201,87 @@ public class ApplyObjectIT extends LightweightPluginDaemonTest {
     }
   }
 
+  @Test
+  public void shouldInsertObjectsIntoAPackWhenReachingThePackThreshold() throws Exception {
+    String testRepoProjectName = project + TEST_REPLICATION_SUFFIX;
+    testRepo = cloneProject(createTestProject(testRepoProjectName));
+
+    Result pushResult = createChange();
+    Change.Id changeId = pushResult.getChange().getId();
+    String refName = RefNames.changeMetaRef(changeId);
+    String patchSetRefName = RefNames.patchSetRef(PatchSet.id(changeId, 1));
+    NameKey testRepoKey = Project.nameKey(testRepoProjectName);
+
+    Config packThresholdConfig = new Config();
+    packThresholdConfig.setInt("replication", null, "applyObjectPackThreshold", 1);
+    ReplicationConfig replicationConfig = mock(ReplicationConfig.class);
+    when(replicationConfig.getConfig()).thenReturn(packThresholdConfig);
+    ApplyObject packApplyObject =
+        new ApplyObject(
+            plugin.getSysInjector().getInstance(LocalGitRepositoryManagerProvider.class),
+            replicationConfig,
+            plugin.getSysInjector().getInstance(ApplyObjectMetrics.class));
+
+    Optional<RevisionData> revisionData;
+    try (Repository repo = repoManager.openRepository(testRepoKey)) {
+      revisionData = reader.read(testRepoKey, repo.exactRef(refName).getObjectId(), refName, 0);
+      packApplyObject.apply(project, FetchRefSpec.fromRef(patchSetRefName), toArray(revisionData));
+      packApplyObject.apply(project, FetchRefSpec.fromRef(refName), toArray(revisionData));
+    }
+
+    try (Repository repo = repoManager.openRepository(project);
+        TestRepository<Repository> testRepo = new TestRepository<>(repo)) {
+      ObjectId refHead = repo.exactRef(refName).getObjectId();
+      ObjectDirectory objectDirectory = (ObjectDirectory) repo.getObjectDatabase();
+      assertThat(objectDirectory.fileFor(refHead).exists()).isFalse();
+      assertThat(objectDirectory.getPacks()).isNotEmpty();
+      compareObjects(revisionData.get(), reader.read(project, refHead, refName, 0));
+      testRepo.fsck();
+    }
+  }
+
+  @Test
+  public void shouldSkipTheInsertionOfTheObjectsAlreadyPresent() throws Exception {
+    String testRepoProjectName = project + TEST_REPLICATION_SUFFIX;
+    testRepo = cloneProject(createTestProject(testRepoProjectName));
+
+    Result pushResult = createChange();
+    Change.Id changeId = pushResult.getChange().getId();
+    String refName = RefNames.changeMetaRef(changeId);
+    String patchSetRefName = RefNames.patchSetRef(PatchSet.id(changeId, 1));
+    NameKey testRepoKey = Project.nameKey(testRepoProjectName);
+
+    ApplyObjectMetrics metrics = mock(ApplyObjectMetrics.class);
+    ApplyObject skippingApplyObject =
+        new ApplyObject(
+            plugin.getSysInjector().getInstance(LocalGitRepositoryManagerProvider.class),
+            plugin.getSysInjector().getInstance(ReplicationConfig.class),
+            metrics);
+
+    Optional<RevisionData> revisionData;
+    try (Repository repo = repoManager.openRepository(testRepoKey)) {
+      revisionData = reader.read(testRepoKey, repo.exactRef(refName).getObjectId(), refName, 0);
+      skippingApplyObject.apply(
+          project, FetchRefSpec.fromRef(patchSetRefName), toArray(revisionData));
+      verify(metrics, never()).incrementSkippedObjects(anyLong(), anyLong());
+
+      skippingApplyObject.apply(project, FetchRefSpec.fromRef(refName), toArray(revisionData));
+    }
+
+    RevisionData appliedRevision = revisionData.get();
+    long skippedBytes =
+        appliedRevision.getCommitObject().getContent().length
+            + appliedRevision.getTreeObject().getContent().length
+            + appliedRevision.getBlobs().stream().mapToLong(blob -> blob.getContent().length).sum();
+    verify(metrics).incrementSkippedObjects(2L + appliedRevision.getBlobs().size(), skippedBytes);
+    try (Repository repo = repoManager.openRepository(project);
+        TestRepository<Repository> testRepo = new TestRepository<>(repo)) {
+      compareObjects(
+          appliedRevision, reader.read(project, repo.exactRef(refName).getObjectId(), refName, 0));
+      testRepo.fsck();
+    }
+  }
+
   @Test
   public void shouldApplyRefMetaObjectWithComments() throws Exception {
     String testRepoProjectName = project + TEST_REPLICATION_SUFFIX;
@@ -0,0 +1,83 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.filter;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.flogger.FluentLogger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.Test;
+
+/**
+ * Compares the {@link RefNameMatcher} with the evaluation of every pattern at every event. It is
+ * not part of the tests, as its outcome depends on the host: run it with {@code bazel test
+ * //plugins/pull-replication:benchmarks}.
+ */
+public class RefNameMatcherBenchmark {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final int PATTERNS_PER_TYPE = 64;
+  private static final int ITERATIONS = 20;
+
+  @Test
+  public void matchRefNames() {
+    List<String> patterns = new ArrayList<>();
+    for (int i = 0; i < PATTERNS_PER_TYPE; i++) {
+      patterns.add("refs/heads/team-" + i + "/*");
+      patterns.add("^refs/heads/release-" + i + "\\.[0-9]+");
+    }
+    List<String> refNames = new ArrayList<>();
+    for (int i = 0; i < 2 * PATTERNS_PER_TYPE; i++) {
+      refNames.add("refs/heads/team-" + i + "/feature");
+      refNames.add("refs/heads/release-" + i + ".1");
+      refNames.add("refs/changes/" + i + "/1000" + i + "/1");
+    }
+    RefNameMatcher matcher = RefNameMatcher.fromPatterns(patterns);
+
+    long naiveNanos =
+        nanosPerEvent(refNames, refName -> patterns.stream().anyMatch(p -> matches(refName, p)));
+    long compiledNanos = nanosPerEvent(refNames, matcher::matches);
+
+    logger.atInfo().log(
+        "Matching a ref against %d patterns: %dns per event when evaluating every pattern, %dns"
+            + " per event when compiled",
+        patterns.size(), naiveNanos, compiledNanos);
+  }
+
+  private static boolean matches(String refName, String pattern) {
+    switch (RefsFilter.PatternType.getPatternType(pattern)) {
+      case REGEX:
+        return refName.matches(pattern);
+      case WILDCARD:
+        return refName.startsWith(pattern.substring(0, pattern.length() - 1));
+      default:
+        return refName.equals(pattern);
+    }
+  }
+
+  private static long nanosPerEvent(List<String> refNames, Predicate<String> matcher) {
+    int matched = 0;
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < ITERATIONS; i++) {
+      for (String refName : refNames) {
+        if (matcher.test(refName)) {
+          matched++;
+        }
+      }
+    }
+    long nanos = stopwatch.elapsed().toNanos() / ((long) ITERATIONS * refNames.size());
+    assertThat(matched).isGreaterThan(0);
+    return nanos;
+  }
+}
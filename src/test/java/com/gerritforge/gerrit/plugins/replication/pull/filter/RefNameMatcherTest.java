@@ -0,0 +1,120 @@
+// Copyright (C) 2025 GerritForge, Inc.
+//
+// Licensed under the BSL 1.1 (the "License");
+// you may not use this file except in compliance with the License.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.gerritforge.gerrit.plugins.replication.pull.filter;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.Test;
+
+public class RefNameMatcherTest {
+  @Test
+  public void shouldMatchTheRefsFilterPatterns() {
+    RefNameMatcher matcher =
+        RefNameMatcher.fromPatterns(
+            List.of("refs/heads/master", "refs/tags/*", "refs/tags/v1/*", "^refs/users/.*/edit"));
+
+    assertThat(matcher.matches("refs/heads/master")).isTrue();
+    assertThat(matcher.matches("refs/heads/master2")).isFalse();
+    assertThat(matcher.matches("refs/tags/")).isTrue();
+    assertThat(matcher.matches("refs/tags/v1/v1.0")).isTrue();
+    assertThat(matcher.matches("refs/tag")).isFalse();
+    assertThat(matcher.matches("refs/users/01/1000001/edit")).isTrue();
+    assertThat(matcher.matches("refs/users/01/1000001/edit-1")).isFalse();
+  }
+
+  @Test
+  public void shouldMatchTheSourcesOfTheRefSpecsLikeJGit() {
+    List<RefSpec> refSpecs =
+        List.of(
+            new RefSpec("+refs/heads/*:refs/heads/*"),
+            new RefSpec("refs/meta/config:refs/meta/config"),
+            new RefSpec("+refs/changes/*/meta:refs/changes/*/meta"),
+            new RefSpec(":refs/heads/deleted"));
+    RefNameMatcher matcher = RefNameMatcher.fromRefSpecs(refSpecs);
+
+    for (String refName :
+        List.of(
+            "refs/heads/master",
+            "refs/heads/",
+            "refs/heads",
+            "refs/meta/config",
+            "refs/meta/configs",
+            "refs/changes/01/1/meta",
+            "refs/changes/01/1/1",
+            "refs/heads/deleted",
+            "refs/tags/v1.0")) {
+      assertThat(matcher.matches(refName))
+          .isEqualTo(refSpecs.stream().anyMatch(refSpec -> refSpec.matchSource(refName)));
+    }
+  }
+
+  @Test
+  public void shouldTellWhetherTheRefsStartingWithAPrefixMayMatch() {
+    RefNameMatcher matcher =
+        RefNameMatcher.fromPatterns(List.of("refs/cache-automerge/*", "refs/meta/external-ids"));
+
+    assertThat(matcher.mayMatchRefsStartingWith("refs/changes/")).isFalse();
+    assertThat(matcher.mayMatchRefsStartingWith("refs/cache-automerge/01/")).isTrue();
+    assertThat(matcher.mayMatchRefsStartingWith("refs/")).isTrue();
+    assertThat(matcher.mayMatchRefsStartingWith("refs/meta/")).isTrue();
+    assertThat(
+            RefNameMatcher.fromPatterns(List.of("^refs/users/.*"))
+                .mayMatchRefsStartingWith("refs/changes/"))
+        .isTrue();
+  }
+
+  @Test
+  public void shouldMatchLikeEvaluatingEveryPattern() {
+    List<String> patterns = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      patterns.add("refs/heads/team-" + i + "/*");
+      patterns.add("^refs/heads/release-" + i + "\\.[0-9]+");
+    }
+    patterns.add("^(?i)refs/heads/hotfix-[a-z]+");
+    patterns.add("^refs/heads/(main|master)");
+    RefNameMatcher matcher = RefNameMatcher.fromPatterns(patterns);
+
+    List<String> refNames = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      refNames.add("refs/heads/team-" + i + "/feature");
+      refNames.add("refs/heads/release-" + i + ".1");
+      refNames.add("refs/heads/release-" + i + ".x");
+      refNames.add("refs/changes/" + i + "/1000" + i + "/1");
+    }
+    refNames.addAll(
+        List.of(
+            "refs/heads/HOTFIX-Abc",
+            "refs/heads/hotfix-1",
+            "refs/heads/main",
+            "refs/heads/MAIN",
+            "refs/heads/master2"));
+
+    for (String refName : refNames) {
+      assertThat(matcher.matches(refName))
+          .isEqualTo(patterns.stream().anyMatch(p -> matches(refName, p)));
+    }
+  }
+
+  private static boolean matches(String refName, String pattern) {
+    switch (RefsFilter.PatternType.getPatternType(pattern)) {
+      case REGEX:
+        return refName.matches(pattern);
+      case WILDCARD:
+        return refName.startsWith(pattern.substring(0, pattern.length() - 1));
+      default:
+        return refName.equals(pattern);
+    }
+  }
+}